@@ -1177,6 +1177,80 @@ public class SearchIntegrationTest extends SearchApiIntegrationTest {
     in.close();
   }
 
+  @Test
+  public void searchStreamWithSearchAfterReturnsAllDocuments() throws Exception {
+    var buffer =
+        IOUtils.toByteArray(
+            new URL(
+                format(
+                    "%s%s/stream?includeFields=id&mode=SEARCH_AFTER", baseUrl, TEST_DATA_INDEX)));
+
+    // Increasing blank lines for the end of stream
+    assertEquals(standardDatasetSize + 1, StringUtils.countMatches(new String(buffer), '\n'));
+  }
+
+  @Test
+  public void multiGetReturnsDocumentsInTheOrderOfTheIds() {
+    given()
+        .log()
+        .all()
+        .baseUri(baseUrl)
+        .contentType(JSON)
+        .expect()
+        .statusCode(SC_OK)
+        .when()
+        .get(
+            format(
+                "%s/_mget?ids=3,%d,1&includeFields=id", TEST_DATA_INDEX, standardDatasetSize + 1))
+        .then()
+        .body("totalCount", equalTo(2))
+        .body("result.testdata.id", equalTo(of("3", "1")))
+        .body("missing", equalTo(of(String.valueOf(standardDatasetSize + 1))));
+
+    given()
+        .log()
+        .all()
+        .baseUri(baseUrl)
+        .contentType(JSON)
+        .body("{\"ids\":[\"2\",\"1\"],\"includeFields\":[\"id\"]}")
+        .expect()
+        .statusCode(SC_OK)
+        .when()
+        .post(TEST_DATA_INDEX + "/_mget")
+        .then()
+        .body("totalCount", equalTo(2))
+        .body("result.testdata.id", equalTo(of("2", "1")))
+        .body("missing", hasSize(0));
+  }
+
+  @Test
+  public void multiSearchReturnsTheResultOrTheErrorOfEachSearch() {
+    var id = standardDatasetSize / 3;
+
+    given()
+        .log()
+        .all()
+        .baseUri(baseUrl)
+        .contentType(JSON)
+        .body(
+            format(
+                "[{\"index\":\"%s\",\"filter\":\"numeric EQ %d\"},"
+                    + "{\"index\":\"invalid-index\"},"
+                    + "{\"index\":\"%s\",\"size\":0}]",
+                TEST_DATA_INDEX, id, TEST_DATA_INDEX))
+        .expect()
+        .statusCode(SC_OK)
+        .when()
+        .post("_msearch")
+        .then()
+        .body("responses", hasSize(3))
+        .body("responses[0].totalCount", equalTo(1))
+        .body("responses[0].result.testdata[0].id", equalTo(String.valueOf(id)))
+        .body("responses[1].status", equalTo(SC_BAD_REQUEST))
+        .body("responses[2].totalCount", equalTo(standardDatasetSize))
+        .body("responses[2].result.testdata", hasSize(0));
+  }
+
   @Test
   public void searchStreamSizeWorksBasedOnNumberOfShards() {
     Integer numberShards =
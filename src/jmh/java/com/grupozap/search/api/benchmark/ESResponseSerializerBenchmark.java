@@ -0,0 +1,228 @@
+package com.grupozap.search.api.benchmark;
+
+import static com.grupozap.search.api.model.http.SearchApiRequestBuilder.INDEX_NAME;
+import static java.util.Collections.emptyList;
+import static java.util.Collections.emptyMap;
+import static org.apache.lucene.search.TotalHits.Relation.EQUAL_TO;
+import static org.elasticsearch.common.bytes.BytesReference.toBytes;
+import static org.elasticsearch.search.SearchHit.createFromMap;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import com.grupozap.search.api.model.serializer.SearchResponseEnvelope;
+import com.grupozap.search.api.serializer.ESResponseSerializer;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.apache.lucene.search.TotalHits;
+import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.action.search.SearchResponse;
+import org.elasticsearch.action.search.ShardSearchFailure;
+import org.elasticsearch.common.bytes.BytesArray;
+import org.elasticsearch.search.DocValueFormat;
+import org.elasticsearch.search.SearchHit;
+import org.elasticsearch.search.SearchHits;
+import org.elasticsearch.search.aggregations.BucketOrder;
+import org.elasticsearch.search.aggregations.InternalAggregation;
+import org.elasticsearch.search.aggregations.InternalAggregations;
+import org.elasticsearch.search.aggregations.bucket.terms.StringTerms;
+import org.elasticsearch.search.aggregations.bucket.terms.Terms;
+import org.elasticsearch.search.internal.InternalSearchResponse;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Compares the serialization of the search responses, with the {@code legacy} benchmarks running
+ * the previous copy-per-hit serializer, so the gc profiler shows the allocations of both.
+ */
+public class ESResponseSerializerBenchmark {
+
+  @Benchmark
+  public String writer(SerializerState state) throws IOException {
+    return state.mapper.writeValueAsString(state.envelope);
+  }
+
+  @Benchmark
+  public void stream(SerializerState state, Blackhole blackhole) throws IOException {
+    state.mapper.writeValue(new BlackholeOutputStream(blackhole), state.envelope);
+  }
+
+  @Benchmark
+  public String legacyWriter(SerializerState state) throws IOException {
+    return state.legacyMapper.writeValueAsString(state.envelope);
+  }
+
+  @Benchmark
+  public void legacyStream(SerializerState state, Blackhole blackhole) throws IOException {
+    state.legacyMapper.writeValue(new BlackholeOutputStream(blackhole), state.envelope);
+  }
+
+  @State(Scope.Benchmark)
+  public static class SerializerState {
+    private static final int HITS = 100;
+    private static final int FACETS = 5;
+    private static final int BUCKETS = 20;
+
+    ObjectMapper mapper;
+    ObjectMapper legacyMapper;
+    SearchResponseEnvelope<SearchResponse> envelope;
+
+    @Setup
+    public void setup() {
+      mapper = new ObjectMapper();
+      var type =
+          mapper
+              .getTypeFactory()
+              .constructCollectionLikeType(SearchResponseEnvelope.class, SearchResponse.class);
+      mapper.registerModule(new SimpleModule().addSerializer(new ESResponseSerializer(type)));
+
+      legacyMapper = new ObjectMapper();
+      legacyMapper.registerModule(
+          new SimpleModule().addSerializer(new LegacyESResponseSerializer(type)));
+
+      var hits = new SearchHit[HITS];
+      for (var i = 0; i < HITS; i++) {
+        Map<String, Object> values = new LinkedHashMap<>();
+        values.put("_source", new BytesArray(source(i)));
+        hits[i] = createFromMap(values);
+      }
+
+      var searchHits = new SearchHits(hits, new TotalHits(HITS, EQUAL_TO), 1.0f);
+      var searchResponse =
+          new SearchResponse(
+              new InternalSearchResponse(searchHits, facets(), null, null, false, null, 1),
+              null,
+              1,
+              1,
+              0,
+              10,
+              ShardSearchFailure.EMPTY_ARRAY,
+              SearchResponse.Clusters.EMPTY);
+      envelope = new SearchResponseEnvelope<>(INDEX_NAME, searchResponse);
+    }
+
+    private static InternalAggregations facets() {
+      List<InternalAggregation> facets = new ArrayList<>(FACETS);
+      for (var i = 0; i < FACETS; i++) {
+        List<StringTerms.Bucket> buckets = new ArrayList<>(BUCKETS);
+        for (var j = 0; j < BUCKETS; j++) {
+          buckets.add(
+              new StringTerms.Bucket(
+                  new BytesRef("value " + j),
+                  BUCKETS - j,
+                  InternalAggregations.EMPTY,
+                  false,
+                  0,
+                  DocValueFormat.RAW));
+        }
+        facets.add(
+            new StringTerms(
+                "facet" + i,
+                BucketOrder.count(false),
+                BUCKETS,
+                1,
+                emptyList(),
+                emptyMap(),
+                DocValueFormat.RAW,
+                BUCKETS,
+                false,
+                0,
+                buckets,
+                0));
+      }
+      return new InternalAggregations(facets);
+    }
+
+    private static String source(int id) {
+      var source = new StringBuilder("{\"id\":\"").append(id).append("\"");
+      for (var i = 0; i < 20; i++) {
+        source.append(",\"field").append(i).append("\":\"São Paulo - apartamento ").append(i);
+        source.append("\"");
+      }
+      return source.append("}").toString();
+    }
+  }
+
+  // Copy of the serializer before the sources were written straight to the stream, which copies
+  // each source to a byte[] and decodes it to a String before writing it
+  private static class LegacyESResponseSerializer
+      extends StdSerializer<SearchResponseEnvelope<SearchResponse>> {
+
+    LegacyESResponseSerializer(JavaType type) {
+      super(type);
+    }
+
+    @Override
+    public void serialize(
+        SearchResponseEnvelope<SearchResponse> value,
+        JsonGenerator jgen,
+        SerializerProvider provider)
+        throws IOException {
+      var searchResponse = value.getSearchResponse();
+
+      jgen.writeStartObject();
+      jgen.writeNumberField("time", searchResponse.getTook().getMillis());
+      jgen.writeNumberField("maxScore", searchResponse.getHits().getMaxScore());
+      jgen.writeNumberField("totalCount", searchResponse.getHits().getTotalHits().value);
+
+      var hits = searchResponse.getHits().getHits();
+      jgen.writeObjectFieldStart("result");
+      jgen.writeArrayFieldStart(value.getIndexName());
+      if (hits.length > 0) {
+        var len = hits.length - 1;
+        for (var i = 0; i < len; i++) {
+          jgen.writeRaw(hitAsString(hits[i]));
+          jgen.writeRaw(",");
+        }
+        jgen.writeRaw(hitAsString(hits[len]));
+      }
+      jgen.writeEndArray();
+
+      jgen.writeObjectFieldStart("facets");
+      for (var agg : searchResponse.getAggregations()) {
+        jgen.writeObjectFieldStart(agg.getName());
+        for (var bucket : ((Terms) agg).getBuckets())
+          jgen.writeNumberField(bucket.getKeyAsString(), bucket.getDocCount());
+        jgen.writeEndObject();
+      }
+      jgen.writeEndObject();
+
+      jgen.writeEndObject();
+      jgen.writeEndObject();
+    }
+
+    private String hitAsString(SearchHit h) {
+      var bytes = toBytes(h.getSourceRef());
+      return new String(bytes, 0, bytes.length);
+    }
+  }
+
+  private static class BlackholeOutputStream extends OutputStream {
+    private final Blackhole blackhole;
+
+    BlackholeOutputStream(Blackhole blackhole) {
+      this.blackhole = blackhole;
+    }
+
+    @Override
+    public void write(int b) {
+      blackhole.consume(b);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) {
+      blackhole.consume(b);
+      blackhole.consume(len);
+    }
+  }
+}
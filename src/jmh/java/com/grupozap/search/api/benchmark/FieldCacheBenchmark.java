@@ -0,0 +1,59 @@
+package com.grupozap.search.api.benchmark;
+
+import static com.grupozap.search.api.model.http.SearchApiRequestBuilder.INDEX_NAME;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.grupozap.search.api.listener.SortRescoreListener;
+import com.grupozap.search.api.model.event.ClusterSettingsUpdatedEvent;
+import com.grupozap.search.api.model.mapping.IndexMetadata;
+import com.grupozap.search.api.model.query.Field;
+import com.grupozap.search.api.service.parser.IndexSettings;
+import com.grupozap.search.api.service.parser.factory.FieldCache;
+import com.grupozap.search.api.service.parser.factory.FieldFactory;
+import java.util.HashMap;
+import java.util.Map;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+public class FieldCacheBenchmark {
+
+  private static final int INDICES = 10;
+  private static final int FIELDS = 500;
+
+  @Benchmark
+  public Field getField(FieldCacheState state) {
+    return state.fieldCache.getField("address.geoLocation");
+  }
+
+  @Benchmark
+  public boolean isIndexHasField(FieldCacheState state) {
+    return state.fieldCache.isIndexHasField(INDEX_NAME, "field250");
+  }
+
+  @State(Scope.Benchmark)
+  public static class FieldCacheState {
+    FieldCache fieldCache;
+
+    @Setup
+    public void setup() {
+      var indexSettings = mock(IndexSettings.class);
+      when(indexSettings.getIndex()).thenReturn(INDEX_NAME);
+
+      var builder = IndexMetadata.builder();
+      for (var i = 0; i < FIELDS; i++) builder.field("field" + i, "keyword");
+      var metadata =
+          builder.field("address", "nested").field("address.geoLocation", "geo_point").build();
+
+      Map<String, IndexMetadata> settingsByIndex = new HashMap<>();
+      settingsByIndex.put(INDEX_NAME, metadata);
+      for (var i = 0; i < INDICES; i++) settingsByIndex.put(INDEX_NAME + i, metadata);
+
+      fieldCache = new FieldCache(new FieldFactory(), new SortRescoreListener());
+      fieldCache.setIndexSettings(indexSettings);
+      fieldCache.onApplicationEvent(new ClusterSettingsUpdatedEvent(this, settingsByIndex));
+    }
+  }
+}
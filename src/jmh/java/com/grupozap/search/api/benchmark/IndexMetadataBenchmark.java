@@ -0,0 +1,57 @@
+package com.grupozap.search.api.benchmark;
+
+import com.grupozap.search.api.model.mapping.IndexMetadata;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+public class IndexMetadataBenchmark {
+
+  @Benchmark
+  public IndexMetadata build(IndexMetadataState state) {
+    return IndexMetadata.builder().mappings(state.mappings).build();
+  }
+
+  @Benchmark
+  public String getFieldType(IndexMetadataState state) {
+    return state.metadata.getFieldType(state.field);
+  }
+
+  // The former ConcurrentSkipListMap of the flattened mapping, as baseline
+  @Benchmark
+  public String getFieldTypeFromSkipList(IndexMetadataState state) {
+    return String.valueOf(state.skipList.get(state.field));
+  }
+
+  @State(Scope.Benchmark)
+  public static class IndexMetadataState {
+
+    @Param({"100", "5000"})
+    int fields;
+
+    Map<String, Object> mappings;
+    IndexMetadata metadata;
+    Map<String, Object> skipList;
+    String field;
+
+    @Setup
+    public void setup() {
+      Map<String, Object> properties = new HashMap<>();
+      for (var i = 0; i < fields; i++) {
+        Map<String, Object> children = new HashMap<>();
+        children.put("value", Map.of("type", "keyword"));
+        children.put("score", Map.of("type", "float"));
+        properties.put("field" + i, Map.of("properties", children));
+      }
+      mappings = Map.of("_doc", Map.of("properties", properties));
+      metadata = IndexMetadata.builder().mappings(mappings).build();
+      skipList = new ConcurrentSkipListMap<>(metadata.getFieldTypes());
+      field = "field" + fields / 2 + ".value";
+    }
+  }
+}
@@ -5,23 +5,39 @@ import static com.grupozap.search.api.fixtures.model.parser.ParserTemplateLoader
 import com.grupozap.search.api.model.parser.FilterParser;
 import com.grupozap.search.api.model.parser.NotParser;
 import com.grupozap.search.api.model.parser.OperatorParser;
+import com.grupozap.search.api.model.parser.ParserCache;
 import com.grupozap.search.api.model.parser.QueryParser;
 import com.grupozap.search.api.model.parser.ValueParser;
 import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
 import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
 import org.openjdk.jmh.annotations.State;
 
 public class QueryParserBenchmark {
 
+  private static final String SIMPLE_QUERY = "a = 1";
+  private static final String RECURSIVE_QUERY =
+      "rooms:3 AND pimba:2 AND(suites=1 OR (parkingLots IN [1,\"abc\"] AND xpto <> 3))";
+
+  @Benchmark
+  public Object simpleQuery(QueryState state) {
+    return state.parser.parse(SIMPLE_QUERY);
+  }
+
+  @Benchmark
+  public Object recursiveQuery(QueryState state) {
+    return state.parser.parse(RECURSIVE_QUERY);
+  }
+
   @Benchmark
-  public void simpleQuery(QueryState state) {
-    state.parser.parse("a = 1");
+  public Object simpleQueryCached(QueryState state) {
+    return state.cachedParser.parse(SIMPLE_QUERY);
   }
 
   @Benchmark
-  public void recursiveQuery(QueryState state) {
-    state.parser.parse(
-        "rooms:3 AND pimba:2 AND(suites=1 OR (parkingLots IN [1,\"abc\"] AND xpto <> 3))");
+  public Object recursiveQueryCached(QueryState state) {
+    return state.cachedParser.parse(RECURSIVE_QUERY);
   }
 
   @State(Scope.Benchmark)
@@ -30,6 +46,19 @@ public class QueryParserBenchmark {
     final NotParser notParser = new NotParser();
     final FilterParser filterParser =
         new FilterParser(fieldParserFixture(), operatorParser, new ValueParser());
-    final QueryParser parser = new QueryParser(operatorParser, filterParser, notParser);
+
+    @Param({"false", "true"})
+    boolean recursiveDescent;
+
+    QueryParser parser;
+    QueryParser cachedParser;
+
+    @Setup
+    public void setup() {
+      parser = new QueryParser(operatorParser, filterParser, notParser, null, recursiveDescent);
+      cachedParser =
+          new QueryParser(
+              operatorParser, filterParser, notParser, new ParserCache<>(1000), recursiveDescent);
+    }
   }
 }
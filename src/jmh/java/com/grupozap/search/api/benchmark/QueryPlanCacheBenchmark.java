@@ -0,0 +1,75 @@
+package com.grupozap.search.api.benchmark;
+
+import static com.google.common.collect.Lists.newArrayList;
+import static com.grupozap.search.api.configuration.environment.RemoteProperties.*;
+import static com.grupozap.search.api.fixtures.model.parser.ParserTemplateLoader.*;
+import static com.grupozap.search.api.model.http.SearchApiRequestBuilder.INDEX_NAME;
+import static com.grupozap.search.api.model.http.SearchApiRequestBuilder.create;
+import static org.mockito.Mockito.mock;
+
+import com.grupozap.search.api.adapter.*;
+import com.grupozap.search.api.cache.QueryPlanCache;
+import com.grupozap.search.api.client.SearchApiClient;
+import com.grupozap.search.api.model.http.SearchApiRequest;
+import com.grupozap.search.api.service.parser.factory.DefaultFilterFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+public class QueryPlanCacheBenchmark {
+
+  @Benchmark
+  public byte[] cold(QueryPlanState state) {
+    var request = state.request();
+    return SearchApiClient.compile(state.adapter.query(request).source());
+  }
+
+  @Benchmark
+  public byte[] warm(QueryPlanState state) {
+    var request = state.request();
+    return state.cache.get(request, () -> state.adapter.query(request).source());
+  }
+
+  @State(Scope.Benchmark)
+  public static class QueryPlanState {
+    ElasticsearchQueryAdapter adapter;
+    QueryPlanCache cache;
+
+    @Setup
+    public void setup() {
+      QS_MM.setValue(INDEX_NAME, "75%");
+      QS_DEFAULT_FIELDS.setValue(INDEX_NAME, newArrayList("field", "field1"));
+      ES_QUERY_TIMEOUT_VALUE.setValue(INDEX_NAME, 100);
+      ES_QUERY_TIMEOUT_UNIT.setValue(INDEX_NAME, "MILLISECONDS");
+      ES_DEFAULT_SIZE.setValue(INDEX_NAME, 20);
+      ES_MAX_SIZE.setValue(INDEX_NAME, 200);
+      ES_FACET_SIZE.setValue(INDEX_NAME, 20);
+
+      var filterQueryAdapter = new FilterQueryAdapter(queryParserFixture());
+      adapter =
+          new ElasticsearchQueryAdapter(
+              mock(SourceFieldAdapter.class),
+              new PageQueryAdapter(),
+              mock(SortQueryAdapter.class),
+              new QueryStringAdapter(fieldCacheFixture()),
+              new FunctionScoreAdapter(fieldParserFixture()),
+              queryParserFixture(),
+              filterQueryAdapter,
+              new DefaultFilterFactory(queryParserWithOutValidationFixture(), filterQueryAdapter),
+              new FacetQueryAdapter(facetParserFixture()),
+              false);
+      cache = new QueryPlanCache(1000, fieldCacheFixture());
+    }
+
+    SearchApiRequest request() {
+      return create()
+          .index(INDEX_NAME)
+          .filter("rooms:3 AND pimba:2 AND(suites=1 OR (parkingLots IN [1,\"abc\"] AND xpto <> 3))")
+          .q("apartamento")
+          .from(0)
+          .size(20)
+          .build();
+    }
+  }
+}
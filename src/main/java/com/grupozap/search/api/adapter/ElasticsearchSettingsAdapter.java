@@ -1,28 +1,26 @@
 package com.grupozap.search.api.adapter;
 
-import static com.google.common.collect.Lists.newArrayList;
-import static com.grupozap.search.api.model.mapping.MappingType.FIELD_TYPE_OBJECT;
-import static com.grupozap.search.api.model.mapping.MappingType.FIELD_TYPE_SCRIPT;
-import static com.grupozap.search.api.utils.FlattenMapUtils.flat;
 import static com.grupozap.search.api.utils.MapperUtils.parser;
+import static java.lang.Integer.parseInt;
 import static java.lang.String.valueOf;
-import static org.apache.commons.lang3.StringUtils.isNotEmpty;
+import static java.util.Collections.emptyMap;
+import static java.util.Collections.emptySet;
+import static org.apache.commons.lang3.StringUtils.isEmpty;
 import static org.apache.commons.lang3.StringUtils.startsWith;
 import static org.springframework.http.HttpMethod.GET;
 
+import com.google.common.collect.ImmutableMap;
 import com.grupozap.search.api.exception.IndexNotFoundException;
 import com.grupozap.search.api.exception.PropertyNotFoundException;
 import com.grupozap.search.api.model.event.ClusterSettingsUpdatedEvent;
+import com.grupozap.search.api.model.mapping.IndexMetadata;
 import com.grupozap.search.api.model.mapping.MappingType;
 import com.grupozap.search.api.model.search.Indexable;
 import java.io.IOException;
 import java.util.*;
-import java.util.concurrent.ConcurrentSkipListMap;
-import java.util.stream.Stream;
 import org.apache.http.util.EntityUtils;
 import org.elasticsearch.client.Request;
 import org.elasticsearch.client.RestClient;
-import org.elasticsearch.common.collect.Tuple;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -34,55 +32,66 @@ import org.springframework.stereotype.Component;
 @Component("elasticsearchSettings")
 @DependsOn({"fieldCache", "searchAlias"})
 public class ElasticsearchSettingsAdapter
-    implements SettingsAdapter<Map<String, Map<String, Object>>, String> {
+    implements SettingsAdapter<Map<String, IndexMetadata>, String> {
 
   private static final Logger LOG = LoggerFactory.getLogger(ElasticsearchSettingsAdapter.class);
-  private static final String CLUSTER_STATE_PATH = "/_cluster/state?pretty";
-
-  public static final String SHARDS = "number_of_shards";
-  public static final String REPLICAS = "number_of_replicas";
+  private static final String CLUSTER_STATE_PATH = "/_cluster/state/version,metadata";
+  private static final String METADATA_PATH = "/_cluster/state/metadata";
+  private static final String VERSIONS_FILTER_PATH =
+      "version,state_uuid,metadata.indices.*.version,metadata.stored_scripts.*.lang";
+  private static final String METADATA_FILTER_PATH =
+      "metadata.indices.*.settings.index.number_of_shards,"
+          + "metadata.indices.*.settings.index.number_of_replicas,"
+          + "metadata.indices.*.settings.index.sort,"
+          + "metadata.indices.*.mappings,metadata.indices.*.aliases";
+  private static final int MAX_INDICES_PATH_LENGTH = 2048;
+
+  public static final String SHARDS = IndexMetadata.SHARDS;
+  public static final String REPLICAS = IndexMetadata.REPLICAS;
 
   private final ApplicationEventPublisher applicationEventPublisher;
   private final RestClient restClient;
-  private final Request request;
 
-  private Map<String, Map<String, Object>> structuredIndices;
-  private Map<String, String> aliases;
+  private volatile Map<String, IndexMetadata> metadataByIndex; // Immutable, by index and alias
+  private volatile Map<String, String> aliases;
+  private Map<String, IndexState> indexStates;
+  private String stateVersion;
 
   @Autowired
   public ElasticsearchSettingsAdapter(
       ApplicationEventPublisher applicationEventPublisher, RestClient restClient) {
     this.applicationEventPublisher = applicationEventPublisher;
-    this.structuredIndices = new HashMap<>();
-    this.aliases = new HashMap<>();
+    this.metadataByIndex = emptyMap();
+    this.aliases = emptyMap();
+    this.indexStates = new HashMap<>();
     this.restClient = restClient;
-    this.request = new Request(GET.name(), CLUSTER_STATE_PATH);
 
     loadSettingsInformationFromCluster();
   }
 
   @Override
-  public Map<String, Map<String, Object>> settings() {
-    return structuredIndices;
+  public Map<String, IndexMetadata> settings() {
+    return metadataByIndex;
   }
 
   @Override
   public String settingsByKey(final String index, final String property) {
-    if (!structuredIndices.get(index).containsKey(property))
-      throw new PropertyNotFoundException(property, index);
+    var value = metadataByIndex.get(index).get(property);
+    if (value == null) throw new PropertyNotFoundException(property, index);
 
-    return valueOf(structuredIndices.get(index).get(property));
+    return value;
   }
 
   @Override
   public void checkIndex(final Indexable request) {
-    if (!structuredIndices.containsKey(request.getIndex()))
+    if (!metadataByIndex.containsKey(request.getIndex()))
       throw new IndexNotFoundException(request.getIndex());
   }
 
   @Override
   public String getFieldType(final String index, final String fieldName) {
-    return valueOf(structuredIndices.get(index).get(fieldName));
+    var metadata = metadataByIndex.get(index);
+    return metadata == null ? null : metadata.getFieldType(fieldName);
   }
 
   @Override
@@ -95,142 +104,185 @@ public class ElasticsearchSettingsAdapter
     return this.aliases.getOrDefault(index, index);
   }
 
+  /**
+   * Refreshes the settings when the cluster state changed. Only the versions are requested on every
+   * refresh, and the settings, mappings and aliases are requested just for the indices whose
+   * metadata version changed. The event is published with the indices (and aliases) whose settings
+   * actually changed.
+   */
   @SuppressWarnings("unchecked")
   @Scheduled(fixedRateString = "${es.settings.refresh.rate.ms}")
   private void loadSettingsInformationFromCluster() {
     try {
-      final Map<String, Object> clusterState =
-          parser(EntityUtils.toString(restClient.performRequest(this.request).getEntity()));
-
-      Map<String, Map<String, Object>> structuredIndicesAux = new HashMap<>();
-      final Map<String, Object> metadata = (Map) clusterState.get("metadata");
-
-      /* Starting getting indices information */
-      this.addIndicesInformation(metadata, structuredIndicesAux);
-
-      /* Starting getting Stored-Scripts information */
-      this.addStoredScripts(metadata, structuredIndicesAux);
-
-      if (!structuredIndicesAux.isEmpty()) {
-        structuredIndices = structuredIndicesAux;
+      final var versions = clusterState(CLUSTER_STATE_PATH, VERSIONS_FILTER_PATH);
+      final var stateVersion = versions.get("version") + ":" + versions.get("state_uuid");
+      if (stateVersion.equals(this.stateVersion)) {
+        LOG.debug("Cluster state version {} unchanged", stateVersion);
+        return;
       }
 
+      final Map<String, Object> metadata = (Map) versions.getOrDefault("metadata", new HashMap<>());
+      final var indexStatesAux = indexStates(metadata);
+      final var scripts = storedScripts(metadata);
+
+      Map<String, IndexMetadata> metadataByIndexAux = new HashMap<>();
+      Map<String, String> aliasesAux = new HashMap<>();
+
+      /* Starting getting indices information, with the Stored-Scripts of the index and aliases */
+      indexStatesAux.forEach(
+          (index, state) -> {
+            Set<String> indexScripts = new HashSet<>(scripts.getOrDefault(index, emptySet()));
+            state
+                .metadata
+                .getAliases()
+                .forEach(alias -> indexScripts.addAll(scripts.getOrDefault(alias, emptySet())));
+
+            final var indexMetadata = state.metadata.withScripts(indexScripts);
+            metadataByIndexAux.put(index, indexMetadata);
+            state
+                .metadata
+                .getAliases()
+                .forEach(
+                    alias -> {
+                      aliasesAux.put(alias, index);
+                      metadataByIndexAux.put(alias, indexMetadata);
+                    });
+          });
+      scripts.forEach(
+          (index, indexScripts) ->
+              metadataByIndexAux.computeIfAbsent(
+                  index, i -> IndexMetadata.builder().scripts(indexScripts).build()));
+
+      this.indexStates = indexStatesAux;
+      this.stateVersion = stateVersion;
+      if (metadataByIndexAux.isEmpty()) return;
+
+      var changed = changedIndices(metadataByIndex, metadataByIndexAux);
+      metadataByIndex = ImmutableMap.copyOf(metadataByIndexAux);
+      aliases = ImmutableMap.copyOf(aliasesAux);
+
       LOG.debug("Refresh getting information from cluster settings executed with success");
-      applicationEventPublisher.publishEvent(
-          new ClusterSettingsUpdatedEvent(this, structuredIndices));
+      if (!changed.isEmpty())
+        applicationEventPublisher.publishEvent(
+            new ClusterSettingsUpdatedEvent(this, metadataByIndex, changed));
 
     } catch (IOException e) {
       LOG.error("Error on get stored_scripts", e);
     }
   }
 
+  /** The settings of the indices, requested only for the ones with a new metadata version. */
   @SuppressWarnings("unchecked")
-  private void addIndicesInformation(
-      Map<String, Object> metadata, Map<String, Map<String, Object>> structuredIndicesAux) {
-
-    if (metadata.containsKey("indices")) {
-      var indices = (Map<String, Object>) metadata.get("indices");
-      indices.keySet().stream()
-          .filter(index -> !startsWith(index, "."))
+  private Map<String, IndexState> indexStates(Map<String, Object> metadata) throws IOException {
+    final Map<String, Object> versions = new HashMap<>();
+    ((Map<String, Object>) metadata.getOrDefault("indices", new HashMap<>()))
+        .forEach(
+            (index, indexMetadata) -> {
+              if (!startsWith(index, "."))
+                versions.put(index, ((Map) indexMetadata).get("version"));
+            });
+
+    final Set<String> changed = new TreeSet<>();
+    versions.forEach(
+        (index, version) -> {
+          var state = indexStates.get(index);
+          if (version == null || state == null || !version.equals(state.version))
+            changed.add(index);
+        });
+
+    final Map<String, IndexState> states = new HashMap<>();
+    if (!changed.isEmpty()) {
+      final var indicesPath = String.join(",", changed);
+      final var path =
+          changed.size() == versions.size() || indicesPath.length() > MAX_INDICES_PATH_LENGTH
+              ? METADATA_PATH
+              : METADATA_PATH + "/" + indicesPath;
+      final Map<String, Object> indices =
+          (Map)
+              ((Map)
+                      clusterState(path, METADATA_FILTER_PATH)
+                          .getOrDefault("metadata", new HashMap<>()))
+                  .getOrDefault("indices", new HashMap<>());
+
+      changed.stream()
+          .filter(indices::containsKey)
           .forEach(
-              index -> {
-                Map<String, Object> indexInfo = new ConcurrentSkipListMap<>();
-                newArrayList(SHARDS, REPLICAS)
-                    .forEach(
-                        setting -> {
-                          var value =
-                              valueOf(
-                                  ((Map)
-                                          ((Map) ((Map) indices.get(index)).get("settings"))
-                                              .get("index"))
-                                      .get(setting));
-                          if (isNotEmpty(value)) indexInfo.put(setting, value);
-                        });
-
-                Map<String, Object> mappings = (Map) ((Map) indices.get(index)).get("mappings");
-
-                mappings
-                    .keySet()
-                    .iterator()
-                    .forEachRemaining(obj -> getMappingFromType(indexInfo, mappings, index));
-
-                structuredIndicesAux.put(index, indexInfo);
-              });
-      addIndicesInformationByAliases(indices, structuredIndicesAux);
+              index ->
+                  states.put(
+                      index, indexState(index, versions.get(index), (Map) indices.get(index))));
     }
+
+    versions.keySet().stream()
+        .filter(index -> !changed.contains(index))
+        .forEach(index -> states.put(index, indexStates.get(index)));
+    return states;
   }
 
   @SuppressWarnings("unchecked")
-  private void addIndicesInformationByAliases(
-      Map<String, Object> indices, Map<String, Map<String, Object>> structuredIndicesAux) {
-    indices.entrySet().stream()
-        .filter(indexSettings -> !indexSettings.getKey().startsWith("."))
-        .filter(
-            indexSettings -> !((List) ((Map) indexSettings.getValue()).get("aliases")).isEmpty())
-        .map(
-            indexSettings ->
-                new Tuple<>(
-                    indexSettings.getKey(),
-                    (List<String>) ((Map) indexSettings.getValue()).get("aliases")))
-        .forEach(
-            indexAliases ->
-                indexAliases
-                    .v2()
-                    .forEach(
-                        aliasName -> {
-                          this.aliases.put(aliasName, indexAliases.v1());
-                          structuredIndicesAux.put(
-                              aliasName, structuredIndicesAux.get(indexAliases.v1()));
-                        }));
+  private IndexState indexState(String index, Object version, Map<String, Object> indexMetadata) {
+    final var builder = IndexMetadata.builder();
+    final Map<String, Object> settings =
+        (Map) ((Map) indexMetadata.getOrDefault("settings", new HashMap<>())).get("index");
+    if (settings != null) {
+      builder.shards(toInteger(settings.get(SHARDS))).replicas(toInteger(settings.get(REPLICAS)));
+
+      final var sort = settings.get("sort");
+      if (sort instanceof Map)
+        builder.sortFields(((Map) sort).get("field")).sortOrders(((Map) sort).get("order"));
+    }
+
+    try {
+      // Empty objects and lists are left out by filter_path
+      builder.mappings((Map) indexMetadata.getOrDefault("mappings", new HashMap<>()));
+    } catch (RuntimeException e) {
+      LOG.error("Error on get mapping from index {}", index, e);
+    }
+
+    builder.aliases((List<String>) indexMetadata.getOrDefault("aliases", new ArrayList<>()));
+    return new IndexState(version, builder.build());
+  }
+
+  private static Integer toInteger(Object value) {
+    return value == null || isEmpty(valueOf(value)) ? null : parseInt(valueOf(value));
   }
 
+  private static Set<String> changedIndices(
+      Map<String, IndexMetadata> before, Map<String, IndexMetadata> after) {
+    Set<String> changed = new HashSet<>();
+    after.forEach(
+        (index, metadata) -> {
+          if (!metadata.equals(before.get(index))) changed.add(index);
+        });
+    before.keySet().stream().filter(index -> !after.containsKey(index)).forEach(changed::add);
+    return changed;
+  }
+
+  private Map<String, Object> clusterState(String path, String filterPath) throws IOException {
+    final var request = new Request(GET.name(), path);
+    request.addParameter("filter_path", filterPath);
+    return parser(EntityUtils.toString(restClient.performRequest(request).getEntity()));
+  }
+
+  /** The names of the Stored-Scripts by the index (or alias) prefixing them. */
   @SuppressWarnings("unchecked")
-  private void addStoredScripts(
-      Map<String, Object> metadata, Map<String, Map<String, Object>> structuredIndicesAux) {
-    if (metadata.containsKey("stored_scripts")) {
-      ((Map<String, Object>) metadata.get("stored_scripts"))
-          .keySet()
-          .forEach(
-              script -> {
-                final var index = script.split("_")[0];
-                if (structuredIndicesAux.containsKey(index)) {
-                  structuredIndicesAux.get(index).put(script, FIELD_TYPE_SCRIPT.getDefaultType());
-                } else {
-                  final Map<String, Object> value = new HashMap<>();
-                  value.put(script, FIELD_TYPE_SCRIPT.getDefaultType());
-                  structuredIndicesAux.put(index, value);
-                }
-              });
-    }
+  private static Map<String, Set<String>> storedScripts(Map<String, Object> metadata) {
+    final Map<String, Set<String>> scripts = new HashMap<>();
+    ((Map<String, Object>) metadata.getOrDefault("stored_scripts", new HashMap<>()))
+        .keySet()
+        .forEach(
+            script ->
+                scripts.computeIfAbsent(script.split("_")[0], i -> new HashSet<>()).add(script));
+    return scripts;
   }
 
-  private void getMappingFromType(
-      Map<String, Object> indexInfo, Map<String, Object> mappings, String index) {
+  /** Metadata (without the Stored-Scripts) of a concrete index as of its metadata version. */
+  private static class IndexState {
+    private final Object version;
+    private final IndexMetadata metadata;
 
-    try {
-      indexInfo.putAll(
-          flat(mappings, newArrayList("mappings", "properties", "type", "fields", "_doc", index)));
-      indexInfo.entrySet().stream()
-          .filter(stringObjectEntry -> stringObjectEntry.getKey().contains("."))
-          .map(
-              stringObjectEntry -> {
-                Set<String> missingParams = new HashSet<>();
-                var composeMissingParams = new StringBuilder();
-                Stream.of(stringObjectEntry.getKey().split("\\."))
-                    .forEach(
-                        param -> {
-                          composeMissingParams.append(param);
-                          missingParams.add(composeMissingParams.toString());
-                          composeMissingParams.append(".");
-                        });
-                return missingParams;
-              })
-          .forEach(
-              params ->
-                  params.forEach(
-                      param -> indexInfo.putIfAbsent(param, FIELD_TYPE_OBJECT.getDefaultType())));
-    } catch (Exception e) {
-      LOG.error("Error on get mapping from index {} and type {}", index, e);
+    private IndexState(Object version, IndexMetadata metadata) {
+      this.version = version;
+      this.metadata = metadata;
     }
   }
 }
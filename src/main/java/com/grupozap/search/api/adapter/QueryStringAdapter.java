@@ -16,13 +16,14 @@ import static org.elasticsearch.index.query.MultiMatchQueryBuilder.Type.BEST_FIE
 import static org.elasticsearch.index.query.QueryBuilders.*;
 
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.grupozap.search.api.configuration.environment.ConfigSnapshot;
+import com.grupozap.search.api.configuration.environment.ConfigSnapshot.Derivation;
 import com.grupozap.search.api.exception.InvalidFieldException;
 import com.grupozap.search.api.model.event.RemotePropertiesUpdatedEvent;
 import com.grupozap.search.api.model.query.Field;
 import com.grupozap.search.api.model.search.Queryable;
 import com.grupozap.search.api.service.parser.factory.FieldCache;
 import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
 import org.elasticsearch.index.query.AbstractQueryBuilder;
 import org.elasticsearch.index.query.BoolQueryBuilder;
 import org.elasticsearch.index.query.MultiMatchQueryBuilder;
@@ -45,11 +46,10 @@ public class QueryStringAdapter implements ApplicationListener<RemotePropertiesU
 
   private final FieldCache fieldCache;
 
-  private final Map<String, Set<QSTemplate>> queryTemplatePerIndex;
+  private final Derivation<Set<QSTemplate>> queryTemplates = this::createQueryTemplates;
 
   public QueryStringAdapter(FieldCache fieldCache) {
     this.fieldCache = fieldCache;
-    this.queryTemplatePerIndex = new ConcurrentHashMap<>();
   }
 
   public void apply(BoolQueryBuilder queryBuilder, final Queryable request) {
@@ -61,7 +61,7 @@ public class QueryStringAdapter implements ApplicationListener<RemotePropertiesU
     checkMM(mm);
 
     var queries =
-        queryTemplatePerIndex.getOrDefault(request.getIndex(), DEFAULT_QS_TEMPLATE).stream()
+        ConfigSnapshot.pinned().derived(queryTemplates, request.getIndex()).stream()
             .map(
                 qsTemplate -> {
                   var boolQuery = boolQuery();
@@ -201,17 +201,21 @@ public class QueryStringAdapter implements ApplicationListener<RemotePropertiesU
 
   @Override
   public void onApplicationEvent(RemotePropertiesUpdatedEvent event) {
+    event.getSnapshot().derived(queryTemplates, event.getIndex());
+  }
+
+  private Set<QSTemplate> createQueryTemplates(ConfigSnapshot snapshot, String index) {
+    if (!snapshot.hasProperties(index)) return DEFAULT_QS_TEMPLATE;
+
     var rawQueryTemplates =
-        ofNullable((Set) QS_TEMPLATES.getValue(event.getIndex()))
+        ofNullable((Set) QS_TEMPLATES.getValue(index, snapshot))
             .filter(queries -> !queries.isEmpty())
             .orElse(DEFAULT_QS_TEMPLATE);
 
-    queryTemplatePerIndex.put(
-        event.getIndex(),
-        (Set<QSTemplate>)
-            rawQueryTemplates.stream()
-                .map(this::toQSTemplate)
-                .collect(toCollection(() -> new LinkedHashSet<>(rawQueryTemplates.size()))));
+    return (Set<QSTemplate>)
+        rawQueryTemplates.stream()
+            .map(this::toQSTemplate)
+            .collect(toCollection(() -> new LinkedHashSet<>(rawQueryTemplates.size())));
   }
 
   private QSTemplate toQSTemplate(Object rawQueryTemplate) {
@@ -123,7 +123,7 @@ public class SortQueryAdapter {
 
   private void applyScriptSortQuery(
       final SearchSourceBuilder searchSourceBuilder, final String index, final Item item) {
-    this.scriptRemotePropertiesListener.getScripts().get(index).stream()
+    this.scriptRemotePropertiesListener.getScripts(index).stream()
         .filter(scp -> item.getField().getName().equals(scp.getId()))
         .findFirst()
         .<SortBuilder>map(
@@ -4,12 +4,13 @@ import static com.grupozap.search.api.configuration.environment.RemoteProperties
 import static com.grupozap.search.api.configuration.environment.RemoteProperties.SOURCE_INCLUDES;
 import static org.apache.commons.lang3.ArrayUtils.contains;
 
+import com.grupozap.search.api.configuration.environment.ConfigSnapshot;
+import com.grupozap.search.api.configuration.environment.ConfigSnapshot.Derivation;
 import com.grupozap.search.api.exception.InvalidFieldException;
 import com.grupozap.search.api.model.event.RemotePropertiesUpdatedEvent;
 import com.grupozap.search.api.model.search.Fetchable;
 import com.grupozap.search.api.service.parser.factory.FieldCache;
 import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
 import org.elasticsearch.action.get.GetRequest;
 import org.elasticsearch.search.builder.SearchSourceBuilder;
 import org.elasticsearch.search.fetch.subphase.FetchSourceContext;
@@ -26,17 +27,17 @@ public class SourceFieldAdapter implements ApplicationListener<RemotePropertiesU
 
   private static final String FETCH_ALL_FIELD = "*";
 
+  private static final SourceFields FETCH_ALL =
+      new SourceFields(new String[] {FETCH_ALL_FIELD}, new String[] {});
+
   private final FieldCache fieldCache;
 
-  private final Map<String, String[]> defaultSourceIncludes;
-  private final Map<String, String[]> defaultSourceExcludes;
+  // Validated against the mappings, so computed again when they change
+  private final Derivation<SourceFields> defaultSourceFields = this::computeDefaultSourceFields;
 
   @Autowired
   public SourceFieldAdapter(FieldCache fieldCache) {
     this.fieldCache = fieldCache;
-
-    defaultSourceIncludes = new ConcurrentHashMap<>();
-    defaultSourceExcludes = new ConcurrentHashMap<>();
   }
 
   public void apply(SearchSourceBuilder searchSourceBuilder, final Fetchable request) {
@@ -55,39 +56,45 @@ public class SourceFieldAdapter implements ApplicationListener<RemotePropertiesU
 
   private String[] getFetchSourceIncludeFields(final Fetchable request) {
     return request.getIncludeFields() == null
-        ? defaultSourceIncludes.getOrDefault(request.getIndex(), new String[] {FETCH_ALL_FIELD})
+        ? getDefaultSourceFields(ConfigSnapshot.pinned(), request.getIndex()).includes
         : getFetchSourceIncludeFields(request.getIncludeFields(), request.getIndex());
   }
 
   private String[] getFetchSourceIncludeFields(Set<String> fields, String indexName) {
-    return SOURCE_INCLUDES.getValue(fields, indexName).stream()
+    return getFetchSourceIncludeFields(fields, ConfigSnapshot.pinned(), indexName);
+  }
+
+  private String[] getFetchSourceIncludeFields(
+      Set<String> fields, ConfigSnapshot snapshot, String indexName) {
+    return SOURCE_INCLUDES.getValue(fields, snapshot, indexName).stream()
         .filter(field -> isValidFetchSourceField(indexName, field))
         .toArray(String[]::new);
   }
 
   private String[] getDefaultFetchSourceExcludeFieldsForIndex(
-      String index, String[] defaultIncludes) {
-    return getFetchSourceExcludeFields(null, defaultIncludes, index);
+      ConfigSnapshot snapshot, String index, String[] defaultIncludes) {
+    return getFetchSourceExcludeFields(null, defaultIncludes, snapshot, index);
   }
 
   private String[] getFetchSourceExcludeFields(final Fetchable request, String[] includeFields) {
     return request.getExcludeFields() == null && includeFields.length == 0
-        ? defaultSourceExcludes.getOrDefault(request.getIndex(), new String[] {})
+        ? getDefaultSourceFields(ConfigSnapshot.pinned(), request.getIndex()).excludes
         : getFetchSourceExcludeFields(
-            request.getExcludeFields(), includeFields, request.getIndex());
+            request.getExcludeFields(), includeFields, ConfigSnapshot.pinned(), request.getIndex());
   }
 
   private String[] getFetchSourceExcludeFields(
-      Set<String> fields, String[] includeFields, String indexName) {
-    return SOURCE_EXCLUDES.getValue(fields, indexName).stream()
+      Set<String> fields, String[] includeFields, ConfigSnapshot snapshot, String indexName) {
+    return SOURCE_EXCLUDES.getValue(fields, snapshot, indexName).stream()
         .filter(
             field ->
                 !containsField(includeFields, field) && isValidFetchSourceField(indexName, field))
         .toArray(String[]::new);
   }
 
-  private String[] getDefaultFetchSourceIncludeFieldsForIndex(String index) {
-    return getFetchSourceIncludeFields(null, index);
+  private String[] getDefaultFetchSourceIncludeFieldsForIndex(
+      ConfigSnapshot snapshot, String index) {
+    return getFetchSourceIncludeFields(null, snapshot, index);
   }
 
   private boolean containsField(final String[] includeFields, final String field) {
@@ -106,17 +113,38 @@ public class SourceFieldAdapter implements ApplicationListener<RemotePropertiesU
     throw new InvalidFieldException(fieldName, index);
   }
 
-  @Override
-  public void onApplicationEvent(RemotePropertiesUpdatedEvent event) {
+  private SourceFields getDefaultSourceFields(ConfigSnapshot snapshot, String index) {
+    return snapshot.derived(defaultSourceFields, index, fieldCache.getVersion());
+  }
+
+  private SourceFields computeDefaultSourceFields(ConfigSnapshot snapshot, String index) {
+    if (!snapshot.hasProperties(index)) return FETCH_ALL;
+
     try {
-      var defaultIncludes = getDefaultFetchSourceIncludeFieldsForIndex(event.getIndex());
-      defaultSourceIncludes.put(event.getIndex(), defaultIncludes);
-      defaultSourceExcludes.put(
-          event.getIndex(),
-          getDefaultFetchSourceExcludeFieldsForIndex(event.getIndex(), defaultIncludes));
-      LOG.debug("Refreshed default source fields for index: " + event.getIndex());
+      var defaultIncludes = getDefaultFetchSourceIncludeFieldsForIndex(snapshot, index);
+      return new SourceFields(
+          defaultIncludes,
+          getDefaultFetchSourceExcludeFieldsForIndex(snapshot, index, defaultIncludes));
     } catch (InvalidFieldException e) {
-      LOG.error("Cannot refresh properties for index: " + event.getIndex(), e);
+      LOG.error("Cannot refresh properties for index: " + index, e);
+      return FETCH_ALL;
+    }
+  }
+
+  @Override
+  public void onApplicationEvent(RemotePropertiesUpdatedEvent event) {
+    // Computed ahead of the requests of the new snapshot
+    getDefaultSourceFields(event.getSnapshot(), event.getIndex());
+    LOG.debug("Refreshed default source fields for index: " + event.getIndex());
+  }
+
+  private static final class SourceFields {
+    private final String[] includes;
+    private final String[] excludes;
+
+    private SourceFields(String[] includes, String[] excludes) {
+      this.includes = includes;
+      this.excludes = excludes;
     }
   }
 }
@@ -0,0 +1,318 @@
+package com.grupozap.search.api.cache;
+
+import static com.grupozap.search.api.configuration.environment.RemoteProperties.DEFAULT_INDEX;
+import static com.grupozap.search.api.configuration.environment.RemoteProperties.ES_DOCUMENT_CACHE_MAX_BYTES;
+import static com.grupozap.search.api.configuration.environment.RemoteProperties.ES_DOCUMENT_CACHE_TTL;
+import static com.grupozap.search.api.utils.MapperUtils.parser;
+import static java.lang.String.join;
+import static java.util.Collections.emptyMap;
+import static java.util.Optional.ofNullable;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static org.elasticsearch.common.xcontent.XContentType.JSON;
+import static org.springframework.http.HttpMethod.GET;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.grupozap.search.api.adapter.SettingsAdapter;
+import com.grupozap.search.api.model.event.ClusterSettingsUpdatedEvent;
+import com.grupozap.search.api.model.event.RemotePropertiesUpdatedEvent;
+import com.grupozap.search.api.model.mapping.IndexMetadata;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import org.apache.http.util.EntityUtils;
+import org.elasticsearch.action.get.GetRequest;
+import org.elasticsearch.action.get.GetResponse;
+import org.elasticsearch.client.Request;
+import org.elasticsearch.client.RestClient;
+import org.elasticsearch.common.bytes.BytesArray;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.xcontent.XContentBuilder;
+import org.elasticsearch.common.xcontent.XContentFactory;
+import org.elasticsearch.common.xcontent.XContentHelper;
+import org.elasticsearch.index.get.GetResult;
+import org.elasticsearch.search.fetch.subphase.FetchSourceContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Per-index cache of the full source of the documents got by id, with their version and sequence
+ * number. Projections are applied to the cached source, so every projection of a document shares
+ * the same entry. Entries live at most {@code es.document.cache.ttl} millis (zero disables the
+ * cache for the index), and the whole index is invalidated as soon as its indexing or refresh
+ * counters change. Realtime gets always go to Elasticsearch, since they must see the documents not
+ * refreshed yet.
+ */
+@Component
+public class DocumentCache {
+
+  private static final Logger LOG = LoggerFactory.getLogger(DocumentCache.class);
+
+  static final String CACHE_NAME = "search.document";
+
+  private static final String STATS_FILTER =
+      "indices.*.primaries.indexing.index_total,"
+          + "indices.*.primaries.indexing.delete_total,"
+          + "indices.*.primaries.refresh.total";
+
+  private final RestClient restClient;
+  private final SettingsAdapter<Map<String, IndexMetadata>, String> settingsAdapter;
+  private final MeterRegistry meterRegistry;
+
+  private final Map<String, Cache<DocumentKey, CachedDocument>> caches = new ConcurrentHashMap<>();
+  private final Map<String, Long> generations = new ConcurrentHashMap<>();
+
+  public DocumentCache(
+      RestClient restClient,
+      SettingsAdapter<Map<String, IndexMetadata>, String> settingsAdapter,
+      MeterRegistry meterRegistry) {
+    this.restClient = restClient;
+    this.settingsAdapter = settingsAdapter;
+    this.meterRegistry = meterRegistry;
+  }
+
+  public boolean isEnabled(GetRequest request) {
+    return !request.realtime() && ttl(request.index()) > 0 && maxBytes(request.index()) > 0;
+  }
+
+  /** The cached document with the projection of the request, or null when not cached. */
+  public GetResponse get(GetRequest request) {
+    var document = cache(request.index()).getIfPresent(new DocumentKey(request));
+    return document == null ? null : document.toResponse(request);
+  }
+
+  /** The same request fetching the full source, to be cached. */
+  public GetRequest fullSource(GetRequest request) {
+    return new GetRequest(request.index(), request.id())
+        .realtime(request.realtime())
+        .routing(request.routing())
+        .preference(request.preference())
+        .fetchSourceContext(FetchSourceContext.FETCH_SOURCE);
+  }
+
+  /** Caches the full response of the document and returns it with the projection of the request. */
+  public GetResponse put(GetRequest request, GetResponse fullResponse) {
+    if (!fullResponse.isExists() || fullResponse.isSourceEmpty()) return fullResponse;
+
+    var document = new CachedDocument(fullResponse);
+    cache(request.index()).put(new DocumentKey(request), document);
+    return document.toResponse(request);
+  }
+
+  @Scheduled(fixedRateString = "${es.document.cache.refresh.rate.ms}")
+  public void invalidateChangedIndices() {
+    if (caches.isEmpty()) return;
+
+    try {
+      var current = generations(caches.keySet());
+      caches.forEach(
+          (index, cache) -> {
+            var generation = current.get(index);
+            var previous = generation == null ? null : generations.put(index, generation);
+            if (generation == null || (previous != null && !previous.equals(generation))) {
+              cache.invalidateAll();
+              LOG.debug("Document cache of index {} invalidated", index);
+            }
+          });
+    } catch (Exception e) {
+      // Without the counters it is not possible to know what changed
+      LOG.error("Error to get index stats, invalidating all the document caches", e);
+      caches.values().forEach(Cache::invalidateAll);
+    }
+  }
+
+  @EventListener
+  public void onClusterSettingsUpdated(ClusterSettingsUpdatedEvent event) {
+    caches.forEach(
+        (index, cache) -> {
+          if (event.isChanged(index)) cache.invalidateAll();
+        });
+  }
+
+  @EventListener
+  public void onRemotePropertiesUpdated(RemotePropertiesUpdatedEvent event) {
+    if (DEFAULT_INDEX.equals(event.getIndex())) caches.forEach(this::refresh);
+    else ofNullable(caches.get(event.getIndex())).ifPresent(c -> refresh(event.getIndex(), c));
+  }
+
+  /**
+   * A number that changes whenever a document of the index is indexed or deleted or the index is
+   * refreshed, for each of the given indices (or aliases) that exist.
+   */
+  @SuppressWarnings("unchecked")
+  Map<String, Long> generations(Set<String> indices) throws IOException {
+    var concrete = new HashMap<String, String>();
+    indices.forEach(index -> concrete.put(settingsAdapter.getIndexByAlias(index), index));
+
+    var request =
+        new Request(GET.name(), "/" + join(",", concrete.keySet()) + "/_stats/indexing,refresh");
+    request.addParameter("ignore_unavailable", "true");
+    request.addParameter("filter_path", STATS_FILTER);
+
+    Map<String, Object> stats =
+        parser(EntityUtils.toString(restClient.performRequest(request).getEntity()));
+
+    var result = new HashMap<String, Long>();
+    ((Map<String, Object>) stats.getOrDefault("indices", emptyMap()))
+        .forEach(
+            (index, value) -> {
+              var primaries = (Map<String, Map<String, Number>>) ((Map) value).get("primaries");
+              var generation =
+                  primaries.get("indexing").get("index_total").longValue()
+                      + primaries.get("indexing").get("delete_total").longValue()
+                      + primaries.get("refresh").get("total").longValue();
+              if (concrete.containsKey(index)) result.put(concrete.get(index), generation);
+            });
+    return result;
+  }
+
+  long size(String index) {
+    var cache = cache(index);
+    cache.cleanUp();
+    return cache.estimatedSize();
+  }
+
+  private Cache<DocumentKey, CachedDocument> cache(String index) {
+    return caches.computeIfAbsent(index, this::newCache);
+  }
+
+  private void refresh(String index, Cache<DocumentKey, CachedDocument> cache) {
+    cache.invalidateAll();
+    cache.policy().eviction().ifPresent(eviction -> eviction.setMaximum(maxBytes(index)));
+  }
+
+  private Cache<DocumentKey, CachedDocument> newCache(String index) {
+    Cache<DocumentKey, CachedDocument> cache =
+        Caffeine.newBuilder()
+            .maximumWeight(maxBytes(index))
+            .weigher((DocumentKey key, CachedDocument document) -> document.source.length())
+            .expireAfter(new TtlExpiry(index))
+            .recordStats()
+            .build();
+
+    CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME, "index", index);
+    LOG.info("Document cache created for index {}", index);
+    return cache;
+  }
+
+  private static long ttl(String index) {
+    return ofNullable(ES_DOCUMENT_CACHE_TTL.<Long>getValue(index)).orElse(0L);
+  }
+
+  private static long maxBytes(String index) {
+    return ofNullable(ES_DOCUMENT_CACHE_MAX_BYTES.<Long>getValue(index)).orElse(0L);
+  }
+
+  // The same id may be a different document on each routing
+  private static final class DocumentKey {
+    private final String id;
+    private final String routing;
+
+    private DocumentKey(GetRequest request) {
+      this.id = request.id();
+      this.routing = request.routing();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) return true;
+      if (o == null || getClass() != o.getClass()) return false;
+
+      var key = (DocumentKey) o;
+      return id.equals(key.id) && Objects.equals(routing, key.routing);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(id, routing);
+    }
+  }
+
+  private static class CachedDocument {
+    private final String index;
+    private final String type;
+    private final String id;
+    private final long version;
+    private final long seqNo;
+    private final long primaryTerm;
+    private final BytesReference source;
+
+    private CachedDocument(GetResponse response) {
+      this.index = response.getIndex();
+      this.type = response.getType();
+      this.id = response.getId();
+      this.version = response.getVersion();
+      this.seqNo = response.getSeqNo();
+      this.primaryTerm = response.getPrimaryTerm();
+      this.source = new BytesArray(response.getSourceAsBytesRef().toBytesRef(), true);
+    }
+
+    private GetResponse toResponse(GetRequest request) {
+      return new GetResponse(
+          new GetResult(
+              index,
+              type,
+              id,
+              seqNo,
+              primaryTerm,
+              version,
+              true,
+              project(request.fetchSourceContext()),
+              emptyMap(),
+              emptyMap()));
+    }
+
+    // Same source filtering Elasticsearch does on get, applied to the cached full source
+    private BytesReference project(FetchSourceContext context) {
+      if (context == null || !hasFilter(context)) return source;
+
+      var map = XContentHelper.convertToMap(source, true, JSON).v2();
+      try (XContentBuilder builder = XContentFactory.jsonBuilder()) {
+        builder.map(context.getFilter().apply(map));
+        return BytesReference.bytes(builder);
+      } catch (IOException e) {
+        throw new RuntimeException(e);
+      }
+    }
+
+    private static boolean hasFilter(FetchSourceContext context) {
+      var includes = context.includes();
+      return context.excludes().length > 0
+          || !(includes.length == 0 || (includes.length == 1 && "*".equals(includes[0])));
+    }
+  }
+
+  private static class TtlExpiry implements Expiry<DocumentKey, CachedDocument> {
+    private final String index;
+
+    private TtlExpiry(String index) {
+      this.index = index;
+    }
+
+    @Override
+    public long expireAfterCreate(DocumentKey key, CachedDocument value, long currentTime) {
+      return MILLISECONDS.toNanos(ttl(index));
+    }
+
+    @Override
+    public long expireAfterUpdate(
+        DocumentKey key, CachedDocument value, long currentTime, long currentDuration) {
+      return MILLISECONDS.toNanos(ttl(index));
+    }
+
+    @Override
+    public long expireAfterRead(
+        DocumentKey key, CachedDocument value, long currentTime, long currentDuration) {
+      return currentDuration;
+    }
+  }
+}
@@ -0,0 +1,90 @@
+package com.grupozap.search.api.cache;
+
+import static com.grupozap.search.api.configuration.environment.RemoteProperties.DEFAULT_INDEX;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.grupozap.search.api.client.SearchApiClient;
+import com.grupozap.search.api.model.event.ClusterSettingsUpdatedEvent;
+import com.grupozap.search.api.model.event.RemotePropertiesUpdatedEvent;
+import com.grupozap.search.api.model.http.RequestKey;
+import com.grupozap.search.api.model.http.SearchApiRequest;
+import com.grupozap.search.api.service.parser.factory.FieldCache;
+import java.util.Objects;
+import java.util.function.Supplier;
+import org.elasticsearch.search.builder.SearchSourceBuilder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * Cache of compiled (serialized) search request bodies per normalized request, so repeated requests
+ * skip the adapters and the {@link SearchSourceBuilder} serialization.
+ *
+ * <p>A plan is keyed by the versions of the config snapshot and of the mappings it was compiled
+ * with, both read before compiling it, so a plan compiled while either changes is never served for
+ * the new versions.
+ */
+@Component
+public class QueryPlanCache {
+
+  private final Cache<PlanKey, byte[]> cache;
+  private final FieldCache fieldCache;
+
+  public QueryPlanCache(
+      @Value("${es.query.plan.cache.max.size}") long maximumSize, FieldCache fieldCache) {
+    this.cache = Caffeine.newBuilder().maximumSize(maximumSize).build();
+    this.fieldCache = fieldCache;
+  }
+
+  public byte[] get(SearchApiRequest request, Supplier<SearchSourceBuilder> builder) {
+    var key = new PlanKey(RequestKey.of(request), fieldCache.getVersion());
+
+    var plan = cache.getIfPresent(key);
+    if (plan != null) return plan;
+
+    plan = SearchApiClient.compile(builder.get());
+    cache.put(key, plan);
+    return plan;
+  }
+
+  @EventListener
+  public void onClusterSettingsUpdated(ClusterSettingsUpdatedEvent event) {
+    cache.asMap().keySet().removeIf(key -> event.isChanged(key.request.getIndex()));
+  }
+
+  @EventListener
+  public void onRemotePropertiesUpdated(RemotePropertiesUpdatedEvent event) {
+    if (DEFAULT_INDEX.equals(event.getIndex())) cache.invalidateAll();
+    else cache.asMap().keySet().removeIf(key -> event.getIndex().equals(key.request.getIndex()));
+  }
+
+  long size() {
+    cache.cleanUp();
+    return cache.estimatedSize();
+  }
+
+  private static final class PlanKey {
+    private final RequestKey request;
+    private final long mappingVersion;
+
+    private PlanKey(RequestKey request, long mappingVersion) {
+      this.request = request;
+      this.mappingVersion = mappingVersion;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) return true;
+      if (o == null || getClass() != o.getClass()) return false;
+
+      var key = (PlanKey) o;
+      return mappingVersion == key.mappingVersion && request.equals(key.request);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(request, mappingVersion);
+    }
+  }
+}
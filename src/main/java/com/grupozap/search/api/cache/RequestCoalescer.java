@@ -0,0 +1,162 @@
+package com.grupozap.search.api.cache;
+
+import static com.grupozap.search.api.configuration.environment.RemoteProperties.ES_COALESCING_ENABLED;
+import static com.grupozap.search.api.configuration.environment.RemoteProperties.ES_COALESCING_TIMEOUT;
+import static java.lang.Boolean.TRUE;
+import static java.util.Optional.ofNullable;
+import static java.util.concurrent.CompletableFuture.delayedExecutor;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+import com.grupozap.search.api.configuration.environment.ConfigSnapshot;
+import com.grupozap.search.api.model.http.RequestKey;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+import org.springframework.stereotype.Component;
+
+/**
+ * Single-flight of identical requests: while a request (the leader) is in flight, the concurrent
+ * requests with the same {@link RequestKey} (the followers) wait for and share its response instead
+ * of calling the remote server again. Followers wait at most {@code es.coalescing.timeout} millis
+ * for the leader and then make their own call, so a slow leader does not stall them. Enabled per
+ * index by {@code es.coalescing.enabled}.
+ */
+@Component
+public class RequestCoalescer {
+
+  static final String LEADERS = "search.coalescing.leaders";
+  static final String FOLLOWERS = "search.coalescing.followers";
+  static final String TIMEOUTS = "search.coalescing.timeouts";
+
+  private final MeterRegistry meterRegistry;
+
+  private final Map<RequestKey, CompletableFuture<?>> inFlight = new ConcurrentHashMap<>();
+
+  public RequestCoalescer(MeterRegistry meterRegistry) {
+    this.meterRegistry = meterRegistry;
+  }
+
+  public boolean isEnabled(String index) {
+    return TRUE.equals(ES_COALESCING_ENABLED.getValue(index));
+  }
+
+  @SuppressWarnings("unchecked")
+  public <T> T execute(RequestKey key, Supplier<T> call) {
+    if (!isEnabled(key.getIndex())) return call.get();
+
+    var future = new CompletableFuture<T>();
+    var leader = (CompletableFuture<T>) inFlight.putIfAbsent(key, future);
+
+    if (leader == null) {
+      counter(LEADERS, key).increment();
+      try {
+        var response = call.get();
+        future.complete(response);
+        return response;
+      } catch (RuntimeException e) {
+        future.completeExceptionally(e);
+        throw e;
+      } finally {
+        inFlight.remove(key, future);
+      }
+    }
+
+    counter(FOLLOWERS, key).increment();
+    try {
+      return leader.get(timeout(key), MILLISECONDS);
+    } catch (TimeoutException e) {
+      counter(TIMEOUTS, key).increment();
+      return call.get();
+    } catch (ExecutionException e) {
+      throw unwrap(e.getCause());
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new RuntimeException(e);
+    }
+  }
+
+  /**
+   * Same as {@link #execute(RequestKey, Supplier)} for non-blocking calls. The call of a follower
+   * whose leader timed out is made on another thread, so it must not depend on the request scope;
+   * only the config snapshot of the request is pinned to it.
+   */
+  @SuppressWarnings("unchecked")
+  public <T> CompletableFuture<T> executeAsync(
+      RequestKey key, Supplier<CompletableFuture<T>> call) {
+    if (!isEnabled(key.getIndex())) return call.get();
+
+    var future = new CompletableFuture<T>();
+    var leader = (CompletableFuture<T>) inFlight.putIfAbsent(key, future);
+
+    if (leader == null) {
+      counter(LEADERS, key).increment();
+      try {
+        call.get()
+            .whenComplete(
+                (response, e) -> {
+                  inFlight.remove(key, future);
+                  if (e != null) future.completeExceptionally(e);
+                  else future.complete(response);
+                });
+      } catch (RuntimeException e) {
+        inFlight.remove(key, future);
+        future.completeExceptionally(e);
+      }
+      return future.copy();
+    }
+
+    counter(FOLLOWERS, key).increment();
+    var snapshot = ConfigSnapshot.pinned();
+    var follower = new CompletableFuture<T>();
+    leader.whenComplete(
+        (response, e) -> {
+          if (e != null) follower.completeExceptionally(e);
+          else follower.complete(response);
+        });
+
+    CompletableFuture.runAsync(
+        () -> {
+          if (follower.isDone()) return;
+          counter(TIMEOUTS, key).increment();
+          try {
+            snapshot
+                .call(call)
+                .whenComplete(
+                    (response, e) -> {
+                      if (e != null) follower.completeExceptionally(e);
+                      else follower.complete(response);
+                    });
+          } catch (RuntimeException e) {
+            follower.completeExceptionally(e);
+          }
+        },
+        delayedExecutor(timeout(key), MILLISECONDS));
+
+    return follower;
+  }
+
+  int inFlight() {
+    return inFlight.size();
+  }
+
+  private Counter counter(String name, RequestKey key) {
+    return meterRegistry.counter(name, Tags.of("index", key.getIndex()));
+  }
+
+  private static long timeout(RequestKey key) {
+    return ofNullable(ES_COALESCING_TIMEOUT.<Long>getValue(key.getIndex())).orElse(0L);
+  }
+
+  private static RuntimeException unwrap(Throwable e) {
+    if (e instanceof CompletionException && e.getCause() != null) e = e.getCause();
+    if (e instanceof RuntimeException) return (RuntimeException) e;
+    return new RuntimeException(e);
+  }
+}
@@ -0,0 +1,131 @@
+package com.grupozap.search.api.cache;
+
+import static com.grupozap.search.api.configuration.environment.RemoteProperties.DEFAULT_INDEX;
+import static com.grupozap.search.api.configuration.environment.RemoteProperties.ES_RESPONSE_CACHE_MAX_BYTES;
+import static com.grupozap.search.api.configuration.environment.RemoteProperties.ES_RESPONSE_CACHE_TTL;
+import static java.util.Optional.ofNullable;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.grupozap.search.api.model.event.ClusterSettingsUpdatedEvent;
+import com.grupozap.search.api.model.event.RemotePropertiesUpdatedEvent;
+import com.grupozap.search.api.model.http.RequestKey;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * Per-index cache of serialized search responses. Each index has its own memory budget (in bytes)
+ * and TTL, both configured through {@link
+ * com.grupozap.search.api.configuration.environment.RemoteProperties}. A TTL of zero disables the
+ * cache for the index.
+ */
+@Component
+public class SearchResponseCache {
+
+  private static final Logger LOG = LoggerFactory.getLogger(SearchResponseCache.class);
+
+  static final String CACHE_NAME = "search.response";
+
+  private final ObjectMapper mapper;
+  private final MeterRegistry meterRegistry;
+
+  private final Map<String, Cache<RequestKey, byte[]>> caches = new ConcurrentHashMap<>();
+
+  public SearchResponseCache(ObjectMapper mapper, MeterRegistry meterRegistry) {
+    this.mapper = mapper;
+    this.meterRegistry = meterRegistry;
+  }
+
+  public boolean isEnabled(String index) {
+    return ttl(index) > 0 && maxBytes(index) > 0;
+  }
+
+  public byte[] get(RequestKey key) {
+    return caches.computeIfAbsent(key.getIndex(), this::newCache).getIfPresent(key);
+  }
+
+  public byte[] put(RequestKey key, Object response) {
+    var bytes = serialize(response);
+    caches.computeIfAbsent(key.getIndex(), this::newCache).put(key, bytes);
+    return bytes;
+  }
+
+  @EventListener
+  public void onClusterSettingsUpdated(ClusterSettingsUpdatedEvent event) {
+    caches.forEach(
+        (index, cache) -> {
+          if (event.isChanged(index)) cache.invalidateAll();
+        });
+  }
+
+  @EventListener
+  public void onRemotePropertiesUpdated(RemotePropertiesUpdatedEvent event) {
+    if (DEFAULT_INDEX.equals(event.getIndex())) caches.forEach(this::refresh);
+    else ofNullable(caches.get(event.getIndex())).ifPresent(c -> refresh(event.getIndex(), c));
+  }
+
+  private void refresh(String index, Cache<RequestKey, byte[]> cache) {
+    cache.invalidateAll();
+    cache.policy().eviction().ifPresent(eviction -> eviction.setMaximum(maxBytes(index)));
+  }
+
+  private Cache<RequestKey, byte[]> newCache(String index) {
+    Cache<RequestKey, byte[]> cache =
+        Caffeine.newBuilder()
+            .maximumWeight(maxBytes(index))
+            .weigher((RequestKey key, byte[] value) -> value.length)
+            .expireAfter(new TtlExpiry())
+            .recordStats()
+            .build();
+
+    CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME, "index", index);
+    LOG.info("Search response cache created for index {}", index);
+    return cache;
+  }
+
+  private byte[] serialize(Object response) {
+    try {
+      return mapper.writeValueAsBytes(response);
+    } catch (JsonProcessingException e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+  private static long ttl(String index) {
+    return ofNullable(ES_RESPONSE_CACHE_TTL.<Long>getValue(index)).orElse(0L);
+  }
+
+  private static long maxBytes(String index) {
+    return ofNullable(ES_RESPONSE_CACHE_MAX_BYTES.<Long>getValue(index)).orElse(0L);
+  }
+
+  private static class TtlExpiry implements Expiry<RequestKey, byte[]> {
+
+    @Override
+    public long expireAfterCreate(RequestKey key, byte[] value, long currentTime) {
+      return MILLISECONDS.toNanos(ttl(key.getIndex()));
+    }
+
+    @Override
+    public long expireAfterUpdate(
+        RequestKey key, byte[] value, long currentTime, long currentDuration) {
+      return MILLISECONDS.toNanos(ttl(key.getIndex()));
+    }
+
+    @Override
+    public long expireAfterRead(
+        RequestKey key, byte[] value, long currentTime, long currentDuration) {
+      return currentDuration;
+    }
+  }
+}
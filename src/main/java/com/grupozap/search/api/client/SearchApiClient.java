@@ -0,0 +1,215 @@
+package com.grupozap.search.api.client;
+
+import static java.lang.String.join;
+import static org.elasticsearch.common.xcontent.XContentType.JSON;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.charset.Charset;
+import java.util.List;
+import java.util.Locale;
+import java.util.StringJoiner;
+import org.apache.http.entity.ByteArrayEntity;
+import org.apache.http.entity.ContentType;
+import org.elasticsearch.action.ActionListener;
+import org.elasticsearch.action.search.MultiSearchRequest;
+import org.elasticsearch.action.search.MultiSearchResponse;
+import org.elasticsearch.action.search.SearchRequest;
+import org.elasticsearch.action.search.SearchResponse;
+import org.elasticsearch.action.support.IndicesOptions;
+import org.elasticsearch.client.Request;
+import org.elasticsearch.client.RequestOptions;
+import org.elasticsearch.client.Response;
+import org.elasticsearch.client.ResponseException;
+import org.elasticsearch.client.ResponseListener;
+import org.elasticsearch.client.RestClientBuilder;
+import org.elasticsearch.client.RestHighLevelClient;
+import org.elasticsearch.common.CheckedFunction;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.xcontent.XContentFactory;
+import org.elasticsearch.common.xcontent.XContentHelper;
+import org.elasticsearch.common.xcontent.XContentParser;
+import org.elasticsearch.search.builder.SearchSourceBuilder;
+
+/**
+ * {@link RestHighLevelClient} able to send a search request whose body was already serialized, so
+ * the same body can be reused across requests without rebuilding and serializing the {@link
+ * SearchSourceBuilder}.
+ */
+public class SearchApiClient extends RestHighLevelClient {
+
+  private static final ContentType REQUEST_BODY_CONTENT_TYPE =
+      ContentType.create(JSON.mediaTypeWithoutParameters(), (Charset) null);
+  private static final ContentType MULTI_SEARCH_CONTENT_TYPE =
+      ContentType.create("application/x-ndjson", (Charset) null);
+  private static final int NEW_LINE = '\n';
+
+  public SearchApiClient(RestClientBuilder restClientBuilder) {
+    super(restClientBuilder);
+  }
+
+  public static byte[] compile(SearchSourceBuilder source) {
+    try {
+      return BytesReference.toBytes(XContentHelper.toXContent(source, JSON, false));
+    } catch (IOException e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+  public final SearchResponse search(
+      SearchRequest searchRequest, byte[] source, RequestOptions options) throws IOException {
+    var validation = searchRequest.validate();
+    if (validation != null) throw validation;
+
+    return perform(toRequest(searchRequest, source), options, SearchResponse::fromXContent);
+  }
+
+  public final void searchAsync(
+      SearchRequest searchRequest,
+      byte[] source,
+      RequestOptions options,
+      ActionListener<SearchResponse> listener) {
+    var validation = searchRequest.validate();
+    if (validation != null) {
+      listener.onFailure(validation);
+      return;
+    }
+
+    var request = toRequest(searchRequest, source);
+    request.setOptions(options);
+    getLowLevelClient()
+        .performRequestAsync(
+            request,
+            new ResponseListener() {
+              @Override
+              public void onSuccess(Response response) {
+                SearchResponse searchResponse;
+                try {
+                  searchResponse = parseEntity(response.getEntity(), SearchResponse::fromXContent);
+                } catch (Exception e) {
+                  listener.onFailure(e);
+                  return;
+                }
+                listener.onResponse(searchResponse);
+              }
+
+              @Override
+              public void onFailure(Exception e) {
+                listener.onFailure(
+                    e instanceof ResponseException
+                        ? parseResponseException((ResponseException) e)
+                        : e);
+              }
+            });
+  }
+
+  /** Runs the searches in a single {@code _msearch}, each one with its already serialized body. */
+  public final MultiSearchResponse multiSearch(
+      List<SearchRequest> searchRequests, List<byte[]> sources, RequestOptions options)
+      throws IOException {
+    var multiSearchRequest = new MultiSearchRequest();
+    searchRequests.forEach(multiSearchRequest::add);
+    var validation = multiSearchRequest.validate();
+    if (validation != null) throw validation;
+
+    return perform(
+        toMultiSearchRequest(searchRequests, sources), options, MultiSearchResponse::fromXContext);
+  }
+
+  // Sent through the low level client, with the same error handling of the high level one
+  private <T> T perform(
+      Request request,
+      RequestOptions options,
+      CheckedFunction<XContentParser, T, IOException> entityParser)
+      throws IOException {
+    request.setOptions(options);
+    try {
+      return parseEntity(getLowLevelClient().performRequest(request).getEntity(), entityParser);
+    } catch (ResponseException e) {
+      throw parseResponseException(e);
+    }
+  }
+
+  // Same endpoint and parameters used by RestHighLevelClient#search, with the given body
+  static Request toRequest(SearchRequest searchRequest, byte[] source) {
+    var request = new Request("POST", endpoint(searchRequest.indices(), "_search"));
+
+    request.addParameter("typed_keys", "true");
+    request.addParameter("search_type", searchRequest.searchType().name().toLowerCase(Locale.ROOT));
+    request.addParameter(
+        "ccs_minimize_roundtrips", Boolean.toString(searchRequest.isCcsMinimizeRoundtrips()));
+    request.addParameter(
+        "batched_reduce_size", Integer.toString(searchRequest.getBatchedReduceSize()));
+    addIndicesOptions(request, searchRequest.indicesOptions());
+
+    if (searchRequest.routing() != null) request.addParameter("routing", searchRequest.routing());
+    if (searchRequest.preference() != null)
+      request.addParameter("preference", searchRequest.preference());
+    if (searchRequest.requestCache() != null)
+      request.addParameter("request_cache", Boolean.toString(searchRequest.requestCache()));
+    if (searchRequest.allowPartialSearchResults() != null)
+      request.addParameter(
+          "allow_partial_search_results",
+          Boolean.toString(searchRequest.allowPartialSearchResults()));
+
+    request.setEntity(new ByteArrayEntity(source, REQUEST_BODY_CONTENT_TYPE));
+    return request;
+  }
+
+  // Same path of RestHighLevelClient, skipping empty parts and encoding each one of them
+  private static String endpoint(String[] indices, String endpoint) {
+    var path = new StringJoiner("/", "/", "");
+    var index = join(",", indices);
+    if (!index.isEmpty()) path.add(encodePart(index));
+    return path.add(endpoint).toString();
+  }
+
+  private static String encodePart(String part) {
+    try {
+      // The URI path keeps slashes, which would be read as separators of the path
+      return new URI(null, null, null, -1, "/" + part, null, null)
+          .getRawPath()
+          .substring(1)
+          .replaceAll("/", "%2F");
+    } catch (URISyntaxException e) {
+      throw new IllegalArgumentException("Path part [" + part + "] couldn't be encoded", e);
+    }
+  }
+
+  private static void addIndicesOptions(Request request, IndicesOptions indicesOptions) {
+    request.addParameter(
+        "ignore_unavailable", Boolean.toString(indicesOptions.ignoreUnavailable()));
+    request.addParameter("allow_no_indices", Boolean.toString(indicesOptions.allowNoIndices()));
+
+    var expandWildcards = new StringJoiner(",");
+    if (indicesOptions.expandWildcardsOpen()) expandWildcards.add("open");
+    if (indicesOptions.expandWildcardsClosed()) expandWildcards.add("closed");
+    request.addParameter(
+        "expand_wildcards", expandWildcards.length() == 0 ? "none" : expandWildcards.toString());
+
+    request.addParameter("ignore_throttled", Boolean.toString(indicesOptions.ignoreThrottled()));
+  }
+
+  // One header line (the same parameters of a single search) and one body line per search
+  static Request toMultiSearchRequest(List<SearchRequest> searchRequests, List<byte[]> sources)
+      throws IOException {
+    var request = new Request("POST", "/_msearch");
+    request.addParameter("typed_keys", "true");
+
+    var body = new ByteArrayOutputStream();
+    for (var i = 0; i < searchRequests.size(); i++) {
+      var searchRequest = searchRequests.get(i);
+      try (var header = XContentFactory.jsonBuilder(body)) {
+        MultiSearchRequest.writeSearchRequestParams(searchRequest, header);
+      }
+      body.write(NEW_LINE);
+      body.write(sources.get(i));
+      body.write(NEW_LINE);
+    }
+
+    request.setEntity(new ByteArrayEntity(body.toByteArray(), MULTI_SEARCH_CONTENT_TYPE));
+    return request;
+  }
+}
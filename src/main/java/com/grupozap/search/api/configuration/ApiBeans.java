@@ -3,25 +3,30 @@ package com.grupozap.search.api.configuration;
 import static org.elasticsearch.client.RestClient.builder;
 import static org.springframework.beans.factory.config.BeanDefinition.SCOPE_SINGLETON;
 
+import com.grupozap.search.api.client.SearchApiClient;
+import com.grupozap.search.api.controller.async.AsyncIndexHandlerMapping;
+import com.grupozap.search.api.model.serializer.MultiGetResponseEnvelope;
 import com.grupozap.search.api.model.serializer.SearchResponseEnvelope;
 import com.grupozap.search.api.serializer.ESResponseSerializer;
+import com.grupozap.search.api.serializer.MultiGetResponseSerializer;
 import org.apache.http.HttpHost;
 import org.elasticsearch.client.RestClient;
-import org.elasticsearch.client.RestHighLevelClient;
 import org.springframework.beans.factory.DisposableBean;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.jackson.Jackson2ObjectMapperBuilderCustomizer;
+import org.springframework.boot.autoconfigure.web.servlet.WebMvcRegistrations;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Scope;
 import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerMapping;
 
 @Configuration
 @EnableScheduling
 public class ApiBeans implements DisposableBean {
 
   private RestClient restClient = null;
-  private RestHighLevelClient restHighLevelClient = null;
+  private SearchApiClient restHighLevelClient = null;
 
   @Value("${es.hostname}")
   private String hostname;
@@ -34,14 +39,14 @@ public class ApiBeans implements DisposableBean {
 
   @Bean
   @Scope(SCOPE_SINGLETON)
-  public RestHighLevelClient restHighLevelClient(
+  public SearchApiClient restHighLevelClient(
       @Value("${es.client.socket.timeout}") int socketTimeout,
       @Value("${es.client.conn.timeout}") int connTimeout,
       @Value("${es.client.conn.request.timeout}") int connRequestTimeout,
       @Value("${es.client.http.max.conn.total}") int maxConnTotal,
       @Value("${es.client.http.max.conn.per-route}") int maxConnPerRoute) {
     this.restHighLevelClient =
-        new RestHighLevelClient(
+        new SearchApiClient(
             builder(new HttpHost(hostname, restPort, "http"))
                 .setHttpClientConfigCallback(
                     http -> http.setMaxConnTotal(maxConnTotal).setMaxConnPerRoute(maxConnPerRoute))
@@ -65,8 +70,19 @@ public class ApiBeans implements DisposableBean {
   @Scope(SCOPE_SINGLETON)
   public Jackson2ObjectMapperBuilderCustomizer addCustomSearchResponseDeserialization() {
     return jacksonObjectMapperBuilder ->
-        jacksonObjectMapperBuilder.serializerByType(
-            SearchResponseEnvelope.class, new ESResponseSerializer());
+        jacksonObjectMapperBuilder
+            .serializerByType(SearchResponseEnvelope.class, new ESResponseSerializer())
+            .serializerByType(MultiGetResponseEnvelope.class, new MultiGetResponseSerializer());
+  }
+
+  @Bean
+  public WebMvcRegistrations asyncIndexRegistrations() {
+    return new WebMvcRegistrations() {
+      @Override
+      public RequestMappingHandlerMapping getRequestMappingHandlerMapping() {
+        return new AsyncIndexHandlerMapping();
+      }
+    };
   }
 
   @Override
@@ -0,0 +1,201 @@
+package com.grupozap.search.api.configuration.environment;
+
+import static java.util.Collections.emptyMap;
+import static java.util.Collections.unmodifiableMap;
+
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Immutable, versioned values of the {@link RemoteProperties} of every index. Every update builds a
+ * new snapshot that is published with a single volatile write, so readers never lock and always see
+ * all the properties of an update or none of them.
+ *
+ * <p>A request is {@link #pin() pinned} to the snapshot current when it started, so all of its
+ * properties, and the state derived from them with {@link #derived(Derivation, String)}, come from
+ * the same snapshot even when a new one is published meanwhile.
+ */
+public final class ConfigSnapshot {
+
+  private static final ThreadLocal<ConfigSnapshot> PINNED = new ThreadLocal<>();
+
+  private static volatile ConfigSnapshot current = new ConfigSnapshot(0, emptyMap());
+
+  private final long version;
+  private final Map<String, Map<RemoteProperties, Object>> valuesByIndex;
+  private final Map<DerivedKey, Derived> derived = new ConcurrentHashMap<>();
+
+  private ConfigSnapshot(long version, Map<String, Map<RemoteProperties, Object>> valuesByIndex) {
+    this.version = version;
+    this.valuesByIndex = valuesByIndex;
+  }
+
+  public static ConfigSnapshot current() {
+    return current;
+  }
+
+  /** The snapshot pinned to the current thread, or the current one when there is none. */
+  public static ConfigSnapshot pinned() {
+    var pinned = PINNED.get();
+    return pinned == null ? current : pinned;
+  }
+
+  /** Pins this snapshot to the current thread until the returned pin is closed. */
+  public Pin pin() {
+    var previous = PINNED.get();
+    PINNED.set(this);
+    return () -> {
+      if (previous == null) PINNED.remove();
+      else PINNED.set(previous);
+    };
+  }
+
+  /** Calls with this snapshot pinned, for the work of a request that runs on another thread. */
+  public <T> T call(Supplier<T> call) {
+    var pin = pin();
+    try {
+      return call.get();
+    } finally {
+      pin.close();
+    }
+  }
+
+  /** Same as {@link #call(Supplier)} for work without a result. */
+  public <E extends Exception> void run(Task<E> task) throws E {
+    var pin = pin();
+    try {
+      task.run();
+    } finally {
+      pin.close();
+    }
+  }
+
+  /**
+   * Publishes a new snapshot with the given (already parsed) values of each index over the current
+   * ones.
+   */
+  static synchronized ConfigSnapshot publish(
+      Map<String, Map<RemoteProperties, Object>> valuesByIndex) {
+    var previous = current;
+    Map<String, Map<RemoteProperties, Object>> values = new HashMap<>(previous.valuesByIndex);
+    valuesByIndex.forEach(
+        (index, indexValues) -> {
+          Map<RemoteProperties, Object> merged = new EnumMap<>(RemoteProperties.class);
+          merged.putAll(values.getOrDefault(index, emptyMap()));
+          merged.putAll(indexValues);
+          values.put(index, unmodifiableMap(merged));
+        });
+
+    current = new ConfigSnapshot(previous.version + 1, unmodifiableMap(values));
+    return current;
+  }
+
+  /** Drops every value, only meant for tests. */
+  static synchronized void reset() {
+    current = new ConfigSnapshot(current.version + 1, emptyMap());
+  }
+
+  public long getVersion() {
+    return version;
+  }
+
+  /**
+   * Whether the index has properties of its own, rather than only the ones of the {@link
+   * RemoteProperties#DEFAULT_INDEX}. The state derived from the properties is only built for these
+   * indices, the others get its empty value.
+   */
+  public boolean hasProperties(String index) {
+    return valuesByIndex.containsKey(index);
+  }
+
+  boolean contains(String index, RemoteProperties property) {
+    var values = valuesByIndex.get(index);
+    return values != null && values.containsKey(property);
+  }
+
+  Object get(String index, RemoteProperties property) {
+    var values = valuesByIndex.get(index);
+    return values == null ? null : values.get(property);
+  }
+
+  /**
+   * State of the index derived from the properties of this snapshot, computed once per snapshot, so
+   * publishing the snapshot publishes its derived state too.
+   */
+  public <T> T derived(Derivation<T> derivation, String index) {
+    return derived(derivation, index, 0);
+  }
+
+  /**
+   * Same as {@link #derived(Derivation, String)} for state that also depends on something outside
+   * the snapshot (e.g. the mappings), computed again whenever its version changes. Only the state
+   * of the latest version is kept.
+   */
+  @SuppressWarnings("unchecked")
+  public <T> T derived(Derivation<T> derivation, String index, long version) {
+    var key = new DerivedKey(derivation, index);
+    var state = derived.get(key);
+    if (state != null && state.version == version) return (T) state.value;
+
+    // Not computeIfAbsent, as a derivation may depend on other derived state
+    var computed = new Derived(version, derivation.derive(this, index));
+    var latest =
+        derived.merge(
+            key, computed, (previous, next) -> previous.version >= next.version ? previous : next);
+    return (T) (latest.version == version ? latest.value : computed.value);
+  }
+
+  @FunctionalInterface
+  public interface Derivation<T> {
+    /** Non-null state of the index, read from the given snapshot. */
+    T derive(ConfigSnapshot snapshot, String index);
+  }
+
+  @FunctionalInterface
+  public interface Task<E extends Exception> {
+    void run() throws E;
+  }
+
+  public interface Pin extends AutoCloseable {
+    @Override
+    void close();
+  }
+
+  private static final class DerivedKey {
+    private final Derivation<?> derivation;
+    private final String index;
+
+    private DerivedKey(Derivation<?> derivation, String index) {
+      this.derivation = derivation;
+      this.index = index;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) return true;
+      if (o == null || getClass() != o.getClass()) return false;
+
+      var key = (DerivedKey) o;
+      return derivation == key.derivation && Objects.equals(index, key.index);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(System.identityHashCode(derivation), index);
+    }
+  }
+
+  private static final class Derived {
+    private final long version;
+    private final Object value;
+
+    private Derived(long version, Object value) {
+      this.version = version;
+      this.value = value;
+    }
+  }
+}
@@ -4,6 +4,7 @@ import static com.grupozap.search.api.configuration.environment.RemoteProperties
 import static com.grupozap.search.api.configuration.environment.RemoteProperties.IsRequestValidFunction.NON_EMPTY_COLLECTION;
 import static com.grupozap.search.api.configuration.environment.RemoteProperties.IsRequestValidFunction.NON_NULL_OBJECT;
 import static java.lang.Long.parseLong;
+import static java.util.Collections.singletonMap;
 import static java.util.Optional.ofNullable;
 import static java.util.function.Function.identity;
 import static org.elasticsearch.common.unit.TimeValue.timeValueMillis;
@@ -38,7 +39,33 @@ public enum RemoteProperties {
   ES_CONTROLLER_SEARCH_TIMEOUT("es.controller.search.timeout", AS_TIME_VALUE_MILLIS),
   ES_CONTROLLER_STREAM_TIMEOUT("es.controller.stream.timeout", AS_LONG),
   ES_STREAM_SIZE("es.stream.size"),
+  ES_STREAM_MODE("es.stream.mode"),
+  ES_STREAM_PREFETCH("es.stream.prefetch"),
+  ES_STREAM_PARALLEL("es.stream.parallel"),
+  ES_STREAM_SLICES("es.stream.slices"),
+  ES_STREAM_FLUSH_BYTES("es.stream.flush.bytes"),
+  ES_STREAM_FLUSH_INTERVAL("es.stream.flush.interval", AS_LONG),
+  ES_STREAM_STALL_THRESHOLD("es.stream.stall.threshold", AS_LONG),
+  ES_STREAM_STALL_TIMEOUT("es.stream.stall.timeout", AS_LONG),
   ES_SCROLL_KEEP_ALIVE("es.scroll.keep.alive", AS_LONG),
+  ES_SCROLL_KEEP_ALIVE_MIN("es.scroll.keep.alive.min", AS_LONG),
+  ES_RESPONSE_CACHE_TTL("es.response.cache.ttl", AS_LONG),
+  ES_RESPONSE_CACHE_MAX_BYTES("es.response.cache.max.bytes", AS_LONG),
+  ES_COALESCING_ENABLED("es.coalescing.enabled"),
+  ES_COALESCING_TIMEOUT("es.coalescing.timeout", AS_LONG),
+  ES_DOCUMENT_CACHE_TTL("es.document.cache.ttl", AS_LONG),
+  ES_DOCUMENT_CACHE_MAX_BYTES("es.document.cache.max.bytes", AS_LONG),
+  ES_GET_BY_ID_BATCH_WINDOW("es.get.by.id.batch.window", AS_LONG),
+  ES_GET_BY_ID_BATCH_SIZE("es.get.by.id.batch.size"),
+  ES_ASYNC_ENABLED("es.async.enabled"),
+  ES_BULKHEAD_GROUP("es.bulkhead.group"),
+  ES_BULKHEAD_MAX_CONCURRENT("es.bulkhead.max.concurrent"),
+  ES_BULKHEAD_ERROR_THRESHOLD("es.bulkhead.error.threshold"),
+  ES_BULKHEAD_VOLUME_THRESHOLD("es.bulkhead.volume.threshold"),
+  ES_BULKHEAD_SLEEP_WINDOW("es.bulkhead.sleep.window", AS_LONG),
+  ES_HEDGE_ENABLED("es.hedge.enabled"),
+  ES_HEDGE_PERCENTILE("es.hedge.percentile"),
+  ES_HEDGE_BUDGET("es.hedge.budget"),
   SOURCE_INCLUDES("source.default.includes", AS_SET),
   SOURCE_EXCLUDES("source.default.excludes", AS_SET);
 
@@ -49,8 +76,6 @@ public enum RemoteProperties {
   private final Object defaultValueIfNeverSet;
   private final Function<Object, Boolean> isRequestValueValid;
 
-  private final Map<String, Object> indexProperties;
-
   RemoteProperties(String property) {
     this(property, identity());
   }
@@ -60,32 +85,39 @@ public enum RemoteProperties {
     this.parser = parser;
     this.defaultValueIfNeverSet = getDefaultValueIfNeverSetForParser(parser);
     this.isRequestValueValid = getIsRequestValueValidForParser(parser);
-
-    this.indexProperties = new HashMap<>();
   }
 
   String getProperty() {
     return property;
   }
 
-  Map<String, Object> getIndexProperties() {
-    return indexProperties;
+  public <T> T getValue(String index) {
+    return getValue(index, ConfigSnapshot.pinned());
   }
 
-  public <T> T getValue(String index) {
-    if (indexProperties.containsKey(index)) return (T) indexProperties.get(index);
+  public <T> T getValue(String index, ConfigSnapshot snapshot) {
+    if (snapshot.contains(index, this)) return (T) snapshot.get(index, this);
+    if (snapshot.contains(DEFAULT_INDEX, this)) return (T) snapshot.get(DEFAULT_INDEX, this);
 
-    return (T) indexProperties.getOrDefault(DEFAULT_INDEX, defaultValueIfNeverSet);
+    return (T) defaultValueIfNeverSet;
   }
 
   public <T> T getValue(T requestValue, String index) {
+    return getValue(requestValue, ConfigSnapshot.pinned(), index);
+  }
+
+  public <T> T getValue(T requestValue, ConfigSnapshot snapshot, String index) {
     if (isRequestValueValid.apply(requestValue)) return requestValue;
 
-    return getValue(index);
+    return getValue(index, snapshot);
   }
 
   public void setValue(final String index, final Object value) {
-    this.indexProperties.put(index, parser.apply(value));
+    ConfigSnapshot.publish(singletonMap(index, singletonMap(this, parse(value))));
+  }
+
+  Object parse(final Object value) {
+    return parser.apply(value);
   }
 
   private static Function<Object, Boolean> getIsRequestValueValidForParser(
@@ -4,24 +4,38 @@ import static com.grupozap.search.api.configuration.environment.RemoteProperties
 import static com.grupozap.search.api.utils.MapperUtils.parser;
 import static java.lang.Boolean.*;
 import static java.util.Arrays.stream;
+import static java.util.Collections.emptyList;
+import static java.util.Collections.emptyMap;
+import static java.util.Collections.emptySet;
+import static java.util.Collections.singletonMap;
+import static java.util.stream.Collectors.toList;
 import static org.apache.commons.lang3.math.NumberUtils.createNumber;
 import static org.apache.commons.lang3.math.NumberUtils.isCreatable;
+import static org.apache.http.entity.ContentType.APPLICATION_JSON;
+import static org.elasticsearch.common.xcontent.XContentFactory.jsonBuilder;
 import static org.springframework.http.HttpMethod.GET;
 import static org.springframework.util.CollectionUtils.isEmpty;
 
 import com.grupozap.search.api.model.event.RemotePropertiesUpdatedEvent;
 import java.io.IOException;
+import java.util.EnumMap;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.StreamSupport;
 import org.apache.http.Header;
 import org.apache.http.message.BasicHeader;
+import org.apache.http.nio.entity.NStringEntity;
 import org.apache.http.util.EntityUtils;
 import org.elasticsearch.client.Request;
 import org.elasticsearch.client.RequestOptions;
 import org.elasticsearch.client.ResponseException;
 import org.elasticsearch.client.RestClient;
+import org.elasticsearch.common.Strings;
+import org.elasticsearch.search.builder.SearchSourceBuilder;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.context.ApplicationEventPublisher;
@@ -39,6 +53,8 @@ public class SearchApiEnv {
   private static final Logger LOG = LoggerFactory.getLogger(SearchApiEnv.class);
 
   private static final String SEARCH_API_CONFIG_ENDPOINT = "/search-api-properties/_search";
+  private static final String SEARCH_API_CONFIG_MGET_ENDPOINT = "/search-api-properties/_mget";
+  static final int PAGE_SIZE = 100;
   private static final Header SEARCH_API_HEADERS =
       new BasicHeader("Content-Type", "application/json; charset=UTF-8");
 
@@ -46,7 +62,8 @@ public class SearchApiEnv {
   private final RestClient restClient;
 
   private final Map<String, Object> localProperties = new HashMap<>();
-  private final Map<String, Object> remoteProperties = new HashMap<>();
+  private final Map<String, Object> remoteProperties = new ConcurrentHashMap<>();
+  private final Map<String, String> versions = new HashMap<>();
 
   public SearchApiEnv(
       Environment env, ApplicationEventPublisher applicationEventPublisher, RestClient restClient) {
@@ -68,7 +85,8 @@ public class SearchApiEnv {
                       this.localProperties.put(
                           k, parseLocalEnvironmentValue(environment.getProperty(k)));
                     }));
-    loadEnvironmentProperties(DEFAULT_INDEX, this.localProperties);
+    loadEnvironmentProperties(
+        singletonMap(DEFAULT_INDEX, parseEnvironmentProperties(this.localProperties)));
   }
 
   private Object parseLocalEnvironmentValue(String propertyValue) {
@@ -81,40 +99,64 @@ public class SearchApiEnv {
     return propertyValue;
   }
 
-  @SuppressWarnings("unchecked")
   @Scheduled(fixedRateString = "${application.properties.refresh.rate.ms}")
   private void loadRemoteProperties() {
+    reloadRemoteProperties();
+  }
+
+  /**
+   * Loads the remote properties of the indices whose document changed (by {@code _seq_no} and
+   * {@code _primary_term}) since the last load.
+   *
+   * @return the indices whose properties were reloaded
+   */
+  public synchronized Set<String> reloadRemoteProperties() {
     try {
+      final var current = remoteVersions();
+
+      this.versions.keySet().stream()
+          .filter(index -> !current.containsKey(index))
+          .collect(toList())
+          .forEach(
+              index -> {
+                LOG.warn("Remote properties of {} removed, keeping their last values", index);
+                this.versions.remove(index);
+                this.remoteProperties.remove(index);
+              });
+
+      final var changed =
+          current.entrySet().stream()
+              .filter(entry -> !entry.getValue().equals(this.versions.get(entry.getKey())))
+              .map(Map.Entry::getKey)
+              .collect(toList());
+      if (changed.isEmpty()) return emptySet();
+
+      // Every changed index is applied at once, in a single new configuration snapshot
+      final Map<String, Map<RemoteProperties, Object>> valuesByIndex = new LinkedHashMap<>();
+      final Map<String, Map<String, Object>> sources = new HashMap<>();
+      remoteDocuments(changed)
+          .forEach(
+              doc -> {
+                var index = doc.get("_id").toString();
+                var source = (Map<String, Object>) doc.get("_source");
+                try {
+                  valuesByIndex.put(index, parseEnvironmentProperties(source));
+                  sources.put(index, source);
+                  this.versions.put(index, version(doc));
+                } catch (RuntimeException e) {
+                  LOG.error("Invalid remote properties of {}: {}", index, e.getMessage());
+                }
+              });
+      this.remoteProperties.putAll(sources);
+      loadEnvironmentProperties(valuesByIndex);
+
+      final Set<String> reloaded = valuesByIndex.keySet();
 
-      final var request = new Request(GET.name(), SEARCH_API_CONFIG_ENDPOINT);
-      final var options = RequestOptions.DEFAULT.toBuilder();
-      options.addHeader(SEARCH_API_HEADERS.getName(), SEARCH_API_HEADERS.getValue());
-      request.setOptions(options);
-
-      var entity = restClient.performRequest(request).getEntity();
-
-      if (entity != null) {
-        final HashMap<String, Object> response = parser(EntityUtils.toString(entity));
-        if (!isEmpty(response) && response.containsKey("hits")) {
-
-          final Map hitsMap = (HashMap<String, Object>) response.get("hits");
-
-          if (hitsMap.containsKey("hits")) {
-            ((List<Map>) hitsMap.get("hits"))
-                .forEach(
-                    hit -> {
-                      var source = (Map<String, Object>) hit.get("_source");
-
-                      LOG.debug(
-                          "Remote properties loaded with success. Endpoint: {}",
-                          SEARCH_API_CONFIG_ENDPOINT);
-                      var index = hit.get("_id").toString();
-                      loadEnvironmentProperties(index, source);
-                      this.remoteProperties.put(index, source);
-                    });
-          }
-        }
-      }
+      LOG.debug(
+          "Remote properties of {} loaded with success. Endpoint: {}",
+          reloaded,
+          SEARCH_API_CONFIG_ENDPOINT);
+      return reloaded;
     } catch (ResponseException e) {
       LOG.error(
           "Error to get response from endpoint {}. ErrorMessage: {}",
@@ -126,16 +168,84 @@ public class SearchApiEnv {
           SEARCH_API_CONFIG_ENDPOINT,
           e.getMessage());
     }
+    return emptySet();
   }
 
-  private void loadEnvironmentProperties(final String index, final Map<String, Object> properties) {
+  /** The version of every remote properties document, paginating through all of them. */
+  @SuppressWarnings("unchecked")
+  private Map<String, String> remoteVersions() throws IOException {
+    final Map<String, String> versions = new HashMap<>();
+    for (var from = 0; ; from += PAGE_SIZE) {
+      final var source =
+          new SearchSourceBuilder()
+              .from(from)
+              .size(PAGE_SIZE)
+              .sort("_doc")
+              .fetchSource(false)
+              .seqNoAndPrimaryTerm(true);
+      final Map<String, Object> response = perform(SEARCH_API_CONFIG_ENDPOINT, source.toString());
+      final var hits =
+          (List<Map<String, Object>>)
+              ((Map<String, Object>) response.getOrDefault("hits", emptyMap()))
+                  .getOrDefault("hits", emptyList());
+
+      hits.forEach(hit -> versions.put(hit.get("_id").toString(), version(hit)));
+      if (hits.size() < PAGE_SIZE) return versions;
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  private List<Map<String, Object>> remoteDocuments(List<String> indices) throws IOException {
+    final var body =
+        Strings.toString(
+            jsonBuilder().startObject().array("ids", indices.toArray(new String[0])).endObject());
+    final Map<String, Object> response = perform(SEARCH_API_CONFIG_MGET_ENDPOINT, body);
+    return ((List<Map<String, Object>>) response.getOrDefault("docs", emptyList()))
+        .stream()
+            .filter(doc -> TRUE.equals(doc.get("found")) && doc.get("_source") instanceof Map)
+            .collect(toList());
+  }
+
+  private Map<String, Object> perform(String endpoint, String body) throws IOException {
+    final var request = new Request(GET.name(), endpoint);
+    final var options = RequestOptions.DEFAULT.toBuilder();
+    options.addHeader(SEARCH_API_HEADERS.getName(), SEARCH_API_HEADERS.getValue());
+    request.setOptions(options);
+    request.setEntity(new NStringEntity(body, APPLICATION_JSON));
+
+    final var entity = restClient.performRequest(request).getEntity();
+    if (entity == null) return emptyMap();
+
+    final Map<String, Object> response = parser(EntityUtils.toString(entity));
+    return isEmpty(response) ? emptyMap() : response;
+  }
+
+  private static String version(Map<String, Object> hit) {
+    return hit.get("_primary_term") + ":" + hit.get("_seq_no");
+  }
+
+  private Map<RemoteProperties, Object> parseEnvironmentProperties(
+      final Map<String, Object> properties) {
+    final Map<RemoteProperties, Object> values = new EnumMap<>(RemoteProperties.class);
     stream(RemoteProperties.values())
-        .parallel()
         .filter(remoteProperty -> properties.containsKey(remoteProperty.getProperty()))
-        .forEach(env -> env.setValue(index, properties.get(env.getProperty())));
-    LOG.debug("Environment Properties loaded with success");
+        .forEach(env -> values.put(env, env.parse(properties.get(env.getProperty()))));
+    return values;
+  }
 
-    applicationEventPublisher.publishEvent(new RemotePropertiesUpdatedEvent(this, index));
+  private void loadEnvironmentProperties(
+      final Map<String, Map<RemoteProperties, Object>> valuesByIndex) {
+    if (valuesByIndex.isEmpty()) return;
+
+    final var snapshot = ConfigSnapshot.publish(valuesByIndex);
+    LOG.debug("Environment Properties loaded with success, version {}", snapshot.getVersion());
+
+    valuesByIndex
+        .keySet()
+        .forEach(
+            index ->
+                applicationEventPublisher.publishEvent(
+                    new RemotePropertiesUpdatedEvent(this, index, snapshot)));
     LOG.debug("Environment properties refresh triggered");
   }
 
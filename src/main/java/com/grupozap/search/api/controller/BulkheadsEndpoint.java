@@ -0,0 +1,26 @@
+package com.grupozap.search.api.controller;
+
+import com.grupozap.search.api.service.IndexBulkheads;
+import java.util.Map;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+/**
+ * State of the bulkhead and circuit breaker of each index group, on {@code /actuator/bulkheads}.
+ */
+@Component
+@Endpoint(id = "bulkheads")
+public class BulkheadsEndpoint {
+
+  private final IndexBulkheads indexBulkheads;
+
+  public BulkheadsEndpoint(IndexBulkheads indexBulkheads) {
+    this.indexBulkheads = indexBulkheads;
+  }
+
+  @ReadOperation
+  public Map<String, Map<String, Object>> bulkheads() {
+    return indexBulkheads.status();
+  }
+}
@@ -2,6 +2,7 @@ package com.grupozap.search.api.controller;
 
 import static org.springframework.http.HttpStatus.OK;
 import static org.springframework.web.bind.annotation.RequestMethod.GET;
+import static org.springframework.web.bind.annotation.RequestMethod.POST;
 
 import com.grupozap.search.api.service.ClusterSettingsService;
 import com.grupozap.search.api.service.SearchApiEnvService;
@@ -53,4 +54,16 @@ public class ClusterSettingsController {
   public Object getRemoteProperties() {
     return new ResponseEntity<>(service.getRemoteProperties(), OK);
   }
+
+  @RequestMapping(
+      value = "/properties/remote/_reload",
+      method = POST,
+      produces = MediaType.APPLICATION_JSON_UTF8_VALUE)
+  @ApiOperation(
+      value = "Reload remote properties",
+      notes = "Reloads the remote properties that changed since the last load")
+  @ApiResponse(code = 200, message = "Returns the indices whose properties were reloaded")
+  public Object reloadRemoteProperties() {
+    return new ResponseEntity<>(service.reloadRemoteProperties(), OK);
+  }
 }
@@ -0,0 +1,58 @@
+package com.grupozap.search.api.controller;
+
+import static java.lang.String.valueOf;
+
+import com.grupozap.search.api.configuration.environment.ConfigSnapshot;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import java.io.IOException;
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+/**
+ * Pins every request to the {@link ConfigSnapshot} current when it started, for all of its
+ * dispatches (handler mapping included), and adds the version of that snapshot to the response so
+ * it can be traced back to the configuration it was served with. Work of the request on other
+ * threads must pin the snapshot on its own.
+ */
+@Component
+public class ConfigSnapshotFilter extends OncePerRequestFilter {
+
+  public static final String CONFIG_VERSION_HEADER = "X-Config-Version";
+
+  private static final String SNAPSHOT_ATTRIBUTE = ConfigSnapshot.class.getName();
+
+  public ConfigSnapshotFilter(MeterRegistry meterRegistry) {
+    meterRegistry.gauge(
+        "search.config.version", Tags.empty(), this, f -> ConfigSnapshot.current().getVersion());
+  }
+
+  @Override
+  protected void doFilterInternal(
+      HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+      throws ServletException, IOException {
+    var snapshot = (ConfigSnapshot) request.getAttribute(SNAPSHOT_ATTRIBUTE);
+    if (snapshot == null) {
+      snapshot = ConfigSnapshot.current();
+      request.setAttribute(SNAPSHOT_ATTRIBUTE, snapshot);
+      response.setHeader(CONFIG_VERSION_HEADER, valueOf(snapshot.getVersion()));
+    }
+
+    // Not ConfigSnapshot#run, as the chain throws two checked exceptions
+    var pin = snapshot.pin();
+    try {
+      chain.doFilter(request, response);
+    } finally {
+      pin.close();
+    }
+  }
+
+  @Override
+  protected boolean shouldNotFilterAsyncDispatch() {
+    return false;
+  }
+}
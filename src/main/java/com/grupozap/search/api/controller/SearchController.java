@@ -3,27 +3,46 @@ package com.grupozap.search.api.controller;
 import static com.grupozap.search.api.configuration.ThreadPoolConfig.MAX_SIZE;
 import static com.grupozap.search.api.configuration.ThreadPoolConfig.MIN_SIZE;
 import static com.netflix.hystrix.contrib.javanica.conf.HystrixPropertiesManager.*;
+import static java.util.Optional.ofNullable;
+import static java.util.concurrent.CompletableFuture.completedFuture;
+import static java.util.stream.Collectors.toList;
+import static org.springframework.http.HttpHeaders.ACCEPT;
 import static org.springframework.http.ResponseEntity.notFound;
 import static org.springframework.http.ResponseEntity.ok;
 import static org.springframework.web.bind.annotation.RequestMethod.GET;
+import static org.springframework.web.bind.annotation.RequestMethod.POST;
 
+import com.grupozap.search.api.cache.SearchResponseCache;
+import com.grupozap.search.api.configuration.environment.ConfigSnapshot;
+import com.grupozap.search.api.controller.async.AsyncCommand;
+import com.grupozap.search.api.controller.async.AsyncIndex;
 import com.grupozap.search.api.controller.error.ExceptionHandler;
+import com.grupozap.search.api.exception.ConcurrencyLimitExceededException;
 import com.grupozap.search.api.model.http.BaseApiRequest;
-import com.grupozap.search.api.model.http.FilterableApiRequest;
+import com.grupozap.search.api.model.http.MultiGetApiRequest;
+import com.grupozap.search.api.model.http.RequestKey;
 import com.grupozap.search.api.model.http.SearchApiRequest;
+import com.grupozap.search.api.model.http.StreamApiRequest;
+import com.grupozap.search.api.model.http.StreamFormat;
+import com.grupozap.search.api.model.serializer.MultiGetResponseEnvelope;
 import com.grupozap.search.api.model.serializer.SearchResponseEnvelope;
 import com.grupozap.search.api.service.SearchService;
 import com.grupozap.search.api.service.parser.IndexSettings;
 import com.netflix.config.ConfigurationManager;
+import com.netflix.hystrix.HystrixObservableCommand.Setter;
 import com.netflix.hystrix.contrib.javanica.annotation.DefaultProperties;
 import com.netflix.hystrix.contrib.javanica.annotation.HystrixCommand;
 import com.netflix.hystrix.contrib.javanica.annotation.HystrixProperty;
+import com.netflix.hystrix.exception.HystrixRuntimeException;
 import datadog.trace.api.Trace;
 import io.swagger.annotations.Api;
 import io.swagger.annotations.ApiOperation;
 import io.swagger.annotations.ApiResponse;
 import io.swagger.annotations.ApiResponses;
 import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 import javax.servlet.http.HttpServletResponse;
 import org.jparsec.error.ParserException;
 import org.springframework.beans.InvalidPropertyException;
@@ -33,6 +52,8 @@ import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.http.ResponseEntity.BodyBuilder;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
@@ -46,7 +67,8 @@ import springfox.documentation.annotations.ApiIgnore;
     ignoreExceptions = {
       IllegalArgumentException.class,
       ParserException.class,
-      InvalidPropertyException.class
+      InvalidPropertyException.class,
+      ConcurrencyLimitExceededException.class
     })
 public class SearchController {
 
@@ -54,6 +76,12 @@ public class SearchController {
 
   private static final ResponseEntity<Object> notFoundResponse = notFound().build();
 
+  // Same keys and properties of the @HystrixCommand of the synchronous endpoints
+  private static final Setter ID_COMMAND =
+      AsyncCommand.setter("SearchController", "id", 1024, 5000, 100, 90);
+  private static final Setter SEARCH_COMMAND =
+      AsyncCommand.setter("SearchController", "search", 1024, 10000, 30, 70);
+
   @Autowired private SearchService searchService;
 
   @Autowired private IndexSettings indexSettings;
@@ -62,6 +90,8 @@ public class SearchController {
 
   @Autowired private ExceptionHandler exceptionHandler;
 
+  @Autowired private SearchResponseCache responseCache;
+
   @RequestMapping(
       value = {"/{index}/{id}"},
       method = GET,
@@ -99,6 +129,105 @@ public class SearchController {
     return builderOK.body(new String(response.getSourceAsBytes()));
   }
 
+  @RequestMapping(
+      value = "/{index}/_mget",
+      method = GET,
+      produces = MediaType.APPLICATION_JSON_UTF8_VALUE)
+  @ApiOperation(
+      value = "Search by index with ids",
+      notes = "Returns the documents of the ids, in the same order, and the ids not found")
+  @ApiResponses(
+      value = {
+        @ApiResponse(code = 200, message = "Successfully get by ids"),
+        @ApiResponse(code = 400, message = "Bad parameters request"),
+        @ApiResponse(code = 500, message = "Internal Server Error")
+      })
+  @HystrixCommand(
+      commandProperties = {
+        @HystrixProperty(name = EXECUTION_ISOLATION_STRATEGY, value = "SEMAPHORE"),
+        @HystrixProperty(
+            name = EXECUTION_ISOLATION_SEMAPHORE_MAX_CONCURRENT_REQUESTS,
+            value = "1024"),
+        @HystrixProperty(name = EXECUTION_TIMEOUT_ENABLED, value = "false"),
+        @HystrixProperty(name = CIRCUIT_BREAKER_SLEEP_WINDOW_IN_MILLISECONDS, value = "5000"),
+        @HystrixProperty(name = CIRCUIT_BREAKER_REQUEST_VOLUME_THRESHOLD, value = "100"),
+        @HystrixProperty(name = CIRCUIT_BREAKER_ERROR_THRESHOLD_PERCENTAGE, value = "90")
+      },
+      threadPoolProperties = {
+        @HystrixProperty(name = CORE_SIZE, value = MIN_SIZE),
+        @HystrixProperty(name = MAX_QUEUE_SIZE, value = MAX_SIZE)
+      })
+  @Trace
+  public ResponseEntity<Object> multiGet(MultiGetApiRequest request) {
+    indexSettings.validateIndex(request);
+    return builderOK.body(
+        new MultiGetResponseEnvelope(
+            indexSettings.getIndexByAlias(), searchService.multiGet(request)));
+  }
+
+  @RequestMapping(
+      value = "/{index}/_mget",
+      method = POST,
+      consumes = MediaType.APPLICATION_JSON_VALUE,
+      produces = MediaType.APPLICATION_JSON_UTF8_VALUE)
+  @ApiOperation(
+      value = "Search by index with ids",
+      notes = "Same as the GET, with the ids and fields on the request body")
+  @ApiResponses(
+      value = {
+        @ApiResponse(code = 200, message = "Successfully get by ids"),
+        @ApiResponse(code = 400, message = "Bad parameters request"),
+        @ApiResponse(code = 500, message = "Internal Server Error")
+      })
+  @HystrixCommand(
+      commandProperties = {
+        @HystrixProperty(name = EXECUTION_ISOLATION_STRATEGY, value = "SEMAPHORE"),
+        @HystrixProperty(
+            name = EXECUTION_ISOLATION_SEMAPHORE_MAX_CONCURRENT_REQUESTS,
+            value = "1024"),
+        @HystrixProperty(name = EXECUTION_TIMEOUT_ENABLED, value = "false"),
+        @HystrixProperty(name = CIRCUIT_BREAKER_SLEEP_WINDOW_IN_MILLISECONDS, value = "5000"),
+        @HystrixProperty(name = CIRCUIT_BREAKER_REQUEST_VOLUME_THRESHOLD, value = "100"),
+        @HystrixProperty(name = CIRCUIT_BREAKER_ERROR_THRESHOLD_PERCENTAGE, value = "90")
+      },
+      threadPoolProperties = {
+        @HystrixProperty(name = CORE_SIZE, value = MIN_SIZE),
+        @HystrixProperty(name = MAX_QUEUE_SIZE, value = MAX_SIZE)
+      })
+  @Trace
+  public ResponseEntity<Object> multiGetPost(
+      @PathVariable String index, @RequestBody MultiGetApiRequest request) {
+    request.setIndex(index);
+    indexSettings.validateIndex(request);
+    return builderOK.body(
+        new MultiGetResponseEnvelope(
+            indexSettings.getIndexByAlias(), searchService.multiGet(request)));
+  }
+
+  @AsyncIndex
+  @RequestMapping(
+      value = {"/{index}/{id}"},
+      method = GET,
+      produces = MediaType.APPLICATION_JSON_UTF8_VALUE)
+  @ApiIgnore
+  @Trace
+  public CompletableFuture<ResponseEntity<Object>> idAsync(
+      BaseApiRequest request, @PathVariable String id) {
+    indexSettings.validateIndex(request);
+    return new AsyncCommand<>(
+            ID_COMMAND,
+            ExceptionHandler::isIgnoredException,
+            () ->
+                searchService
+                    .getByIdAsync(request, request.getIndex(), id)
+                    .thenApply(
+                        response ->
+                            response.isExists()
+                                ? builderOK.<Object>body(new String(response.getSourceAsBytes()))
+                                : notFoundResponse))
+        .toFuture();
+  }
+
   @RequestMapping(
       value = "/{index}",
       method = GET,
@@ -128,14 +257,116 @@ public class SearchController {
   @Trace
   public ResponseEntity<Object> search(SearchApiRequest request) {
     indexSettings.validateIndex(request);
+
+    if (!responseCache.isEnabled(request.getIndex()))
+      return builderOK.body(
+          new SearchResponseEnvelope<>(
+              indexSettings.getIndexByAlias(), searchService.search(request)));
+
+    var key = RequestKey.of(request);
+    var cached = responseCache.get(key);
+    if (cached != null) return builderOK.body(cached);
+
     return builderOK.body(
-        new SearchResponseEnvelope<>(
-            indexSettings.getIndexByAlias(), searchService.search(request)));
+        responseCache.put(
+            key,
+            new SearchResponseEnvelope<>(
+                indexSettings.getIndexByAlias(), searchService.search(request))));
+  }
+
+  @RequestMapping(
+      value = "/_msearch",
+      method = POST,
+      consumes = MediaType.APPLICATION_JSON_VALUE,
+      produces = MediaType.APPLICATION_JSON_UTF8_VALUE)
+  @ApiOperation(
+      value = "Multi search",
+      notes = "Runs many searches, of any index, in a single Elasticsearch request")
+  @ApiResponses(
+      value = {
+        @ApiResponse(code = 200, message = "Successfully get the result of each search"),
+        @ApiResponse(code = 400, message = "Bad parameters request"),
+        @ApiResponse(code = 500, message = "Internal Server Error")
+      })
+  @HystrixCommand(
+      commandProperties = {
+        @HystrixProperty(name = EXECUTION_ISOLATION_STRATEGY, value = "SEMAPHORE"),
+        @HystrixProperty(
+            name = EXECUTION_ISOLATION_SEMAPHORE_MAX_CONCURRENT_REQUESTS,
+            value = "1024"),
+        @HystrixProperty(name = EXECUTION_TIMEOUT_ENABLED, value = "false"),
+        @HystrixProperty(name = CIRCUIT_BREAKER_SLEEP_WINDOW_IN_MILLISECONDS, value = "10000"),
+        @HystrixProperty(name = CIRCUIT_BREAKER_REQUEST_VOLUME_THRESHOLD, value = "30"),
+        @HystrixProperty(name = CIRCUIT_BREAKER_ERROR_THRESHOLD_PERCENTAGE, value = "70")
+      },
+      threadPoolProperties = {
+        @HystrixProperty(name = CORE_SIZE, value = MIN_SIZE),
+        @HystrixProperty(name = MAX_QUEUE_SIZE, value = MAX_SIZE)
+      })
+  @Trace
+  public ResponseEntity<Object> multiSearch(@RequestBody List<SearchApiRequest> requests) {
+    var responses =
+        searchService.multiSearch(requests).stream()
+            .map(
+                item ->
+                    item.isFailure()
+                        ? exceptionHandler.error(item.getFailure()).getBody()
+                        : new SearchResponseEnvelope<>(item.getIndexName(), item.getResponse()))
+            .collect(toList());
+
+    return builderOK.body(Map.of("responses", responses));
+  }
+
+  @AsyncIndex
+  @RequestMapping(
+      value = "/{index}",
+      method = GET,
+      produces = MediaType.APPLICATION_JSON_UTF8_VALUE)
+  @ApiIgnore
+  @Trace
+  public CompletableFuture<ResponseEntity<Object>> searchAsync(SearchApiRequest request) {
+    indexSettings.validateIndex(request);
+
+    // Request scoped values must be resolved before leaving the request thread
+    var indexName = indexSettings.getIndexByAlias();
+    var cacheEnabled = responseCache.isEnabled(request.getIndex());
+    var key = RequestKey.of(request);
+
+    if (cacheEnabled) {
+      var cached = responseCache.get(key);
+      if (cached != null) return completedFuture(builderOK.body(cached));
+    }
+
+    var snapshot = ConfigSnapshot.pinned();
+    return new AsyncCommand<>(
+            SEARCH_COMMAND,
+            ExceptionHandler::isIgnoredException,
+            () ->
+                searchService
+                    .searchAsync(request)
+                    .thenApply(response -> new SearchResponseEnvelope<>(indexName, response))
+                    .thenApply(
+                        envelope ->
+                            builderOK.body(
+                                cacheEnabled
+                                    ? snapshot.call(() -> responseCache.put(key, envelope))
+                                    : envelope)))
+        .toFuture();
   }
 
   public ResponseEntity<Object> fallback(Throwable e) {
     var error = exceptionHandler.error(e);
-    return new ResponseEntity<>(error.getBody(), error.getStatusCode());
+    return new ResponseEntity<>(error.getBody(), error.getHeaders(), error.getStatusCode());
+  }
+
+  @org.springframework.web.bind.annotation.ExceptionHandler(HystrixRuntimeException.class)
+  public ResponseEntity<Object> asyncFallback(HystrixRuntimeException e) {
+    return fallback(ofNullable(e.getCause()).orElse(e));
+  }
+
+  @org.springframework.web.bind.annotation.ExceptionHandler(ConcurrencyLimitExceededException.class)
+  public ResponseEntity<Object> rejected(ConcurrencyLimitExceededException e) {
+    return fallback(e);
   }
 
   @RequestMapping(
@@ -156,9 +387,14 @@ public class SearchController {
   @ApiIgnore
   @Trace
   public StreamingResponseBody stream(
-      FilterableApiRequest request, HttpServletResponse httpServletResponse) {
+      StreamApiRequest request,
+      @RequestHeader(value = ACCEPT, required = false) String accept,
+      HttpServletResponse httpServletResponse) {
     indexSettings.validateIndex(request);
-    httpServletResponse.setContentType("application/x-ndjson;charset=UTF-8");
-    return out -> searchService.stream(request, out);
+    if (request.getFormat() == null) request.setFormat(StreamFormat.fromAccept(accept));
+    var permit = searchService.acquireStream(request.getIndex());
+    httpServletResponse.setContentType(request.getFormat().getContentType());
+    var snapshot = ConfigSnapshot.pinned();
+    return out -> snapshot.run(() -> searchService.stream(request, out, permit));
   }
 }
@@ -0,0 +1,97 @@
+package com.grupozap.search.api.controller.async;
+
+import static com.netflix.hystrix.HystrixCommandProperties.ExecutionIsolationStrategy.SEMAPHORE;
+
+import com.netflix.hystrix.HystrixCommandGroupKey;
+import com.netflix.hystrix.HystrixCommandKey;
+import com.netflix.hystrix.HystrixCommandProperties;
+import com.netflix.hystrix.HystrixObservableCommand;
+import com.netflix.hystrix.exception.HystrixBadRequestException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import rx.Emitter.BackpressureMode;
+import rx.Observable;
+
+/**
+ * Non-blocking counterpart of the javanica {@code @HystrixCommand} used on the synchronous
+ * endpoints. It shares the same group and command keys, so both paths use the same circuit breaker
+ * and metrics.
+ *
+ * <p>Exceptions accepted by {@code ignore} are not counted as failures and are returned as is.
+ * Other failures complete the future with a {@link
+ * com.netflix.hystrix.exception.HystrixRuntimeException}, whose cause is the same exception the
+ * synchronous fallback receives.
+ */
+public class AsyncCommand<T> extends HystrixObservableCommand<T> {
+
+  private final Supplier<CompletableFuture<T>> execution;
+  private final Predicate<Throwable> ignore;
+
+  public AsyncCommand(
+      Setter setter, Predicate<Throwable> ignore, Supplier<CompletableFuture<T>> execution) {
+    super(setter);
+    this.execution = execution;
+    this.ignore = ignore;
+  }
+
+  public static Setter setter(
+      String groupKey,
+      String commandKey,
+      int maxConcurrentRequests,
+      int sleepWindowInMilliseconds,
+      int requestVolumeThreshold,
+      int errorThresholdPercentage) {
+    return Setter.withGroupKey(HystrixCommandGroupKey.Factory.asKey(groupKey))
+        .andCommandKey(HystrixCommandKey.Factory.asKey(commandKey))
+        .andCommandPropertiesDefaults(
+            HystrixCommandProperties.Setter()
+                .withExecutionIsolationStrategy(SEMAPHORE)
+                .withExecutionIsolationSemaphoreMaxConcurrentRequests(maxConcurrentRequests)
+                .withExecutionTimeoutEnabled(false)
+                .withCircuitBreakerSleepWindowInMilliseconds(sleepWindowInMilliseconds)
+                .withCircuitBreakerRequestVolumeThreshold(requestVolumeThreshold)
+                .withCircuitBreakerErrorThresholdPercentage(errorThresholdPercentage));
+  }
+
+  public CompletableFuture<T> toFuture() {
+    var future = new CompletableFuture<T>();
+    toObservable()
+        .single()
+        .subscribe(
+            future::complete,
+            e ->
+                future.completeExceptionally(
+                    e instanceof HystrixBadRequestException ? e.getCause() : e));
+    return future;
+  }
+
+  @Override
+  protected Observable<T> construct() {
+    return Observable.create(
+        emitter -> {
+          try {
+            execution
+                .get()
+                .whenComplete(
+                    (value, e) -> {
+                      if (e != null) {
+                        emitter.onError(failure(e));
+                      } else {
+                        emitter.onNext(value);
+                        emitter.onCompleted();
+                      }
+                    });
+          } catch (Exception e) {
+            emitter.onError(failure(e));
+          }
+        },
+        BackpressureMode.BUFFER);
+  }
+
+  private Throwable failure(Throwable e) {
+    var cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+    return ignore.test(cause) ? new HystrixBadRequestException(cause.getMessage(), cause) : cause;
+  }
+}
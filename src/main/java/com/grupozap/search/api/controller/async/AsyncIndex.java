@@ -0,0 +1,14 @@
+package com.grupozap.search.api.controller.async;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a handler method as the asynchronous alternative of another mapping with the same path. It
+ * is only selected when the index of the request has {@code es.async.enabled} set.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface AsyncIndex {}
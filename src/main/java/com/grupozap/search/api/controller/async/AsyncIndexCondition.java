@@ -0,0 +1,49 @@
+package com.grupozap.search.api.controller.async;
+
+import static com.grupozap.search.api.configuration.environment.RemoteProperties.ES_ASYNC_ENABLED;
+import static java.lang.Boolean.TRUE;
+
+import java.util.Set;
+import javax.servlet.http.HttpServletRequest;
+import org.springframework.util.PathMatcher;
+import org.springframework.web.servlet.mvc.condition.RequestCondition;
+import org.springframework.web.util.UrlPathHelper;
+
+public class AsyncIndexCondition implements RequestCondition<AsyncIndexCondition> {
+
+  private static final String INDEX_VARIABLE = "index";
+
+  private final Set<String> patterns;
+  private final UrlPathHelper urlPathHelper;
+  private final PathMatcher pathMatcher;
+
+  AsyncIndexCondition(Set<String> patterns, UrlPathHelper urlPathHelper, PathMatcher pathMatcher) {
+    this.patterns = patterns;
+    this.urlPathHelper = urlPathHelper;
+    this.pathMatcher = pathMatcher;
+  }
+
+  @Override
+  public AsyncIndexCondition combine(AsyncIndexCondition other) {
+    return other;
+  }
+
+  @Override
+  public AsyncIndexCondition getMatchingCondition(HttpServletRequest request) {
+    var lookupPath = urlPathHelper.getLookupPathForRequest(request);
+
+    for (var pattern : patterns) {
+      if (pathMatcher.match(pattern, lookupPath)) {
+        var index =
+            pathMatcher.extractUriTemplateVariables(pattern, lookupPath).get(INDEX_VARIABLE);
+        return index != null && TRUE.equals(ES_ASYNC_ENABLED.getValue(index)) ? this : null;
+      }
+    }
+    return null;
+  }
+
+  @Override
+  public int compareTo(AsyncIndexCondition other, HttpServletRequest request) {
+    return 0;
+  }
+}
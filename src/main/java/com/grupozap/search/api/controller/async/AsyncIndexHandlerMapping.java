@@ -0,0 +1,27 @@
+package com.grupozap.search.api.controller.async;
+
+import java.lang.reflect.Method;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.web.servlet.mvc.method.RequestMappingInfo;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerMapping;
+
+/** Adds an {@link AsyncIndexCondition} to the mappings of {@link AsyncIndex} handler methods. */
+public class AsyncIndexHandlerMapping extends RequestMappingHandlerMapping {
+
+  @Override
+  protected RequestMappingInfo getMappingForMethod(Method method, Class<?> handlerType) {
+    var info = super.getMappingForMethod(method, handlerType);
+    if (info == null || !AnnotatedElementUtils.hasAnnotation(method, AsyncIndex.class)) return info;
+
+    return new RequestMappingInfo(
+        info.getName(),
+        info.getPatternsCondition(),
+        info.getMethodsCondition(),
+        info.getParamsCondition(),
+        info.getHeadersCondition(),
+        info.getConsumesCondition(),
+        info.getProducesCondition(),
+        new AsyncIndexCondition(
+            info.getPatternsCondition().getPatterns(), getUrlPathHelper(), getPathMatcher()));
+  }
+}
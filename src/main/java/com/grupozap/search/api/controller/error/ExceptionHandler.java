@@ -1,15 +1,18 @@
 package com.grupozap.search.api.controller.error;
 
 import static java.lang.String.format;
+import static java.lang.String.valueOf;
 import static java.util.Objects.nonNull;
 import static java.util.Optional.ofNullable;
 import static java.util.stream.Collectors.joining;
 import static org.apache.commons.lang3.StringUtils.join;
 import static org.apache.commons.lang3.exception.ExceptionUtils.getRootCause;
 import static org.apache.commons.lang3.exception.ExceptionUtils.getRootCauseMessage;
+import static org.springframework.http.HttpHeaders.RETRY_AFTER;
 import static org.springframework.http.HttpStatus.*;
 import static org.springframework.web.context.request.RequestContextHolder.currentRequestAttributes;
 
+import com.grupozap.search.api.exception.ConcurrencyLimitExceededException;
 import com.grupozap.search.api.exception.QueryPhaseExecutionException;
 import com.grupozap.search.api.exception.QueryTimeoutException;
 import java.util.Map;
@@ -23,6 +26,7 @@ import org.slf4j.LoggerFactory;
 import org.springframework.beans.InvalidPropertyException;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.web.servlet.error.ErrorAttributes;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Component;
@@ -61,10 +65,16 @@ public class ExceptionHandler {
       rootCauseMessage.ifPresent(msg -> errorBody.put("message", msg));
     }
 
-    if (httpStatus.is5xxServerError())
+    var headers = new HttpHeaders();
+    if (e instanceof ConcurrencyLimitExceededException) {
+      // Load shedding is expected under overload, it is not logged
+      headers.set(
+          RETRY_AFTER, valueOf(((ConcurrencyLimitExceededException) e).getRetryAfterSeconds()));
+    } else if (httpStatus.is5xxServerError()) {
       logErrorMsg2Appenders(e, request, errorBody, rootCauseMessage);
+    }
 
-    return new ResponseEntity<>(errorBody, httpStatus);
+    return new ResponseEntity<>(errorBody, headers, httpStatus);
   }
 
   private void logErrorMsg2Appenders(
@@ -96,6 +106,11 @@ public class ExceptionHandler {
     return null;
   }
 
+  /** Bad requests and load shedding are not failures of the remote server. */
+  public static boolean isIgnoredException(Throwable e) {
+    return isBadRequestException(e) || e instanceof ConcurrencyLimitExceededException;
+  }
+
   public static boolean isBadRequestException(Throwable e) {
     return (e instanceof IllegalArgumentException
         || getRootCause(e) instanceof IllegalArgumentException
@@ -105,6 +120,8 @@ public class ExceptionHandler {
 
   private HttpStatus getStatusCode(Throwable e, HttpServletRequest request) {
     if (e != null) {
+      if (e instanceof ConcurrencyLimitExceededException) return SERVICE_UNAVAILABLE;
+
       if (e.getCause() instanceof ElasticsearchStatusException) {
         return HttpStatus.valueOf(
             ((ElasticsearchStatusException) e.getCause()).status().getStatus());
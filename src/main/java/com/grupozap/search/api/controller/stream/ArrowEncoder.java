@@ -0,0 +1,390 @@
+package com.grupozap.search.api.controller.stream;
+
+import static com.fasterxml.jackson.core.JsonToken.END_ARRAY;
+import static com.fasterxml.jackson.core.JsonToken.FIELD_NAME;
+import static com.fasterxml.jackson.core.JsonToken.START_ARRAY;
+import static com.fasterxml.jackson.core.JsonToken.START_OBJECT;
+import static com.fasterxml.jackson.core.JsonToken.VALUE_FALSE;
+import static com.fasterxml.jackson.core.JsonToken.VALUE_NULL;
+import static com.fasterxml.jackson.core.JsonToken.VALUE_STRING;
+import static com.fasterxml.jackson.core.JsonToken.VALUE_TRUE;
+import static com.grupozap.search.api.model.mapping.MappingType.FIELD_TYPE_OBJECT;
+import static java.lang.String.format;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.stream.Collectors.toList;
+import static org.apache.arrow.vector.types.FloatingPointPrecision.DOUBLE;
+import static org.apache.arrow.vector.types.FloatingPointPrecision.SINGLE;
+import static org.apache.commons.collections4.CollectionUtils.isEmpty;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+import com.grupozap.search.api.model.mapping.IndexMetadata;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.channels.Channels;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import org.apache.arrow.memory.BufferAllocator;
+import org.apache.arrow.memory.RootAllocator;
+import org.apache.arrow.vector.BigIntVector;
+import org.apache.arrow.vector.BitVector;
+import org.apache.arrow.vector.FieldVector;
+import org.apache.arrow.vector.Float4Vector;
+import org.apache.arrow.vector.Float8Vector;
+import org.apache.arrow.vector.IntVector;
+import org.apache.arrow.vector.SmallIntVector;
+import org.apache.arrow.vector.TinyIntVector;
+import org.apache.arrow.vector.VarCharVector;
+import org.apache.arrow.vector.VectorSchemaRoot;
+import org.apache.arrow.vector.ipc.ArrowStreamWriter;
+import org.apache.arrow.vector.types.pojo.ArrowType;
+import org.apache.arrow.vector.types.pojo.Field;
+import org.apache.arrow.vector.types.pojo.FieldType;
+import org.apache.arrow.vector.types.pojo.Schema;
+import org.elasticsearch.search.SearchHit;
+
+/**
+ * Apache Arrow IPC stream format: the schema is made of the leaf fields of the flattened mapping of
+ * the index, narrowed by the include and exclude fields of the request, and every page of hits is
+ * one record batch.
+ *
+ * <p>Numeric and boolean fields are typed columns, so a value that is not a single number or
+ * boolean (e.g. a multi-valued field) fails the stream instead of being dropped. Every other field
+ * is a UTF-8 column holding its strings as they are and any other value as JSON text, such as the
+ * dates, geo points and the values collected under arrays of objects.
+ *
+ * <p>The sources are read with a pull parser that sets the values of the schema fields straight to
+ * their vector, without building a map per hit.
+ */
+public class ArrowEncoder implements PageEncoder<SearchHit>, Closeable {
+
+  private static final ObjectMapper MAPPER = new ObjectMapper();
+  private static final BufferAllocator ROOT = new RootAllocator(Long.MAX_VALUE);
+
+  private final Map<String, Integer> columns;
+  private final Set<String> parents;
+  private final Column[] vectors;
+  private final BufferAllocator allocator;
+  private final VectorSchemaRoot root;
+  private final ByteArrayOutputStream out;
+  private final ArrowStreamWriter writer;
+
+  public ArrowEncoder(
+      IndexMetadata metadata, Set<String> includeFields, Set<String> excludeFields) {
+    var schema = new TreeMap<String, String>();
+    metadata
+        .getFieldTypes()
+        .forEach(
+            (field, type) -> {
+              if (!FIELD_TYPE_OBJECT.typeOf(type)
+                  && (isEmpty(includeFields) || matches(field, includeFields))
+                  && (isEmpty(excludeFields) || !matches(field, excludeFields)))
+                schema.put(field, type);
+            });
+
+    this.columns = new HashMap<>(schema.size());
+    this.parents = new HashSet<>();
+    for (var field : schema.keySet()) {
+      columns.put(field, columns.size());
+      for (var dot = field.indexOf('.'); dot > 0; dot = field.indexOf('.', dot + 1))
+        parents.add(field.substring(0, dot));
+    }
+
+    this.allocator = ROOT.newChildAllocator("stream", 0, Long.MAX_VALUE);
+    this.root =
+        VectorSchemaRoot.create(
+            new Schema(
+                schema.entrySet().stream()
+                    .map(field -> field(field.getKey(), field.getValue()))
+                    .collect(toList())),
+            allocator);
+    this.vectors = root.getFieldVectors().stream().map(ArrowEncoder::column).toArray(Column[]::new);
+    this.out = new ByteArrayOutputStream();
+    this.writer = new ArrowStreamWriter(root, null, Channels.newChannel(out));
+  }
+
+  /** The schema message. */
+  @Override
+  public byte[] header() throws IOException {
+    writer.start();
+    return drain();
+  }
+
+  /** A record batch with the sources of the hits. */
+  @Override
+  public byte[] page(SearchHit[] hits) throws IOException {
+    root.allocateNew();
+    var hit = new Hit();
+    for (var row = 0; row < hits.length; row++) hit.read(hits[row], row);
+    root.setRowCount(hits.length);
+
+    writer.writeBatch();
+    return drain();
+  }
+
+  /** The end of stream marker. */
+  @Override
+  public byte[] footer() throws IOException {
+    writer.end();
+    return drain();
+  }
+
+  @Override
+  public void close() {
+    root.close();
+    allocator.close();
+  }
+
+  private byte[] drain() {
+    var bytes = out.toByteArray();
+    out.reset();
+    return bytes;
+  }
+
+  private static boolean matches(String field, Set<String> fields) {
+    return fields.stream().anyMatch(f -> field.equals(f) || field.startsWith(f + "."));
+  }
+
+  private static Field field(String name, String type) {
+    return new Field(name, FieldType.nullable(arrowType(type)), null);
+  }
+
+  private static ArrowType arrowType(String type) {
+    switch (type) {
+      case "long":
+        return new ArrowType.Int(64, true);
+      case "integer":
+        return new ArrowType.Int(32, true);
+      case "short":
+        return new ArrowType.Int(16, true);
+      case "byte":
+        return new ArrowType.Int(8, true);
+      case "double":
+      case "scaled_float":
+        return new ArrowType.FloatingPoint(DOUBLE);
+      case "float":
+      case "half_float":
+        return new ArrowType.FloatingPoint(SINGLE);
+      case "boolean":
+        return ArrowType.Bool.INSTANCE;
+      default:
+        return ArrowType.Utf8.INSTANCE;
+    }
+  }
+
+  private static Column column(FieldVector vector) {
+    if (vector instanceof BigIntVector)
+      return new NumberColumn(
+          vector, (row, n) -> ((BigIntVector) vector).setSafe(row, n.longValue()));
+    if (vector instanceof IntVector)
+      return new NumberColumn(vector, (row, n) -> ((IntVector) vector).setSafe(row, n.intValue()));
+    if (vector instanceof SmallIntVector)
+      return new NumberColumn(
+          vector, (row, n) -> ((SmallIntVector) vector).setSafe(row, n.shortValue()));
+    if (vector instanceof TinyIntVector)
+      return new NumberColumn(
+          vector, (row, n) -> ((TinyIntVector) vector).setSafe(row, n.byteValue()));
+    if (vector instanceof Float8Vector)
+      return new NumberColumn(
+          vector, (row, n) -> ((Float8Vector) vector).setSafe(row, n.doubleValue()));
+    if (vector instanceof Float4Vector)
+      return new NumberColumn(
+          vector, (row, n) -> ((Float4Vector) vector).setSafe(row, n.floatValue()));
+    if (vector instanceof BitVector) return new BooleanColumn((BitVector) vector);
+    return new TextColumn((VarCharVector) vector);
+  }
+
+  // Sets the value starting at the current token of the parser, leaving rows without one null
+  private abstract static class Column {
+    private final FieldVector vector;
+
+    Column(FieldVector vector) {
+      this.vector = vector;
+    }
+
+    abstract void set(int row, JsonParser parser) throws IOException;
+
+    IllegalArgumentException invalid(String value) {
+      return new IllegalArgumentException(
+          format(
+              "Field %s has %s, which its Arrow column cannot hold",
+              vector.getField().getName(), value));
+    }
+  }
+
+  // Typed columns take a single scalar value, which may come wrapped in an array
+  private abstract static class ScalarColumn extends Column {
+
+    ScalarColumn(FieldVector vector) {
+      super(vector);
+    }
+
+    @Override
+    void set(int row, JsonParser parser) throws IOException {
+      if (parser.currentToken() != START_ARRAY) {
+        setValue(row, parser);
+        return;
+      }
+
+      if (parser.nextToken() == END_ARRAY) return;
+      setValue(row, parser);
+      if (parser.nextToken() != END_ARRAY) throw invalid("several values");
+    }
+
+    private void setValue(int row, JsonParser parser) throws IOException {
+      var token = parser.currentToken();
+      if (token == VALUE_NULL) return;
+      if (!token.isScalarValue()) throw invalid("a structured value");
+      setScalar(row, parser);
+    }
+
+    abstract void setScalar(int row, JsonParser parser) throws IOException;
+  }
+
+  private interface NumberSetter {
+    void set(int row, Number value);
+  }
+
+  private static class NumberColumn extends ScalarColumn {
+    private final NumberSetter setter;
+
+    NumberColumn(FieldVector vector, NumberSetter setter) {
+      super(vector);
+      this.setter = setter;
+    }
+
+    @Override
+    void setScalar(int row, JsonParser parser) throws IOException {
+      if (parser.currentToken().isNumeric()) {
+        setter.set(row, parser.getNumberValue());
+        return;
+      }
+
+      // Numbers sent as strings are coerced, as Elasticsearch does when indexing them
+      try {
+        setter.set(row, new BigDecimal(parser.getText()));
+      } catch (NumberFormatException e) {
+        throw invalid("the value " + parser.getText());
+      }
+    }
+  }
+
+  private static class BooleanColumn extends ScalarColumn {
+    private final BitVector vector;
+
+    BooleanColumn(BitVector vector) {
+      super(vector);
+      this.vector = vector;
+    }
+
+    @Override
+    void setScalar(int row, JsonParser parser) throws IOException {
+      var token = parser.currentToken();
+      if (token == VALUE_TRUE || token == VALUE_FALSE) {
+        vector.setSafe(row, token == VALUE_TRUE ? 1 : 0);
+      } else if (token == VALUE_STRING
+          && ("true".equals(parser.getText()) || "false".equals(parser.getText()))) {
+        vector.setSafe(row, "true".equals(parser.getText()) ? 1 : 0);
+      } else {
+        throw invalid("the value " + parser.getText());
+      }
+    }
+  }
+
+  private static class TextColumn extends Column {
+    private final VarCharVector vector;
+    private final ByteArrayOutputStream json = new ByteArrayOutputStream();
+
+    TextColumn(VarCharVector vector) {
+      super(vector);
+      this.vector = vector;
+    }
+
+    // Strings are kept as they are and any other value as its JSON text
+    @Override
+    void set(int row, JsonParser parser) throws IOException {
+      var token = parser.currentToken();
+      if (token == VALUE_NULL) return;
+      if (token == VALUE_STRING) {
+        vector.setSafe(row, parser.getText().getBytes(UTF_8));
+        return;
+      }
+
+      json.reset();
+      try (var generator = MAPPER.getFactory().createGenerator(json)) {
+        generator.copyCurrentStructure(parser);
+      }
+      vector.setSafe(row, json.toByteArray());
+    }
+  }
+
+  // Reads the sources one by one, setting the values of the schema fields of each row
+  private class Hit {
+    private final TokenBuffer[] collected = new TokenBuffer[vectors.length];
+
+    private void read(SearchHit hit, int row) throws IOException {
+      Arrays.fill(collected, null);
+
+      var source = hit.getSourceRef();
+      if (source != null) {
+        var bytes = source.toBytesRef();
+        try (var parser =
+            MAPPER.getFactory().createParser(bytes.bytes, bytes.offset, bytes.length)) {
+          if (parser.nextToken() == START_OBJECT) readObject(parser, row, null, false);
+        }
+      }
+
+      for (var column = 0; column < collected.length; column++) {
+        if (collected[column] == null) continue;
+
+        collected[column].writeEndArray();
+        try (var parser = collected[column].asParser()) {
+          parser.nextToken();
+          vectors[column].set(row, parser);
+        }
+      }
+    }
+
+    // Reads the fields of the current object up to its end
+    private void readObject(JsonParser parser, int row, String prefix, boolean inArray)
+        throws IOException {
+      while (parser.nextToken() == FIELD_NAME) {
+        var path =
+            prefix == null ? parser.getCurrentName() : prefix + "." + parser.getCurrentName();
+        var token = parser.nextToken();
+
+        var column = columns.get(path);
+        if (column != null && inArray) {
+          collect(column).copyCurrentStructure(parser);
+        } else if (column != null) {
+          vectors[column].set(row, parser);
+        } else if (token == START_OBJECT && parents.contains(path)) {
+          readObject(parser, row, path, inArray);
+        } else if (token == START_ARRAY && parents.contains(path)) {
+          while ((token = parser.nextToken()) != END_ARRAY) {
+            if (token == START_OBJECT) readObject(parser, row, path, true);
+            else parser.skipChildren();
+          }
+        } else {
+          parser.skipChildren();
+        }
+      }
+    }
+
+    // Values under arrays of objects may repeat, so they are collected in an array
+    private TokenBuffer collect(int column) throws IOException {
+      if (collected[column] == null) {
+        collected[column] = new TokenBuffer(MAPPER, false);
+        collected[column].writeStartArray();
+      }
+      return collected[column];
+    }
+  }
+}
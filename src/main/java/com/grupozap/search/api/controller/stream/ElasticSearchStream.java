@@ -1,26 +1,41 @@
 package com.grupozap.search.api.controller.stream;
 
+import static com.grupozap.search.api.adapter.ElasticsearchSettingsAdapter.SHARDS;
 import static com.grupozap.search.api.configuration.environment.RemoteProperties.*;
-import static com.grupozap.search.api.controller.stream.ResponseStream.iterate;
+import static com.grupozap.search.api.model.http.StreamFormat.ARROW;
+import static com.grupozap.search.api.model.http.StreamMode.SEARCH_AFTER;
+import static java.lang.Boolean.TRUE;
 import static java.lang.Integer.MAX_VALUE;
+import static java.lang.Integer.parseInt;
 import static java.lang.Math.min;
 import static java.lang.String.format;
+import static java.util.Collections.singletonList;
+import static java.util.Optional.ofNullable;
 import static org.elasticsearch.client.RequestOptions.DEFAULT;
 import static org.elasticsearch.common.bytes.BytesReference.toBytes;
-import static org.elasticsearch.common.unit.TimeValue.timeValueMillis;
+import static org.elasticsearch.search.sort.SortBuilders.fieldSort;
 import static org.slf4j.LoggerFactory.getLogger;
 
 import com.grupozap.search.api.adapter.QueryAdapter;
+import com.grupozap.search.api.adapter.SettingsAdapter;
+import com.grupozap.search.api.configuration.environment.ConfigSnapshot;
+import com.grupozap.search.api.model.SearchAfterApiIterator;
 import com.grupozap.search.api.model.SearchApiIterator;
-import com.grupozap.search.api.model.http.FilterableApiRequest;
+import com.grupozap.search.api.model.SlicedSearchApiIterator;
+import com.grupozap.search.api.model.http.StreamApiRequest;
+import com.grupozap.search.api.model.http.StreamMode;
+import com.grupozap.search.api.model.mapping.IndexMetadata;
 import java.io.IOException;
 import java.io.OutputStream;
+import java.util.Iterator;
+import java.util.Map;
 import java.util.concurrent.TimeUnit;
 import org.elasticsearch.action.search.SearchRequest;
 import org.elasticsearch.client.RestHighLevelClient;
 import org.elasticsearch.common.unit.TimeValue;
-import org.elasticsearch.search.Scroll;
 import org.elasticsearch.search.SearchHit;
+import org.elasticsearch.search.builder.SearchSourceBuilder;
+import org.elasticsearch.search.sort.FieldSortBuilder;
 import org.slf4j.Logger;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
@@ -34,18 +49,23 @@ public class ElasticSearchStream {
 
   @Autowired private QueryAdapter<?, SearchRequest> queryAdapter;
 
-  public void stream(FilterableApiRequest request, OutputStream stream) {
+  @Autowired private SettingsAdapter<Map<String, IndexMetadata>, String> settingsAdapter;
+
+  @Autowired private ScrollManager scrollManager;
+
+  @Autowired private StreamMonitor streamMonitor;
+
+  public void stream(StreamApiRequest request, OutputStream stream) {
     var index = request.getIndex();
+    var snapshot = ConfigSnapshot.pinned();
 
-    final var scroll = new Scroll(timeValueMillis(ES_SCROLL_KEEP_ALIVE.getValue(index)));
     var searchRequest = new SearchRequest(index);
-    searchRequest.scroll(scroll);
 
     var searchSourceBuilder =
         this.queryAdapter
             .query(request)
             .source()
-            .size(ES_STREAM_SIZE.getValue(index))
+            .size(streamMonitor.pageSize(index))
             .timeout(
                 new TimeValue(
                     ES_CONTROLLER_STREAM_TIMEOUT.getValue(index),
@@ -54,21 +74,98 @@ public class ElasticSearchStream {
     var size = MAX_VALUE;
     if (request.getSize() != MAX_VALUE && request.getSize() != 0) {
       size = request.getSize();
-      searchSourceBuilder.size(min(request.getSize(), ES_STREAM_SIZE.getValue(index)));
-      searchSourceBuilder.terminateAfter(size);
+      searchSourceBuilder.size(min(request.getSize(), streamMonitor.pageSize(index)));
     }
 
     searchRequest.source(searchSourceBuilder);
 
+    if (SEARCH_AFTER.equals(mode(request))) {
+      searchAfter(request, searchRequest, size, stream);
+      return;
+    }
+
+    // Only for the scroll: every search_after page is a new search, so SearchAfterApiIterator
+    // enforces the size on its own
+    if (size != MAX_VALUE) searchSourceBuilder.terminateAfter(size);
+    searchRequest.scroll(scrollManager.scroll(index));
+
+    var slices = slices(index);
+    if (slices > 1) {
+      var iterator =
+          new SlicedSearchApiIterator<SearchHit>(
+              client,
+              searchRequest,
+              () -> snapshot.call(() -> scrollManager.scroll(index)),
+              slices,
+              size,
+              ES_STREAM_PREFETCH.getValue(index));
+      scrollManager.opened(index);
+      try {
+        write(request, stream, scrollManager.track(index, iterator));
+        LOG.info("Stream - Slices {} - Total sent {}", slices, iterator.getCount());
+      } finally {
+        iterator.close();
+        scrollManager.clear(index, iterator.getScrollIds());
+      }
+      return;
+    }
+
+    try {
+      var response = client.search(searchRequest, DEFAULT);
+      scrollManager.opened(index);
+
+      SearchApiIterator<SearchHit> searchApiIterator = null;
+      try {
+        searchApiIterator =
+            new SearchApiIterator<>(
+                client,
+                response,
+                () -> snapshot.call(() -> scrollManager.scroll(index)),
+                size,
+                ES_STREAM_PREFETCH.getValue(index));
+
+        write(request, stream, scrollManager.track(index, searchApiIterator));
+
+        LOG.info(
+            "Stream - Total hits {} - Total sent {}",
+            response.getHits().getTotalHits().value,
+            searchApiIterator.getCount());
+      } finally {
+        if (searchApiIterator != null) searchApiIterator.close();
+        scrollManager.clear(
+            index,
+            singletonList(
+                searchApiIterator != null
+                    ? searchApiIterator.getScrollId()
+                    : response.getScrollId()));
+      }
+
+    } catch (IOException e) {
+      throw new RuntimeException(
+          format("Error to get stream from Request: %s", request.toString()), e);
+    }
+  }
+
+  private void searchAfter(
+      StreamApiRequest request, SearchRequest searchRequest, int size, OutputStream stream) {
+    tiebreaker(searchRequest.source(), request.getIndex());
+
     try {
       var response = client.search(searchRequest, DEFAULT);
 
-      var searchApiIterator = new SearchApiIterator<SearchHit>(client, response, scroll, size);
+      var searchApiIterator =
+          new SearchAfterApiIterator<SearchHit>(
+              client,
+              searchRequest,
+              response,
+              size,
+              ES_STREAM_PREFETCH.getValue(request.getIndex()),
+              () -> streamMonitor.pageSize(request.getIndex()));
 
-      iterate(stream, searchApiIterator, (SearchHit sh) -> toBytes(sh.getSourceRef()));
+      write(request, stream, searchApiIterator);
 
       LOG.info(
-          "Stream - Total hits {} - Total sent {}",
+          "Stream (search_after) - Total hits {} - Total sent {}",
           response.getHits().getTotalHits().value,
           searchApiIterator.getCount());
 
@@ -77,4 +174,54 @@ public class ElasticSearchStream {
           format("Error to get stream from Request: %s", request.toString()), e);
     }
   }
+
+  private void write(
+      StreamApiRequest request, OutputStream stream, Iterator<SearchHit[]> iterator) {
+    var index = request.getIndex();
+    var writer = streamMonitor.writer(index, stream);
+
+    if (ARROW.equals(request.getFormat())) {
+      try (var encoder =
+          new ArrowEncoder(
+              settingsAdapter.settings().get(index),
+              request.getIncludeFields(),
+              request.getExcludeFields())) {
+        ResponseStream.writePages(writer, encoder, iterator);
+      }
+    } else {
+      ResponseStream.write(writer, iterator, (SearchHit sh) -> toBytes(sh.getSourceRef()));
+    }
+
+    streamMonitor.completed(index, writer);
+  }
+
+  private static StreamMode mode(StreamApiRequest request) {
+    return ofNullable(request.getMode())
+        .orElseGet(
+            () ->
+                StreamMode.valueOf(
+                    ES_STREAM_MODE.<String>getValue(request.getIndex()).toUpperCase()));
+  }
+
+  // search_after needs a total order, so the id field is always the last sort
+  private static void tiebreaker(SearchSourceBuilder source, String index) {
+    String id = ES_MAPPING_META_FIELDS_ID.getValue(index);
+    if (source.sorts() == null
+        || source.sorts().stream()
+            .noneMatch(
+                sort ->
+                    sort instanceof FieldSortBuilder
+                        && id.equals(((FieldSortBuilder) sort).getFieldName())))
+      source.sort(fieldSort(id));
+  }
+
+  // Sliced scroll is opt-in per index, with one slice per shard unless configured
+  private int slices(String index) {
+    if (!TRUE.equals(ES_STREAM_PARALLEL.getValue(index))) return 1;
+
+    Integer slices = ES_STREAM_SLICES.getValue(index);
+    if (slices != null && slices > 0) return slices;
+
+    return parseInt(settingsAdapter.settingsByKey(index, SHARDS));
+  }
 }
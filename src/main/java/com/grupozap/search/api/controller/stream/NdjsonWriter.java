@@ -0,0 +1,238 @@
+package com.grupozap.search.api.controller.stream;
+
+import static java.lang.System.nanoTime;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Buffered NDJSON writer. Records are copied to a pooled buffer that is written to the stream when
+ * full, and the stream is flushed when the flush interval has elapsed. Every write to the stream is
+ * timed: the ones slower than the stall threshold are reported as stalls, and the writer aborts
+ * with an {@link IOException} once the consecutive stalls exceed the stall timeout.
+ *
+ * <p>A client that stops reading may block a write forever, so a watchdog also closes the stream
+ * when a write is still blocked at the stall timeout, so the write fails. Not every stream unblocks
+ * a pending write when closed, so the socket write timeout of the connector remains the last bound.
+ */
+public class NdjsonWriter implements Closeable {
+
+  public static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+
+  private static final byte NEW_LINE = '\n';
+  private static final BufferPool POOL = new BufferPool(64);
+  private static final ScheduledExecutorService WATCHDOG =
+      Executors.newSingleThreadScheduledExecutor(
+          runnable -> {
+            var thread = new Thread(runnable, "ndjson-stall-watchdog");
+            thread.setDaemon(true);
+            return thread;
+          });
+
+  private final OutputStream out;
+  private final long flushInterval;
+  private final long stallThreshold;
+  private final long stallTimeout;
+  private final Listener listener;
+  private final AtomicBoolean aborted = new AtomicBoolean();
+
+  private byte[] buffer;
+  private int position;
+  private long lastFlush;
+  private long stalled;
+  private int stalls;
+
+  public NdjsonWriter(OutputStream out) {
+    this(out, DEFAULT_BUFFER_SIZE, 0, Long.MAX_VALUE, Long.MAX_VALUE, new Listener() {});
+  }
+
+  public NdjsonWriter(
+      OutputStream out,
+      int bufferSize,
+      long flushIntervalMillis,
+      long stallThresholdMillis,
+      long stallTimeoutMillis,
+      Listener listener) {
+    if (out == null) throw new IllegalArgumentException("stream cannot be null");
+
+    this.out = out;
+    this.buffer = POOL.acquire(bufferSize);
+    this.flushInterval = MILLISECONDS.toNanos(flushIntervalMillis);
+    this.stallThreshold = MILLISECONDS.toNanos(stallThresholdMillis);
+    this.stallTimeout = MILLISECONDS.toNanos(stallTimeoutMillis);
+    this.listener = listener;
+    this.lastFlush = nanoTime();
+  }
+
+  /** Writes the record followed by a line break. */
+  public void write(byte[] record) throws IOException {
+    append(record);
+    newLine();
+  }
+
+  /** Writes the bytes as they are, for the binary formats that share the buffering and timing. */
+  public void append(byte[] bytes) throws IOException {
+    if (position + bytes.length > buffer.length) {
+      drain();
+
+      // Records bigger than the buffer go straight to the stream
+      if (bytes.length > buffer.length) {
+        timed(() -> out.write(bytes, 0, bytes.length), bytes.length);
+        return;
+      }
+    }
+
+    System.arraycopy(bytes, 0, buffer, position, bytes.length);
+    position += bytes.length;
+  }
+
+  public void newLine() throws IOException {
+    if (position == buffer.length) drain();
+    buffer[position++] = NEW_LINE;
+  }
+
+  public void flushIfDue() throws IOException {
+    if (nanoTime() - lastFlush >= flushInterval) flush();
+  }
+
+  public void flush() throws IOException {
+    drain();
+    timed(out::flush, 0);
+    lastFlush = nanoTime();
+  }
+
+  public int getStalls() {
+    return stalls;
+  }
+
+  /** Releases the buffer. Pending bytes are discarded and the stream itself is not closed. */
+  @Override
+  public void close() {
+    if (buffer != null) {
+      POOL.release(buffer);
+      buffer = null;
+    }
+  }
+
+  private void drain() throws IOException {
+    if (position > 0) {
+      var length = position;
+      position = 0;
+      timed(() -> out.write(buffer, 0, length), length);
+    }
+  }
+
+  private void timed(Write write, int bytes) throws IOException {
+    var start = nanoTime();
+    var watchdog = watch();
+    IOException failure = null;
+    try {
+      write.run();
+    } catch (IOException e) {
+      if (!aborted.get()) throw e;
+      failure = e;
+    } finally {
+      if (watchdog != null) watchdog.cancel(false);
+    }
+    var elapsed = nanoTime() - start;
+
+    if (failure == null && bytes > 0) listener.onWrite(bytes);
+
+    if (elapsed < stallThreshold && !aborted.get()) {
+      stalled = 0;
+      return;
+    }
+
+    stalled += elapsed;
+    stalls++;
+    listener.onStall(NANOSECONDS.toMillis(elapsed));
+    if (stalled >= stallTimeout || aborted.get()) {
+      abort();
+      var e =
+          new IOException(
+              "Stream aborted, client stalled for " + NANOSECONDS.toMillis(stalled) + "ms");
+      if (failure != null) e.addSuppressed(failure);
+      throw e;
+    }
+  }
+
+  // Closes the stream if the write is still blocked once the stall timeout is reached
+  private ScheduledFuture<?> watch() {
+    if (stallTimeout == Long.MAX_VALUE) return null;
+
+    return WATCHDOG.schedule(
+        () -> {
+          abort();
+          try {
+            out.close();
+          } catch (IOException | RuntimeException e) {
+            // The blocked write fails either way
+          }
+        },
+        stallTimeout - stalled,
+        NANOSECONDS);
+  }
+
+  private void abort() {
+    if (aborted.compareAndSet(false, true)) listener.onAbort();
+  }
+
+  private interface Write {
+    void run() throws IOException;
+  }
+
+  public interface Listener {
+    default void onWrite(int bytes) {}
+
+    default void onStall(long millis) {}
+
+    default void onAbort() {}
+  }
+
+  /** Pool of buffers per size, keeping at most {@code maxPerSize} idle buffers of each size. */
+  static class BufferPool {
+    private final int maxPerSize;
+    private final Map<Integer, Queue<byte[]>> buffers = new ConcurrentHashMap<>();
+    private final Map<Integer, AtomicInteger> idle = new ConcurrentHashMap<>();
+
+    BufferPool(int maxPerSize) {
+      this.maxPerSize = maxPerSize;
+    }
+
+    byte[] acquire(int size) {
+      var buffer = buffers.computeIfAbsent(size, s -> new ConcurrentLinkedQueue<>()).poll();
+      if (buffer == null) return new byte[size];
+
+      idle(size).decrementAndGet();
+      return buffer;
+    }
+
+    void release(byte[] buffer) {
+      if (idle(buffer.length).incrementAndGet() > maxPerSize) {
+        idle(buffer.length).decrementAndGet();
+        return;
+      }
+      buffers.computeIfAbsent(buffer.length, s -> new ConcurrentLinkedQueue<>()).offer(buffer);
+    }
+
+    int idleBuffers(int size) {
+      return idle(size).get();
+    }
+
+    private AtomicInteger idle(int size) {
+      return idle.computeIfAbsent(size, s -> new AtomicInteger());
+    }
+  }
+}
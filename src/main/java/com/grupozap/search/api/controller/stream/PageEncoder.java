@@ -0,0 +1,13 @@
+package com.grupozap.search.api.controller.stream;
+
+import java.io.IOException;
+
+/** Binary stream format, encoding the hits a page at a time between a header and a footer. */
+public interface PageEncoder<T> {
+
+  byte[] header() throws IOException;
+
+  byte[] page(T[] page) throws IOException;
+
+  byte[] footer() throws IOException;
+}
@@ -11,21 +11,40 @@ import org.slf4j.LoggerFactory;
 public final class ResponseStream {
 
   private static final Logger LOG = LoggerFactory.getLogger(ResponseStream.class);
-  private static final char BLANK_LINE = '\n';
 
   public static <T> void iterate(
       OutputStream stream, Iterator<T[]> iterator, Function<T, byte[]> byteFn) {
     if (stream == null) throw new IllegalArgumentException("stream cannot be null");
-    try {
+    write(new NdjsonWriter(stream), iterator, byteFn);
+  }
+
+  public static <T> void write(
+      NdjsonWriter writer, Iterator<T[]> iterator, Function<T, byte[]> byteFn) {
+    try (writer) {
       while (iterator.hasNext()) {
         for (var hit : iterator.next()) {
-          stream.write(byteFn.apply(hit));
-          stream.write(BLANK_LINE);
+          writer.write(byteFn.apply(hit));
         }
-        stream.flush();
+        writer.flushIfDue();
+      }
+      writer.newLine();
+      writer.flush();
+    } catch (IOException e) {
+      LOG.error("write error on iterator stream", e);
+    }
+  }
+
+  /** Writes the pages of the iterator in the binary format of the encoder. */
+  public static <T> void writePages(
+      NdjsonWriter writer, PageEncoder<T> encoder, Iterator<T[]> iterator) {
+    try (writer) {
+      writer.append(encoder.header());
+      while (iterator.hasNext()) {
+        writer.append(encoder.page(iterator.next()));
+        writer.flushIfDue();
       }
-      stream.write(BLANK_LINE);
-      stream.flush();
+      writer.append(encoder.footer());
+      writer.flush();
     } catch (IOException e) {
       LOG.error("write error on iterator stream", e);
     }
@@ -0,0 +1,137 @@
+package com.grupozap.search.api.controller.stream;
+
+import static com.grupozap.search.api.configuration.environment.RemoteProperties.ES_SCROLL_KEEP_ALIVE;
+import static com.grupozap.search.api.configuration.environment.RemoteProperties.ES_SCROLL_KEEP_ALIVE_MIN;
+import static java.lang.Math.max;
+import static java.lang.Math.min;
+import static java.lang.System.nanoTime;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import static java.util.stream.Collectors.toList;
+import static org.elasticsearch.client.RequestOptions.DEFAULT;
+import static org.elasticsearch.common.unit.TimeValue.timeValueMillis;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import org.elasticsearch.action.ActionListener;
+import org.elasticsearch.action.search.ClearScrollRequest;
+import org.elasticsearch.action.search.ClearScrollResponse;
+import org.elasticsearch.client.RestHighLevelClient;
+import org.elasticsearch.search.Scroll;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+/**
+ * Keeps track of the scroll contexts opened by the streams: they are counted per index, cleared as
+ * soon as a stream ends (finished, size reached or client disconnected) and their keep-alive
+ * follows how fast the pages of each index are consumed, bounded by {@code
+ * es.scroll.keep.alive.min} and {@code es.scroll.keep.alive}.
+ */
+@Component
+public class ScrollManager {
+
+  private static final Logger LOG = LoggerFactory.getLogger(ScrollManager.class);
+
+  static final String OPEN_SCROLLS = "search.scroll.open";
+
+  // Keep-alive is this many times the average time to consume a page
+  static final int KEEP_ALIVE_FACTOR = 4;
+
+  private final RestHighLevelClient client;
+  private final MeterRegistry meterRegistry;
+
+  private final Map<String, AtomicInteger> open = new ConcurrentHashMap<>();
+  private final Map<String, AtomicLong> pageMillis = new ConcurrentHashMap<>();
+
+  public ScrollManager(RestHighLevelClient client, MeterRegistry meterRegistry) {
+    this.client = client;
+    this.meterRegistry = meterRegistry;
+  }
+
+  public Scroll scroll(String index) {
+    return new Scroll(timeValueMillis(keepAlive(index)));
+  }
+
+  long keepAlive(String index) {
+    long maxKeepAlive = ES_SCROLL_KEEP_ALIVE.getValue(index);
+    var average = pageMillis.computeIfAbsent(index, i -> new AtomicLong()).get();
+    if (average == 0) return maxKeepAlive;
+
+    long minKeepAlive = ES_SCROLL_KEEP_ALIVE_MIN.getValue(index);
+    return max(minKeepAlive, min(maxKeepAlive, average * KEEP_ALIVE_FACTOR));
+  }
+
+  /** A stream opened a scroll (all the slices of a sliced scroll count as one). */
+  public void opened(String index) {
+    open(index).incrementAndGet();
+  }
+
+  /** The stream that opened a scroll ended, so its contexts are released right away. */
+  public void clear(String index, Collection<String> scrollIds) {
+    open(index).decrementAndGet();
+
+    var distinct = scrollIds.stream().filter(Objects::nonNull).distinct().collect(toList());
+    if (distinct.isEmpty()) return;
+
+    var request = new ClearScrollRequest();
+    request.setScrollIds(distinct);
+    try {
+      clear(
+          request,
+          ActionListener.wrap(
+              response -> LOG.debug("{} scroll contexts cleared", response.getNumFreed()),
+              e -> LOG.warn("Error to clear scroll contexts of index {}", index, e)));
+    } catch (Exception e) {
+      LOG.warn("Error to clear scroll contexts of index {}", index, e);
+    }
+  }
+
+  /** Records the time the stream takes to consume each page of the given iterator. */
+  public <T> Iterator<T> track(String index, Iterator<T> iterator) {
+    return new Iterator<>() {
+      private long last;
+
+      @Override
+      public boolean hasNext() {
+        if (last != 0) {
+          consumed(index, NANOSECONDS.toMillis(nanoTime() - last));
+          last = 0;
+        }
+        return iterator.hasNext();
+      }
+
+      @Override
+      public T next() {
+        var next = iterator.next();
+        last = nanoTime();
+        return next;
+      }
+    };
+  }
+
+  void consumed(String index, long millis) {
+    pageMillis
+        .computeIfAbsent(index, i -> new AtomicLong())
+        .updateAndGet(average -> average == 0 ? max(1, millis) : (average * 7 + millis) / 8);
+  }
+
+  int openScrolls(String index) {
+    return open(index).get();
+  }
+
+  void clear(ClearScrollRequest request, ActionListener<ClearScrollResponse> listener) {
+    client.clearScrollAsync(request, DEFAULT, listener);
+  }
+
+  private AtomicInteger open(String index) {
+    return open.computeIfAbsent(
+        index, i -> meterRegistry.gauge(OPEN_SCROLLS, Tags.of("index", i), new AtomicInteger()));
+  }
+}
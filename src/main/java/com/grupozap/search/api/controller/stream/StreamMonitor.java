@@ -0,0 +1,104 @@
+package com.grupozap.search.api.controller.stream;
+
+import static com.grupozap.search.api.configuration.environment.RemoteProperties.ES_STREAM_FLUSH_BYTES;
+import static com.grupozap.search.api.configuration.environment.RemoteProperties.ES_STREAM_FLUSH_INTERVAL;
+import static com.grupozap.search.api.configuration.environment.RemoteProperties.ES_STREAM_SIZE;
+import static com.grupozap.search.api.configuration.environment.RemoteProperties.ES_STREAM_STALL_THRESHOLD;
+import static com.grupozap.search.api.configuration.environment.RemoteProperties.ES_STREAM_STALL_TIMEOUT;
+import static java.lang.Math.max;
+import static java.lang.Math.min;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import java.io.OutputStream;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.springframework.stereotype.Component;
+
+/**
+ * Creates the {@link NdjsonWriter} of the streams and exports their throughput and stalls per
+ * index. Stalls shrink the page size of the index (halved down to {@value #MIN_PAGE_SIZE}), which
+ * grows back to {@code es.stream.size} as streams finish without stalling.
+ */
+@Component
+public class StreamMonitor {
+
+  static final int MIN_PAGE_SIZE = 10;
+
+  private final MeterRegistry meterRegistry;
+  private final Map<String, Meters> meters = new ConcurrentHashMap<>();
+
+  public StreamMonitor(MeterRegistry meterRegistry) {
+    this.meterRegistry = meterRegistry;
+  }
+
+  public int pageSize(String index) {
+    int maxPageSize = ES_STREAM_SIZE.getValue(index);
+    var pageSize = meters(index).pageSize.get();
+    return pageSize == 0 ? maxPageSize : min(maxPageSize, pageSize);
+  }
+
+  public NdjsonWriter writer(String index, OutputStream out) {
+    var meters = meters(index);
+    return new NdjsonWriter(
+        out,
+        ES_STREAM_FLUSH_BYTES.<Integer>getValue(index),
+        ES_STREAM_FLUSH_INTERVAL.<Long>getValue(index),
+        ES_STREAM_STALL_THRESHOLD.<Long>getValue(index),
+        ES_STREAM_STALL_TIMEOUT.<Long>getValue(index),
+        new NdjsonWriter.Listener() {
+          @Override
+          public void onWrite(int bytes) {
+            meters.bytes.increment(bytes);
+          }
+
+          @Override
+          public void onStall(long millis) {
+            meters.stalls.increment();
+            meters.stallTime.record(millis, MILLISECONDS);
+            meters.pageSize.set(max(MIN_PAGE_SIZE, pageSize(index) / 2));
+          }
+
+          @Override
+          public void onAbort() {
+            meters.aborted.increment();
+          }
+        });
+  }
+
+  /** When the stream ended without stalls, the page size of the index can grow back. */
+  public void completed(String index, NdjsonWriter writer) {
+    if (writer.getStalls() > 0) return;
+
+    int maxPageSize = ES_STREAM_SIZE.getValue(index);
+    meters(index)
+        .pageSize
+        .updateAndGet(size -> size == 0 ? 0 : min(maxPageSize, size + max(1, size / 4)));
+  }
+
+  private Meters meters(String index) {
+    return meters.computeIfAbsent(index, Meters::new);
+  }
+
+  private class Meters {
+    private final Counter bytes;
+    private final Counter stalls;
+    private final Counter aborted;
+    private final Timer stallTime;
+    private final AtomicInteger pageSize;
+
+    private Meters(String index) {
+      var tags = Tags.of("index", index);
+      bytes = meterRegistry.counter("search.stream.bytes", tags);
+      stalls = meterRegistry.counter("search.stream.stalls", tags);
+      aborted = meterRegistry.counter("search.stream.aborted", tags);
+      stallTime = meterRegistry.timer("search.stream.stall.time", tags);
+      pageSize = new AtomicInteger();
+      meterRegistry.gauge("search.stream.page.size", tags, this, m -> pageSize(index));
+    }
+  }
+}
@@ -0,0 +1,11 @@
+package com.grupozap.search.api.exception;
+
+import static java.lang.String.format;
+
+/** Call rejected by the open circuit breaker of an index group, until its sleep window ends. */
+public class CircuitOpenException extends ConcurrencyLimitExceededException {
+
+  public CircuitOpenException(final String group, final long retryAfterSeconds) {
+    super(retryAfterSeconds, format("Circuit breaker of %s index is open", group));
+  }
+}
@@ -0,0 +1,23 @@
+package com.grupozap.search.api.exception;
+
+import static java.lang.String.format;
+
+public class ConcurrencyLimitExceededException extends RuntimeException {
+
+  private final long retryAfterSeconds;
+
+  public ConcurrencyLimitExceededException(final String path, final long retryAfterSeconds) {
+    this(
+        retryAfterSeconds,
+        format("Concurrency limit of %s requests to the remote server exceeded", path));
+  }
+
+  protected ConcurrencyLimitExceededException(final long retryAfterSeconds, final String message) {
+    super(message, null, false, false);
+    this.retryAfterSeconds = retryAfterSeconds;
+  }
+
+  public long getRetryAfterSeconds() {
+    return retryAfterSeconds;
+  }
+}
@@ -4,6 +4,8 @@ import static com.grupozap.search.api.configuration.environment.RemoteProperties
 import static com.grupozap.search.api.utils.MapperUtils.convertValue;
 import static org.springframework.util.CollectionUtils.isEmpty;
 
+import com.grupozap.search.api.configuration.environment.ConfigSnapshot;
+import com.grupozap.search.api.configuration.environment.ConfigSnapshot.Derivation;
 import com.grupozap.search.api.model.event.RemotePropertiesUpdatedEvent;
 import java.util.*;
 import java.util.stream.Collectors;
@@ -14,28 +16,31 @@ import org.springframework.stereotype.Component;
 public class ScriptRemotePropertiesListener
     implements ApplicationListener<RemotePropertiesUpdatedEvent> {
 
-  private Map<String, Set<ScriptField>> scripts;
-
-  public ScriptRemotePropertiesListener() {
-    this.scripts = new HashMap<>();
-  }
+  private final Derivation<Set<ScriptField>> scripts =
+      ScriptRemotePropertiesListener::createScripts;
 
   @Override
   public void onApplicationEvent(RemotePropertiesUpdatedEvent event) {
-    List<Object> value = ES_SCRIPTS.getValue(event.getIndex());
+    event.getSnapshot().derived(scripts, event.getIndex());
+  }
+
+  private static Set<ScriptField> createScripts(ConfigSnapshot snapshot, String index) {
+    if (!snapshot.hasProperties(index)) return Set.of();
+
+    List<Object> value = ES_SCRIPTS.getValue(index, snapshot);
     if (!isEmpty(value)) {
-      final var indexScript = value.stream().map(this::toScriptField).collect(Collectors.toSet());
-      this.scripts.put(event.getIndex(), indexScript);
-    } else {
-      this.scripts.put(event.getIndex(), new HashSet<>());
+      return value.stream()
+          .map(ScriptRemotePropertiesListener::toScriptField)
+          .collect(Collectors.toUnmodifiableSet());
     }
+    return Set.of();
   }
 
-  public Map<String, Set<ScriptField>> getScripts() {
-    return this.scripts;
+  public Set<ScriptField> getScripts(String index) {
+    return ConfigSnapshot.pinned().derived(scripts, index);
   }
 
-  private ScriptField toScriptField(Object obj) {
+  private static ScriptField toScriptField(Object obj) {
     return convertValue(obj, ScriptField.class);
   }
 
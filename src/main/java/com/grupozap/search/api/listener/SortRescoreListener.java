@@ -1,9 +1,10 @@
 package com.grupozap.search.api.listener;
 
-import static com.google.common.collect.Maps.newHashMap;
 import static com.grupozap.search.api.configuration.environment.RemoteProperties.ES_SORT_RESCORE;
 import static com.grupozap.search.api.listener.SortRescoreListener.RescoreType.fromString;
 import static com.grupozap.search.api.utils.MapperUtils.convertValue;
+import static java.util.Collections.emptyMap;
+import static java.util.Collections.unmodifiableMap;
 import static java.util.Objects.nonNull;
 import static java.util.function.Function.identity;
 import static java.util.stream.Collectors.toMap;
@@ -11,10 +12,11 @@ import static java.util.stream.Collectors.toMap;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import com.fasterxml.jackson.databind.PropertyNamingStrategy.SnakeCaseStrategy;
 import com.fasterxml.jackson.databind.annotation.JsonNaming;
+import com.grupozap.search.api.configuration.environment.ConfigSnapshot;
+import com.grupozap.search.api.configuration.environment.ConfigSnapshot.Derivation;
 import com.grupozap.search.api.model.event.RemotePropertiesUpdatedEvent;
 import com.grupozap.search.api.query.LtrQueryBuilder;
 import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
 import org.elasticsearch.index.query.QueryBuilder;
 import org.elasticsearch.index.query.functionscore.FunctionScoreQueryBuilder;
 import org.elasticsearch.index.query.functionscore.RandomScoreFunctionBuilder;
@@ -28,20 +30,24 @@ public class SortRescoreListener implements ApplicationListener<RemoteProperties
 
   private static final Logger LOG = LoggerFactory.getLogger(SortRescoreListener.class);
 
-  private final Map<String, Map<String, SortRescore>> rescorerOrders;
-
-  public SortRescoreListener() {
-    this.rescorerOrders = new ConcurrentHashMap<>();
-  }
+  private final Derivation<Map<String, SortRescore>> rescorerOrders =
+      SortRescoreListener::createRescorerOrders;
 
   public Map<String, SortRescore> getRescorerOrders(String index) {
-    return this.rescorerOrders.getOrDefault(index, newHashMap());
+    return ConfigSnapshot.pinned().derived(rescorerOrders, index);
   }
 
   @Override
-  @SuppressWarnings("unchecked")
   public void onApplicationEvent(RemotePropertiesUpdatedEvent event) {
-    Map<String, Map> rescore = ES_SORT_RESCORE.getValue(event.getIndex());
+    event.getSnapshot().derived(rescorerOrders, event.getIndex());
+  }
+
+  @SuppressWarnings("unchecked")
+  private static Map<String, SortRescore> createRescorerOrders(
+      ConfigSnapshot snapshot, String index) {
+    if (!snapshot.hasProperties(index)) return emptyMap();
+
+    Map<String, Map> rescore = ES_SORT_RESCORE.getValue(index, snapshot);
     if (nonNull(rescore)) {
       Map<String, SortRescore> sortRescoreByType =
           rescore.keySet().stream()
@@ -53,11 +59,10 @@ public class SortRescoreListener implements ApplicationListener<RemoteProperties
                               rescore.get(key),
                               fromString((String) rescore.get(key).get("rescore_type"))
                                   .getRescoreClass())));
-      rescorerOrders.put(event.getIndex(), sortRescoreByType);
-      LOG.info("Refreshing es.sort.rescore. {}", this.rescorerOrders.toString());
-    } else {
-      this.rescorerOrders.remove(event.getIndex());
+      LOG.info("Refreshing es.sort.rescore of index {}. {}", index, sortRescoreByType);
+      return unmodifiableMap(sortRescoreByType);
     }
+    return emptyMap();
   }
 
   public abstract static class SortRescore {
@@ -0,0 +1,80 @@
+package com.grupozap.search.api.model;
+
+import static java.lang.Integer.MAX_VALUE;
+import static java.lang.Math.min;
+import static org.elasticsearch.client.RequestOptions.DEFAULT;
+
+import java.io.IOException;
+import java.util.function.IntSupplier;
+import org.elasticsearch.action.ActionListener;
+import org.elasticsearch.action.search.SearchRequest;
+import org.elasticsearch.action.search.SearchResponse;
+import org.elasticsearch.client.RestHighLevelClient;
+import org.elasticsearch.search.Scroll;
+
+/**
+ * Iterates over the pages of a search using {@code search_after} with the sort values of the last
+ * hit of each page, so no context is kept on the remote server between pages. The search must be
+ * sorted by a unique tiebreaker.
+ */
+public class SearchAfterApiIterator<T> extends SearchApiIterator<T> {
+
+  private final RestHighLevelClient client;
+  private final SearchRequest searchRequest;
+  private final IntSupplier pageSize;
+
+  public SearchAfterApiIterator(
+      RestHighLevelClient client,
+      SearchRequest searchRequest,
+      SearchResponse response,
+      final int size,
+      final int prefetch) {
+    this(client, searchRequest, response, size, prefetch, () -> MAX_VALUE);
+  }
+
+  /** The page size is supplied for each page (limited to the search size), so it can shrink. */
+  public SearchAfterApiIterator(
+      RestHighLevelClient client,
+      SearchRequest searchRequest,
+      SearchResponse response,
+      final int size,
+      final int prefetch,
+      final IntSupplier pageSize) {
+    super(client, response, (Scroll) null, size, prefetch);
+
+    if ((this.searchRequest = searchRequest) == null || searchRequest.source() == null)
+      throw new IllegalArgumentException("search request can not be null");
+
+    this.client = client;
+    this.pageSize = pageSize;
+  }
+
+  @Override
+  SearchResponse nextPage(SearchResponse previous) throws IOException {
+    return search(searchAfter(previous));
+  }
+
+  @Override
+  void nextPageAsync(SearchResponse previous, ActionListener<SearchResponse> listener) {
+    searchAsync(searchAfter(previous), listener);
+  }
+
+  private SearchRequest searchAfter(SearchResponse previous) {
+    var hits = previous.getHits().getHits();
+    var source =
+        searchRequest
+            .source()
+            .copyWithNewSlice(searchRequest.source().slice())
+            .searchAfter(hits[hits.length - 1].getSortValues());
+    source.size(min(searchRequest.source().size(), pageSize.getAsInt()));
+    return new SearchRequest(searchRequest.indices()).source(source);
+  }
+
+  SearchResponse search(SearchRequest searchRequest) throws IOException {
+    return client.search(searchRequest, DEFAULT);
+  }
+
+  void searchAsync(SearchRequest searchRequest, ActionListener<SearchResponse> listener) {
+    client.searchAsync(searchRequest, DEFAULT, listener);
+  }
+}
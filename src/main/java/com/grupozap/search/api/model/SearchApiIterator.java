@@ -1,26 +1,60 @@
 package com.grupozap.search.api.model;
 
+import static java.util.concurrent.CompletableFuture.completedFuture;
 import static org.elasticsearch.client.RequestOptions.DEFAULT;
 
 import com.grupozap.search.api.exception.FailedShardsException;
 import com.grupozap.search.api.exception.QueryTimeoutException;
 import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
 import java.util.Iterator;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Supplier;
+import org.elasticsearch.action.ActionListener;
 import org.elasticsearch.action.search.SearchResponse;
 import org.elasticsearch.action.search.SearchScrollRequest;
 import org.elasticsearch.client.RestHighLevelClient;
 import org.elasticsearch.search.Scroll;
 
-public class SearchApiIterator<T> implements Iterator<T[]> {
+/**
+ * Iterates over the pages of a scroll. With a positive prefetch, up to that many pages are fetched
+ * asynchronously ahead of the one being consumed, so the remote server keeps working while the
+ * current page is written.
+ */
+public class SearchApiIterator<T> implements Iterator<T[]>, AutoCloseable {
 
   private RestHighLevelClient client;
   private SearchResponse response;
-  private final Scroll scroll;
+  private final Supplier<Scroll> scroll;
   private final int size;
+  private final int prefetch;
+  private final Deque<CompletableFuture<SearchResponse>> pages;
   private int count;
+  private volatile boolean closed;
 
   public SearchApiIterator(
       RestHighLevelClient client, SearchResponse response, final Scroll scroll, final int size) {
+    this(client, response, scroll, size, 0);
+  }
+
+  public SearchApiIterator(
+      RestHighLevelClient client,
+      SearchResponse response,
+      final Scroll scroll,
+      final int size,
+      final int prefetch) {
+    this(client, response, () -> scroll, size, prefetch);
+  }
+
+  /** The scroll (keep-alive) is supplied for each page, so it can change during the iteration. */
+  public SearchApiIterator(
+      RestHighLevelClient client,
+      SearchResponse response,
+      final Supplier<Scroll> scroll,
+      final int size,
+      final int prefetch) {
 
     if ((this.response = response) == null)
       throw new IllegalArgumentException("response can not be null");
@@ -33,8 +67,12 @@ public class SearchApiIterator<T> implements Iterator<T[]> {
     if ((this.client = client) == null)
       throw new IllegalArgumentException("client can not be null");
 
+    if (prefetch < 0) throw new IllegalArgumentException("prefetch can not be negative");
+
     this.scroll = scroll;
     this.size = size;
+    this.prefetch = prefetch;
+    this.pages = new ArrayDeque<>(prefetch);
     this.count = hits();
   }
 
@@ -50,14 +88,23 @@ public class SearchApiIterator<T> implements Iterator<T[]> {
     var result = (T[]) response.getHits().getHits();
 
     try {
-      var scrollRequest = new SearchScrollRequest(response.getScrollId());
-      scrollRequest.scroll(scroll);
-
-      response = client.scroll(scrollRequest, DEFAULT);
+      if (prefetch > 0) {
+        prefetch();
+        response = pages.remove().join();
+        prefetch();
+      } else {
+        response = nextPage(response);
+      }
 
       if (response.getFailedShards() > 0)
         throw new FailedShardsException(response.getFailedShards(), response.getTotalShards());
 
+      // Every page of a search_after stream is a search of its own, with its own timeout
+      if (response.isTimedOut()) throw new QueryTimeoutException();
+
+    } catch (CompletionException e) {
+      if (e.getCause() instanceof RuntimeException) throw (RuntimeException) e.getCause();
+      throw new RuntimeException("Error to Iterate stream", e.getCause());
     } catch (IOException e) {
       throw new RuntimeException("Error to Iterate stream", e);
     }
@@ -66,6 +113,47 @@ public class SearchApiIterator<T> implements Iterator<T[]> {
     return result;
   }
 
+  // Each page is requested from the previous one, so the prefetched pages are chained
+  private void prefetch() {
+    while (pages.size() < prefetch) {
+      var last = pages.isEmpty() ? completedFuture(response) : pages.getLast();
+      pages.add(last.thenCompose(this::fetch));
+    }
+  }
+
+  private CompletableFuture<SearchResponse> fetch(SearchResponse previous) {
+    if (closed
+        || previous.getHits().getHits().length == 0
+        || previous.getFailedShards() > 0
+        || previous.isTimedOut()) return completedFuture(previous);
+
+    var future = new CompletableFuture<SearchResponse>();
+    nextPageAsync(previous, ActionListener.wrap(future::complete, future::completeExceptionally));
+    return future;
+  }
+
+  SearchResponse nextPage(SearchResponse previous) throws IOException {
+    return scroll(scrollRequest(previous));
+  }
+
+  void nextPageAsync(SearchResponse previous, ActionListener<SearchResponse> listener) {
+    scrollAsync(scrollRequest(previous), listener);
+  }
+
+  private SearchScrollRequest scrollRequest(SearchResponse previous) {
+    var scrollRequest = new SearchScrollRequest(previous.getScrollId());
+    scrollRequest.scroll(scroll.get());
+    return scrollRequest;
+  }
+
+  SearchResponse scroll(SearchScrollRequest scrollRequest) throws IOException {
+    return client.scroll(scrollRequest, DEFAULT);
+  }
+
+  void scrollAsync(SearchScrollRequest scrollRequest, ActionListener<SearchResponse> listener) {
+    client.scrollAsync(scrollRequest, DEFAULT, listener);
+  }
+
   private int hits() {
     return response.getHits().getHits().length;
   }
@@ -73,4 +161,20 @@ public class SearchApiIterator<T> implements Iterator<T[]> {
   public int getCount() {
     return count;
   }
+
+  /** Latest scroll id received, including the pages already prefetched. */
+  public String getScrollId() {
+    var scrollId = response.getScrollId();
+    for (var page : pages) {
+      if (page.isDone() && !page.isCompletedExceptionally() && page.join().getScrollId() != null)
+        scrollId = page.join().getScrollId();
+    }
+    return scrollId;
+  }
+
+  /** Stops prefetching pages. The scroll itself must be cleared by the caller. */
+  @Override
+  public void close() {
+    closed = true;
+  }
 }
@@ -0,0 +1,293 @@
+package com.grupozap.search.api.model;
+
+import static java.lang.Math.max;
+import static java.util.Arrays.copyOf;
+import static org.elasticsearch.client.RequestOptions.DEFAULT;
+
+import com.grupozap.search.api.exception.FailedShardsException;
+import com.grupozap.search.api.exception.QueryTimeoutException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.function.Supplier;
+import org.elasticsearch.action.ActionListener;
+import org.elasticsearch.action.search.ClearScrollRequest;
+import org.elasticsearch.action.search.ClearScrollResponse;
+import org.elasticsearch.action.search.SearchRequest;
+import org.elasticsearch.action.search.SearchResponse;
+import org.elasticsearch.action.search.SearchScrollRequest;
+import org.elasticsearch.client.RestHighLevelClient;
+import org.elasticsearch.search.Scroll;
+import org.elasticsearch.search.slice.SliceBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Iterates over the pages of a sliced scroll, merging the slices in the order their pages arrive.
+ * Each slice is scrolled asynchronously and keeps at most {@code depth} pages waiting to be
+ * consumed, and the total of returned hits is limited to {@code size}.
+ *
+ * <p>Pages that arrive once the iterator is closed are dropped and their scroll is cleared right
+ * away, as the caller may have already cleared the ones from {@link #getScrollIds()}.
+ */
+public class SlicedSearchApiIterator<T> implements Iterator<T[]>, AutoCloseable {
+
+  private static final Logger LOG = LoggerFactory.getLogger(SlicedSearchApiIterator.class);
+
+  private final RestHighLevelClient client;
+  private final SearchRequest searchRequest;
+  private final Supplier<Scroll> scroll;
+  private final int size;
+  private final int depth;
+
+  private final List<Slice> slices;
+  private final BlockingQueue<Page> pages = new LinkedBlockingQueue<>();
+
+  private boolean started;
+  private int running;
+  private int count;
+  private Page next;
+  private volatile boolean closed;
+
+  public SlicedSearchApiIterator(
+      RestHighLevelClient client,
+      SearchRequest searchRequest,
+      final int slices,
+      final int size,
+      final int depth) {
+    this(client, searchRequest, searchRequest::scroll, slices, size, depth);
+  }
+
+  /** The scroll (keep-alive) is supplied for each page, so it can change during the iteration. */
+  public SlicedSearchApiIterator(
+      RestHighLevelClient client,
+      SearchRequest searchRequest,
+      final Supplier<Scroll> scroll,
+      final int slices,
+      final int size,
+      final int depth) {
+
+    if ((this.client = client) == null)
+      throw new IllegalArgumentException("client can not be null");
+
+    if ((this.searchRequest = searchRequest) == null || searchRequest.source() == null)
+      throw new IllegalArgumentException("search request can not be null");
+
+    if ((this.scroll = scroll) == null)
+      throw new IllegalArgumentException("scroll can not be null");
+
+    if (slices < 2) throw new IllegalArgumentException("slices must be greater than one");
+
+    this.size = size;
+    this.depth = max(1, depth);
+    this.slices = new ArrayList<>(slices);
+    for (var id = 0; id < slices; id++) this.slices.add(new Slice(id, slices));
+    this.running = slices;
+  }
+
+  @Override
+  public boolean hasNext() {
+    if (next != null) return true;
+    if (closed || count >= size) return false;
+
+    if (!started) {
+      started = true;
+      slices.forEach(Slice::fetch);
+    }
+
+    while (running > 0) {
+      Page page;
+      try {
+        page = pages.take();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new RuntimeException("Error to Iterate stream", e);
+      }
+
+      if (page.error != null) {
+        close();
+        throw page.error;
+      }
+
+      if (page.hits == null) {
+        running--;
+      } else {
+        next = page;
+        return true;
+      }
+    }
+    return false;
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public T[] next() {
+    if (!hasNext()) throw new NoSuchElementException();
+
+    var page = next;
+    next = null;
+    page.slice.consumed();
+
+    var result = (T[]) page.hits;
+    if (count + result.length > size) result = copyOf(result, size - count);
+    count += result.length;
+
+    if (count >= size) close();
+    return result;
+  }
+
+  public int getCount() {
+    return count;
+  }
+
+  /** Latest scroll id of each slice that was already opened. */
+  public List<String> getScrollIds() {
+    var scrollIds = new ArrayList<String>(slices.size());
+    for (var slice : slices) {
+      synchronized (slice) {
+        if (slice.scrollId != null) scrollIds.add(slice.scrollId);
+      }
+    }
+    return scrollIds;
+  }
+
+  @Override
+  public void close() {
+    closed = true;
+  }
+
+  void search(SearchRequest searchRequest, ActionListener<SearchResponse> listener) {
+    client.searchAsync(searchRequest, DEFAULT, listener);
+  }
+
+  void scroll(SearchScrollRequest scrollRequest, ActionListener<SearchResponse> listener) {
+    client.scrollAsync(scrollRequest, DEFAULT, listener);
+  }
+
+  void clearScroll(String scrollId) {
+    var request = new ClearScrollRequest();
+    request.addScrollId(scrollId);
+    client.clearScrollAsync(
+        request,
+        DEFAULT,
+        new ActionListener<ClearScrollResponse>() {
+          @Override
+          public void onResponse(ClearScrollResponse response) {}
+
+          @Override
+          public void onFailure(Exception e) {
+            LOG.warn("Error to clear the scroll of a closed sliced stream", e);
+          }
+        });
+  }
+
+  private class Slice implements ActionListener<SearchResponse> {
+    private final int id;
+    private final int max;
+
+    private String scrollId;
+    private int buffered;
+    private boolean fetching;
+    private boolean done;
+
+    private Slice(int id, int max) {
+      this.id = id;
+      this.max = max;
+    }
+
+    private synchronized void fetch() {
+      if (closed || done || fetching || buffered >= depth) return;
+      fetching = true;
+
+      if (scrollId == null) {
+        var request =
+            new SearchRequest(searchRequest.indices())
+                .scroll(scroll.get())
+                .source(searchRequest.source().copyWithNewSlice(new SliceBuilder(id, max)));
+        search(request, this);
+      } else {
+        scroll(new SearchScrollRequest(scrollId).scroll(scroll.get()), this);
+      }
+    }
+
+    private synchronized void consumed() {
+      buffered--;
+      fetch();
+    }
+
+    @Override
+    public void onResponse(SearchResponse response) {
+      // The scroll id is kept before any check, so even a failed page gets its scroll cleared
+      if (!keepScrollId(response.getScrollId())) return;
+
+      if (response.getFailedShards() > 0) {
+        onFailure(new FailedShardsException(response.getFailedShards(), response.getTotalShards()));
+        return;
+      }
+
+      if (response.isTimedOut()) {
+        onFailure(new QueryTimeoutException());
+        return;
+      }
+
+      synchronized (this) {
+        fetching = false;
+
+        var hits = response.getHits().getHits();
+        if (hits.length == 0) {
+          done = true;
+          pages.add(new Page(this, null, null));
+        } else {
+          buffered++;
+          pages.add(new Page(this, hits, null));
+          fetch();
+        }
+      }
+    }
+
+    private boolean keepScrollId(String responseScrollId) {
+      synchronized (this) {
+        if (!closed) {
+          if (responseScrollId != null) scrollId = responseScrollId;
+          return true;
+        }
+
+        fetching = false;
+        done = true;
+        if (responseScrollId == null || responseScrollId.equals(scrollId)) return false;
+      }
+      clearScroll(responseScrollId);
+      return false;
+    }
+
+    @Override
+    public void onFailure(Exception e) {
+      synchronized (this) {
+        fetching = false;
+        done = true;
+      }
+      pages.add(
+          new Page(
+              this,
+              null,
+              e instanceof RuntimeException
+                  ? (RuntimeException) e
+                  : new RuntimeException("Error to Iterate stream", e)));
+    }
+  }
+
+  private class Page {
+    private final Slice slice;
+    private final Object[] hits;
+    private final RuntimeException error;
+
+    private Page(Slice slice, Object[] hits, RuntimeException error) {
+      this.slice = slice;
+      this.hits = hits;
+      this.error = error;
+    }
+  }
+}
@@ -1,20 +1,36 @@
 package com.grupozap.search.api.model.event;
 
+import com.grupozap.search.api.model.mapping.IndexMetadata;
 import java.util.Map;
+import java.util.Set;
 import org.springframework.context.ApplicationEvent;
 
 public class ClusterSettingsUpdatedEvent extends ApplicationEvent {
 
-  private final Map<String, Map<String, Object>> settingsByIndex;
+  private final Map<String, IndexMetadata> settingsByIndex;
+  private final Set<String> indices;
 
+  public ClusterSettingsUpdatedEvent(Object source, Map<String, IndexMetadata> settingsByIndex) {
+    this(source, settingsByIndex, null);
+  }
+
+  /**
+   * @param indices the indices (and aliases) whose settings changed, were added or removed, or null
+   *     when any of them may have changed
+   */
   public ClusterSettingsUpdatedEvent(
-      Object source, Map<String, Map<String, Object>> settingsByIndex) {
+      Object source, Map<String, IndexMetadata> settingsByIndex, Set<String> indices) {
     super(source);
 
     this.settingsByIndex = settingsByIndex;
+    this.indices = indices;
   }
 
-  public Map<String, Map<String, Object>> getSettingsByIndex() {
+  public Map<String, IndexMetadata> getSettingsByIndex() {
     return settingsByIndex;
   }
+
+  public boolean isChanged(String index) {
+    return indices == null || indices.contains(index);
+  }
 }
@@ -1,17 +1,29 @@
 package com.grupozap.search.api.model.event;
 
+import com.grupozap.search.api.configuration.environment.ConfigSnapshot;
 import org.springframework.context.ApplicationEvent;
 
 public class RemotePropertiesUpdatedEvent extends ApplicationEvent {
 
   private final String index;
+  private final ConfigSnapshot snapshot;
 
   public RemotePropertiesUpdatedEvent(Object source, String index) {
+    this(source, index, ConfigSnapshot.current());
+  }
+
+  /** @param snapshot the configuration the properties of the index were updated in */
+  public RemotePropertiesUpdatedEvent(Object source, String index, ConfigSnapshot snapshot) {
     super(source);
     this.index = index;
+    this.snapshot = snapshot;
   }
 
   public String getIndex() {
     return index;
   }
+
+  public ConfigSnapshot getSnapshot() {
+    return snapshot;
+  }
 }
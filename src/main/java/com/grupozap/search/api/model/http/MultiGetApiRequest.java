@@ -0,0 +1,23 @@
+package com.grupozap.search.api.model.http;
+
+import com.google.common.base.MoreObjects.ToStringHelper;
+import io.swagger.annotations.ApiModelProperty;
+import java.util.List;
+
+public class MultiGetApiRequest extends BaseApiRequest {
+
+  @ApiModelProperty(value = "Document ids, returned in the same order", example = "id1, id2, id3")
+  private List<String> ids;
+
+  public List<String> getIds() {
+    return ids;
+  }
+
+  public void setIds(List<String> ids) {
+    this.ids = ids;
+  }
+
+  protected ToStringHelper addValuesToStringHelper(ToStringHelper stringHelper) {
+    return super.addValuesToStringHelper(stringHelper).add("ids", getIds());
+  }
+}
@@ -0,0 +1,106 @@
+package com.grupozap.search.api.model.http;
+
+import static java.util.Arrays.asList;
+import static org.apache.commons.lang3.StringUtils.trimToNull;
+
+import com.google.common.base.MoreObjects;
+import com.grupozap.search.api.configuration.environment.ConfigSnapshot;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+import java.util.TreeSet;
+
+/**
+ * Immutable and normalized representation of an API request, used as key to cache and share
+ * responses between requests that would generate the same query on the remote server. The version
+ * of the config snapshot of the request is part of the key, as the query depends on it.
+ */
+public final class RequestKey {
+
+  private final String index;
+  private final long configVersion;
+  private final List<Object> values;
+  private final int hash;
+
+  private RequestKey(String index, List<Object> values) {
+    this.index = index;
+    this.configVersion = ConfigSnapshot.pinned().getVersion();
+    this.values = values;
+    this.hash = Objects.hash(index, configVersion, values);
+  }
+
+  public static RequestKey of(SearchApiRequest request) {
+    return new RequestKey(
+        request.getIndex(),
+        asList(
+            trimToNull(request.getFilter()),
+            trimToNull(request.getQ()),
+            trimToNull(request.getMm()),
+            sorted(request.getFields()),
+            trimToNull(request.getFactorField()),
+            trimToNull(request.getFactorModifier()),
+            trimToNull(request.getSort()),
+            request.isDisableSort(),
+            request.getDefaultFilterMode(),
+            request.getFrom(),
+            request.getSize(),
+            sorted(request.getIncludeFields()),
+            sorted(request.getExcludeFields()),
+            ordered(request.getFacets()),
+            request.getFacetSize()));
+  }
+
+  public static RequestKey of(BaseApiRequest request, String index, String id) {
+    return new RequestKey(
+        index,
+        asList("_id", id, sorted(request.getIncludeFields()), sorted(request.getExcludeFields())));
+  }
+
+  private static Collection<String> sorted(Collection<String> values) {
+    if (values == null) return null;
+
+    var sorted = new TreeSet<String>();
+    values.stream().map(String::trim).forEach(sorted::add);
+    return sorted;
+  }
+
+  // Facets order is kept since it defines the order of the aggregations on response
+  private static Collection<String> ordered(Collection<String> values) {
+    return values == null ? null : new ArrayList<>(values);
+  }
+
+  public String getIndex() {
+    return index;
+  }
+
+  public long getConfigVersion() {
+    return configVersion;
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) return true;
+    if (o == null || getClass() != o.getClass()) return false;
+
+    var that = (RequestKey) o;
+    return hash == that.hash
+        && configVersion == that.configVersion
+        && Objects.equals(this.index, that.index)
+        && Objects.equals(this.values, that.values);
+  }
+
+  @Override
+  public int hashCode() {
+    return hash;
+  }
+
+  @Override
+  public String toString() {
+    return MoreObjects.toStringHelper(this)
+        .add("index", index)
+        .add("configVersion", configVersion)
+        .add("values", values)
+        .toString();
+  }
+}
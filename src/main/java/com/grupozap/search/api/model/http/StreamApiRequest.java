@@ -0,0 +1,39 @@
+package com.grupozap.search.api.model.http;
+
+import com.google.common.base.MoreObjects.ToStringHelper;
+import io.swagger.annotations.ApiModelProperty;
+
+public class StreamApiRequest extends FilterableApiRequest {
+
+  @ApiModelProperty(
+      value = "Paging mode of the stream, defaults to the index configuration",
+      example = "SCROLL,SEARCH_AFTER")
+  private StreamMode mode;
+
+  @ApiModelProperty(
+      value = "Output format of the stream, defaults to the Accept header",
+      example = "NDJSON,ARROW")
+  private StreamFormat format;
+
+  public StreamMode getMode() {
+    return mode;
+  }
+
+  public void setMode(StreamMode mode) {
+    this.mode = mode;
+  }
+
+  public StreamFormat getFormat() {
+    return format;
+  }
+
+  public void setFormat(StreamFormat format) {
+    this.format = format;
+  }
+
+  protected ToStringHelper addValuesToStringHelper(ToStringHelper stringHelper) {
+    return super.addValuesToStringHelper(stringHelper)
+        .add("mode", getMode())
+        .add("format", getFormat());
+  }
+}
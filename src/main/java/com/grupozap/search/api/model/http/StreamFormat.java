@@ -0,0 +1,20 @@
+package com.grupozap.search.api.model.http;
+
+public enum StreamFormat {
+  NDJSON("application/x-ndjson;charset=UTF-8"),
+  ARROW("application/vnd.apache.arrow.stream");
+
+  private final String contentType;
+
+  StreamFormat(String contentType) {
+    this.contentType = contentType;
+  }
+
+  public String getContentType() {
+    return contentType;
+  }
+
+  public static StreamFormat fromAccept(String accept) {
+    return accept != null && accept.contains(ARROW.contentType) ? ARROW : NDJSON;
+  }
+}
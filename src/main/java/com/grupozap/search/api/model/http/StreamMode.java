@@ -0,0 +1,6 @@
+package com.grupozap.search.api.model.http;
+
+public enum StreamMode {
+  SCROLL,
+  SEARCH_AFTER
+}
@@ -0,0 +1,258 @@
+package com.grupozap.search.api.model.mapping;
+
+import static com.grupozap.search.api.model.mapping.MappingType.FIELD_TYPE_OBJECT;
+import static com.grupozap.search.api.model.mapping.MappingType.FIELD_TYPE_SCRIPT;
+import static java.lang.String.valueOf;
+import static java.util.Collections.emptyList;
+import static java.util.Collections.singletonList;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Immutable settings and flattened mapping of an index, shared by the index and its aliases. Field
+ * types are the Elasticsearch type names (e.g. {@code keyword}, {@code nested}) or {@code _obj} for
+ * objects without type, interned so that every index shares one instance per type.
+ */
+public final class IndexMetadata {
+
+  public static final String SHARDS = "number_of_shards";
+  public static final String REPLICAS = "number_of_replicas";
+
+  private static final String OBJECT_TYPE = FIELD_TYPE_OBJECT.getDefaultType();
+  private static final String SCRIPT_TYPE = FIELD_TYPE_SCRIPT.getDefaultType();
+
+  private final Integer shards;
+  private final Integer replicas;
+  private final List<String> sortFields;
+  private final List<String> sortOrders;
+  private final Map<String, String> fieldTypes;
+  private final Set<String> scripts;
+  private final Set<String> aliases;
+
+  private IndexMetadata(
+      Integer shards,
+      Integer replicas,
+      List<String> sortFields,
+      List<String> sortOrders,
+      Map<String, String> fieldTypes,
+      Set<String> scripts,
+      Set<String> aliases) {
+    this.shards = shards;
+    this.replicas = replicas;
+    this.sortFields = sortFields;
+    this.sortOrders = sortOrders;
+    this.fieldTypes = fieldTypes;
+    this.scripts = scripts;
+    this.aliases = aliases;
+  }
+
+  public static Builder builder() {
+    return new Builder();
+  }
+
+  public Integer getShards() {
+    return shards;
+  }
+
+  public Integer getReplicas() {
+    return replicas;
+  }
+
+  public List<String> getSortFields() {
+    return sortFields;
+  }
+
+  public List<String> getSortOrders() {
+    return sortOrders;
+  }
+
+  /** Type by field name of every field (and object) of the mapping, without the scripts. */
+  public Map<String, String> getFieldTypes() {
+    return fieldTypes;
+  }
+
+  public Set<String> getScripts() {
+    return scripts;
+  }
+
+  public Set<String> getAliases() {
+    return aliases;
+  }
+
+  /** Type of a field, {@code _script} for a stored script or null when there is none. */
+  public String getFieldType(String name) {
+    var type = fieldTypes.get(name);
+    if (type == null && scripts.contains(name)) return SCRIPT_TYPE;
+    return type;
+  }
+
+  /** Value of a setting, field or script as in {@link #asMap()}, or null when there is none. */
+  public String get(String key) {
+    if (SHARDS.equals(key)) return shards == null ? null : valueOf(shards);
+    if (REPLICAS.equals(key)) return replicas == null ? null : valueOf(replicas);
+    return getFieldType(key);
+  }
+
+  /** The shards, replicas, field types and scripts in a single map sorted by key. */
+  public Map<String, Object> asMap() {
+    Map<String, Object> map = new TreeMap<>(fieldTypes);
+    scripts.forEach(script -> map.put(script, SCRIPT_TYPE));
+    if (shards != null) map.put(SHARDS, valueOf(shards));
+    if (replicas != null) map.put(REPLICAS, valueOf(replicas));
+    return map;
+  }
+
+  /** This metadata with the given stored scripts, sharing everything else. */
+  public IndexMetadata withScripts(Collection<String> scripts) {
+    if (this.scripts.size() == scripts.size() && this.scripts.containsAll(scripts)) return this;
+    return new IndexMetadata(
+        shards,
+        replicas,
+        sortFields,
+        sortOrders,
+        fieldTypes,
+        ImmutableSet.copyOf(scripts),
+        aliases);
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) return true;
+    if (o == null || getClass() != o.getClass()) return false;
+    var that = (IndexMetadata) o;
+    return Objects.equals(shards, that.shards)
+        && Objects.equals(replicas, that.replicas)
+        && sortFields.equals(that.sortFields)
+        && sortOrders.equals(that.sortOrders)
+        && scripts.equals(that.scripts)
+        && aliases.equals(that.aliases)
+        && fieldTypes.equals(that.fieldTypes);
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(shards, replicas, sortFields, sortOrders, fieldTypes, scripts, aliases);
+  }
+
+  @Override
+  public String toString() {
+    return asMap().toString();
+  }
+
+  public static class Builder {
+    private Integer shards;
+    private Integer replicas;
+    private List<String> sortFields = emptyList();
+    private List<String> sortOrders = emptyList();
+    private final Map<String, String> fieldTypes = new HashMap<>();
+    private Collection<String> scripts = emptyList();
+    private Collection<String> aliases = emptyList();
+
+    private Builder() {}
+
+    public Builder shards(Integer shards) {
+      this.shards = shards;
+      return this;
+    }
+
+    public Builder replicas(Integer replicas) {
+      this.replicas = replicas;
+      return this;
+    }
+
+    /** The {@code index.sort.field} setting, a field name or a list of them. */
+    public Builder sortFields(Object sortFields) {
+      this.sortFields = strings(sortFields);
+      return this;
+    }
+
+    /** The {@code index.sort.order} setting, an order or a list of them. */
+    public Builder sortOrders(Object sortOrders) {
+      this.sortOrders = strings(sortOrders);
+      return this;
+    }
+
+    public Builder field(String name, String type) {
+      fieldTypes.put(name, type.intern());
+      return this;
+    }
+
+    /**
+     * Adds the fields of the mappings, either the mapping itself or the mappings by type name (e.g.
+     * {@code _doc}), in a single walk through the properties and multi-fields of each field.
+     * Mapping parameters other than {@code type} (e.g. {@code analyzer}) are not fields.
+     */
+    @SuppressWarnings("unchecked")
+    public Builder mappings(Map<String, Object> mappings) {
+      if (mappings.containsKey("properties")) {
+        properties(null, mappings.get("properties"));
+      } else {
+        for (var mapping : mappings.values()) {
+          if (mapping instanceof Map)
+            properties(null, ((Map<String, Object>) mapping).get("properties"));
+        }
+      }
+      return this;
+    }
+
+    public Builder scripts(Collection<String> scripts) {
+      this.scripts = scripts;
+      return this;
+    }
+
+    public Builder aliases(Collection<String> aliases) {
+      this.aliases = aliases;
+      return this;
+    }
+
+    public IndexMetadata build() {
+      return new IndexMetadata(
+          shards,
+          replicas,
+          sortFields,
+          sortOrders,
+          ImmutableMap.copyOf(fieldTypes),
+          ImmutableSet.copyOf(scripts),
+          ImmutableSet.copyOf(aliases));
+    }
+
+    @SuppressWarnings("unchecked")
+    private void properties(String parent, Object properties) {
+      if (!(properties instanceof Map)) return;
+
+      for (var entry : ((Map<String, Object>) properties).entrySet()) {
+        if (!(entry.getValue() instanceof Map)) continue;
+
+        var name = parent == null ? entry.getKey() : parent + "." + entry.getKey();
+        var field = (Map<String, Object>) entry.getValue();
+        var type = field.get("type");
+        var children = field.get("properties");
+
+        if (type != null) field(name, valueOf(type));
+        else if (children != null) fieldTypes.put(name, OBJECT_TYPE);
+
+        properties(name, children);
+        properties(name, field.get("fields"));
+      }
+    }
+
+    private static List<String> strings(Object value) {
+      if (value == null) return emptyList();
+      if (!(value instanceof Collection)) return singletonList(valueOf(value));
+
+      List<String> strings = new ArrayList<>();
+      for (var item : (Collection<?>) value) strings.add(valueOf(item));
+      return ImmutableList.copyOf(strings);
+    }
+  }
+}
@@ -8,6 +8,7 @@ import static org.jparsec.Scanners.string;
 
 import com.grupozap.search.api.model.query.*;
 import datadog.trace.api.Trace;
+import java.util.Collections;
 import java.util.List;
 import org.jparsec.Parser;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -18,9 +19,16 @@ public class FacetParser {
   private static final String SORT_FACET_FIELD = "sortFacet";
 
   private final Parser<List<Facet>> facetParser;
+  private final ParserCache<List<Facet>> cache;
 
-  @Autowired
   public FacetParser(FieldParser fieldParser, SortParser sortParser) {
+    this(fieldParser, sortParser, null);
+  }
+
+  @Autowired
+  public FacetParser(
+      FieldParser fieldParser, SortParser sortParser, ParserCache<List<Facet>> cache) {
+    this.cache = cache;
 
     var sortFacetParser =
         sequence(
@@ -32,11 +40,14 @@ public class FacetParser {
     this.facetParser =
         sequence(fieldParser.getWithNot(), sortFacetParser.asOptional(), Facet::new)
             .sepBy(isChar(',').next(WHITESPACES.skipMany()))
-            .label("sort");
+            .label("sort")
+            .map(Collections::unmodifiableList);
   }
 
   @Trace
   public List<Facet> parse(String string) {
-    return facetParser.parse(string);
+    if (cache == null) return facetParser.parse(string);
+
+    return cache.get(string, facetParser::parse);
   }
 }
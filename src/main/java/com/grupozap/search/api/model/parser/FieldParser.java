@@ -17,6 +17,7 @@ public class FieldParser {
 
   private final Parser<Field> fieldParser;
   private final Parser<Field> fieldParserWithNot;
+  private final Function<String, Field> fieldFactory;
 
   public FieldParser(NotParser notParser) {
     this(notParser, fieldName -> fieldName, FieldFactory::createField, FieldFactory::createField);
@@ -39,6 +40,7 @@ public class FieldParser {
             .map(aliasField)
             .map(createField);
     fieldParserWithNot = sequence(notParser.get(), fieldParser, createFieldWithNot);
+    fieldFactory = aliasField.andThen(createField);
   }
 
   Parser<Field> get() {
@@ -49,6 +51,11 @@ public class FieldParser {
     return fieldParserWithNot;
   }
 
+  /** The field of the given (already parsed) name. */
+  Field field(String name) {
+    return fieldFactory.apply(name);
+  }
+
   public Field parse(String string) {
     return fieldParser.parse(string);
   }
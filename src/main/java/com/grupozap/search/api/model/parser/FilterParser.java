@@ -11,10 +11,12 @@ import org.jparsec.Parser;
 
 public class FilterParser {
 
+  private final FieldParser fieldParser;
   private final Parser<Filter> filterParser;
 
   public FilterParser(
       FieldParser fieldParser, OperatorParser operatorParser, ValueParser valueParser) {
+    this.fieldParser = fieldParser;
     var normalParser =
         sequence(
                 fieldParser.get(),
@@ -66,4 +68,8 @@ public class FilterParser {
   Parser<Filter> get() {
     return filterParser;
   }
+
+  FieldParser getFieldParser() {
+    return fieldParser;
+  }
 }
@@ -0,0 +1,88 @@
+package com.grupozap.search.api.model.parser;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.google.common.base.Objects;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Bounded cache of parsed trees keyed by (index, mapping version, alias version, raw string).
+ * Whenever any of the versions grows (e.g. a new mapping was loaded) all the previous entries are
+ * dropped, while requests still pinned to an older version keep their own keys. The cached values
+ * are shared between requests, so they must be immutable.
+ */
+public class ParserCache<T> {
+
+  private final Cache<Key, T> cache;
+  private final Supplier<String> index;
+  private final LongSupplier mappingVersion;
+  private final LongSupplier aliasVersion;
+
+  private volatile long currentMappingVersion;
+  private volatile long currentAliasVersion;
+
+  public ParserCache(
+      long maximumSize,
+      Supplier<String> index,
+      LongSupplier mappingVersion,
+      LongSupplier aliasVersion) {
+    this.cache = Caffeine.newBuilder().maximumSize(maximumSize).build();
+    this.index = index;
+    this.mappingVersion = mappingVersion;
+    this.aliasVersion = aliasVersion;
+  }
+
+  public ParserCache(long maximumSize) {
+    this(maximumSize, () -> null, () -> 0L, () -> 0L);
+  }
+
+  public T get(String value, Function<String, T> parser) {
+    var mappingVersion = this.mappingVersion.getAsLong();
+    var aliasVersion = this.aliasVersion.getAsLong();
+    if (mappingVersion > currentMappingVersion || aliasVersion > currentAliasVersion) {
+      currentMappingVersion = Math.max(mappingVersion, currentMappingVersion);
+      currentAliasVersion = Math.max(aliasVersion, currentAliasVersion);
+      cache.invalidateAll();
+    }
+    return cache.get(
+        new Key(index.get(), mappingVersion, aliasVersion, value), key -> parser.apply(key.value));
+  }
+
+  long size() {
+    cache.cleanUp();
+    return cache.estimatedSize();
+  }
+
+  private static final class Key {
+    private final String index;
+    private final long mappingVersion;
+    private final long aliasVersion;
+    private final String value;
+
+    private Key(String index, long mappingVersion, long aliasVersion, String value) {
+      this.index = index;
+      this.mappingVersion = mappingVersion;
+      this.aliasVersion = aliasVersion;
+      this.value = value;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) return true;
+      if (o == null || getClass() != o.getClass()) return false;
+
+      var key = (Key) o;
+      return mappingVersion == key.mappingVersion
+          && aliasVersion == key.aliasVersion
+          && Objects.equal(index, key.index)
+          && Objects.equal(value, key.value);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hashCode(index, mappingVersion, aliasVersion, value);
+    }
+  }
+}
@@ -0,0 +1,289 @@
+package com.grupozap.search.api.model.parser;
+
+import static java.util.Collections.singletonList;
+
+import java.util.List;
+import org.jparsec.error.Location;
+import org.jparsec.error.ParseErrorDetails;
+import org.jparsec.error.ParserException;
+
+/**
+ * Single-pass scanner of the filter DSL used by {@link RecursiveDescentQueryParser}. It reads the
+ * terminals in place (no token list is built) and follows the lexical rules of the jparsec scanners
+ * it replaces: ASCII identifiers, {@code 'single'} strings with {@code ''} escapes, {@code
+ * "double"} strings with backslash escapes, integers, decimals and case-insensitive keywords.
+ */
+final class QueryLexer {
+
+  private final String input;
+  private final int length;
+
+  private int position;
+
+  private int failedAt = -1;
+  private String failedExpected;
+  private String failedEncountered;
+
+  QueryLexer(String input) {
+    this.input = input;
+    this.length = input.length();
+  }
+
+  int position() {
+    return position;
+  }
+
+  void reset(int position) {
+    this.position = position;
+  }
+
+  boolean atEnd() {
+    return position >= length;
+  }
+
+  boolean at(char c) {
+    return position < length && input.charAt(position) == c;
+  }
+
+  boolean skip(char c) {
+    if (!at(c)) return false;
+    position++;
+    return true;
+  }
+
+  void skipWhitespaces() {
+    while (position < length && Character.isWhitespace(input.charAt(position))) position++;
+  }
+
+  boolean skip(String keyword) {
+    if (!input.startsWith(keyword, position)) return false;
+    position += keyword.length();
+    return true;
+  }
+
+  boolean skipIgnoreCase(String keyword) {
+    if (!input.regionMatches(true, position, keyword, 0, keyword.length())) return false;
+    position += keyword.length();
+    return true;
+  }
+
+  /** Text from the given position up to the current one. */
+  String text(int from) {
+    return input.substring(from, position);
+  }
+
+  /**
+   * Dot separated identifiers (e.g. {@code address.geoLocation}), or null. A trailing dot is left
+   * unread.
+   */
+  String path() {
+    var start = position;
+    if (!identifier()) return null;
+
+    var end = position;
+    while (skip('.') && identifier()) end = position;
+
+    position = end;
+    return input.substring(start, end);
+  }
+
+  /**
+   * Content of a quoted string without any quote character and trimmed, or null when there is no
+   * (terminated) string at the current position.
+   */
+  String quoted() {
+    if (position >= length) return null;
+
+    var quote = input.charAt(position);
+    if (quote != '\'' && quote != '"') return null;
+
+    var start = position + 1;
+    var quotes = false;
+    for (var i = start; i < length; i++) {
+      var c = input.charAt(i);
+      if (c == quote) {
+        if (quote == '\'' && i + 1 < length && input.charAt(i + 1) == '\'') {
+          quotes = true;
+          i++;
+          continue;
+        }
+        position = i + 1;
+        return (quotes ? unquote(start, i) : input.substring(start, i)).trim();
+      }
+
+      if (c == '\\' && quote == '"') {
+        if (++i == length) return null;
+        c = input.charAt(i);
+      }
+      if (c == '\'' || c == '"') quotes = true;
+    }
+    return null;
+  }
+
+  /**
+   * Number at the current position: an integer as {@link Long}, a decimal (or negative number) as
+   * {@link Double}, or null.
+   */
+  Object number() {
+    var start = position;
+    if (skip('-')) {
+      var end = decimalEnd(position);
+      if (end < 0) {
+        position = start;
+        return null;
+      }
+      position = end;
+      return -Double.parseDouble(input.substring(start + 1, end));
+    }
+
+    var integerEnd = digitsEnd(start);
+    var decimalEnd = decimalEnd(start);
+    if (decimalEnd < 0) return null;
+
+    if (integerEnd > start) {
+      // The integer is always read first, so an overflow fails even when it is a decimal
+      position = integerEnd;
+      var integer = parseLong(start, integerEnd);
+      if (decimalEnd == integerEnd) return integer;
+    }
+
+    position = decimalEnd;
+    return Double.parseDouble(input.substring(start, decimalEnd));
+  }
+
+  /** Records a failure past the current position, reported if nothing else can be read here. */
+  void fail(int at, String expected, String encountered) {
+    failedAt = at;
+    failedExpected = expected;
+    failedEncountered = encountered;
+  }
+
+  void clearFailure() {
+    failedAt = -1;
+  }
+
+  /** The recorded failure, or the expected terminal at the current position. */
+  ParserException failure(String expected) {
+    if (failedAt >= 0) return failure(failedAt, failedExpected, failedEncountered);
+
+    var encountered = atEnd() ? "EOF" : String.valueOf(input.charAt(position));
+    return failure(position, expected, encountered);
+  }
+
+  /** A model validation that failed at the current position. */
+  ParserException failure(RuntimeException cause) {
+    return parserException(cause, null, position);
+  }
+
+  private ParserException failure(int at, String expected, String encountered) {
+    return parserException(null, new ErrorDetails(at, expected, encountered), at);
+  }
+
+  // jparsec 3.1 has no constructor carrying a line and column without the deprecated Location
+  @SuppressWarnings("deprecation")
+  private ParserException parserException(Throwable cause, ParseErrorDetails details, int at) {
+    var line = 1;
+    var lineStart = 0;
+    for (var i = 0; i < at && i < length; i++) {
+      if (input.charAt(i) == '\n') {
+        line++;
+        lineStart = i + 1;
+      }
+    }
+    var location = new Location(line, at - lineStart + 1);
+    return cause == null
+        ? new ParserException(details, null, location)
+        : new ParserException(cause, details, null, location);
+  }
+
+  private boolean identifier() {
+    if (position >= length || !isIdentifierStart(input.charAt(position))) return false;
+
+    position++;
+    while (position < length && isIdentifierPart(input.charAt(position))) position++;
+    return true;
+  }
+
+  private Long parseLong(int start, int end) {
+    if (end - start >= 19) return Long.valueOf(input.substring(start, end));
+
+    var value = 0L;
+    for (var i = start; i < end; i++) value = value * 10 + (input.charAt(i) - '0');
+    return value;
+  }
+
+  private int digitsEnd(int from) {
+    var i = from;
+    while (i < length && isDigit(input.charAt(i))) i++;
+    return i;
+  }
+
+  // digits ('.' digits*)? | '.' digits+
+  private int decimalEnd(int from) {
+    var integerEnd = digitsEnd(from);
+    if (integerEnd == length || input.charAt(integerEnd) != '.')
+      return integerEnd > from ? integerEnd : -1;
+
+    var fractionEnd = digitsEnd(integerEnd + 1);
+    if (integerEnd == from && fractionEnd == integerEnd + 1) return -1;
+    return fractionEnd;
+  }
+
+  private String unquote(int start, int end) {
+    var builder = new StringBuilder(end - start);
+    for (var i = start; i < end; i++) {
+      var c = input.charAt(i);
+      if (c != '\'' && c != '"') builder.append(c);
+    }
+    return builder.toString();
+  }
+
+  private static boolean isDigit(char c) {
+    return c >= '0' && c <= '9';
+  }
+
+  private static boolean isIdentifierStart(char c) {
+    return c == '_' || (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
+  }
+
+  private static boolean isIdentifierPart(char c) {
+    return isIdentifierStart(c) || isDigit(c);
+  }
+
+  private static class ErrorDetails implements ParseErrorDetails {
+    private final int index;
+    private final String expected;
+    private final String encountered;
+
+    private ErrorDetails(int index, String expected, String encountered) {
+      this.index = index;
+      this.expected = expected;
+      this.encountered = encountered;
+    }
+
+    @Override
+    public int getIndex() {
+      return index;
+    }
+
+    @Override
+    public String getEncountered() {
+      return encountered;
+    }
+
+    @Override
+    public List<String> getExpected() {
+      return singletonList(expected);
+    }
+
+    @Override
+    public String getUnexpected() {
+      return null;
+    }
+
+    @Override
+    public String getFailureMessage() {
+      return null;
+    }
+  }
+}
@@ -7,15 +7,40 @@ import static org.jparsec.Scanners.isChar;
 
 import com.grupozap.search.api.model.query.*;
 import datadog.trace.api.Trace;
+import java.util.function.Function;
 import org.jparsec.Parser;
 
 public class QueryParser {
 
   private final Parser<QueryFragment> queryParser;
   private final Parser<QueryFragment> recursiveQueryParser;
+  private final ParserCache<QueryFragment> cache;
+  private final Function<String, QueryFragment> parser;
 
   public QueryParser(
       OperatorParser operatorParser, FilterParser filterParser, NotParser notParser) {
+    this(operatorParser, filterParser, notParser, null);
+  }
+
+  public QueryParser(
+      OperatorParser operatorParser,
+      FilterParser filterParser,
+      NotParser notParser,
+      ParserCache<QueryFragment> cache) {
+    this(operatorParser, filterParser, notParser, cache, false);
+  }
+
+  /**
+   * @param recursiveDescent parses with the hand-written {@link RecursiveDescentQueryParser}
+   *     instead of the jparsec grammar (which is still used to parse the sort filters)
+   */
+  public QueryParser(
+      OperatorParser operatorParser,
+      FilterParser filterParser,
+      NotParser notParser,
+      ParserCache<QueryFragment> cache,
+      boolean recursiveDescent) {
+    this.cache = cache;
     queryParser =
         sequence(
             operatorParser.getLogicalOperatorParser().asOptional(),
@@ -35,6 +60,11 @@ public class QueryParser {
             .label("query")
             .map(QueryFragmentList::new);
     ref.set(recursiveQueryParser);
+
+    parser =
+        recursiveDescent
+            ? new RecursiveDescentQueryParser(filterParser.getFieldParser()::field)::parse
+            : recursiveQueryParser::parse;
   }
 
   Parser<QueryFragment> getRecursiveQueryParser() {
@@ -43,6 +73,8 @@ public class QueryParser {
 
   @Trace
   public QueryFragment parse(String string) {
-    return recursiveQueryParser.parse(string);
+    if (cache == null) return parser.apply(string);
+
+    return cache.get(string, parser);
   }
 }
@@ -0,0 +1,293 @@
+package com.grupozap.search.api.model.parser;
+
+import static com.grupozap.search.api.model.query.RelationalOperator.*;
+import static java.util.Optional.empty;
+
+import com.grupozap.search.api.model.parser.ValueParser.GeoPoint;
+import com.grupozap.search.api.model.query.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Function;
+import org.jparsec.error.ParserException;
+
+/**
+ * Hand-written alternative to the jparsec grammar of {@link QueryParser}: a single pass over the
+ * query that builds the same {@link QueryFragment} tree and fails with the same {@link
+ * ParserException}s, without building parser combinators, tokens or intermediate strings.
+ *
+ * <p>Like the jparsec grammar, a query is a list of fragments: a parenthesized query, a filter
+ * (optionally prefixed by a logical operator), a logical operator alone or a sequence of {@code
+ * NOT}s. When no fragment can be read the whole query fails at the start of the top level fragment.
+ */
+class RecursiveDescentQueryParser {
+
+  private static final String LOGICAL_OPERATOR = "logical operator";
+
+  // Same order the filter alternatives are tried by FilterParser
+  private static final RelationalOperator[] OPERATORS = {
+    DIFFERENT,
+    EQUAL,
+    GREATER_EQUAL,
+    GREATER,
+    IN,
+    LESS_EQUAL,
+    LESS,
+    CONTAINS_ALL,
+    RANGE,
+    LIKE,
+    VIEWPORT,
+    POLYGON,
+    RADIUS
+  };
+
+  private static final String[] ALIASES;
+  private static final RelationalOperator[] ALIAS_OPERATORS;
+
+  static {
+    List<String> aliases = new ArrayList<>();
+    List<RelationalOperator> operators = new ArrayList<>();
+    for (var operator : OPERATORS) {
+      operator.getAlias().stream()
+          .sorted((alias, other) -> other.length() - alias.length())
+          .forEach(
+              alias -> {
+                aliases.add(alias);
+                operators.add(operator);
+              });
+    }
+    ALIASES = aliases.toArray(new String[0]);
+    ALIAS_OPERATORS = operators.toArray(new RelationalOperator[0]);
+  }
+
+  private static final Value TRUE = new Value(true);
+  private static final Value FALSE = new Value(false);
+
+  private static final Backtrack BACKTRACK = new Backtrack();
+
+  private final Function<String, Field> fieldFactory;
+
+  RecursiveDescentQueryParser(Function<String, Field> fieldFactory) {
+    this.fieldFactory = fieldFactory;
+  }
+
+  QueryFragment parse(String query) {
+    var lexer = new QueryLexer(query);
+    try {
+      var fragments = fragments(lexer, 0);
+      if (!lexer.atEnd()) throw lexer.failure(LOGICAL_OPERATOR);
+      return fragments;
+    } catch (ParserException e) {
+      throw e;
+    } catch (RuntimeException e) {
+      throw lexer.failure(e);
+    }
+  }
+
+  private QueryFragmentList fragments(QueryLexer lexer, int depth) {
+    List<QueryFragment> fragments = new ArrayList<>();
+    QueryFragment fragment;
+    while ((fragment = fragment(lexer, depth)) != null) fragments.add(fragment);
+    return new QueryFragmentList(fragments);
+  }
+
+  private QueryFragment fragment(QueryLexer lexer, int depth) {
+    var start = lexer.position();
+    lexer.clearFailure();
+    if (lexer.skip('(')) return parenthesized(lexer, depth, start);
+
+    var operator = logicalOperator(lexer);
+    var filterStart = operator == null ? start : lexer.position();
+    lexer.reset(filterStart);
+
+    var filter = filter(lexer);
+    if (filter != null) return new QueryFragmentItem(Optional.ofNullable(operator), filter);
+
+    lexer.reset(filterStart);
+    return operator != null ? new QueryFragmentOperator(operator) : not(lexer);
+  }
+
+  // Any failure inside parentheses fails the top level fragment where they were opened
+  private QueryFragment parenthesized(QueryLexer lexer, int depth, int start) {
+    try {
+      var fragments = fragments(lexer, depth + 1);
+      if (lexer.skip(')')) return fragments;
+    } catch (Backtrack e) {
+      if (depth > 0) throw e;
+    }
+
+    if (depth > 0) throw BACKTRACK;
+    lexer.reset(start);
+    lexer.clearFailure();
+    return null;
+  }
+
+  /**
+   * Logical operator surrounded by optional whitespaces, or null. Consecutive operators (e.g.
+   * {@code AND OR}) are not an operator and are reported if the fragment cannot be read otherwise.
+   */
+  private static LogicalOperator logicalOperator(QueryLexer lexer) {
+    lexer.skipWhitespaces();
+    var operator = logicalOperatorToken(lexer);
+    if (operator == null) return null;
+
+    lexer.skipWhitespaces();
+    var next = lexer.position();
+    if (logicalOperatorToken(lexer) != null) {
+      lexer.fail(next, "EOF", lexer.text(next));
+      return null;
+    }
+    return operator;
+  }
+
+  private static LogicalOperator logicalOperatorToken(QueryLexer lexer) {
+    if (lexer.skip("AND") || lexer.skip("&&")) return LogicalOperator.AND;
+    if (lexer.skip("OR") || lexer.skip("||")) return LogicalOperator.OR;
+    return null;
+  }
+
+  private QueryFragment not(QueryLexer lexer) {
+    List<Boolean> nots = null;
+    while (true) {
+      var start = lexer.position();
+      lexer.skipWhitespaces();
+      var not = lexer.skip("NOT");
+      lexer.skipWhitespaces();
+      if (lexer.position() == start) break;
+
+      if (nots == null) nots = new ArrayList<>(1);
+      nots.add(not);
+    }
+    return nots == null ? null : new QueryFragmentNot(nots);
+  }
+
+  private Filter filter(QueryLexer lexer) {
+    var name = lexer.path();
+    if (name == null) return null;
+
+    var field = fieldFactory.apply(name);
+    lexer.skipWhitespaces();
+    var operator = relationalOperator(lexer);
+    if (operator == null) return null;
+
+    lexer.skipWhitespaces();
+    var value = value(lexer, operator);
+    return value == null ? null : new Filter(field, operator, value);
+  }
+
+  private static RelationalOperator relationalOperator(QueryLexer lexer) {
+    for (var i = 0; i < ALIASES.length; i++) {
+      if (lexer.skip(ALIASES[i])) return ALIAS_OPERATORS[i];
+    }
+    return null;
+  }
+
+  private static Value value(QueryLexer lexer, RelationalOperator operator) {
+    switch (operator) {
+      case LIKE:
+        var like = lexer.quoted();
+        return like == null ? null : new LikeValue(new Value(like));
+      case RANGE:
+        var range = list(lexer);
+        return range == null ? null : new RangeValue(range);
+      case VIEWPORT:
+        return geoPoints(lexer, GeoPoint.Type.VIEWPORT);
+      case POLYGON:
+        return geoPoints(lexer, GeoPoint.Type.POLYGON);
+      case RADIUS:
+        return radius(lexer);
+      default:
+        return value(lexer);
+    }
+  }
+
+  private static Value value(QueryLexer lexer) {
+    return lexer.at('[') ? list(lexer) : single(lexer);
+  }
+
+  // '[' (single (',' single)*)? ']'
+  private static Value list(QueryLexer lexer) {
+    if (!lexer.skip('[')) return null;
+
+    List<Object> values = new ArrayList<>();
+    if (!lexer.skip(']')) {
+      do {
+        var value = single(lexer);
+        if (value == null) return null;
+        values.add(value);
+      } while (lexer.skip(','));
+
+      if (!lexer.skip(']')) return null;
+    }
+    return new Value(values);
+  }
+
+  // '[' value (',' value)* ']' where each value is a geo point
+  private static Value geoPoints(QueryLexer lexer, GeoPoint.Type type) {
+    if (!lexer.skip('[')) return null;
+
+    List<Value> points = new ArrayList<>();
+    while (true) {
+      var point = value(lexer);
+      if (point == null) return null;
+      points.add(point);
+
+      var end = lexer.position();
+      lexer.skipWhitespaces();
+      if (!lexer.skip(',')) {
+        if (lexer.position() != end || !lexer.skip(']')) return null;
+        return new GeoPointValue(points, type);
+      }
+      lexer.skipWhitespaces();
+    }
+  }
+
+  // value (DISTANCE ':' string)?
+  private static Value radius(QueryLexer lexer) {
+    var point = value(lexer);
+    if (point == null) return null;
+
+    var geoPoint = new GeoPointValue(point, GeoPoint.Type.SINGLE);
+    var end = lexer.position();
+    Optional<Value> distance = empty();
+
+    lexer.skipWhitespaces();
+    if (lexer.skipIgnoreCase("DISTANCE")) {
+      lexer.skipWhitespaces();
+      if (lexer.skip(':')) {
+        lexer.skipWhitespaces();
+        var quoted = lexer.quoted();
+        if (quoted != null) distance = Optional.of(new Value(quoted));
+      }
+    }
+    if (distance.isEmpty()) lexer.reset(end);
+
+    return new GeoPointRadiusValue(geoPoint, distance);
+  }
+
+  // Boolean, null, number or string surrounded by optional whitespaces
+  private static Value single(QueryLexer lexer) {
+    lexer.skipWhitespaces();
+
+    Value value;
+    if (lexer.skipIgnoreCase("FALSE")) value = FALSE;
+    else if (lexer.skipIgnoreCase("TRUE")) value = TRUE;
+    else if (lexer.skipIgnoreCase("NULL")) value = Value.NULL_VALUE;
+    else {
+      Object content = lexer.number();
+      if (content == null) content = lexer.quoted();
+      if (content == null) return null;
+      value = new Value(content);
+    }
+
+    lexer.skipWhitespaces();
+    return value;
+  }
+
+  /** Unwinds a failure inside parentheses, it never leaves the parser. */
+  private static class Backtrack extends RuntimeException {
+    private Backtrack() {
+      super(null, null, false, false);
+    }
+  }
+}
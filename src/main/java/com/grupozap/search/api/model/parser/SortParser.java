@@ -24,13 +24,24 @@ public class SortParser {
 
   private final Parser<Sort> sortSingleParser;
   private final Parser<Sort> sortParser;
+  private final ParserCache<Sort> cache;
 
-  @Autowired
   public SortParser(
       FieldParser fieldParser,
       OperatorParser operatorParser,
       ValueParser valueParser,
       QueryParser queryParser) {
+    this(fieldParser, operatorParser, valueParser, queryParser, null);
+  }
+
+  @Autowired
+  public SortParser(
+      FieldParser fieldParser,
+      OperatorParser operatorParser,
+      ValueParser valueParser,
+      QueryParser queryParser,
+      ParserCache<Sort> cache) {
+    this.cache = cache;
 
     // SortFilter used in any kind of sort
     var sortFilterParser = createSortFilterParser(queryParser);
@@ -114,6 +125,8 @@ public class SortParser {
 
   @Trace
   public Sort parse(String string) {
-    return sortParser.parse(string);
+    if (cache == null) return sortParser.parse(string);
+
+    return cache.get(string, sortParser::parse);
   }
 }
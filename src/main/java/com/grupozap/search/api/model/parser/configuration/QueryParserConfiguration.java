@@ -4,11 +4,18 @@ import com.grupozap.search.api.model.parser.FieldParser;
 import com.grupozap.search.api.model.parser.FilterParser;
 import com.grupozap.search.api.model.parser.NotParser;
 import com.grupozap.search.api.model.parser.OperatorParser;
+import com.grupozap.search.api.model.parser.ParserCache;
 import com.grupozap.search.api.model.parser.QueryParser;
 import com.grupozap.search.api.model.parser.ValueParser;
+import com.grupozap.search.api.model.query.Facet;
+import com.grupozap.search.api.model.query.QueryFragment;
+import com.grupozap.search.api.model.query.Sort;
+import com.grupozap.search.api.service.parser.IndexSettings;
 import com.grupozap.search.api.service.parser.factory.FieldCache;
 import com.grupozap.search.api.service.parser.factory.SearchAlias;
+import java.util.List;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Primary;
@@ -37,7 +44,47 @@ public class QueryParserConfiguration {
   public QueryParser queryParserUsingFactory(
       OperatorParser operatorParser,
       @Qualifier("filterParser") FilterParser filterParser,
-      NotParser notParser) {
-    return new QueryParser(operatorParser, filterParser, notParser);
+      NotParser notParser,
+      ParserCache<QueryFragment> queryParserCache,
+      @Value("${parser.recursive.descent.enabled}") boolean recursiveDescent) {
+    return new QueryParser(
+        operatorParser, filterParser, notParser, queryParserCache, recursiveDescent);
+  }
+
+  @Bean
+  public ParserCache<QueryFragment> queryParserCache(
+      @Value("${parser.cache.max.size}") long maximumSize,
+      IndexSettings indexSettings,
+      SearchAlias searchAlias,
+      FieldCache fieldCache) {
+    return validatedParserCache(maximumSize, indexSettings, searchAlias, fieldCache);
+  }
+
+  @Bean
+  public ParserCache<Sort> sortParserCache(
+      @Value("${parser.cache.max.size}") long maximumSize,
+      IndexSettings indexSettings,
+      SearchAlias searchAlias,
+      FieldCache fieldCache) {
+    return validatedParserCache(maximumSize, indexSettings, searchAlias, fieldCache);
+  }
+
+  @Bean
+  public ParserCache<List<Facet>> facetParserCache(
+      @Value("${parser.cache.max.size}") long maximumSize,
+      IndexSettings indexSettings,
+      SearchAlias searchAlias,
+      FieldCache fieldCache) {
+    return validatedParserCache(maximumSize, indexSettings, searchAlias, fieldCache);
+  }
+
+  // Parsed fields depend on the mapping and aliases of the request index
+  private static <T> ParserCache<T> validatedParserCache(
+      long maximumSize,
+      IndexSettings indexSettings,
+      SearchAlias searchAlias,
+      FieldCache fieldCache) {
+    return new ParserCache<>(
+        maximumSize, indexSettings::getIndex, fieldCache::getVersion, searchAlias::getVersion);
   }
 }
@@ -2,6 +2,7 @@ package com.grupozap.search.api.model.parser.configuration;
 
 import com.grupozap.search.api.model.parser.*;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
@@ -25,7 +26,10 @@ public class QueryParserWithoutValidationConfiguration {
   public QueryParser queryParserWithoutValidation(
       OperatorParser operatorParser,
       @Qualifier("filterParserWithoutValidation") FilterParser filterParser,
-      NotParser notParser) {
-    return new QueryParser(operatorParser, filterParser, notParser);
+      NotParser notParser,
+      @Value("${parser.cache.max.size}") long maximumSize,
+      @Value("${parser.recursive.descent.enabled}") boolean recursiveDescent) {
+    return new QueryParser(
+        operatorParser, filterParser, notParser, new ParserCache<>(maximumSize), recursiveDescent);
   }
 }
@@ -1,5 +1,6 @@
 package com.grupozap.search.api.model.query;
 
+import static java.util.Collections.unmodifiableSet;
 import static org.springframework.util.CollectionUtils.isEmpty;
 
 import com.google.common.base.Objects;
@@ -8,8 +9,8 @@ import org.apache.commons.collections4.map.LinkedMap;
 
 public class Field {
 
-  private boolean not;
-  private LinkedMap typesByName;
+  private final boolean not;
+  private final LinkedMap typesByName;
 
   public Field(LinkedMap typesByName) {
     this(false, typesByName);
@@ -41,7 +42,7 @@ public class Field {
   }
 
   public Set<String> getNames() {
-    return typesByName.keySet();
+    return unmodifiableSet(typesByName.keySet());
   }
 
   public String getTypeFirstName() {
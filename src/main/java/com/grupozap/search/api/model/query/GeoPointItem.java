@@ -12,10 +12,8 @@ public class GeoPointItem extends Item {
 
   public GeoPointItem(
       Field field, GeoPointValue geoPointValue, Optional<QueryFragment> queryFragment) {
-    this.setField(field);
-    this.setOrderOperator(OrderOperator.ASC);
+    super(field, OrderOperator.ASC, queryFragment);
     this.geoPointValue = geoPointValue;
-    this.setQueryFragment(queryFragment);
   }
 
   public GeoPointValue getGeoPointValue() {
@@ -8,11 +8,9 @@ import com.google.common.base.Objects;
 import java.util.Optional;
 
 public class Item {
-  private Field field;
-  private OrderOperator orderOperator;
-  private Optional<QueryFragment> queryFragment;
-
-  public Item() {}
+  private final Field field;
+  private final OrderOperator orderOperator;
+  private final Optional<QueryFragment> queryFragment;
 
   public Item(Field field, OrderOperator orderOperator, Optional<QueryFragment> queryFragment) {
     this.field = field;
@@ -24,26 +22,14 @@ public class Item {
     return field;
   }
 
-  public void setField(Field field) {
-    this.field = field;
-  }
-
   public OrderOperator getOrderOperator() {
     return orderOperator;
   }
 
-  public void setOrderOperator(OrderOperator orderOperator) {
-    this.orderOperator = orderOperator;
-  }
-
   public Optional<QueryFragment> getQueryFragment() {
     return queryFragment;
   }
 
-  public void setQueryFragment(Optional<QueryFragment> queryFragment) {
-    this.queryFragment = queryFragment;
-  }
-
   @Override
   public String toString() {
     if (queryFragment != null) {
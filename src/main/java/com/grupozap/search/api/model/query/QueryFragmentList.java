@@ -1,11 +1,13 @@
 package com.grupozap.search.api.model.query;
 
 import static java.lang.String.format;
+import static java.util.Collections.unmodifiableList;
 import static java.util.stream.Collectors.joining;
 import static org.apache.commons.collections4.CollectionUtils.isNotEmpty;
 
 import com.google.common.base.Objects;
 import java.util.AbstractList;
+import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
@@ -19,7 +21,8 @@ public class QueryFragmentList extends AbstractList<QueryFragment> implements Qu
       throw new IllegalArgumentException(
           format(
               "Exceeded the number of fragments: %d (max: %d)", fragments.size(), MAX_FRAGMENTS));
-    this.fragments = validateSingleRecursiveQueryFragmentList(fragments);
+    this.fragments =
+        unmodifiableList(new ArrayList<>(validateSingleRecursiveQueryFragmentList(fragments)));
   }
 
   private List<QueryFragment> validateSingleRecursiveQueryFragmentList(
@@ -1,5 +1,6 @@
 package com.grupozap.search.api.model.query;
 
+import static java.util.Collections.unmodifiableSet;
 import static java.util.stream.Collectors.joining;
 
 import java.util.*;
@@ -35,7 +36,7 @@ public final class Sort extends AbstractSet<Item> {
 
   @Override
   public Iterator<Item> iterator() {
-    return items.iterator();
+    return unmodifiableSet(items).iterator();
   }
 
   public Item getFirst() {
@@ -0,0 +1,27 @@
+package com.grupozap.search.api.model.serializer;
+
+import static org.apache.commons.lang3.Validate.notNull;
+
+import org.elasticsearch.action.get.MultiGetResponse;
+
+public class MultiGetResponseEnvelope {
+
+  private final String indexName;
+  private final MultiGetResponse multiGetResponse;
+
+  public MultiGetResponseEnvelope(String indexName, MultiGetResponse multiGetResponse) {
+    notNull(indexName, "The object indexName must not be null");
+    notNull(multiGetResponse, "The object multiGetResponse must not be null");
+
+    this.indexName = indexName;
+    this.multiGetResponse = multiGetResponse;
+  }
+
+  public String getIndexName() {
+    return indexName;
+  }
+
+  public MultiGetResponse getMultiGetResponse() {
+    return multiGetResponse;
+  }
+}
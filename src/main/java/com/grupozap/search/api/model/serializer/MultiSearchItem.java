@@ -0,0 +1,41 @@
+package com.grupozap.search.api.model.serializer;
+
+import org.elasticsearch.action.search.SearchResponse;
+
+/** Outcome of one of the searches of a multi search: its response or the reason it failed. */
+public class MultiSearchItem {
+
+  private final String indexName;
+  private final SearchResponse response;
+  private final Throwable failure;
+
+  private MultiSearchItem(String indexName, SearchResponse response, Throwable failure) {
+    this.indexName = indexName;
+    this.response = response;
+    this.failure = failure;
+  }
+
+  public static MultiSearchItem success(String indexName, SearchResponse response) {
+    return new MultiSearchItem(indexName, response, null);
+  }
+
+  public static MultiSearchItem failure(String indexName, Throwable failure) {
+    return new MultiSearchItem(indexName, null, failure);
+  }
+
+  public boolean isFailure() {
+    return failure != null;
+  }
+
+  public String getIndexName() {
+    return indexName;
+  }
+
+  public SearchResponse getResponse() {
+    return response;
+  }
+
+  public Throwable getFailure() {
+    return failure;
+  }
+}
@@ -1,7 +1,7 @@
 package com.grupozap.search.api.serializer;
 
+import static com.fasterxml.jackson.core.JsonGenerator.Feature.FLUSH_PASSED_TO_STREAM;
 import static java.lang.Float.isNaN;
-import static org.elasticsearch.common.bytes.BytesReference.toBytes;
 
 import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.databind.JavaType;
@@ -9,8 +9,10 @@ import com.fasterxml.jackson.databind.SerializerProvider;
 import com.fasterxml.jackson.databind.ser.std.StdSerializer;
 import com.grupozap.search.api.model.serializer.SearchResponseEnvelope;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.util.List;
 import org.elasticsearch.action.search.SearchResponse;
+import org.elasticsearch.common.bytes.BytesReference;
 import org.elasticsearch.search.SearchHit;
 import org.elasticsearch.search.aggregations.Aggregation;
 import org.elasticsearch.search.aggregations.bucket.nested.Nested;
@@ -55,20 +57,43 @@ public class ESResponseSerializer extends StdSerializer<SearchResponseEnvelope<S
     jgen.writeEndObject();
   }
 
-  private String hitAsString(SearchHit h) {
-    var bytes = toBytes(h.getSourceRef());
-    return new String(bytes, 0, bytes.length);
+  private void writeResultSet(final SearchHit[] hits, JsonGenerator jgen) throws IOException {
+    var sources = new BytesReference[hits.length];
+    for (var i = 0; i < hits.length; i++) sources[i] = hits[i].getSourceRef();
+    writeSources(sources, jgen);
   }
 
-  private void writeResultSet(final SearchHit[] hits, JsonGenerator jgen) throws IOException {
-    if (hits.length > 0) {
-      var len = hits.length - 1;
+  // Writes the sources as array values of the current JSON array
+  static void writeSources(final BytesReference[] sources, JsonGenerator jgen) throws IOException {
+    if (sources.length == 0) return;
+
+    if (jgen.getOutputTarget() instanceof OutputStream) {
+      writeSources(sources, jgen, (OutputStream) jgen.getOutputTarget());
+    } else {
+      var len = sources.length - 1;
       for (var i = 0; i < len; i++) {
-        jgen.writeRaw(hitAsString(hits[i]));
+        jgen.writeRaw(sources[i].utf8ToString());
         jgen.writeRaw(",");
       }
-      jgen.writeRaw(hitAsString(hits[len]));
+      jgen.writeRaw(sources[len].utf8ToString());
+    }
+  }
+
+  // Writes the UTF-8 sources straight to the output stream, without copying or decoding them. The
+  // generator buffer is flushed first to keep the order, without flushing the stream itself.
+  private static void writeSources(
+      final BytesReference[] sources, JsonGenerator jgen, OutputStream out) throws IOException {
+    var flushPassedToStream = jgen.isEnabled(FLUSH_PASSED_TO_STREAM);
+    jgen.disable(FLUSH_PASSED_TO_STREAM);
+    jgen.flush();
+    if (flushPassedToStream) jgen.enable(FLUSH_PASSED_TO_STREAM);
+
+    var len = sources.length - 1;
+    for (var i = 0; i < len; i++) {
+      sources[i].writeTo(out);
+      out.write(',');
     }
+    sources[len].writeTo(out);
   }
 
   private void writeFacets(final SearchResponse searchResponse, JsonGenerator jgen)
@@ -0,0 +1,66 @@
+package com.grupozap.search.api.serializer;
+
+import static com.grupozap.search.api.serializer.ESResponseSerializer.writeSources;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import com.grupozap.search.api.model.serializer.MultiGetResponseEnvelope;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import org.elasticsearch.common.bytes.BytesArray;
+import org.elasticsearch.common.bytes.BytesReference;
+
+/**
+ * Writes the found documents in the order of the requested ids, followed by the ids that were not
+ * found and, when any, the ids whose get failed. Found documents without source (e.g. every field
+ * excluded) are written as empty objects.
+ */
+public class MultiGetResponseSerializer extends StdSerializer<MultiGetResponseEnvelope> {
+
+  private static final BytesReference EMPTY_SOURCE = new BytesArray("{}");
+
+  public MultiGetResponseSerializer() {
+    super(MultiGetResponseEnvelope.class);
+  }
+
+  @Override
+  public void serialize(
+      MultiGetResponseEnvelope value, JsonGenerator jgen, SerializerProvider provider)
+      throws IOException {
+    var sources = new ArrayList<BytesReference>();
+    var missing = new ArrayList<String>();
+    var failures = new LinkedHashMap<String, String>();
+
+    for (var item : value.getMultiGetResponse()) {
+      if (item.isFailed()) failures.put(item.getId(), item.getFailure().getMessage());
+      else if (!item.getResponse().isExists()) missing.add(item.getId());
+      else if (item.getResponse().isSourceEmpty()) sources.add(EMPTY_SOURCE);
+      else sources.add(item.getResponse().getSourceAsBytesRef());
+    }
+
+    jgen.writeStartObject();
+
+    jgen.writeNumberField("totalCount", sources.size());
+
+    jgen.writeObjectFieldStart("result");
+    jgen.writeArrayFieldStart(value.getIndexName());
+    writeSources(sources.toArray(new BytesReference[0]), jgen);
+    jgen.writeEndArray();
+    jgen.writeEndObject();
+
+    jgen.writeArrayFieldStart("missing");
+    for (var id : missing) jgen.writeString(id);
+    jgen.writeEndArray();
+
+    if (!failures.isEmpty()) {
+      jgen.writeObjectFieldStart("failures");
+      for (var failure : failures.entrySet())
+        jgen.writeStringField(failure.getKey(), failure.getValue());
+      jgen.writeEndObject();
+    }
+
+    jgen.writeEndObject();
+  }
+}
@@ -0,0 +1,159 @@
+package com.grupozap.search.api.service;
+
+import static com.grupozap.search.api.service.Bulkhead.State.CLOSED;
+import static com.grupozap.search.api.service.Bulkhead.State.HALF_OPEN;
+import static com.grupozap.search.api.service.Bulkhead.State.OPEN;
+import static java.util.Arrays.fill;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongSupplier;
+
+/**
+ * Concurrency budget and circuit breaker of an index group. The breaker opens once the failed calls
+ * of the last 10 seconds reach the error threshold (with at least the volume threshold of calls),
+ * rejects every call during the sleep window and then lets a single trial call close it or open it
+ * again.
+ */
+final class Bulkhead {
+
+  private static final int BUCKETS = 10;
+  private static final long BUCKET_MILLIS = 1000;
+
+  private final LongSupplier clock;
+  private final AtomicInteger inFlight = new AtomicInteger();
+  private final Set<String> indices = ConcurrentHashMap.newKeySet();
+
+  private final long[] successes = new long[BUCKETS];
+  private final long[] failures = new long[BUCKETS];
+  private long bucket;
+
+  private volatile State state = CLOSED;
+  private long openedAt;
+
+  Bulkhead(LongSupplier clock) {
+    this.clock = clock;
+    this.bucket = clock.getAsLong() / BUCKET_MILLIS;
+  }
+
+  void addIndex(String index) {
+    if (!indices.contains(index)) indices.add(index);
+  }
+
+  /** Takes a slot of the budget, unbounded when there is no budget. */
+  boolean tryAcquire(Integer maxConcurrent) {
+    while (true) {
+      var current = inFlight.get();
+      if (maxConcurrent != null && current >= maxConcurrent) return false;
+      if (inFlight.compareAndSet(current, current + 1)) return true;
+    }
+  }
+
+  void release() {
+    inFlight.decrementAndGet();
+  }
+
+  /** Whether the breaker lets a call through, the trial one once the sleep window is over. */
+  synchronized boolean allow(long sleepWindow) {
+    if (state == CLOSED) return true;
+    if (state == HALF_OPEN || clock.getAsLong() - openedAt < sleepWindow) return false;
+
+    state = HALF_OPEN;
+    return true;
+  }
+
+  /** Millis until the breaker lets the trial call through. */
+  synchronized long untilTrial(long sleepWindow) {
+    return state == CLOSED ? 0 : Math.max(0, openedAt + sleepWindow - clock.getAsLong());
+  }
+
+  synchronized void onSuccess() {
+    if (state == HALF_OPEN) {
+      close();
+    } else if (state == CLOSED) {
+      successes[roll()]++;
+    }
+  }
+
+  synchronized void onFailure(int errorThreshold, int volumeThreshold) {
+    if (state == HALF_OPEN) {
+      open();
+    } else if (state == CLOSED) {
+      failures[roll()]++;
+
+      var failed = sum(failures);
+      var total = failed + sum(successes);
+      if (total >= volumeThreshold && failed * 100 >= errorThreshold * total) open();
+    }
+  }
+
+  /**
+   * A call that says nothing of the health of the group, as a bad request. A trial call gives its
+   * turn back to the next one.
+   */
+  synchronized void onIgnored() {
+    if (state == HALF_OPEN) state = OPEN;
+  }
+
+  State getState() {
+    return state;
+  }
+
+  int getInFlight() {
+    return inFlight.get();
+  }
+
+  synchronized Map<String, Object> status() {
+    roll();
+    var failed = sum(failures);
+    var total = failed + sum(successes);
+
+    Map<String, Object> status = new LinkedHashMap<>();
+    status.put("state", state);
+    status.put("inFlight", inFlight.get());
+    status.put("requests", total);
+    status.put("errorPercentage", total == 0 ? 0 : failed * 100 / total);
+    status.put("indices", new TreeSet<>(indices));
+    return status;
+  }
+
+  private void open() {
+    state = OPEN;
+    openedAt = clock.getAsLong();
+  }
+
+  private void close() {
+    state = CLOSED;
+    fill(successes, 0);
+    fill(failures, 0);
+  }
+
+  /** Clears the buckets that left the window and returns the one of now. */
+  private int roll() {
+    var now = clock.getAsLong() / BUCKET_MILLIS;
+    var elapsed = Math.min(now - bucket, BUCKETS);
+    for (var i = 1; i <= elapsed; i++) {
+      var expired = (int) ((bucket + i) % BUCKETS);
+      successes[expired] = 0;
+      failures[expired] = 0;
+    }
+    if (now > bucket) bucket = now;
+    return (int) (bucket % BUCKETS);
+  }
+
+  private static long sum(long[] counts) {
+    var sum = 0L;
+    for (var count : counts) sum += count;
+    return sum;
+  }
+
+  enum State {
+    CLOSED,
+    OPEN,
+    HALF_OPEN
+  }
+}
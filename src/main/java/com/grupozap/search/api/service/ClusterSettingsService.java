@@ -1,6 +1,8 @@
 package com.grupozap.search.api.service;
 
 import com.grupozap.search.api.adapter.SettingsAdapter;
+import com.grupozap.search.api.model.mapping.IndexMetadata;
+import java.util.HashMap;
 import java.util.Map;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
@@ -11,9 +13,11 @@ public class ClusterSettingsService {
 
   @Autowired
   @Qualifier("elasticsearchSettings")
-  private SettingsAdapter<Map<String, Map<String, Object>>, String> settingsAdapter;
+  private SettingsAdapter<Map<String, IndexMetadata>, String> settingsAdapter;
 
   public Map<String, Map<String, Object>> settings() {
-    return settingsAdapter.settings();
+    Map<String, Map<String, Object>> settings = new HashMap<>();
+    settingsAdapter.settings().forEach((index, metadata) -> settings.put(index, metadata.asMap()));
+    return settings;
   }
 }
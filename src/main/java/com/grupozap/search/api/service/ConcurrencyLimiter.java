@@ -0,0 +1,194 @@
+package com.grupozap.search.api.service;
+
+import static java.lang.System.nanoTime;
+import static java.util.concurrent.CompletableFuture.failedFuture;
+import static org.apache.commons.lang3.exception.ExceptionUtils.getThrowableList;
+import static org.elasticsearch.rest.RestStatus.TOO_MANY_REQUESTS;
+
+import com.grupozap.search.api.exception.ConcurrencyLimitExceededException;
+import com.grupozap.search.api.exception.QueryTimeoutException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import java.net.SocketTimeoutException;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+import org.elasticsearch.ElasticsearchException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Adaptive limit of the concurrent calls to Elasticsearch of each {@link Path}, discovered from
+ * their latency by a {@link GradientLimit} between {@code es.limiter.min} and {@code
+ * es.limiter.max}. Calls over the limit are rejected right away with a {@link
+ * ConcurrencyLimitExceededException} (a 503 with {@code Retry-After}) instead of queueing on a slow
+ * cluster. The RTT of a stream is its whole duration. Enabled by {@code es.limiter.enabled}.
+ */
+@Component
+public class ConcurrencyLimiter {
+
+  static final String LIMIT = "search.limiter.limit";
+  static final String IN_FLIGHT = "search.limiter.inflight";
+  static final String REJECTED = "search.limiter.rejected";
+  static final String DROPPED = "search.limiter.dropped";
+
+  private final boolean enabled;
+  private final long retryAfter;
+  private final Map<Path, Limit> limits = new EnumMap<>(Path.class);
+
+  public ConcurrencyLimiter(
+      MeterRegistry meterRegistry,
+      @Value("${es.limiter.enabled}") boolean enabled,
+      @Value("${es.limiter.initial}") int initialLimit,
+      @Value("${es.limiter.min}") int minLimit,
+      @Value("${es.limiter.max}") int maxLimit,
+      @Value("${es.limiter.retry.after}") long retryAfter) {
+    this.enabled = enabled;
+    this.retryAfter = retryAfter;
+
+    for (var path : Path.values()) {
+      var tags = Tags.of("path", path.getName());
+      var limit = new GradientLimit(initialLimit, minLimit, maxLimit);
+      meterRegistry.gauge(LIMIT, tags, limit, GradientLimit::getLimit);
+      meterRegistry.gauge(IN_FLIGHT, tags, limit, GradientLimit::getInFlight);
+      limits.put(
+          path,
+          new Limit(
+              limit, meterRegistry.counter(REJECTED, tags), meterRegistry.counter(DROPPED, tags)));
+    }
+  }
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  /**
+   * Permit for a call, which must be released with {@link Permit#success()} or {@link
+   * Permit#failure(Throwable)} once the call is done.
+   *
+   * @throws ConcurrencyLimitExceededException when the path is at its limit
+   */
+  public Permit acquire(Path path) {
+    if (!enabled) return Permit.NONE;
+
+    var limit = limits.get(path);
+    var inFlight = limit.limit.tryAcquire();
+    if (inFlight < 0) {
+      limit.rejected.increment();
+      throw new ConcurrencyLimitExceededException(path.getName(), retryAfter);
+    }
+    return new LimitPermit(limit, nanoTime(), inFlight);
+  }
+
+  public <T> T execute(Path path, Callable<T> call) throws Exception {
+    var permit = acquire(path);
+    try {
+      var response = call.call();
+      permit.success();
+      return response;
+    } catch (Exception e) {
+      permit.failure(e);
+      throw e;
+    }
+  }
+
+  public <T> CompletableFuture<T> executeAsync(Path path, Supplier<CompletableFuture<T>> call) {
+    Permit permit;
+    try {
+      permit = acquire(path);
+    } catch (ConcurrencyLimitExceededException e) {
+      return failedFuture(e);
+    }
+
+    try {
+      return call.get()
+          .whenComplete(
+              (response, e) -> {
+                if (e != null) permit.failure(e);
+                else permit.success();
+              });
+    } catch (RuntimeException e) {
+      permit.failure(e);
+      return failedFuture(e);
+    }
+  }
+
+  int getLimit(Path path) {
+    return limits.get(path).limit.getLimit();
+  }
+
+  int getInFlight(Path path) {
+    return limits.get(path).limit.getInFlight();
+  }
+
+  /** Timeouts and rejections mean the cluster is overloaded, other failures say nothing. */
+  static boolean isDropped(Throwable e) {
+    for (var cause : getThrowableList(e)) {
+      if (cause instanceof TimeoutException
+          || cause instanceof SocketTimeoutException
+          || cause instanceof QueryTimeoutException) return true;
+      if (cause instanceof ElasticsearchException
+          && ((ElasticsearchException) cause).status() == TOO_MANY_REQUESTS) return true;
+    }
+    return false;
+  }
+
+  public enum Path {
+    SEARCH,
+    GET,
+    STREAM;
+
+    public String getName() {
+      return name().toLowerCase();
+    }
+  }
+
+  private static class LimitPermit implements Permit {
+    private final Limit limit;
+    private final long start;
+    private final int inFlight;
+    private boolean released;
+
+    private LimitPermit(Limit limit, long start, int inFlight) {
+      this.limit = limit;
+      this.start = start;
+      this.inFlight = inFlight;
+    }
+
+    @Override
+    public void success() {
+      if (release()) limit.limit.onSample(nanoTime() - start, inFlight);
+    }
+
+    @Override
+    public void failure(Throwable e) {
+      if (release() && isDropped(e)) {
+        limit.dropped.increment();
+        limit.limit.onDropped();
+      }
+    }
+
+    private synchronized boolean release() {
+      if (released) return false;
+      released = true;
+      limit.limit.release();
+      return true;
+    }
+  }
+
+  private static class Limit {
+    private final GradientLimit limit;
+    private final Counter rejected;
+    private final Counter dropped;
+
+    private Limit(GradientLimit limit, Counter rejected, Counter dropped) {
+      this.limit = limit;
+      this.rejected = rejected;
+      this.dropped = dropped;
+    }
+  }
+}
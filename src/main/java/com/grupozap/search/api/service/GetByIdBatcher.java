@@ -0,0 +1,192 @@
+package com.grupozap.search.api.service;
+
+import static com.grupozap.search.api.configuration.environment.RemoteProperties.ES_GET_BY_ID_BATCH_SIZE;
+import static com.grupozap.search.api.configuration.environment.RemoteProperties.ES_GET_BY_ID_BATCH_WINDOW;
+import static java.lang.System.nanoTime;
+import static java.util.Optional.ofNullable;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import static org.elasticsearch.client.RequestOptions.DEFAULT;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import javax.annotation.PreDestroy;
+import org.elasticsearch.action.ActionListener;
+import org.elasticsearch.action.get.GetRequest;
+import org.elasticsearch.action.get.GetResponse;
+import org.elasticsearch.action.get.MultiGetRequest;
+import org.elasticsearch.action.get.MultiGetResponse;
+import org.elasticsearch.client.RestHighLevelClient;
+import org.elasticsearch.search.fetch.subphase.FetchSourceContext;
+import org.springframework.stereotype.Component;
+
+/**
+ * Groups the concurrent gets by id of the same index and projection into a single {@code mget}. The
+ * first get of a batch waits at most {@code es.get.by.id.batch.window} millis for others, and a
+ * batch is sent right away once it has {@code es.get.by.id.batch.size} gets. A window of zero
+ * disables batching for the index, and realtime gets are never batched.
+ */
+@Component
+public class GetByIdBatcher {
+
+  static final String BATCH_SIZE = "search.get.batch.size";
+  static final String BATCH_WAIT = "search.get.batch.wait";
+
+  private final RestHighLevelClient client;
+  private final MeterRegistry meterRegistry;
+
+  private final Map<BatchKey, Batch> batches = new ConcurrentHashMap<>();
+  private final ScheduledExecutorService scheduler =
+      Executors.newSingleThreadScheduledExecutor(
+          runnable -> {
+            var thread = new Thread(runnable, "get-by-id-batcher");
+            thread.setDaemon(true);
+            return thread;
+          });
+
+  public GetByIdBatcher(RestHighLevelClient client, MeterRegistry meterRegistry) {
+    this.client = client;
+    this.meterRegistry = meterRegistry;
+  }
+
+  public boolean isEnabled(GetRequest request) {
+    return !request.realtime() && window(request.index()) > 0;
+  }
+
+  public CompletableFuture<GetResponse> submit(GetRequest request) {
+    var key = new BatchKey(request.index(), request.fetchSourceContext());
+    var pending = new Pending(request.id());
+
+    var created = new Batch[1];
+    var full = new Batch[1];
+    batches.compute(
+        key,
+        (k, batch) -> {
+          if (batch == null) batch = created[0] = new Batch(k);
+          batch.gets.add(pending);
+          if (batch.gets.size() < maxSize(k.index)) return batch;
+
+          full[0] = batch;
+          return null;
+        });
+
+    if (full[0] != null) send(full[0]);
+    else if (created[0] != null)
+      scheduler.schedule(() -> flush(created[0]), window(key.index), MILLISECONDS);
+
+    return pending.future;
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    scheduler.shutdownNow();
+  }
+
+  private void flush(Batch batch) {
+    if (batches.remove(batch.key, batch)) send(batch);
+  }
+
+  private void send(Batch batch) {
+    var now = nanoTime();
+    var waits = meterRegistry.timer(BATCH_WAIT, "index", batch.key.index);
+    batch.gets.forEach(get -> waits.record(now - get.created, NANOSECONDS));
+    meterRegistry.summary(BATCH_SIZE, "index", batch.key.index).record(batch.gets.size());
+
+    var request = new MultiGetRequest().realtime(false);
+    batch.gets.forEach(
+        get ->
+            request.add(
+                new MultiGetRequest.Item(batch.key.index, get.id)
+                    .fetchSourceContext(batch.key.fetchSourceContext)));
+
+    try {
+      mget(
+          request,
+          ActionListener.wrap(
+              response -> complete(batch, response),
+              e -> batch.gets.forEach(get -> get.future.completeExceptionally(e))));
+    } catch (Exception e) {
+      batch.gets.forEach(get -> get.future.completeExceptionally(e));
+    }
+  }
+
+  private static void complete(Batch batch, MultiGetResponse response) {
+    var items = response.getResponses();
+    for (var i = 0; i < batch.gets.size(); i++) {
+      var future = batch.gets.get(i).future;
+      if (i >= items.length)
+        future.completeExceptionally(new IllegalStateException("Missing mget response item"));
+      else if (items[i].isFailed())
+        future.completeExceptionally(items[i].getFailure().getFailure());
+      else future.complete(items[i].getResponse());
+    }
+  }
+
+  void mget(MultiGetRequest request, ActionListener<MultiGetResponse> listener) {
+    client.mgetAsync(request, DEFAULT, listener);
+  }
+
+  int pendingBatches() {
+    return batches.size();
+  }
+
+  private static long window(String index) {
+    return ofNullable(ES_GET_BY_ID_BATCH_WINDOW.<Long>getValue(index)).orElse(0L);
+  }
+
+  private static int maxSize(String index) {
+    return ofNullable(ES_GET_BY_ID_BATCH_SIZE.<Integer>getValue(index)).orElse(1);
+  }
+
+  private static class Pending {
+    private final String id;
+    private final long created = nanoTime();
+    private final CompletableFuture<GetResponse> future = new CompletableFuture<>();
+
+    private Pending(String id) {
+      this.id = id;
+    }
+  }
+
+  private static class Batch {
+    private final BatchKey key;
+    private final List<Pending> gets = new ArrayList<>();
+
+    private Batch(BatchKey key) {
+      this.key = key;
+    }
+  }
+
+  // Gets are batched together when they have the same index and projection
+  private static class BatchKey {
+    private final String index;
+    private final FetchSourceContext fetchSourceContext;
+
+    private BatchKey(String index, FetchSourceContext fetchSourceContext) {
+      this.index = index;
+      this.fetchSourceContext = fetchSourceContext;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) return true;
+      if (o == null || getClass() != o.getClass()) return false;
+
+      var that = (BatchKey) o;
+      return index.equals(that.index)
+          && Objects.equals(fetchSourceContext, that.fetchSourceContext);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(index, fetchSourceContext);
+    }
+  }
+}
@@ -0,0 +1,88 @@
+package com.grupozap.search.api.service;
+
+import static java.lang.Math.max;
+import static java.lang.Math.min;
+import static java.lang.Math.sqrt;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Concurrency limit discovered from the round trip times, like the gradient algorithm of the
+ * Netflix concurrency-limits library. The limit is multiplied by the gradient between the long term
+ * and the short term average RTT (queueing on the server raises the short term RTT, shrinking the
+ * limit), plus a queue allowance of {@code sqrt(limit)} that probes for more capacity while the RTT
+ * stays flat. Dropped calls (timeouts and rejections of the server) back off the limit right away.
+ */
+class GradientLimit {
+
+  private static final double SHORT_ALPHA = 2.0 / (10 + 1); // ~10 samples
+  private static final double LONG_ALPHA = 2.0 / (600 + 1); // ~600 samples
+  private static final double TOLERANCE = 1.5;
+  private static final double SMOOTHING = 0.2;
+  private static final double BACKOFF = 0.9;
+
+  private final int minLimit;
+  private final int maxLimit;
+  private final AtomicInteger inFlight = new AtomicInteger();
+
+  private volatile double limit;
+  private double shortRtt;
+  private double longRtt;
+
+  GradientLimit(int initialLimit, int minLimit, int maxLimit) {
+    this.minLimit = minLimit;
+    this.maxLimit = maxLimit;
+    this.limit = clamp(initialLimit);
+  }
+
+  /** Takes a slot for a call, returning the calls in flight before it or -1 when at the limit. */
+  int tryAcquire() {
+    while (true) {
+      var current = inFlight.get();
+      if (current >= (int) limit) return -1;
+      if (inFlight.compareAndSet(current, current + 1)) return current;
+    }
+  }
+
+  void release() {
+    inFlight.decrementAndGet();
+  }
+
+  synchronized void onSample(long rttNanos, int inFlightBefore) {
+    if (rttNanos <= 0) return;
+
+    if (shortRtt == 0) {
+      shortRtt = rttNanos;
+      longRtt = rttNanos;
+    } else {
+      shortRtt += (rttNanos - shortRtt) * SHORT_ALPHA;
+      longRtt += (rttNanos - longRtt) * LONG_ALPHA;
+    }
+
+    // The latency went down for good (e.g. after a slow period), so the baseline catches up faster
+    if (longRtt / shortRtt > 2) longRtt *= 0.95;
+
+    // Far from the limit the RTT says nothing about the capacity
+    if (inFlightBefore + 1 < limit / 2) return;
+
+    var gradient = max(0.5, min(1.0, TOLERANCE * longRtt / shortRtt));
+    var newLimit = limit * gradient + sqrt(limit);
+    limit = clamp(limit * (1 - SMOOTHING) + newLimit * SMOOTHING);
+  }
+
+  synchronized void onDropped() {
+    limit = clamp(limit * BACKOFF);
+  }
+
+  int getLimit() {
+    return (int) limit;
+  }
+
+  int getInFlight() {
+    return inFlight.get();
+  }
+
+  private double clamp(double limit) {
+    return max(minLimit, min(maxLimit, limit));
+  }
+}
@@ -0,0 +1,230 @@
+package com.grupozap.search.api.service;
+
+import static com.grupozap.search.api.configuration.environment.RemoteProperties.ES_BULKHEAD_ERROR_THRESHOLD;
+import static com.grupozap.search.api.configuration.environment.RemoteProperties.ES_BULKHEAD_GROUP;
+import static com.grupozap.search.api.configuration.environment.RemoteProperties.ES_BULKHEAD_MAX_CONCURRENT;
+import static com.grupozap.search.api.configuration.environment.RemoteProperties.ES_BULKHEAD_SLEEP_WINDOW;
+import static com.grupozap.search.api.configuration.environment.RemoteProperties.ES_BULKHEAD_VOLUME_THRESHOLD;
+import static com.grupozap.search.api.service.Bulkhead.State.CLOSED;
+import static java.util.Optional.ofNullable;
+import static java.util.concurrent.CompletableFuture.failedFuture;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static org.apache.commons.lang3.exception.ExceptionUtils.getThrowableList;
+import static org.elasticsearch.rest.RestStatus.TOO_MANY_REQUESTS;
+
+import com.grupozap.search.api.configuration.environment.ConfigSnapshot;
+import com.grupozap.search.api.controller.error.ExceptionHandler;
+import com.grupozap.search.api.exception.CircuitOpenException;
+import com.grupozap.search.api.exception.ConcurrencyLimitExceededException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+import org.elasticsearch.ElasticsearchException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Isolates the indices from each other, so that a slow or failing index does not use up the
+ * concurrency or trip the circuit breaker of every other one. Indices with the same {@code
+ * es.bulkhead.group} share a {@link Bulkhead} (each index is a group by default), which holds at
+ * most {@code es.bulkhead.max.concurrent} calls to Elasticsearch and opens its breaker once {@code
+ * es.bulkhead.error.threshold} percent of its calls fail. Both are off while unset. Rejections are
+ * a 503 with {@code Retry-After}, ignored by the Hystrix breakers.
+ */
+@Component
+public class IndexBulkheads {
+
+  static final String IN_FLIGHT = "search.bulkhead.inflight";
+  static final String OPEN = "search.bulkhead.open";
+  static final String REJECTED = "search.bulkhead.rejected";
+
+  private static final int DEFAULT_VOLUME_THRESHOLD = 20;
+  private static final long DEFAULT_SLEEP_WINDOW = 5000;
+
+  private final MeterRegistry meterRegistry;
+  private final long retryAfter;
+  private final LongSupplier clock;
+  private final Map<String, Group> groups = new ConcurrentHashMap<>();
+
+  @Autowired
+  public IndexBulkheads(
+      MeterRegistry meterRegistry, @Value("${es.limiter.retry.after}") long retryAfter) {
+    this(meterRegistry, retryAfter, System::currentTimeMillis);
+  }
+
+  IndexBulkheads(MeterRegistry meterRegistry, long retryAfter, LongSupplier clock) {
+    this.meterRegistry = meterRegistry;
+    this.retryAfter = retryAfter;
+    this.clock = clock;
+  }
+
+  /**
+   * Permit for a call to the index, which must be released with {@link Permit#success()} or {@link
+   * Permit#failure(Throwable)} once the call is done.
+   *
+   * @throws ConcurrencyLimitExceededException when the group is at its budget
+   * @throws CircuitOpenException when the breaker of the group is open
+   */
+  public Permit acquire(String index) {
+    var snapshot = ConfigSnapshot.pinned();
+    Integer maxConcurrent = ES_BULKHEAD_MAX_CONCURRENT.getValue(index, snapshot);
+    Integer errorThreshold = ES_BULKHEAD_ERROR_THRESHOLD.getValue(index, snapshot);
+    if (maxConcurrent == null && errorThreshold == null) return Permit.NONE;
+
+    var name = ofNullable(ES_BULKHEAD_GROUP.<String>getValue(index, snapshot)).orElse(index);
+    var group = groups.computeIfAbsent(name, this::group);
+    group.bulkhead.addIndex(index);
+
+    if (errorThreshold != null) {
+      long sleepWindow =
+          ofNullable(ES_BULKHEAD_SLEEP_WINDOW.<Long>getValue(index, snapshot))
+              .orElse(DEFAULT_SLEEP_WINDOW);
+      if (!group.bulkhead.allow(sleepWindow)) {
+        group.open.increment();
+        var untilTrial = group.bulkhead.untilTrial(sleepWindow);
+        throw new CircuitOpenException(name, Math.max(1, MILLISECONDS.toSeconds(untilTrial + 999)));
+      }
+    }
+
+    if (!group.bulkhead.tryAcquire(maxConcurrent)) {
+      group.bulkhead.onIgnored();
+      group.full.increment();
+      throw new ConcurrencyLimitExceededException(name + " index", retryAfter);
+    }
+
+    int volumeThreshold =
+        ofNullable(ES_BULKHEAD_VOLUME_THRESHOLD.<Integer>getValue(index, snapshot))
+            .orElse(DEFAULT_VOLUME_THRESHOLD);
+    return new GroupPermit(group.bulkhead, errorThreshold, volumeThreshold);
+  }
+
+  public <T> T execute(String index, Callable<T> call) throws Exception {
+    var permit = acquire(index);
+    try {
+      var response = call.call();
+      permit.success();
+      return response;
+    } catch (Exception e) {
+      permit.failure(e);
+      throw e;
+    }
+  }
+
+  public <T> CompletableFuture<T> executeAsync(String index, Supplier<CompletableFuture<T>> call) {
+    Permit permit;
+    try {
+      permit = acquire(index);
+    } catch (ConcurrencyLimitExceededException e) {
+      return failedFuture(e);
+    }
+
+    try {
+      return call.get()
+          .whenComplete(
+              (response, e) -> {
+                if (e != null) permit.failure(e);
+                else permit.success();
+              });
+    } catch (RuntimeException e) {
+      permit.failure(e);
+      return failedFuture(e);
+    }
+  }
+
+  /** State, in-flight calls and recent error rate of each group, by group name. */
+  public Map<String, Map<String, Object>> status() {
+    Map<String, Map<String, Object>> status = new TreeMap<>();
+    groups.forEach(
+        (name, group) -> {
+          var groupStatus = group.bulkhead.status();
+          groupStatus.put("rejectedFull", (long) group.full.count());
+          groupStatus.put("rejectedOpen", (long) group.open.count());
+          status.put(name, groupStatus);
+        });
+    return status;
+  }
+
+  Bulkhead getBulkhead(String group) {
+    return groups.get(group).bulkhead;
+  }
+
+  /**
+   * Bad requests, load shedding and client errors of Elasticsearch (but its rejections) are not
+   * failures of the group.
+   */
+  static boolean isFailure(Throwable e) {
+    if (ExceptionHandler.isIgnoredException(e)) return false;
+    for (var cause : getThrowableList(e)) {
+      if (cause instanceof ConcurrencyLimitExceededException) return false;
+      if (cause instanceof ElasticsearchException) {
+        var status = ((ElasticsearchException) cause).status();
+        if (status != TOO_MANY_REQUESTS && status.getStatus() < 500) return false;
+      }
+    }
+    return true;
+  }
+
+  private Group group(String name) {
+    var tags = Tags.of("group", name);
+    var bulkhead = new Bulkhead(clock);
+    meterRegistry.gauge(IN_FLIGHT, tags, bulkhead, Bulkhead::getInFlight);
+    meterRegistry.gauge(OPEN, tags, bulkhead, b -> b.getState() == CLOSED ? 0 : 1);
+    return new Group(
+        bulkhead,
+        meterRegistry.counter(REJECTED, tags.and("reason", "full")),
+        meterRegistry.counter(REJECTED, tags.and("reason", "open")));
+  }
+
+  private static class GroupPermit implements Permit {
+    private final Bulkhead bulkhead;
+    private final Integer errorThreshold;
+    private final int volumeThreshold;
+    private boolean released;
+
+    private GroupPermit(Bulkhead bulkhead, Integer errorThreshold, int volumeThreshold) {
+      this.bulkhead = bulkhead;
+      this.errorThreshold = errorThreshold;
+      this.volumeThreshold = volumeThreshold;
+    }
+
+    @Override
+    public void success() {
+      if (release() && errorThreshold != null) bulkhead.onSuccess();
+    }
+
+    @Override
+    public void failure(Throwable e) {
+      if (!release() || errorThreshold == null) return;
+
+      if (isFailure(e)) bulkhead.onFailure(errorThreshold, volumeThreshold);
+      else bulkhead.onIgnored();
+    }
+
+    private synchronized boolean release() {
+      if (released) return false;
+      released = true;
+      bulkhead.release();
+      return true;
+    }
+  }
+
+  private static class Group {
+    private final Bulkhead bulkhead;
+    private final Counter full;
+    private final Counter open;
+
+    private Group(Bulkhead bulkhead, Counter full, Counter open) {
+      this.bulkhead = bulkhead;
+      this.full = full;
+      this.open = open;
+    }
+  }
+}
@@ -0,0 +1,35 @@
+package com.grupozap.search.api.service;
+
+/** Slot of a call to Elasticsearch, released once with the outcome of the call. */
+public interface Permit {
+
+  Permit NONE =
+      new Permit() {
+        @Override
+        public void success() {}
+
+        @Override
+        public void failure(Throwable e) {}
+      };
+
+  void success();
+
+  void failure(Throwable e);
+
+  /** Both permits, released together. */
+  static Permit of(Permit first, Permit second) {
+    return new Permit() {
+      @Override
+      public void success() {
+        first.success();
+        second.success();
+      }
+
+      @Override
+      public void failure(Throwable e) {
+        first.failure(e);
+        second.failure(e);
+      }
+    };
+  }
+}
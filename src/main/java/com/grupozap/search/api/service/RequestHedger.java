@@ -0,0 +1,239 @@
+package com.grupozap.search.api.service;
+
+import static com.grupozap.search.api.configuration.environment.RemoteProperties.ES_HEDGE_BUDGET;
+import static com.grupozap.search.api.configuration.environment.RemoteProperties.ES_HEDGE_ENABLED;
+import static com.grupozap.search.api.configuration.environment.RemoteProperties.ES_HEDGE_PERCENTILE;
+import static java.lang.Boolean.TRUE;
+import static java.lang.System.nanoTime;
+import static java.util.Optional.ofNullable;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+import com.grupozap.search.api.configuration.environment.ConfigSnapshot;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+import javax.annotation.PreDestroy;
+import org.springframework.stereotype.Component;
+
+/**
+ * Hedges the slow calls of an index: when a call has not completed within the {@code
+ * es.hedge.percentile} (95 by default) of the latencies of its recent calls, a duplicate is sent
+ * and the first response wins. The other one is discarded, as the client cannot cancel it. Hedges
+ * are budgeted to {@code es.hedge.budget} percent (5 by default) of the calls, so they only add a
+ * few percent of load even when the whole cluster is slow. Enabled by {@code es.hedge.enabled}.
+ */
+@Component
+public class RequestHedger {
+
+  static final String CALLS = "search.hedge.calls";
+  static final String SENT = "search.hedge.sent";
+  static final String WON = "search.hedge.won";
+  static final String DELAY = "search.hedge.delay";
+
+  static final int MIN_SAMPLES = 100;
+
+  private static final int DEFAULT_PERCENTILE = 95;
+  private static final int DEFAULT_BUDGET = 5;
+
+  private final MeterRegistry meterRegistry;
+  private final Map<String, Hedge> hedges = new ConcurrentHashMap<>();
+  private final ScheduledExecutorService scheduler =
+      Executors.newSingleThreadScheduledExecutor(
+          runnable -> {
+            var thread = new Thread(runnable, "request-hedger");
+            thread.setDaemon(true);
+            return thread;
+          });
+
+  public RequestHedger(MeterRegistry meterRegistry) {
+    this.meterRegistry = meterRegistry;
+  }
+
+  public boolean isEnabled(String index) {
+    return TRUE.equals(ES_HEDGE_ENABLED.getValue(index));
+  }
+
+  /** A {@code preference} of its own for a hedge, so it likely goes to other shard copies. */
+  public static String preference() {
+    return "hedge-" + ThreadLocalRandom.current().nextInt(Integer.MAX_VALUE);
+  }
+
+  /**
+   * The first successful response of the primary call or of its hedge. Fails with the failure of
+   * the primary call once both failed, or right away when the primary call fails before the hedge
+   * is sent.
+   */
+  public <T> CompletableFuture<T> execute(
+      String index, Supplier<CompletableFuture<T>> primary, Supplier<CompletableFuture<T>> hedge) {
+    var snapshot = ConfigSnapshot.pinned();
+    int percentile =
+        ofNullable(ES_HEDGE_PERCENTILE.<Integer>getValue(index, snapshot))
+            .orElse(DEFAULT_PERCENTILE);
+    int budget =
+        ofNullable(ES_HEDGE_BUDGET.<Integer>getValue(index, snapshot)).orElse(DEFAULT_BUDGET);
+
+    var state = hedges.computeIfAbsent(index, this::hedge);
+    state.calls.increment();
+    state.deposit(budget);
+
+    var delay = state.delay(percentile);
+    var first = send(primary, state);
+    if (delay < 0) return first;
+
+    var race = new Race<T>(state);
+    first.whenComplete((response, e) -> race.complete(response, e, false));
+    var timer =
+        scheduler.schedule(
+            () -> {
+              if (!race.hedge()) return;
+              snapshot
+                  .call(() -> send(hedge, state))
+                  .whenComplete((response, e) -> race.complete(response, e, true));
+            },
+            delay,
+            NANOSECONDS);
+    race.result.whenComplete((response, e) -> timer.cancel(false));
+    return race.result;
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    scheduler.shutdownNow();
+  }
+
+  Hedge getHedge(String index) {
+    return hedges.get(index);
+  }
+
+  private static <T> CompletableFuture<T> send(Supplier<CompletableFuture<T>> call, Hedge state) {
+    var start = nanoTime();
+    CompletableFuture<T> future;
+    try {
+      future = call.get();
+    } catch (RuntimeException e) {
+      return CompletableFuture.failedFuture(e);
+    }
+    return future.whenComplete(
+        (response, e) -> {
+          if (e == null) state.record(nanoTime() - start);
+        });
+  }
+
+  private Hedge hedge(String index) {
+    var tags = Tags.of("index", index);
+    var hedge =
+        new Hedge(
+            meterRegistry.counter(CALLS, tags),
+            meterRegistry.counter(SENT, tags),
+            meterRegistry.counter(WON, tags));
+    meterRegistry.gauge(DELAY, tags, hedge, Hedge::getDelayMillis);
+    return hedge;
+  }
+
+  /** Latencies of the recent successful calls of an index and its budget of hedges. */
+  static class Hedge {
+    private static final int WINDOW = 1000;
+    private static final int RECOMPUTE_EVERY = 100;
+    private static final double MAX_TOKENS = 10;
+
+    private final Counter calls;
+    private final Counter sent;
+    private final Counter won;
+
+    private final long[] samples = new long[WINDOW];
+    private long count;
+    private long computedAt = -1;
+    private int computedPercentile;
+    private volatile long delay = -1;
+    private double tokens;
+
+    private Hedge(Counter calls, Counter sent, Counter won) {
+      this.calls = calls;
+      this.sent = sent;
+      this.won = won;
+    }
+
+    synchronized void record(long nanos) {
+      samples[(int) (count++ % WINDOW)] = nanos;
+    }
+
+    /** Nanos to wait before the hedge, or -1 while there are too few samples. */
+    synchronized long delay(int percentile) {
+      if (count < MIN_SAMPLES) return -1;
+
+      if (count - computedAt >= RECOMPUTE_EVERY || percentile != computedPercentile) {
+        var sorted = Arrays.copyOf(samples, (int) Math.min(count, WINDOW));
+        Arrays.sort(sorted);
+        var rank = (int) Math.ceil(percentile / 100.0 * sorted.length) - 1;
+        delay = sorted[Math.max(0, Math.min(rank, sorted.length - 1))];
+        computedAt = count;
+        computedPercentile = percentile;
+      }
+      return delay;
+    }
+
+    /** Each call earns a percent of a hedge, up to a burst of a few of them. */
+    synchronized void deposit(int budget) {
+      tokens = Math.min(MAX_TOKENS, tokens + budget / 100.0);
+    }
+
+    synchronized boolean withdraw() {
+      if (tokens < 1) return false;
+      tokens -= 1;
+      return true;
+    }
+
+    double getDelayMillis() {
+      return delay < 0 ? 0 : delay / 1e6;
+    }
+  }
+
+  private static class Race<T> {
+    private final CompletableFuture<T> result = new CompletableFuture<>();
+    private final Hedge state;
+
+    private int pending = 1;
+    private boolean done;
+    private Throwable primaryFailure;
+
+    private Race(Hedge state) {
+      this.state = state;
+    }
+
+    /** Whether the hedge must be sent: the primary call is still pending and there is budget. */
+    synchronized boolean hedge() {
+      if (done || !state.withdraw()) return false;
+
+      pending++;
+      state.sent.increment();
+      return true;
+    }
+
+    void complete(T response, Throwable e, boolean hedged) {
+      Throwable failure;
+      synchronized (this) {
+        pending--;
+        if (!hedged && e != null) primaryFailure = e;
+        if (done || (e != null && pending > 0)) return;
+
+        done = true;
+        failure = e == null ? null : primaryFailure != null ? primaryFailure : e;
+      }
+
+      if (failure != null) {
+        result.completeExceptionally(failure);
+      } else {
+        if (hedged) state.won.increment();
+        result.complete(response);
+      }
+    }
+  }
+}
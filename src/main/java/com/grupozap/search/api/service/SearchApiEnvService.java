@@ -2,6 +2,7 @@ package com.grupozap.search.api.service;
 
 import com.grupozap.search.api.configuration.environment.SearchApiEnv;
 import java.util.Map;
+import java.util.Set;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
@@ -17,4 +18,8 @@ public class SearchApiEnvService {
   public Map<String, Object> getRemoteProperties() {
     return searchApiEnv.getRemoteProperties();
   }
+
+  public Set<String> reloadRemoteProperties() {
+    return searchApiEnv.reloadRemoteProperties();
+  }
 }
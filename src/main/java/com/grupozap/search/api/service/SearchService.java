@@ -1,26 +1,54 @@
 package com.grupozap.search.api.service;
 
+import static com.grupozap.search.api.configuration.environment.RemoteProperties.ES_MAX_SIZE;
+import static com.grupozap.search.api.service.ConcurrencyLimiter.Path.GET;
+import static com.grupozap.search.api.service.ConcurrencyLimiter.Path.SEARCH;
+import static com.grupozap.search.api.service.ConcurrencyLimiter.Path.STREAM;
 import static java.lang.String.format;
-import static java.util.Optional.of;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.Arrays.asList;
+import static java.util.concurrent.CompletableFuture.completedFuture;
+import static java.util.concurrent.CompletableFuture.failedFuture;
 import static org.apache.commons.lang3.exception.ExceptionUtils.getRootCause;
 import static org.elasticsearch.client.RequestOptions.DEFAULT;
 
 import com.grupozap.search.api.adapter.QueryAdapter;
+import com.grupozap.search.api.adapter.SettingsAdapter;
+import com.grupozap.search.api.cache.DocumentCache;
+import com.grupozap.search.api.cache.QueryPlanCache;
+import com.grupozap.search.api.cache.RequestCoalescer;
+import com.grupozap.search.api.client.SearchApiClient;
+import com.grupozap.search.api.configuration.environment.ConfigSnapshot;
 import com.grupozap.search.api.controller.stream.ElasticSearchStream;
+import com.grupozap.search.api.exception.ConcurrencyLimitExceededException;
 import com.grupozap.search.api.exception.QueryPhaseExecutionException;
 import com.grupozap.search.api.exception.QueryTimeoutException;
 import com.grupozap.search.api.model.http.BaseApiRequest;
-import com.grupozap.search.api.model.http.FilterableApiRequest;
+import com.grupozap.search.api.model.http.MultiGetApiRequest;
+import com.grupozap.search.api.model.http.RequestKey;
 import com.grupozap.search.api.model.http.SearchApiRequest;
+import com.grupozap.search.api.model.http.StreamApiRequest;
+import com.grupozap.search.api.model.mapping.IndexMetadata;
+import com.grupozap.search.api.model.serializer.MultiSearchItem;
+import com.grupozap.search.api.service.ConcurrencyLimiter.Path;
+import com.grupozap.search.api.service.parser.IndexSettings;
 import datadog.trace.api.Trace;
-import java.io.IOException;
 import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Supplier;
 import org.elasticsearch.ElasticsearchException;
+import org.elasticsearch.action.ActionListener;
 import org.elasticsearch.action.get.GetRequest;
 import org.elasticsearch.action.get.GetResponse;
+import org.elasticsearch.action.get.MultiGetRequest;
+import org.elasticsearch.action.get.MultiGetResponse;
 import org.elasticsearch.action.search.SearchRequest;
 import org.elasticsearch.action.search.SearchResponse;
-import org.elasticsearch.client.RestHighLevelClient;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
@@ -34,56 +62,364 @@ public class SearchService {
 
   @Autowired private ElasticSearchStream elasticSearch;
 
-  @Autowired private RestHighLevelClient restHighLevelClient;
+  @Autowired private SearchApiClient restHighLevelClient;
+
+  @Autowired private QueryPlanCache queryPlanCache;
+
+  @Autowired private RequestCoalescer requestCoalescer;
+
+  @Autowired private GetByIdBatcher getByIdBatcher;
+
+  @Autowired private DocumentCache documentCache;
+
+  @Autowired private IndexSettings indexSettings;
+
+  @Autowired private SettingsAdapter<Map<String, IndexMetadata>, String> settingsAdapter;
+
+  @Autowired private ConcurrencyLimiter concurrencyLimiter;
+
+  @Autowired private IndexBulkheads indexBulkheads;
+
+  @Autowired private RequestHedger requestHedger;
 
   private final Boolean requestCache;
+  private final int maxMultiSearchRequests;
 
-  public SearchService(@Value("${es.index.requests.cache.enable}") Boolean requestCache) {
+  public SearchService(
+      @Value("${es.index.requests.cache.enable}") Boolean requestCache,
+      @Value("${es.msearch.max.requests}") int maxMultiSearchRequests) {
     this.requestCache = requestCache;
+    this.maxMultiSearchRequests = maxMultiSearchRequests;
   }
 
   @Trace
   public GetResponse getById(BaseApiRequest request, String index, String id) {
+    return requestCoalescer.execute(
+        RequestKey.of(request, index, id),
+        () -> {
+          try {
+            var getRequest = this.queryAdapter.getById(request, index, id);
+            if (!documentCache.isEnabled(getRequest)) return get(getRequest);
+
+            var cached = documentCache.get(getRequest);
+            if (cached != null) return cached;
+            return documentCache.put(getRequest, get(documentCache.fullSource(getRequest)));
+          } catch (ExecutionException e) {
+            throw getByIdException(e.getCause());
+          } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw getByIdException(e);
+          } catch (Exception e) {
+            throw getByIdException(e);
+          }
+        });
+  }
+
+  @Trace
+  public CompletableFuture<GetResponse> getByIdAsync(
+      BaseApiRequest request, String index, String id) {
+    GetRequest getRequest;
     try {
-      return restHighLevelClient.get(this.queryAdapter.getById(request, index, id), DEFAULT);
+      getRequest = this.queryAdapter.getById(request, index, id);
     } catch (Exception e) {
-      if (getRootCause(e) instanceof IllegalArgumentException)
-        throw new IllegalArgumentException(e);
-      if (e instanceof ElasticsearchException) throw new QueryPhaseExecutionException(e);
-      throw new RuntimeException(e);
+      return failedFuture(getByIdException(e));
+    }
+
+    var cacheEnabled = documentCache.isEnabled(getRequest);
+    if (cacheEnabled) {
+      var cached = documentCache.get(getRequest);
+      if (cached != null) return completedFuture(cached);
     }
+
+    var snapshot = ConfigSnapshot.pinned();
+    return requestCoalescer.executeAsync(
+        RequestKey.of(request, index, id),
+        () ->
+            callAsync(
+                index,
+                GET,
+                () ->
+                    cacheEnabled
+                        ? getAsync(documentCache.fullSource(getRequest))
+                            .thenApply(
+                                response ->
+                                    snapshot.call(() -> documentCache.put(getRequest, response)))
+                        : getAsync(getRequest)));
+  }
+
+  private GetResponse get(GetRequest getRequest) throws Exception {
+    return call(
+        getRequest.index(),
+        GET,
+        () -> {
+          if (getByIdBatcher.isEnabled(getRequest)) return getByIdBatcher.submit(getRequest).get();
+          return restHighLevelClient.get(getRequest, DEFAULT);
+        });
   }
 
+  private CompletableFuture<GetResponse> getAsync(GetRequest getRequest) {
+    var future = new CompletableFuture<GetResponse>();
+    if (getByIdBatcher.isEnabled(getRequest)) {
+      getByIdBatcher
+          .submit(getRequest)
+          .whenComplete(
+              (response, e) -> {
+                if (e != null) future.completeExceptionally(getByIdException(e));
+                else future.complete(response);
+              });
+      return future;
+    }
+
+    try {
+      restHighLevelClient.getAsync(
+          getRequest,
+          DEFAULT,
+          ActionListener.wrap(
+              future::complete, e -> future.completeExceptionally(getByIdException(e))));
+    } catch (Exception e) {
+      future.completeExceptionally(getByIdException(e));
+    }
+    return future;
+  }
+
+  /** Gets the documents of the given ids in a single request, keeping the order of the ids. */
   @Trace
-  public SearchResponse search(SearchApiRequest request) {
-    var searchRequest = this.queryAdapter.query(request).requestCache(requestCache);
+  public MultiGetResponse multiGet(MultiGetApiRequest request) {
+    var ids = request.getIds();
+    if (ids == null || ids.isEmpty()) throw new IllegalArgumentException("ids must not be empty");
+
+    int maxSize = ES_MAX_SIZE.getValue(request.getIndex());
+    if (ids.size() > maxSize)
+      throw new IllegalArgumentException(
+          format("Multi get size %d exceeds the limit of %d", ids.size(), maxSize));
+
     try {
-      var searchResponse = restHighLevelClient.search(searchRequest, DEFAULT);
-      if (searchResponse.getFailedShards() != 0)
-        throw new QueryPhaseExecutionException(
-            format(
-                "%d of %d shards failed",
-                searchResponse.getFailedShards(), searchResponse.getTotalShards()),
-            searchRequest.source().toString());
-      if (searchResponse.isTimedOut())
-        throw new QueryTimeoutException(searchRequest.source().toString());
-      return searchResponse;
-
-    } catch (ElasticsearchException e) {
+      // Every document has the same projection and realtime flag of a single get
+      var template = this.queryAdapter.getById(request, request.getIndex(), ids.get(0));
+      var multiGetRequest = new MultiGetRequest().realtime(template.realtime());
+      for (var id : ids)
+        multiGetRequest.add(
+            new MultiGetRequest.Item(template.index(), id)
+                .fetchSourceContext(template.fetchSourceContext()));
+
+      return call(
+          request.getIndex(), GET, () -> restHighLevelClient.mget(multiGetRequest, DEFAULT));
+    } catch (Exception e) {
+      throw getByIdException(e);
+    }
+  }
+
+  private static RuntimeException getByIdException(Throwable e) {
+    if (e instanceof ConcurrencyLimitExceededException) return (RuntimeException) e;
+    if (getRootCause(e) instanceof IllegalArgumentException) return new IllegalArgumentException(e);
+    if (e instanceof ElasticsearchException) return new QueryPhaseExecutionException(e);
+    return new RuntimeException(e);
+  }
+
+  @Trace
+  public SearchResponse search(SearchApiRequest request) {
+    var source = compile(request);
+    var searchRequest = searchRequest(request);
+    return requestCoalescer.execute(
+        RequestKey.of(request),
+        () -> {
+          try {
+            if (requestHedger.isEnabled(request.getIndex()))
+              return hedgedSearch(request, searchRequest, source).get();
+
+            return call(
+                request.getIndex(),
+                SEARCH,
+                () ->
+                    checkResponse(
+                        restHighLevelClient.search(searchRequest, source, DEFAULT), source));
+          } catch (ExecutionException e) {
+            throw searchException(e.getCause(), source);
+          } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw searchException(e, source);
+          } catch (Exception e) {
+            throw searchException(e, source);
+          }
+        });
+  }
+
+  @Trace
+  public CompletableFuture<SearchResponse> searchAsync(SearchApiRequest request) {
+    var source = compile(request);
+    var searchRequest = searchRequest(request);
+    return requestCoalescer.executeAsync(
+        RequestKey.of(request),
+        () ->
+            requestHedger.isEnabled(request.getIndex())
+                ? hedgedSearch(request, searchRequest, source)
+                : sendSearch(request.getIndex(), searchRequest, source));
+  }
+
+  /**
+   * The search and, when it is slow, a hedge of it with another {@code preference}, within the
+   * bulkhead and the concurrency limit of the index like any other search.
+   */
+  private CompletableFuture<SearchResponse> hedgedSearch(
+      SearchApiRequest request, SearchRequest searchRequest, byte[] source) {
+    var index = request.getIndex();
+    var hedgeRequest = new SearchRequest(searchRequest).preference(RequestHedger.preference());
+    return requestHedger.execute(
+        index,
+        () -> sendSearch(index, searchRequest, source),
+        () -> sendSearch(index, hedgeRequest, source));
+  }
+
+  private CompletableFuture<SearchResponse> sendSearch(
+      String index, SearchRequest searchRequest, byte[] source) {
+    return callAsync(
+        index,
+        SEARCH,
+        () -> {
+          var future = new CompletableFuture<SearchResponse>();
+          restHighLevelClient.searchAsync(
+              searchRequest,
+              source,
+              DEFAULT,
+              ActionListener.wrap(
+                  response -> future.complete(checkResponse(response, source)),
+                  e -> future.completeExceptionally(searchException(e, source))));
+          return future;
+        });
+  }
+
+  /**
+   * Runs the searches in a single round trip. Each search fails on its own: invalid requests and
+   * requests rejected by the bulkhead of their index are not sent, and a search failed on
+   * Elasticsearch does not fail the others.
+   */
+  @Trace
+  public List<MultiSearchItem> multiSearch(List<SearchApiRequest> requests) {
+    if (requests.size() > maxMultiSearchRequests)
+      throw new IllegalArgumentException(
+          format(
+              "Multi search size %d exceeds the limit of %d",
+              requests.size(), maxMultiSearchRequests));
+
+    var items = new MultiSearchItem[requests.size()];
+    var pending = new ArrayList<Integer>(requests.size());
+    var searchRequests = new ArrayList<SearchRequest>(requests.size());
+    var sources = new ArrayList<byte[]>(requests.size());
+    var permits = new ArrayList<Permit>(requests.size());
+
+    // Queries are built with the request scoped settings of their own index
+    for (var i = 0; i < items.length; i++) {
+      var request = requests.get(i);
+      try {
+        indexSettings.validateIndex(request);
+        var source = compile(request);
+        var searchRequest = searchRequest(request);
+        permits.add(indexBulkheads.acquire(request.getIndex()));
+        sources.add(source);
+        searchRequests.add(searchRequest);
+        pending.add(i);
+      } catch (RuntimeException e) {
+        items[i] = MultiSearchItem.failure(request.getIndex(), e);
+      }
+    }
+
+    if (!pending.isEmpty()) {
+      try {
+        var responses =
+            concurrencyLimiter
+                .execute(
+                    SEARCH, () -> restHighLevelClient.multiSearch(searchRequests, sources, DEFAULT))
+                .getResponses();
+        for (var i = 0; i < responses.length; i++) {
+          var index = indexName(searchRequests.get(i));
+          var source = sources.get(i);
+          try {
+            if (responses[i].isFailure()) throw searchException(responses[i].getFailure(), source);
+            items[pending.get(i)] =
+                MultiSearchItem.success(index, checkResponse(responses[i].getResponse(), source));
+            permits.get(i).success();
+          } catch (RuntimeException e) {
+            items[pending.get(i)] = MultiSearchItem.failure(index, e);
+            permits.get(i).failure(e);
+          }
+        }
+      } catch (Exception e) {
+        for (var i = 0; i < pending.size(); i++) {
+          items[pending.get(i)] =
+              MultiSearchItem.failure(
+                  indexName(searchRequests.get(i)), searchException(e, sources.get(i)));
+          permits.get(i).failure(e);
+        }
+      }
+    }
+
+    return asList(items);
+  }
+
+  /** The call within the bulkhead of the index and the concurrency limit of the path. */
+  private <T> T call(String index, Path path, Callable<T> call) throws Exception {
+    return indexBulkheads.execute(index, () -> concurrencyLimiter.execute(path, call));
+  }
+
+  private <T> CompletableFuture<T> callAsync(
+      String index, Path path, Supplier<CompletableFuture<T>> call) {
+    return indexBulkheads.executeAsync(index, () -> concurrencyLimiter.executeAsync(path, call));
+  }
+
+  private String indexName(SearchRequest searchRequest) {
+    return settingsAdapter.getIndexByAlias(searchRequest.indices()[0]);
+  }
+
+  private byte[] compile(SearchApiRequest request) {
+    return queryPlanCache.get(request, () -> this.queryAdapter.query(request).source());
+  }
+
+  private SearchRequest searchRequest(SearchApiRequest request) {
+    return new SearchRequest(request.getIndex()).requestCache(requestCache);
+  }
+
+  private static SearchResponse checkResponse(SearchResponse searchResponse, byte[] source) {
+    if (searchResponse.getFailedShards() != 0)
       throw new QueryPhaseExecutionException(
-          of(searchRequest).map(r -> r.source().toString()).orElse("{}"), e);
-    } catch (IOException e) {
-      throw new RuntimeException(e);
+          format(
+              "%d of %d shards failed",
+              searchResponse.getFailedShards(), searchResponse.getTotalShards()),
+          new String(source, UTF_8));
+    if (searchResponse.isTimedOut()) throw new QueryTimeoutException(new String(source, UTF_8));
+    return searchResponse;
+  }
+
+  private static RuntimeException searchException(Throwable e, byte[] source) {
+    if (e instanceof ElasticsearchException)
+      return new QueryPhaseExecutionException(new String(source, UTF_8), e);
+    if (e instanceof RuntimeException) return (RuntimeException) e;
+    return new RuntimeException(e);
+  }
+
+  /** Permit of a stream, acquired before the response starts so a rejection is still a 503. */
+  public Permit acquireStream(String index) {
+    var bulkhead = indexBulkheads.acquire(index);
+    try {
+      return Permit.of(bulkhead, concurrencyLimiter.acquire(STREAM));
+    } catch (ConcurrencyLimitExceededException e) {
+      bulkhead.failure(e);
+      throw e;
     }
   }
 
-  public void stream(FilterableApiRequest request, OutputStream stream) {
+  public void stream(StreamApiRequest request, OutputStream stream, Permit permit) {
     // Default value for stream size: return all results
     if (request.getSize() == Integer.MAX_VALUE) request.setSize(0);
 
     // Default value for stream sort: no sorting
     if (request.getSort() == null) request.setDisableSort(true);
 
-    elasticSearch.stream(request, stream);
+    try {
+      elasticSearch.stream(request, stream);
+      permit.success();
+    } catch (RuntimeException e) {
+      permit.failure(e);
+      throw e;
+    }
   }
 }
@@ -5,6 +5,7 @@ import static com.grupozap.search.api.configuration.environment.RemoteProperties
 import static java.lang.Integer.parseInt;
 
 import com.grupozap.search.api.adapter.SettingsAdapter;
+import com.grupozap.search.api.model.mapping.IndexMetadata;
 import com.grupozap.search.api.model.search.Indexable;
 import java.util.Map;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -15,7 +16,7 @@ import org.springframework.web.context.annotation.RequestScope;
 @Component
 public class IndexSettings {
 
-  private final SettingsAdapter<Map<String, Map<String, Object>>, String> settingsAdapter;
+  private final SettingsAdapter<Map<String, IndexMetadata>, String> settingsAdapter;
   private String index;
 
   @Autowired
@@ -2,6 +2,7 @@ package com.grupozap.search.api.service.parser.factory;
 
 import static com.google.common.base.Objects.equal;
 import static com.grupozap.search.api.configuration.environment.RemoteProperties.FILTER_DEFAULT_CLAUSES;
+import static java.util.Collections.emptyMap;
 import static java.util.Collections.unmodifiableMap;
 import static java.util.Optional.ofNullable;
 import static java.util.function.Function.identity;
@@ -10,11 +11,12 @@ import static java.util.stream.Collectors.toMap;
 
 import com.google.common.base.Objects;
 import com.grupozap.search.api.adapter.FilterQueryAdapter;
+import com.grupozap.search.api.configuration.environment.ConfigSnapshot;
+import com.grupozap.search.api.configuration.environment.ConfigSnapshot.Derivation;
 import com.grupozap.search.api.model.event.RemotePropertiesUpdatedEvent;
 import com.grupozap.search.api.model.parser.QueryParser;
 import com.grupozap.search.api.model.query.QueryFragment;
 import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
 import org.elasticsearch.index.query.BoolQueryBuilder;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -31,8 +33,7 @@ public class DefaultFilterFactory implements ApplicationListener<RemotePropertie
   private final QueryParser queryParser;
   private final FilterQueryAdapter filterQueryAdapter;
 
-  private final Map<String, Map<String, DefaultFilter>> defaultFiltersPerIndex;
-  private final Map<String, Map<String, Set<String>>> defaultFiltersPerFieldForIndex;
+  private final Derivation<DefaultFilters> defaultFilters = this::createDefaultFilters;
 
   @Autowired
   public DefaultFilterFactory(
@@ -40,17 +41,12 @@ public class DefaultFilterFactory implements ApplicationListener<RemotePropertie
       FilterQueryAdapter filterQueryAdapter) {
     this.queryParser = queryParser;
     this.filterQueryAdapter = filterQueryAdapter;
-
-    this.defaultFiltersPerIndex = new ConcurrentHashMap<>();
-    this.defaultFiltersPerFieldForIndex = new ConcurrentHashMap<>();
   }
 
   public Set<BoolQueryBuilder> getDefaultFilters(String index, Set<String> requestFilterFields) {
+    var filters = ConfigSnapshot.pinned().derived(defaultFilters, index);
     var defaultFiltersForRequest =
-        getDefaultFiltersForRequest(
-            requestFilterFields,
-            defaultFiltersPerFieldForIndex.getOrDefault(index, new HashMap<>()),
-            defaultFiltersPerIndex.getOrDefault(index, new HashMap<>()));
+        getDefaultFiltersForRequest(requestFilterFields, filters.perField, filters.perId);
     return defaultFiltersForRequest.values().stream()
         .map(DefaultFilter::getQueryBuilder)
         .collect(toCollection(() -> new LinkedHashSet<>(defaultFiltersForRequest.size())));
@@ -74,22 +70,25 @@ public class DefaultFilterFactory implements ApplicationListener<RemotePropertie
 
   @Override
   public void onApplicationEvent(RemotePropertiesUpdatedEvent event) {
-    var index = event.getIndex();
+    // Parsed ahead of the requests of the new snapshot
+    event.getSnapshot().derived(defaultFilters, event.getIndex());
+  }
+
+  private DefaultFilters createDefaultFilters(ConfigSnapshot snapshot, String index) {
+    if (!snapshot.hasProperties(index)) return new DefaultFilters(emptyMap(), emptyMap());
+
     var rawClauses =
-        (Set<String>) ofNullable(FILTER_DEFAULT_CLAUSES.getValue(index)).orElseGet(HashSet::new);
+        (Set<String>)
+            ofNullable(FILTER_DEFAULT_CLAUSES.getValue(index, snapshot)).orElseGet(HashSet::new);
     var queryFragmentsPerFields = rawClauses2QueryFragmentsPerFields(rawClauses);
     var filters = queryFragments2DefaultFilters(index, queryFragmentsPerFields);
 
-    var defaultFiltersPerId = getDefaultFiltersPerId(filters);
-
-    this.defaultFiltersPerIndex.put(index, defaultFiltersPerId);
-    this.defaultFiltersPerFieldForIndex.put(index, getDefaultFiltersPerField(filters));
-
     if (!rawClauses.isEmpty()) {
       LOG.info("Refreshing default filter for index: " + index + " -- " + rawClauses);
     } else {
       LOG.debug("Index " + index + " doesnt have any default index to refresh");
     }
+    return new DefaultFilters(getDefaultFiltersPerId(filters), getDefaultFiltersPerField(filters));
   }
 
   private Map<Set<String>, QueryFragment> rawClauses2QueryFragmentsPerFields(
@@ -143,6 +142,16 @@ public class DefaultFilterFactory implements ApplicationListener<RemotePropertie
     return unmodifiableMap(defaultFiltersPerField);
   }
 
+  private static class DefaultFilters {
+    private final Map<String, DefaultFilter> perId;
+    private final Map<String, Set<String>> perField;
+
+    private DefaultFilters(Map<String, DefaultFilter> perId, Map<String, Set<String>> perField) {
+      this.perId = perId;
+      this.perField = perField;
+    }
+  }
+
   private static class DefaultFilter {
     private final String id;
     private final Set<String> fields;
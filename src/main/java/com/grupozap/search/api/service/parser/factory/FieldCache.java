@@ -1,21 +1,26 @@
 package com.grupozap.search.api.service.parser.factory;
 
 import static com.grupozap.search.api.model.mapping.MappingType.FIELD_TYPE_RESCORE;
+import static com.grupozap.search.api.model.mapping.MappingType.FIELD_TYPE_SCRIPT;
 import static com.grupozap.search.api.model.query.Facet._COUNT;
 import static com.grupozap.search.api.model.query.Facet._KEY;
 import static com.grupozap.search.api.service.parser.factory.FieldFactory.createField;
+import static java.util.Collections.emptyMap;
+import static java.util.Collections.singletonMap;
 import static java.util.Optional.ofNullable;
 import static java.util.function.Function.identity;
-import static java.util.stream.Collectors.toMap;
 
 import com.google.common.collect.ImmutableMap;
 import com.grupozap.search.api.exception.InvalidFieldException;
 import com.grupozap.search.api.listener.SortRescoreListener;
 import com.grupozap.search.api.model.event.ClusterSettingsUpdatedEvent;
+import com.grupozap.search.api.model.mapping.IndexMetadata;
 import com.grupozap.search.api.model.query.Field;
 import com.grupozap.search.api.service.parser.IndexSettings;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 import org.apache.commons.collections4.map.LinkedMap;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -37,13 +42,15 @@ public class FieldCache implements ApplicationListener<ClusterSettingsUpdatedEve
 
   private final FieldFactory fieldFactory;
   private final SortRescoreListener sortRescoreListener;
-  private Map<String, Field> validFields;
+  private final AtomicLong version = new AtomicLong();
+  private final Map<String, Field> rescoreFields = new ConcurrentHashMap<>();
+  private volatile Map<String, Map<String, Field>> fieldsByIndex; // Immutable snapshot
   private IndexSettings indexSettings; // Request scoped
 
   @Autowired
   public FieldCache(FieldFactory fieldFactory, SortRescoreListener sortRescoreListener) {
     this.fieldFactory = fieldFactory;
-    this.validFields = new HashMap<>();
+    this.fieldsByIndex = emptyMap();
     this.sortRescoreListener = sortRescoreListener;
   }
 
@@ -56,65 +63,94 @@ public class FieldCache implements ApplicationListener<ClusterSettingsUpdatedEve
     // TODO - Remove this issue when fix the parser :'(
     if ("NOT".equalsIgnoreCase(fieldName)) return null;
 
-    return ofNullable(validFields.get(keyForField(indexSettings.getIndex(), fieldName)))
-        .orElseThrow(() -> new InvalidFieldException(fieldName, indexSettings.getIndex()));
+    var index = indexSettings.getIndex();
+    var field = fields(index).get(fieldName);
+    if (field == null && isRescoreField(index, fieldName))
+      field = rescoreFields.computeIfAbsent(fieldName, FieldCache::createRescoreField);
+
+    return ofNullable(field).orElseThrow(() -> new InvalidFieldException(fieldName, index));
   }
 
   @Override
   public void onApplicationEvent(ClusterSettingsUpdatedEvent event) {
-    this.validFields = preprocessFieldsForIndexes(event.getSettingsByIndex());
-    LOG.debug("Refreshing valid fields: " + validFields.toString());
+    this.fieldsByIndex = preprocessFieldsForIndexes(event);
+    this.version.incrementAndGet();
+    LOG.debug("Refreshing valid fields: " + fieldsByIndex.toString());
   }
 
-  private Map<String, Field> preprocessFieldsForIndexes(
-      Map<String, Map<String, Object>> settingsByIndex) {
-    Map<String, Field> fields = new HashMap<>();
-
-    // Add fields from mapping
-    settingsByIndex.forEach(
-        (indexName, settings) -> {
-          fields.putAll(processFieldsForIndex(indexName, settings));
-          this.sortRescoreListener
-              .getRescorerOrders(indexName)
-              .keySet()
+  /**
+   * Builds the immutable snapshot of the fields by index, reusing the fields of the indices that
+   * did not change. Equal fields are interned, so the indices sharing a mapping (and their aliases)
+   * share the same {@link Field} instances.
+   */
+  private Map<String, Map<String, Field>> preprocessFieldsForIndexes(
+      ClusterSettingsUpdatedEvent event) {
+    var previous = this.fieldsByIndex;
+    Map<Field, Field> interned = new HashMap<>();
+    var fieldsByIndex = ImmutableMap.<String, Map<String, Field>>builder();
+
+    Map<String, IndexMetadata> changed = new HashMap<>();
+    event
+        .getSettingsByIndex()
+        .forEach(
+            (indexName, metadata) -> {
+              var fields = previous.get(indexName);
+              if (fields == null || event.isChanged(indexName)) {
+                changed.put(indexName, metadata);
+              } else {
+                fields.values().forEach(field -> interned.putIfAbsent(field, field));
+                fieldsByIndex.put(indexName, fields);
+              }
+            });
+
+    changed.forEach(
+        (indexName, metadata) -> {
+          Map<String, Field> fields = new HashMap<>();
+
+          // Add fields from mapping and stored scripts
+          var fieldTypes = metadata.getFieldTypes();
+          fieldTypes.keySet().forEach(name -> fields.put(name, createField(name, fieldTypes)));
+          metadata
+              .getScripts()
               .forEach(
-                  fieldName -> {
-                    Map<String, Object> map = new HashMap<>(1);
-                    map.put(fieldName, FIELD_TYPE_RESCORE.getDefaultType());
-                    fields.put(keyForField(indexName, fieldName), createField(fieldName, map));
-                  });
+                  script ->
+                      fields.put(
+                          script,
+                          createField(
+                              script, singletonMap(script, FIELD_TYPE_SCRIPT.getDefaultType()))));
+
+          // Add whitelist fields
+          WHITE_LIST_METAFIELDS.forEach(
+              (fieldName, type) -> {
+                var linkedMap = new LinkedMap();
+                linkedMap.put(fieldName, type);
+                fields.put(fieldName, new Field(linkedMap));
+              });
+
+          fields.replaceAll((fieldName, field) -> interned.computeIfAbsent(field, identity()));
+          fieldsByIndex.put(indexName, ImmutableMap.copyOf(fields));
         });
-    // Add whitelist fields
-    settingsByIndex
-        .keySet()
-        .forEach(indexName -> fields.putAll(getWhiteListFieldsForIndex(indexName)));
-    return fields;
+    return fieldsByIndex.build();
   }
 
-  private Map<String, Field> processFieldsForIndex(String indexName, Map<String, Object> settings) {
-    return settings.entrySet().stream()
-        .filter(entry -> entry.getValue() instanceof String)
-        .map(entry -> createField(entry.getKey(), settings))
-        .collect(toMap(field -> keyForField(indexName, field.getName()), identity()));
+  public long getVersion() {
+    return version.get();
   }
 
-  private Map<String, Field> getWhiteListFieldsForIndex(String indexName) {
-    return WHITE_LIST_METAFIELDS.entrySet().stream()
-        .map(
-            entry -> {
-              var linkedMap = new LinkedMap();
-              linkedMap.put(entry.getKey(), entry.getValue());
-              return linkedMap;
-            })
-        .map(Field::new)
-        .collect(toMap(field -> keyForField(indexName, field.getName()), identity()));
+  public boolean isIndexHasField(String index, String fieldName) {
+    return fields(index).containsKey(fieldName) || isRescoreField(index, fieldName);
   }
 
-  public boolean isIndexHasField(String index, String fieldName) {
-    return validFields.containsKey(keyForField(index, fieldName));
+  // Rescore fields come from the remote properties, so they are not part of the snapshot
+  private boolean isRescoreField(String index, String fieldName) {
+    return sortRescoreListener.getRescorerOrders(index).containsKey(fieldName);
+  }
+
+  private static Field createRescoreField(String fieldName) {
+    return createField(fieldName, singletonMap(fieldName, FIELD_TYPE_RESCORE.getDefaultType()));
   }
 
-  private String keyForField(String index, String fieldName) {
-    return index + "." + fieldName;
+  private Map<String, Field> fields(String index) {
+    return fieldsByIndex.getOrDefault(index, emptyMap());
   }
 }
@@ -20,7 +20,7 @@ public class FieldFactory {
     return createField(fieldName, new HashMap<>());
   }
 
-  public static Field createField(String fieldName, Map<String, Object> typePerFieldName) {
+  public static Field createField(String fieldName, Map<String, String> typePerFieldName) {
     var names = asList(fieldName.split("\\."));
     LinkedMap fieldTypes =
         rangeClosed(1, names.size())
@@ -4,9 +4,13 @@ import static com.grupozap.search.api.configuration.environment.RemoteProperties
 import static com.grupozap.search.api.utils.MapperUtils.convertValue;
 import static java.util.Objects.nonNull;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.grupozap.search.api.configuration.environment.ConfigSnapshot;
+import com.grupozap.search.api.configuration.environment.ConfigSnapshot.Derivation;
 import com.grupozap.search.api.model.event.RemotePropertiesUpdatedEvent;
 import com.grupozap.search.api.service.parser.IndexSettings;
 import java.util.Map;
+import java.util.Objects;
 import java.util.concurrent.ConcurrentHashMap;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -20,46 +24,68 @@ public class SearchAlias implements ApplicationListener<RemotePropertiesUpdatedE
   private static final Logger LOG = LoggerFactory.getLogger(SearchAlias.class);
 
   private final IndexSettings indexSettings;
-  private Map<String, SearchAliasProp> aliases;
+  private final Derivation<SearchAliasProp> aliases = this::createAliases;
+
+  // Latest aliases derived for each index
+  private final Map<String, SearchAliasProp> latestAliases = new ConcurrentHashMap<>();
 
   @Autowired
   public SearchAlias(IndexSettings indexSettings) {
     this.indexSettings = indexSettings;
-    this.aliases = new ConcurrentHashMap<>();
   }
 
-  public Map<String, SearchAliasProp> getAliases() {
-    return this.aliases;
+  public SearchAliasProp getAliases(String index) {
+    return ConfigSnapshot.pinned().derived(aliases, index);
   }
 
   @Override
   public void onApplicationEvent(RemotePropertiesUpdatedEvent event) {
-    Object value = ES_ALIAS.getValue(event.getIndex());
+    event.getSnapshot().derived(aliases, event.getIndex());
+  }
+
+  // Equal aliases keep the version they first appeared in, so publishing any other property does
+  // not change the version of the aliases. Older snapshots never replace the latest aliases.
+  private SearchAliasProp createAliases(ConfigSnapshot snapshot, String index) {
+    var aliases = readAliases(snapshot, index);
+    aliases.version = snapshot.getVersion();
+    var latest =
+        latestAliases.merge(
+            index,
+            aliases,
+            (previous, next) ->
+                previous.equals(next) || previous.version > next.version ? previous : next);
+    return latest.equals(aliases) ? latest : aliases;
+  }
+
+  private static SearchAliasProp readAliases(ConfigSnapshot snapshot, String index) {
+    if (!snapshot.hasProperties(index)) return new SearchAliasProp();
+
+    Object value = ES_ALIAS.getValue(index, snapshot);
     if (nonNull(value)) {
-      this.aliases.put(event.getIndex(), convertValue(value, SearchAliasProp.class));
-      LOG.debug("Refreshing es aliases :." + this.aliases.toString());
-    } else {
-      this.aliases.put(event.getIndex(), new SearchAliasProp());
+      var aliases = convertValue(value, SearchAliasProp.class);
+      LOG.debug("Refreshing es aliases of index " + index + ": " + aliases.getFields());
+      return aliases;
     }
+    return new SearchAliasProp();
+  }
+
+  /** Version of the aliases of the request index, which only changes when they change. */
+  public long getVersion() {
+    return getAliases(indexSettings.getIndex()).getVersion();
   }
 
   public String getFieldAlias(String fieldName) {
-    return this.aliases
-        .get(indexSettings.getIndex())
-        .getFields()
-        .getOrDefault(fieldName, fieldName);
+    return getAliases(indexSettings.getIndex()).getFields().getOrDefault(fieldName, fieldName);
   }
 
   public String getIndexAlias(String indexName) {
-    return this.aliases
-        .get(indexSettings.getIndex())
-        .getIndices()
-        .getOrDefault(indexName, indexName);
+    return getAliases(indexSettings.getIndex()).getIndices().getOrDefault(indexName, indexName);
   }
 
   public static final class SearchAliasProp {
     private Map<String, String> fields;
     private Map<String, String> indices;
+    @JsonIgnore private long version;
 
     SearchAliasProp() {
       this.fields = new ConcurrentHashMap<>();
@@ -73,5 +99,24 @@ public class SearchAlias implements ApplicationListener<RemotePropertiesUpdatedE
     public Map<String, String> getIndices() {
       return indices;
     }
+
+    @JsonIgnore
+    public long getVersion() {
+      return version;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) return true;
+      if (o == null || getClass() != o.getClass()) return false;
+
+      var that = (SearchAliasProp) o;
+      return Objects.equals(fields, that.fields) && Objects.equals(indices, that.indices);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(fields, indices);
+    }
   }
 }
@@ -7,16 +7,23 @@ import static com.grupozap.search.api.model.http.SearchApiRequestBuilder.INDEX_N
 import static com.grupozap.search.api.model.mapping.MappingType.*;
 import static com.grupozap.search.api.utils.ReadFileUtils.readFileFromResources;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.Mockito.*;
+import static org.springframework.test.util.ReflectionTestUtils.invokeMethod;
 import static org.springframework.test.util.ReflectionTestUtils.setField;
 
 import com.grupozap.search.api.exception.IndexNotFoundException;
 import com.grupozap.search.api.exception.PropertyNotFoundException;
+import com.grupozap.search.api.model.event.ClusterSettingsUpdatedEvent;
 import com.grupozap.search.api.model.http.BaseApiRequest;
+import com.grupozap.search.api.model.mapping.IndexMetadata;
 import java.io.IOException;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Set;
 import org.apache.http.HttpEntity;
 import org.apache.http.entity.StringEntity;
 import org.elasticsearch.client.Request;
@@ -24,6 +31,7 @@ import org.elasticsearch.client.Response;
 import org.elasticsearch.client.RestClient;
 import org.junit.Before;
 import org.junit.Test;
+import org.mockito.ArgumentCaptor;
 import org.springframework.context.ApplicationEventPublisher;
 
 public class ElasticsearchSettingsAdapterTest extends SearchTransportClientMock {
@@ -42,7 +50,7 @@ public class ElasticsearchSettingsAdapterTest extends SearchTransportClientMock
 
   private ElasticsearchSettingsAdapter settingsAdapter;
 
-  private Map<String, Map<String, Object>> structuredIndices;
+  private Map<String, IndexMetadata> metadataByIndex;
 
   @Before
   public void setup() throws IOException {
@@ -59,9 +67,9 @@ public class ElasticsearchSettingsAdapterTest extends SearchTransportClientMock
 
     this.settingsAdapter =
         spy(new ElasticsearchSettingsAdapter(applicationEventPublisher, restClient));
-    this.structuredIndices = spy(structuredIndicesSettings());
+    this.metadataByIndex = spy(metadataByIndex());
 
-    setField(this.settingsAdapter, "structuredIndices", structuredIndices);
+    setField(this.settingsAdapter, "metadataByIndex", metadataByIndex);
   }
 
   @Test
@@ -81,13 +89,13 @@ public class ElasticsearchSettingsAdapterTest extends SearchTransportClientMock
   @Test
   public void checkValidIndex() {
     settingsAdapter.checkIndex(validIndexRequest);
-    verify(structuredIndices, times(1)).containsKey(validIndexRequest.getIndex());
+    verify(metadataByIndex, times(1)).containsKey(validIndexRequest.getIndex());
   }
 
   @Test
   public void checkValidIndexByAlias() {
     settingsAdapter.checkIndex(validIndexAliasRequest);
-    verify(structuredIndices, times(1)).containsKey(validIndexAliasRequest.getIndex());
+    verify(metadataByIndex, times(1)).containsKey(validIndexAliasRequest.getIndex());
   }
 
   @Test(expected = IndexNotFoundException.class)
@@ -181,23 +189,149 @@ public class ElasticsearchSettingsAdapterTest extends SearchTransportClientMock
     verify(settingsAdapter, times(1)).getFieldType(validIndexRequest.getIndex(), VALID_FIELD_DATE);
   }
 
-  private Map<String, Map<String, Object>> structuredIndicesSettings() {
-    Map<String, Map<String, Object>> structuredIndices = new HashMap<>();
-    Map<String, Object> indexSettings = new HashMap<>();
-    indexSettings.put(SHARDS, 8);
-    indexSettings.put(REPLICAS, 2);
-    indexSettings.put(VALID_FIELD_TEXT, "text");
-    indexSettings.put(VALID_FIELD_BOOLEAN, "boolean");
-    indexSettings.put(VALID_FIELD_LONG, "long");
-    indexSettings.put(VALID_FIELD_FLOAT, "float");
-    indexSettings.put(VALID_FIELD_NESTED, "nested");
-    indexSettings.put(VALID_FIELD_GEO_POINT, "geo_point");
-    indexSettings.put(VALID_FIELD_KEYWORD, "keyword");
-    indexSettings.put(VALID_FIELD_DATE, "date");
-
-    structuredIndices.put(INDEX_NAME, indexSettings);
-    structuredIndices.put(INDEX_ALIAS_NAME, indexSettings);
-
-    return structuredIndices;
+  @Test
+  public void shouldSkipTheRefreshWhenTheClusterStateDidNotChange() throws IOException {
+    var publisher = mock(ApplicationEventPublisher.class);
+    var restClient = clusterStateClient("1", "1");
+
+    var adapter = new ElasticsearchSettingsAdapter(publisher, restClient);
+    verify(restClient, times(2)).performRequest(any(Request.class));
+    verify(publisher, times(1)).publishEvent(any(ClusterSettingsUpdatedEvent.class));
+
+    invokeMethod(adapter, "loadSettingsInformationFromCluster");
+    verify(restClient, times(3)).performRequest(any(Request.class));
+    verifyNoMoreInteractions(publisher);
+  }
+
+  @Test
+  public void shouldNotRequestTheMetadataOfUnchangedIndices() throws IOException {
+    var publisher = mock(ApplicationEventPublisher.class);
+    var restClient = clusterStateClient("1", "1");
+    var adapter = new ElasticsearchSettingsAdapter(publisher, restClient);
+
+    restClient = clusterStateClient("2", "1");
+    setField(adapter, "restClient", restClient);
+    invokeMethod(adapter, "loadSettingsInformationFromCluster");
+
+    var request = ArgumentCaptor.forClass(Request.class);
+    verify(restClient, times(1)).performRequest(request.capture());
+    assertEquals("/_cluster/state/version,metadata", request.getValue().getEndpoint());
+    verify(publisher, times(1)).publishEvent(any(ClusterSettingsUpdatedEvent.class));
+  }
+
+  @Test
+  public void shouldNotPublishWhenTheSettingsDidNotChange() throws IOException {
+    var publisher = mock(ApplicationEventPublisher.class);
+    var adapter = new ElasticsearchSettingsAdapter(publisher, clusterStateClient("1", "1"));
+
+    var restClient = clusterStateClient("2", "2");
+    setField(adapter, "restClient", restClient);
+    invokeMethod(adapter, "loadSettingsInformationFromCluster");
+
+    var request = ArgumentCaptor.forClass(Request.class);
+    verify(restClient, times(2)).performRequest(request.capture());
+    assertEquals("/_cluster/state/metadata", request.getValue().getEndpoint());
+    assertTrue(request.getValue().getParameters().get("filter_path").contains("mappings"));
+    verify(publisher, times(1)).publishEvent(any(ClusterSettingsUpdatedEvent.class));
+  }
+
+  @Test
+  public void shouldPublishTheChangedIndices() throws IOException {
+    var publisher = mock(ApplicationEventPublisher.class);
+    var adapter = new ElasticsearchSettingsAdapter(publisher, clusterStateClient("1", "1"));
+
+    var clusterState =
+        readFileFromResources("cluster_state.json")
+            .replace("\"number_of_shards\": \"2\"", "\"number_of_shards\": \"16\"");
+    setField(adapter, "restClient", clusterStateClient("2", "2", clusterState));
+    invokeMethod(adapter, "loadSettingsInformationFromCluster");
+
+    var event = ArgumentCaptor.forClass(ClusterSettingsUpdatedEvent.class);
+    verify(publisher, times(2)).publishEvent(event.capture());
+    assertTrue(event.getValue().isChanged(INDEX_NAME));
+    assertTrue(event.getValue().isChanged(INDEX_ALIAS_NAME));
+    assertFalse(event.getValue().isChanged("index"));
+    assertEquals("16", adapter.settingsByKey(INDEX_ALIAS_NAME, SHARDS));
+  }
+
+  @Test
+  public void shouldShareTheMetadataOfTheIndexWithItsAliases() throws IOException {
+    var adapter =
+        new ElasticsearchSettingsAdapter(
+            mock(ApplicationEventPublisher.class), clusterStateClient("1", "1"));
+
+    var metadata = adapter.settings().get(INDEX_NAME);
+    assertSame(metadata, adapter.settings().get(INDEX_ALIAS_NAME));
+    assertEquals(2, (int) metadata.getShards());
+    assertEquals(1, (int) metadata.getReplicas());
+    assertEquals("_obj", adapter.getFieldType(INDEX_ALIAS_NAME, "nested.kids"));
+    assertEquals("keyword", adapter.getFieldType(INDEX_ALIAS_NAME, "nested.kids.keyword"));
+    assertNull(adapter.getFieldType(INDEX_NAME, "description.analyzer"));
+    assertEquals(INDEX_NAME, adapter.getIndexByAlias(INDEX_ALIAS_NAME));
+  }
+
+  @Test
+  public void shouldKeepTheStoredScriptsOfUnknownIndices() throws IOException {
+    var adapter =
+        new ElasticsearchSettingsAdapter(
+            mock(ApplicationEventPublisher.class), clusterStateClient("1", "1"));
+
+    assertTrue(adapter.isTypeOf("index", "index_identification", FIELD_TYPE_SCRIPT));
+    assertEquals(Set.of("index_identification"), adapter.settings().get("index").getScripts());
+  }
+
+  private RestClient clusterStateClient(String stateVersion, String indexVersion)
+      throws IOException {
+    return clusterStateClient(
+        stateVersion, indexVersion, readFileFromResources("cluster_state.json"));
+  }
+
+  private RestClient clusterStateClient(
+      String stateVersion, String indexVersion, String clusterState) throws IOException {
+    var versions =
+        "{\"version\":"
+            + stateVersion
+            + ",\"state_uuid\":\"uuid\",\"metadata\":{\"indices\":{\""
+            + INDEX_NAME
+            + "\":{\"version\":"
+            + indexVersion
+            + "}},\"stored_scripts\":{\"index_identification\":{\"lang\":\"painless\"}}}}";
+
+    var restClient = mock(RestClient.class);
+    when(restClient.performRequest(any(Request.class)))
+        .thenAnswer(
+            invocation -> {
+              var request = (Request) invocation.getArguments()[0];
+              var response = mock(Response.class);
+              var body =
+                  request.getEndpoint().startsWith("/_cluster/state/version")
+                      ? versions
+                      : clusterState;
+              when(response.getEntity()).thenReturn(new StringEntity(body));
+              return response;
+            });
+    return restClient;
+  }
+
+  private Map<String, IndexMetadata> metadataByIndex() {
+    Map<String, IndexMetadata> metadataByIndex = new HashMap<>();
+    var metadata =
+        IndexMetadata.builder()
+            .shards(8)
+            .replicas(2)
+            .field(VALID_FIELD_TEXT, "text")
+            .field(VALID_FIELD_BOOLEAN, "boolean")
+            .field(VALID_FIELD_LONG, "long")
+            .field(VALID_FIELD_FLOAT, "float")
+            .field(VALID_FIELD_NESTED, "nested")
+            .field(VALID_FIELD_GEO_POINT, "geo_point")
+            .field(VALID_FIELD_KEYWORD, "keyword")
+            .field(VALID_FIELD_DATE, "date")
+            .build();
+
+    metadataByIndex.put(INDEX_NAME, metadata);
+    metadataByIndex.put(INDEX_ALIAS_NAME, metadata);
+
+    return metadataByIndex;
   }
 }
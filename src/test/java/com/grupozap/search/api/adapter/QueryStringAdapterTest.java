@@ -147,6 +147,27 @@ public class QueryStringAdapterTest extends SearchTransportClientMock {
     assertEquals(expectedFields, multiMatchQueryBuilder.fields());
   }
 
+  @Test
+  public void shouldNotApplyTheTemplatesOfTheDefaultIndexToIndexWithoutProperties() {
+    QS_TEMPLATES.setValue(DEFAULT_INDEX, newArrayList(Map.of("type", "CROSS_FIELDS")));
+    try {
+      var build =
+          create()
+              .index("index_without_properties")
+              .q("search")
+              .fields(newHashSet("field"))
+              .build();
+
+      var boolQueryBuilder = boolQuery();
+      queryStringAdapter.apply(boolQueryBuilder, build);
+
+      assertEquals(1, boolQueryBuilder.must().size());
+      assertEquals(BEST_FIELDS, ((MultiMatchQueryBuilder) boolQueryBuilder.must().get(0)).type());
+    } finally {
+      QS_TEMPLATES.setValue(DEFAULT_INDEX, null);
+    }
+  }
+
   @Test(expected = InvalidFieldException.class)
   public void shouldThrowExceptionWhenTryQueryOverInvalidField() {
     var build =
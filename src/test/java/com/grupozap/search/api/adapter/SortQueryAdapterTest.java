@@ -35,7 +35,6 @@ import com.grupozap.search.api.query.LtrQueryBuilder;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Set;
 import org.apache.commons.collections4.map.LinkedMap;
 import org.elasticsearch.index.query.functionscore.FunctionScoreQueryBuilder;
 import org.elasticsearch.index.query.functionscore.RandomScoreFunctionBuilder;
@@ -245,10 +244,8 @@ public class SortQueryAdapterTest extends SearchTransportClientMock {
 
     var scriptField = convertValue(scriptSort, ScriptField.class);
 
-    var scripts = new HashMap<String, Set<ScriptField>>();
-    scripts.put(INDEX_NAME, Sets.newHashSet(scriptField));
-
-    when(this.scriptRemotePropertiesListener.getScripts()).thenReturn(scripts);
+    when(this.scriptRemotePropertiesListener.getScripts(INDEX_NAME))
+        .thenReturn(Sets.newHashSet(scriptField));
 
     var requestBuilder = new SearchSourceBuilder();
     var request = fullRequest.build();
@@ -0,0 +1,134 @@
+package com.grupozap.search.api.cache;
+
+import static com.grupozap.search.api.configuration.environment.RemoteProperties.ES_DOCUMENT_CACHE_MAX_BYTES;
+import static com.grupozap.search.api.configuration.environment.RemoteProperties.ES_DOCUMENT_CACHE_TTL;
+import static java.util.Collections.emptyMap;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+
+import com.grupozap.search.api.adapter.SettingsAdapter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import org.elasticsearch.action.get.GetRequest;
+import org.elasticsearch.action.get.GetResponse;
+import org.elasticsearch.client.RestClient;
+import org.elasticsearch.common.bytes.BytesArray;
+import org.elasticsearch.index.get.GetResult;
+import org.elasticsearch.search.fetch.subphase.FetchSourceContext;
+import org.junit.Before;
+import org.junit.Test;
+
+public class DocumentCacheTest {
+
+  private static final String INDEX = "document-cache";
+
+  private final Map<String, Long> generations = new HashMap<>();
+  private DocumentCache documentCache;
+
+  @Before
+  @SuppressWarnings("unchecked")
+  public void setup() {
+    ES_DOCUMENT_CACHE_TTL.setValue(INDEX, 60000L);
+    ES_DOCUMENT_CACHE_MAX_BYTES.setValue(INDEX, 1024L * 1024);
+
+    generations.clear();
+    documentCache =
+        new DocumentCache(
+            mock(RestClient.class), mock(SettingsAdapter.class), new SimpleMeterRegistry()) {
+          @Override
+          Map<String, Long> generations(Set<String> indices) {
+            return new HashMap<>(generations);
+          }
+        };
+  }
+
+  @Test
+  public void shouldProjectTheCachedFullSource() {
+    var request =
+        new GetRequest(INDEX, "1")
+            .fetchSourceContext(new FetchSourceContext(true, new String[] {"a"}, null));
+
+    var full = documentCache.fullSource(request);
+    assertTrue(full.fetchSourceContext().fetchSource());
+    assertEquals(0, full.fetchSourceContext().includes().length);
+
+    var response = documentCache.put(request, document("1", "{\"a\":1,\"b\":2}"));
+    assertEquals(Map.of("a", 1), response.getSourceAsMap());
+
+    var other = documentCache.get(new GetRequest(INDEX, "1"));
+    assertEquals(Map.of("a", 1, "b", 2), other.getSourceAsMap());
+    assertEquals(3, other.getVersion());
+    assertEquals(7, other.getSeqNo());
+  }
+
+  @Test
+  public void shouldBeDisabledWithoutTtl() {
+    ES_DOCUMENT_CACHE_TTL.setValue("disabled", 0L);
+    ES_DOCUMENT_CACHE_MAX_BYTES.setValue("disabled", 1024L);
+
+    assertFalse(documentCache.isEnabled(new GetRequest("disabled", "1").realtime(false)));
+    assertTrue(documentCache.isEnabled(new GetRequest(INDEX, "1").realtime(false)));
+  }
+
+  @Test
+  public void shouldBeDisabledForRealtimeGets() {
+    assertFalse(documentCache.isEnabled(new GetRequest(INDEX, "1").realtime(true)));
+  }
+
+  @Test
+  public void shouldNotShareDocumentsBetweenRoutings() {
+    documentCache.put(new GetRequest(INDEX, "1").routing("a"), document("1", "{\"a\":1}"));
+
+    assertEquals(
+        Map.of("a", 1),
+        documentCache.get(new GetRequest(INDEX, "1").routing("a")).getSourceAsMap());
+    assertNull(documentCache.get(new GetRequest(INDEX, "1").routing("b")));
+    assertNull(documentCache.get(new GetRequest(INDEX, "1")));
+  }
+
+  @Test
+  public void shouldNotCacheMissingDocuments() {
+    var missing =
+        new GetResponse(
+            new GetResult(INDEX, "_doc", "2", -2, 0, -1, false, null, emptyMap(), emptyMap()));
+
+    assertSame(missing, documentCache.put(new GetRequest(INDEX, "2"), missing));
+    assertNull(documentCache.get(new GetRequest(INDEX, "2")));
+  }
+
+  @Test
+  public void shouldInvalidateIndexWhenItChanges() {
+    documentCache.put(new GetRequest(INDEX, "1"), document("1", "{\"a\":1}"));
+    generations.put(INDEX, 10L);
+
+    documentCache.invalidateChangedIndices();
+    assertEquals(1, documentCache.size(INDEX));
+
+    documentCache.invalidateChangedIndices();
+    assertEquals(1, documentCache.size(INDEX));
+
+    generations.put(INDEX, 11L);
+    documentCache.invalidateChangedIndices();
+    assertEquals(0, documentCache.size(INDEX));
+  }
+
+  @Test
+  public void shouldInvalidateMissingIndex() {
+    documentCache.put(new GetRequest(INDEX, "1"), document("1", "{\"a\":1}"));
+
+    documentCache.invalidateChangedIndices();
+    assertNull(documentCache.get(new GetRequest(INDEX, "1")));
+  }
+
+  private static GetResponse document(String id, String source) {
+    return new GetResponse(
+        new GetResult(
+            INDEX, "_doc", id, 7, 1, 3, true, new BytesArray(source), emptyMap(), emptyMap()));
+  }
+}
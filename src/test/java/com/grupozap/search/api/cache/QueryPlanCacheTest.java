@@ -0,0 +1,91 @@
+package com.grupozap.search.api.cache;
+
+import static com.grupozap.search.api.configuration.environment.RemoteProperties.ES_DEFAULT_SIZE;
+import static com.grupozap.search.api.model.http.SearchApiRequestBuilder.INDEX_NAME;
+import static com.grupozap.search.api.model.http.SearchApiRequestBuilder.create;
+import static org.elasticsearch.index.query.QueryBuilders.termQuery;
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.grupozap.search.api.model.event.ClusterSettingsUpdatedEvent;
+import com.grupozap.search.api.model.event.RemotePropertiesUpdatedEvent;
+import com.grupozap.search.api.model.http.SearchApiRequest;
+import com.grupozap.search.api.service.parser.factory.FieldCache;
+import java.util.HashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.elasticsearch.search.builder.SearchSourceBuilder;
+import org.junit.Test;
+
+public class QueryPlanCacheTest {
+
+  private final FieldCache fieldCache = mock(FieldCache.class);
+  private final QueryPlanCache cache = new QueryPlanCache(100, fieldCache);
+  private final AtomicInteger builds = new AtomicInteger();
+
+  @Test
+  public void shouldCompileSearchSourceOnlyOnce() {
+    var first = cache.get(request("a:1"), () -> source("a", 1));
+    var second = cache.get(request("a:1"), () -> source("a", 2));
+
+    assertEquals("{\"query\":{\"term\":{\"a\":{\"value\":1,\"boost\":1.0}}}}", new String(first));
+    assertSame(first, second);
+    assertEquals(1, builds.get());
+  }
+
+  @Test
+  public void shouldCompileDifferentRequestsSeparately() {
+    cache.get(request("a:1"), () -> source("a", 1));
+    cache.get(request("a:2"), () -> source("a", 2));
+
+    assertEquals(2, builds.get());
+    assertEquals(2, cache.size());
+  }
+
+  @Test
+  public void shouldCompileAgainWhenTheMappingsChange() {
+    cache.get(request("a:1"), () -> source("a", 1));
+    when(fieldCache.getVersion()).thenReturn(1L);
+    cache.get(request("a:1"), () -> source("a", 1));
+
+    assertEquals(2, builds.get());
+  }
+
+  @Test
+  public void shouldCompileAgainWhenTheConfigChanges() {
+    cache.get(request("a:1"), () -> source("a", 1));
+    ES_DEFAULT_SIZE.setValue(INDEX_NAME, 10);
+    cache.get(request("a:1"), () -> source("a", 1));
+
+    assertEquals(2, builds.get());
+  }
+
+  @Test
+  public void shouldInvalidateWhenClusterSettingsAreUpdated() {
+    cache.get(request("a:1"), () -> source("a", 1));
+    cache.onClusterSettingsUpdated(new ClusterSettingsUpdatedEvent(this, new HashMap<>()));
+
+    assertEquals(0, cache.size());
+  }
+
+  @Test
+  public void shouldInvalidateOnlyUpdatedIndex() {
+    cache.get(request("a:1"), () -> source("a", 1));
+    cache.get(create().index("other-index").filter("a:1").build(), () -> source("a", 1));
+
+    cache.onRemotePropertiesUpdated(new RemotePropertiesUpdatedEvent(this, INDEX_NAME));
+    assertEquals(1, cache.size());
+
+    cache.onRemotePropertiesUpdated(new RemotePropertiesUpdatedEvent(this, "default"));
+    assertEquals(0, cache.size());
+  }
+
+  private SearchSourceBuilder source(String field, int value) {
+    builds.incrementAndGet();
+    return new SearchSourceBuilder().query(termQuery(field, value));
+  }
+
+  private static SearchApiRequest request(String filter) {
+    return create().index(INDEX_NAME).filter(filter).build();
+  }
+}
@@ -0,0 +1,218 @@
+package com.grupozap.search.api.cache;
+
+import static com.grupozap.search.api.cache.RequestCoalescer.FOLLOWERS;
+import static com.grupozap.search.api.cache.RequestCoalescer.LEADERS;
+import static com.grupozap.search.api.cache.RequestCoalescer.TIMEOUTS;
+import static com.grupozap.search.api.configuration.environment.RemoteProperties.ES_COALESCING_ENABLED;
+import static com.grupozap.search.api.configuration.environment.RemoteProperties.ES_COALESCING_TIMEOUT;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import com.grupozap.search.api.model.http.RequestKey;
+import com.grupozap.search.api.model.http.SearchApiRequest;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class RequestCoalescerTest {
+
+  private static final String INDEX = "coalescing";
+
+  private SimpleMeterRegistry registry;
+  private RequestCoalescer coalescer;
+  private ExecutorService executor;
+
+  @Before
+  public void setup() {
+    ES_COALESCING_ENABLED.setValue(INDEX, true);
+    ES_COALESCING_TIMEOUT.setValue(INDEX, 5000);
+
+    registry = new SimpleMeterRegistry();
+    coalescer = new RequestCoalescer(registry);
+    executor = Executors.newFixedThreadPool(4);
+  }
+
+  @After
+  public void tearDown() {
+    executor.shutdownNow();
+  }
+
+  @Test
+  public void shouldCallEveryTimeWhenDisabled() {
+    ES_COALESCING_ENABLED.setValue(INDEX, false);
+    var calls = new AtomicInteger();
+
+    coalescer.execute(key(), calls::incrementAndGet);
+    coalescer.execute(key(), calls::incrementAndGet);
+
+    assertEquals(2, calls.get());
+    assertTrue(registry.find(LEADERS).counters().isEmpty());
+  }
+
+  @Test(timeout = 5000)
+  public void shouldShareTheResponseOfTheLeaderWithTheFollowers() throws Exception {
+    var started = new CountDownLatch(1);
+    var release = new CountDownLatch(1);
+    var calls = new AtomicInteger();
+    var response = new Object();
+
+    var leader =
+        executor.submit(
+            () -> coalescer.execute(key(), blocking(started, release, calls, response)));
+    started.await();
+
+    var followers = new Future<?>[3];
+    for (var i = 0; i < followers.length; i++)
+      followers[i] =
+          executor.submit(() -> coalescer.execute(key(), RequestCoalescerTest::notShared));
+    waitFor(FOLLOWERS, 3);
+
+    release.countDown();
+    assertSame(response, leader.get(1, SECONDS));
+    for (var follower : followers) assertSame(response, follower.get(1, SECONDS));
+
+    assertEquals(1, calls.get());
+    assertEquals(1, count(LEADERS), 0);
+    assertEquals(0, coalescer.inFlight());
+  }
+
+  @Test(timeout = 5000)
+  public void shouldShareTheFailureOfTheLeader() throws Exception {
+    var started = new CountDownLatch(1);
+    var release = new CountDownLatch(1);
+    var leader =
+        executor.submit(
+            () ->
+                coalescer.execute(
+                    key(),
+                    () -> {
+                      started.countDown();
+                      await(release);
+                      throw new IllegalStateException("leader failed");
+                    }));
+    started.await();
+
+    var follower = executor.submit(() -> coalescer.execute(key(), () -> "not shared"));
+    waitFor(FOLLOWERS, 1);
+    release.countDown();
+
+    assertFailure(leader);
+    assertFailure(follower);
+  }
+
+  @Test(timeout = 5000)
+  public void shouldCallOnItsOwnWhenTheLeaderTakesTooLong() throws Exception {
+    ES_COALESCING_TIMEOUT.setValue(INDEX, 10);
+    var started = new CountDownLatch(1);
+    var release = new CountDownLatch(1);
+    var leader =
+        executor.submit(
+            () ->
+                coalescer.execute(
+                    key(), blocking(started, release, new AtomicInteger(), "leader")));
+    started.await();
+
+    assertEquals("follower", coalescer.execute(key(), () -> "follower"));
+    assertEquals(1, count(TIMEOUTS), 0);
+
+    release.countDown();
+    assertEquals("leader", leader.get(1, SECONDS));
+  }
+
+  @Test(timeout = 5000)
+  public void shouldShareAsyncResponses() throws Exception {
+    var leaderCall = new CompletableFuture<String>();
+    var calls = new AtomicInteger();
+
+    var leader =
+        coalescer.executeAsync(
+            key(),
+            () -> {
+              calls.incrementAndGet();
+              return leaderCall;
+            });
+    var follower = coalescer.<String>executeAsync(key(), RequestCoalescerTest::notShared);
+    assertFalse(follower.isDone());
+
+    leaderCall.complete("response");
+    assertEquals("response", leader.get(1, SECONDS));
+    assertEquals("response", follower.get(1, SECONDS));
+    assertEquals(1, calls.get());
+    assertEquals(0, coalescer.inFlight());
+  }
+
+  @Test(timeout = 5000)
+  public void shouldCallAsyncOnItsOwnWhenTheLeaderTakesTooLong() throws Exception {
+    ES_COALESCING_TIMEOUT.setValue(INDEX, 10);
+
+    coalescer.executeAsync(key(), CompletableFuture::new);
+    var follower =
+        coalescer.executeAsync(key(), () -> CompletableFuture.completedFuture("follower"));
+
+    assertEquals("follower", follower.get(1, SECONDS));
+    assertEquals(1, count(TIMEOUTS), 0);
+  }
+
+  private static RequestKey key() {
+    var request = new SearchApiRequest();
+    request.setIndex(INDEX);
+    request.setFilter("id EQ 1");
+    return RequestKey.of(request);
+  }
+
+  private static <T> Supplier<T> blocking(
+      CountDownLatch started, CountDownLatch release, AtomicInteger calls, T response) {
+    return () -> {
+      calls.incrementAndGet();
+      started.countDown();
+      await(release);
+      return response;
+    };
+  }
+
+  private static <T> T notShared() {
+    throw new AssertionError("The response of the leader should be shared");
+  }
+
+  private static void await(CountDownLatch latch) {
+    try {
+      latch.await(5, SECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  // Bounded by the timeout of the test. Followers are counted once they hold the call of the
+  // leader, so they get its response even when it completes right after.
+  private void waitFor(String counter, int count) throws InterruptedException {
+    while (count(counter) < count) Thread.sleep(1);
+  }
+
+  private double count(String counter) {
+    var meter = registry.find(counter).tag("index", INDEX).counter();
+    return meter == null ? 0 : meter.count();
+  }
+
+  private static void assertFailure(Future<?> future) throws Exception {
+    try {
+      future.get(1, SECONDS);
+      fail("Expected the call to fail");
+    } catch (ExecutionException e) {
+      assertTrue(e.getCause() instanceof IllegalStateException);
+      assertEquals("leader failed", e.getCause().getMessage());
+    }
+  }
+}
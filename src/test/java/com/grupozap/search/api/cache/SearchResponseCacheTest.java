@@ -0,0 +1,120 @@
+package com.grupozap.search.api.cache;
+
+import static com.google.common.collect.Sets.newHashSet;
+import static com.grupozap.search.api.cache.SearchResponseCache.CACHE_NAME;
+import static com.grupozap.search.api.configuration.environment.RemoteProperties.DEFAULT_INDEX;
+import static com.grupozap.search.api.configuration.environment.RemoteProperties.ES_RESPONSE_CACHE_MAX_BYTES;
+import static com.grupozap.search.api.configuration.environment.RemoteProperties.ES_RESPONSE_CACHE_TTL;
+import static com.grupozap.search.api.model.http.SearchApiRequestBuilder.INDEX_NAME;
+import static com.grupozap.search.api.model.http.SearchApiRequestBuilder.create;
+import static java.util.Collections.singletonMap;
+import static org.junit.Assert.*;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.grupozap.search.api.model.event.ClusterSettingsUpdatedEvent;
+import com.grupozap.search.api.model.event.RemotePropertiesUpdatedEvent;
+import com.grupozap.search.api.model.http.RequestKey;
+import com.grupozap.search.api.model.http.SearchApiRequest;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.HashMap;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Before;
+import org.junit.Test;
+
+public class SearchResponseCacheTest {
+
+  private SimpleMeterRegistry meterRegistry;
+  private SearchResponseCache cache;
+  private AtomicInteger loads;
+
+  @Before
+  public void setup() {
+    ES_RESPONSE_CACHE_TTL.setValue(DEFAULT_INDEX, 0);
+    ES_RESPONSE_CACHE_TTL.setValue(INDEX_NAME, 60000);
+    ES_RESPONSE_CACHE_MAX_BYTES.setValue(INDEX_NAME, 1024);
+
+    meterRegistry = new SimpleMeterRegistry();
+    cache = new SearchResponseCache(new ObjectMapper(), meterRegistry);
+    loads = new AtomicInteger();
+  }
+
+  @Test
+  public void shouldBeEnabledOnlyForIndicesWithTtl() {
+    assertTrue(cache.isEnabled(INDEX_NAME));
+    assertFalse(cache.isEnabled("other-index"));
+  }
+
+  @Test
+  public void shouldReturnCachedBytesForEquivalentRequests() {
+    var first = lookup(request("a:1", newHashSet("b", "a")));
+    var second = lookup(request(" a:1 ", newHashSet("a", "b")));
+
+    assertEquals("{\"load\":1}", new String(first));
+    assertArrayEquals(first, second);
+    assertEquals(1, loads.get());
+    assertEquals(1, hits(), 0);
+    assertEquals(1, misses(), 0);
+  }
+
+  @Test
+  public void shouldNotShareResponsesOfDifferentRequests() {
+    lookup(request("a:1", newHashSet("a")));
+    lookup(request("a:2", newHashSet("a")));
+
+    assertEquals(2, loads.get());
+  }
+
+  @Test
+  public void shouldInvalidateWhenClusterSettingsAreUpdated() {
+    lookup(request("a:1", newHashSet("a")));
+    cache.onClusterSettingsUpdated(new ClusterSettingsUpdatedEvent(this, new HashMap<>()));
+    lookup(request("a:1", newHashSet("a")));
+
+    assertEquals(2, loads.get());
+  }
+
+  @Test
+  public void shouldInvalidateWhenIndexPropertiesAreUpdated() {
+    lookup(request("a:1", newHashSet("a")));
+    cache.onRemotePropertiesUpdated(new RemotePropertiesUpdatedEvent(this, "other-index"));
+    lookup(request("a:1", newHashSet("a")));
+
+    assertEquals(1, loads.get());
+
+    cache.onRemotePropertiesUpdated(new RemotePropertiesUpdatedEvent(this, INDEX_NAME));
+    lookup(request("a:1", newHashSet("a")));
+
+    assertEquals(2, loads.get());
+  }
+
+  private byte[] lookup(SearchApiRequest request) {
+    var key = RequestKey.of(request);
+    var cached = cache.get(key);
+    return cached != null ? cached : cache.put(key, load());
+  }
+
+  private Object load() {
+    return singletonMap("load", loads.incrementAndGet());
+  }
+
+  private double hits() {
+    return meterRegistry
+        .get("cache.gets")
+        .tags("cache", CACHE_NAME, "result", "hit")
+        .functionCounter()
+        .count();
+  }
+
+  private double misses() {
+    return meterRegistry
+        .get("cache.gets")
+        .tags("cache", CACHE_NAME, "result", "miss")
+        .functionCounter()
+        .count();
+  }
+
+  private static SearchApiRequest request(String filter, Set<String> fields) {
+    return create().index(INDEX_NAME).filter(filter).includeFields(fields).build();
+  }
+}
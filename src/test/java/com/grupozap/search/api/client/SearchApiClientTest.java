@@ -0,0 +1,77 @@
+package com.grupozap.search.api.client;
+
+import static com.grupozap.search.api.client.SearchApiClient.toMultiSearchRequest;
+import static com.grupozap.search.api.client.SearchApiClient.toRequest;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.Assert.assertEquals;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import org.apache.http.util.EntityUtils;
+import org.elasticsearch.action.search.SearchRequest;
+import org.elasticsearch.action.support.IndicesOptions;
+import org.junit.Test;
+
+public class SearchApiClientTest {
+
+  private static final byte[] SOURCE = "{}".getBytes(UTF_8);
+
+  @Test
+  public void shouldEncodeTheIndicesOfTheEndpoint() {
+    assertEquals(
+        "/index%231,index%2F2/_search",
+        toRequest(new SearchRequest("index#1", "index/2"), SOURCE).getEndpoint());
+  }
+
+  @Test
+  public void shouldSkipTheIndicesOfTheEndpointWhenThereAreNone() {
+    assertEquals("/_search", toRequest(new SearchRequest(), SOURCE).getEndpoint());
+  }
+
+  @Test
+  public void shouldSendTheIndicesOptions() {
+    var searchRequest =
+        new SearchRequest("index")
+            .indicesOptions(IndicesOptions.fromOptions(true, false, true, false));
+
+    var parameters = toRequest(searchRequest, SOURCE).getParameters();
+
+    assertEquals("true", parameters.get("ignore_unavailable"));
+    assertEquals("false", parameters.get("allow_no_indices"));
+    assertEquals("open", parameters.get("expand_wildcards"));
+    assertEquals("false", parameters.get("ignore_throttled"));
+  }
+
+  @Test
+  public void shouldSendNoWildcardExpansion() {
+    var searchRequest =
+        new SearchRequest("index")
+            .indicesOptions(IndicesOptions.fromOptions(false, true, false, false));
+
+    assertEquals("none", toRequest(searchRequest, SOURCE).getParameters().get("expand_wildcards"));
+  }
+
+  @Test
+  public void shouldSendTheIndicesOptionsInTheHeaderOfEachMultiSearch() throws IOException {
+    var searchRequest =
+        new SearchRequest("index")
+            .routing("routing")
+            .indicesOptions(IndicesOptions.fromOptions(true, false, true, false));
+
+    var body =
+        EntityUtils.toString(
+            toMultiSearchRequest(List.of(searchRequest), List.of(SOURCE)).getEntity());
+    var lines = body.split("\n");
+
+    assertEquals(2, lines.length);
+    var header = new ObjectMapper().readValue(lines[0], Map.class);
+    assertEquals(List.of("index"), header.get("index"));
+    assertEquals("routing", header.get("routing"));
+    assertEquals(true, header.get("ignore_unavailable"));
+    assertEquals(false, header.get("allow_no_indices"));
+    assertEquals("open", header.get("expand_wildcards"));
+    assertEquals("{}", lines[1]);
+  }
+}
@@ -0,0 +1,121 @@
+package com.grupozap.search.api.configuration.environment;
+
+import static com.grupozap.search.api.configuration.environment.RemoteProperties.ES_DEFAULT_SIZE;
+import static com.grupozap.search.api.configuration.environment.RemoteProperties.ES_MAX_SIZE;
+import static java.util.Collections.singletonMap;
+import static java.util.Map.of;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.After;
+import org.junit.Test;
+
+public class ConfigSnapshotTest {
+
+  private static final String INDEX = "my_index";
+
+  @After
+  public void resetSnapshot() {
+    ConfigSnapshot.reset();
+  }
+
+  @Test
+  public void shouldIncrementTheVersionOnEveryPublish() {
+    var version = ConfigSnapshot.current().getVersion();
+
+    var published = ConfigSnapshot.publish(of(INDEX, of(ES_DEFAULT_SIZE, 10)));
+
+    assertSame(published, ConfigSnapshot.current());
+    assertEquals(version + 1, published.getVersion());
+  }
+
+  @Test
+  public void shouldMergeTheValuesOverTheCurrentOnes() {
+    ConfigSnapshot.publish(of(INDEX, of(ES_DEFAULT_SIZE, 10, ES_MAX_SIZE, 100)));
+    var snapshot = ConfigSnapshot.publish(of(INDEX, of(ES_DEFAULT_SIZE, 20)));
+
+    assertEquals(20, snapshot.get(INDEX, ES_DEFAULT_SIZE));
+    assertEquals(100, snapshot.get(INDEX, ES_MAX_SIZE));
+  }
+
+  @Test
+  public void shouldKeepPreviousSnapshotsUnchanged() {
+    var previous = ConfigSnapshot.publish(of(INDEX, of(ES_DEFAULT_SIZE, 10)));
+    ConfigSnapshot.publish(of(INDEX, of(ES_DEFAULT_SIZE, 20), "other", of(ES_MAX_SIZE, 100)));
+
+    assertEquals(10, previous.get(INDEX, ES_DEFAULT_SIZE));
+    assertFalse(previous.contains("other", ES_MAX_SIZE));
+    assertEquals(10, (int) ES_DEFAULT_SIZE.<Integer>getValue(INDEX, previous));
+    assertEquals(20, (int) ES_DEFAULT_SIZE.<Integer>getValue(INDEX));
+  }
+
+  @Test
+  public void shouldTellAbsentValuesFromNullOnes() {
+    var snapshot = ConfigSnapshot.publish(of(INDEX, singletonMap(ES_MAX_SIZE, null)));
+
+    assertTrue(snapshot.contains(INDEX, ES_MAX_SIZE));
+    assertNull(snapshot.get(INDEX, ES_MAX_SIZE));
+    assertFalse(snapshot.contains(INDEX, ES_DEFAULT_SIZE));
+  }
+
+  @Test
+  public void shouldReadThePinnedSnapshotUntilThePinIsClosed() {
+    var pinned = ConfigSnapshot.publish(of(INDEX, of(ES_DEFAULT_SIZE, 10)));
+
+    var pin = pinned.pin();
+    try {
+      ConfigSnapshot.publish(of(INDEX, of(ES_DEFAULT_SIZE, 20)));
+
+      assertSame(pinned, ConfigSnapshot.pinned());
+      assertEquals(10, (int) ES_DEFAULT_SIZE.<Integer>getValue(INDEX));
+    } finally {
+      pin.close();
+    }
+
+    assertSame(ConfigSnapshot.current(), ConfigSnapshot.pinned());
+    assertEquals(20, (int) ES_DEFAULT_SIZE.<Integer>getValue(INDEX));
+  }
+
+  @Test
+  public void shouldDeriveTheStateOnceForEachSnapshotAndVersion() {
+    var derivations = new AtomicInteger();
+    ConfigSnapshot.Derivation<Integer> size =
+        (snapshot, index) -> {
+          derivations.incrementAndGet();
+          return ES_DEFAULT_SIZE.getValue(index, snapshot);
+        };
+    var previous = ConfigSnapshot.publish(of(INDEX, of(ES_DEFAULT_SIZE, 10)));
+
+    assertEquals(10, (int) previous.derived(size, INDEX));
+    assertEquals(10, (int) previous.derived(size, INDEX));
+    assertEquals(1, derivations.get());
+
+    var snapshot = ConfigSnapshot.publish(of(INDEX, of(ES_DEFAULT_SIZE, 20)));
+    assertEquals(20, (int) snapshot.derived(size, INDEX));
+    assertEquals(10, (int) previous.derived(size, INDEX));
+    assertEquals(2, derivations.get());
+
+    snapshot.derived(size, INDEX, 1);
+    assertEquals(3, derivations.get());
+  }
+
+  @Test
+  public void shouldKeepOnlyTheStateOfTheLatestVersion() {
+    var derivations = new AtomicInteger();
+    ConfigSnapshot.Derivation<Integer> size = (snapshot, index) -> derivations.incrementAndGet();
+    var snapshot = ConfigSnapshot.publish(of(INDEX, of(ES_DEFAULT_SIZE, 10)));
+
+    assertEquals(1, (int) snapshot.derived(size, INDEX, 1));
+    assertEquals(1, (int) snapshot.derived(size, INDEX, 1));
+    assertEquals(2, (int) snapshot.derived(size, INDEX, 2));
+
+    // The state of the older version was replaced, and computing it again keeps the latest one
+    assertEquals(3, (int) snapshot.derived(size, INDEX, 1));
+    assertEquals(2, (int) snapshot.derived(size, INDEX, 2));
+    assertEquals(3, derivations.get());
+  }
+}
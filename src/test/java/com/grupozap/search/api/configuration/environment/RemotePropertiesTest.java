@@ -16,7 +16,6 @@ import static org.springframework.test.util.AssertionErrors.assertTrue;
 import com.google.common.collect.Sets;
 import java.util.HashSet;
 import java.util.List;
-import java.util.Map;
 import java.util.Set;
 import java.util.stream.Stream;
 import org.junit.Assert;
@@ -37,10 +36,37 @@ public class RemotePropertiesTest {
           QS_TEMPLATES);
 
   private static final Set<RemoteProperties> INTEGER_PROPERTIES =
-      newLinkedHashSet(ES_MAX_SIZE, ES_DEFAULT_SIZE, ES_FACET_SIZE, ES_STREAM_SIZE);
+      newLinkedHashSet(
+          ES_MAX_SIZE,
+          ES_DEFAULT_SIZE,
+          ES_FACET_SIZE,
+          ES_STREAM_SIZE,
+          ES_STREAM_PREFETCH,
+          ES_STREAM_SLICES,
+          ES_STREAM_FLUSH_BYTES,
+          ES_GET_BY_ID_BATCH_SIZE,
+          ES_BULKHEAD_MAX_CONCURRENT,
+          ES_BULKHEAD_ERROR_THRESHOLD,
+          ES_BULKHEAD_VOLUME_THRESHOLD,
+          ES_HEDGE_PERCENTILE,
+          ES_HEDGE_BUDGET);
 
   private static final Set<RemoteProperties> LONG_PROPERTIES =
-      newLinkedHashSet(ES_QUERY_TIMEOUT_VALUE, ES_CONTROLLER_STREAM_TIMEOUT, ES_SCROLL_KEEP_ALIVE);
+      newLinkedHashSet(
+          ES_QUERY_TIMEOUT_VALUE,
+          ES_CONTROLLER_STREAM_TIMEOUT,
+          ES_SCROLL_KEEP_ALIVE,
+          ES_SCROLL_KEEP_ALIVE_MIN,
+          ES_STREAM_FLUSH_INTERVAL,
+          ES_STREAM_STALL_THRESHOLD,
+          ES_STREAM_STALL_TIMEOUT,
+          ES_RESPONSE_CACHE_TTL,
+          ES_RESPONSE_CACHE_MAX_BYTES,
+          ES_COALESCING_TIMEOUT,
+          ES_GET_BY_ID_BATCH_WINDOW,
+          ES_DOCUMENT_CACHE_TTL,
+          ES_DOCUMENT_CACHE_MAX_BYTES,
+          ES_BULKHEAD_SLEEP_WINDOW);
 
   private static final Set<RemoteProperties> TIME_PROPERTIES =
       newLinkedHashSet(ES_CONTROLLER_SEARCH_TIMEOUT);
@@ -55,7 +81,7 @@ public class RemotePropertiesTest {
 
   @Before
   public void resetIndexPropertiesMap() {
-    of(RemoteProperties.values()).map(RemoteProperties::getIndexProperties).forEach(Map::clear);
+    ConfigSnapshot.reset();
   }
 
   // ****************************
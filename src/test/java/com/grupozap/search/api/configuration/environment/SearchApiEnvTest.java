@@ -0,0 +1,159 @@
+package com.grupozap.search.api.configuration.environment;
+
+import static com.grupozap.search.api.configuration.environment.RemoteProperties.DEFAULT_INDEX;
+import static com.grupozap.search.api.configuration.environment.RemoteProperties.ES_DEFAULT_SIZE;
+import static com.grupozap.search.api.configuration.environment.SearchApiEnv.PAGE_SIZE;
+import static java.util.stream.Collectors.joining;
+import static java.util.stream.IntStream.range;
+import static java.util.stream.Stream.of;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.grupozap.search.api.model.event.RemotePropertiesUpdatedEvent;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.apache.http.entity.StringEntity;
+import org.apache.http.util.EntityUtils;
+import org.elasticsearch.client.Request;
+import org.elasticsearch.client.Response;
+import org.elasticsearch.client.RestClient;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.mock.env.MockEnvironment;
+
+public class SearchApiEnvTest {
+
+  private final Map<String, Integer> versions = new HashMap<>();
+  private final List<String> requests = new ArrayList<>();
+
+  private ApplicationEventPublisher publisher;
+  private SearchApiEnv searchApiEnv;
+
+  @Before
+  public void setup() throws IOException {
+    versions.put("index1", 1);
+    versions.put("index2", 1);
+
+    var restClient = mock(RestClient.class);
+    when(restClient.performRequest(any(Request.class)))
+        .thenAnswer(invocation -> respond((Request) invocation.getArguments()[0]));
+
+    publisher = mock(ApplicationEventPublisher.class);
+    searchApiEnv = new SearchApiEnv(new MockEnvironment(), publisher, restClient);
+  }
+
+  @After
+  public void resetIndexPropertiesMap() {
+    ConfigSnapshot.reset();
+  }
+
+  @Test
+  public void shouldLoadAllThePropertiesOnStartup() {
+    assertEquals(1, (int) ES_DEFAULT_SIZE.<Integer>getValue("index1"));
+    assertEquals(1, (int) ES_DEFAULT_SIZE.<Integer>getValue("index2"));
+    assertEquals(Set.of("index1", "index2"), searchApiEnv.getRemoteProperties().keySet());
+    assertEquals(Set.of(DEFAULT_INDEX, "index1", "index2"), publishedIndices(3));
+  }
+
+  @Test
+  public void shouldReloadOnlyTheChangedProperties() {
+    versions.put("index2", 2);
+    requests.clear();
+
+    assertEquals(Set.of("index2"), searchApiEnv.reloadRemoteProperties());
+    assertEquals(2, (int) ES_DEFAULT_SIZE.<Integer>getValue("index2"));
+    assertEquals(List.of("_search", "_mget[index2]"), requests);
+    verify(publisher, times(4)).publishEvent(any(RemotePropertiesUpdatedEvent.class));
+  }
+
+  @Test
+  public void shouldNotReloadUnchangedProperties() {
+    requests.clear();
+
+    assertTrue(searchApiEnv.reloadRemoteProperties().isEmpty());
+    assertEquals(List.of("_search"), requests);
+    verify(publisher, times(3)).publishEvent(any(RemotePropertiesUpdatedEvent.class));
+  }
+
+  @Test
+  public void shouldPaginateThroughAllTheProperties() {
+    range(0, PAGE_SIZE + 1).forEach(i -> versions.put("other" + i, 1));
+    requests.clear();
+
+    assertEquals(PAGE_SIZE + 1, searchApiEnv.reloadRemoteProperties().size());
+    assertEquals(3, requests.size());
+    assertEquals(PAGE_SIZE + 3, searchApiEnv.getRemoteProperties().size());
+  }
+
+  @Test
+  public void shouldForgetRemovedProperties() {
+    versions.remove("index1");
+
+    assertTrue(searchApiEnv.reloadRemoteProperties().isEmpty());
+    assertEquals(Set.of("index2"), searchApiEnv.getRemoteProperties().keySet());
+  }
+
+  private Set<String> publishedIndices(int times) {
+    var event = ArgumentCaptor.forClass(RemotePropertiesUpdatedEvent.class);
+    verify(publisher, times(times)).publishEvent(event.capture());
+
+    Set<String> indices = new HashSet<>();
+    event.getAllValues().forEach(e -> indices.add(e.getIndex()));
+    return indices;
+  }
+
+  private Response respond(Request request) throws IOException {
+    var body = EntityUtils.toString(request.getEntity());
+    var response = mock(Response.class);
+
+    if (request.getEndpoint().endsWith("_search")) {
+      requests.add("_search");
+      var from = Integer.parseInt(body.replaceAll("(?s).*\"from\":(\\d+).*", "$1"));
+      var hits =
+          versions.keySet().stream()
+              .sorted()
+              .skip(from)
+              .limit(PAGE_SIZE)
+              .map(
+                  index ->
+                      "{\"_id\":\""
+                          + index
+                          + "\",\"_seq_no\":"
+                          + versions.get(index)
+                          + ",\"_primary_term\":1}")
+              .collect(joining(","));
+      when(response.getEntity())
+          .thenReturn(new StringEntity("{\"hits\":{\"hits\":[" + hits + "]}}"));
+    } else {
+      var ids = body.replaceAll("(?s).*\\[(.*)].*", "$1").replace("\"", "");
+      requests.add("_mget[" + ids + "]");
+      var docs =
+          of(ids.split(","))
+              .map(
+                  index ->
+                      "{\"_id\":\""
+                          + index
+                          + "\",\"found\":true,\"_seq_no\":"
+                          + versions.get(index)
+                          + ",\"_primary_term\":1,\"_source\":{\"es.default.size\":"
+                          + versions.get(index)
+                          + "}}")
+              .collect(joining(","));
+      when(response.getEntity()).thenReturn(new StringEntity("{\"docs\":[" + docs + "]}"));
+    }
+    return response;
+  }
+}
@@ -0,0 +1,73 @@
+package com.grupozap.search.api.controller.async;
+
+import static java.util.concurrent.CompletableFuture.completedFuture;
+import static org.junit.Assert.*;
+
+import com.grupozap.search.api.controller.error.ExceptionHandler;
+import com.grupozap.search.api.exception.QueryPhaseExecutionException;
+import com.netflix.hystrix.exception.HystrixRuntimeException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Supplier;
+import org.junit.Test;
+
+public class AsyncCommandTest {
+
+  @Test
+  public void shouldCompleteWithExecutionValue() throws Exception {
+    var future = command("success", () -> completedFuture("value")).toFuture();
+    assertEquals("value", future.get());
+  }
+
+  @Test
+  public void shouldReturnBadRequestExceptionsAsIs() {
+    var cause = new IllegalArgumentException("invalid");
+    var future = command("badRequest", () -> CompletableFuture.failedFuture(cause)).toFuture();
+
+    assertSame(cause, failure(future));
+  }
+
+  @Test
+  public void shouldReturnSynchronousBadRequestExceptionsAsIs() {
+    var cause = new IllegalArgumentException("invalid");
+    var future =
+        command(
+                "syncBadRequest",
+                () -> {
+                  throw cause;
+                })
+            .toFuture();
+
+    assertSame(cause, failure(future));
+  }
+
+  @Test
+  public void shouldWrapFailuresToFallback() {
+    var cause = new QueryPhaseExecutionException("{}", new RuntimeException());
+    var future = command("failure", () -> CompletableFuture.failedFuture(cause)).toFuture();
+
+    var failure = failure(future);
+    assertTrue(failure instanceof HystrixRuntimeException);
+    assertSame(cause, failure.getCause());
+  }
+
+  private static AsyncCommand<String> command(
+      String key, Supplier<CompletableFuture<String>> execution) {
+    return new AsyncCommand<>(
+        AsyncCommand.setter("AsyncCommandTest", key, 10, 5000, 100, 90),
+        ExceptionHandler::isBadRequestException,
+        execution);
+  }
+
+  private static Throwable failure(CompletableFuture<?> future) {
+    try {
+      future.get();
+      fail("Expected failure");
+      return null;
+    } catch (ExecutionException e) {
+      return e.getCause();
+    } catch (InterruptedException e) {
+      throw new RuntimeException(e);
+    }
+  }
+}
@@ -0,0 +1,44 @@
+package com.grupozap.search.api.controller.async;
+
+import static com.grupozap.search.api.configuration.environment.RemoteProperties.DEFAULT_INDEX;
+import static com.grupozap.search.api.configuration.environment.RemoteProperties.ES_ASYNC_ENABLED;
+import static java.util.Collections.singleton;
+import static org.junit.Assert.*;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.web.util.UrlPathHelper;
+
+public class AsyncIndexConditionTest {
+
+  private final AsyncIndexCondition condition =
+      new AsyncIndexCondition(
+          singleton("/v2/{index}/{id}"), new UrlPathHelper(), new AntPathMatcher());
+
+  @Before
+  public void setup() {
+    ES_ASYNC_ENABLED.setValue(DEFAULT_INDEX, false);
+    ES_ASYNC_ENABLED.setValue("async-index", true);
+  }
+
+  @Test
+  public void shouldMatchIndicesWithAsyncEnabled() {
+    assertSame(condition, condition.getMatchingCondition(request("/v2/async-index/123")));
+  }
+
+  @Test
+  public void shouldNotMatchIndicesWithAsyncDisabled() {
+    assertNull(condition.getMatchingCondition(request("/v2/sync-index/123")));
+  }
+
+  @Test
+  public void shouldNotMatchOtherPaths() {
+    assertNull(condition.getMatchingCondition(request("/v2/async-index")));
+  }
+
+  private static MockHttpServletRequest request(String uri) {
+    return new MockHttpServletRequest("GET", uri);
+  }
+}
@@ -0,0 +1,171 @@
+package com.grupozap.search.api.controller.stream;
+
+import static java.util.Collections.emptySet;
+import static java.util.stream.Collectors.toList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import com.grupozap.search.api.model.mapping.IndexMetadata;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import org.apache.arrow.memory.RootAllocator;
+import org.apache.arrow.vector.ipc.ArrowStreamReader;
+import org.apache.arrow.vector.types.pojo.Field;
+import org.elasticsearch.common.bytes.BytesArray;
+import org.elasticsearch.search.SearchHit;
+import org.junit.Test;
+
+public class ArrowEncoderTest {
+
+  private static final IndexMetadata MAPPING =
+      IndexMetadata.builder()
+          .shards(2)
+          .field("id", "keyword")
+          .field("price", "long")
+          .field("active", "boolean")
+          .field("address", "_obj")
+          .field("address.city", "text")
+          .field("address.geo", "geo_point")
+          .scripts(Set.of("index_script"))
+          .build();
+
+  @Test
+  public void shouldBuildTheSchemaFromTheLeafFieldsOfTheMapping() throws IOException {
+    var stream = encode(new ArrowEncoder(MAPPING, null, null));
+
+    assertEquals(
+        List.of(
+            "active: Bool",
+            "address.city: Utf8",
+            "address.geo: Utf8",
+            "id: Utf8",
+            "price: Int(64, true)"),
+        stream.schema);
+  }
+
+  @Test
+  public void shouldHonorIncludeAndExcludeFields() throws IOException {
+    var stream = encode(new ArrowEncoder(MAPPING, Set.of("address", "id"), Set.of("address.geo")));
+
+    assertEquals(List.of("address.city: Utf8", "id: Utf8"), stream.schema);
+  }
+
+  @Test
+  public void shouldWriteARecordBatchPerPageWithNullsForMissingValues() throws IOException {
+    var stream =
+        encode(
+            new ArrowEncoder(MAPPING, Set.of("id", "price", "active", "address.city"), emptySet()),
+            new SearchHit[] {
+              hit(
+                  "{\"id\":\"a\",\"price\":10,\"active\":true,\"address\":{\"city\":\"Sao Paulo\"}}"),
+              hit("{\"id\":\"b\",\"price\":\"20\",\"tags\":[\"x\"]}")
+            },
+            new SearchHit[] {hit("{\"id\":\"c\",\"price\":[30],\"active\":\"false\"}")});
+
+    assertEquals(
+        List.of(
+            List.of(
+                Arrays.asList(true, null),
+                Arrays.asList("Sao Paulo", null),
+                List.of("a", "b"),
+                List.of(10L, 20L)),
+            List.of(
+                Arrays.asList(false), Arrays.asList((Object) null), List.of("c"), List.of(30L))),
+        stream.batches);
+  }
+
+  @Test
+  public void shouldKeepStructuredValuesAsJsonText() throws IOException {
+    var mapping =
+        IndexMetadata.builder()
+            .shards(1)
+            .field("tags", "keyword")
+            .field("address.geo", "geo_point")
+            .field("images", "_obj")
+            .field("images.url", "keyword")
+            .build();
+
+    var stream =
+        encode(
+            new ArrowEncoder(mapping, null, null),
+            new SearchHit[] {
+              hit(
+                  "{\"tags\":[\"x\",\"y\"],\"address\":{\"geo\":{\"lat\":1.5,\"lon\":-2}},"
+                      + "\"images\":[{\"url\":\"a\",\"size\":1},{\"url\":\"b\"}]}"),
+              hit("{\"images\":[],\"other\":{\"images\":{\"url\":\"c\"}}}"),
+              new SearchHit(2)
+            });
+
+    assertEquals(
+        List.of(
+            List.of(
+                Arrays.asList("{\"lat\":1.5,\"lon\":-2}", null, null),
+                Arrays.asList("[\"a\",\"b\"]", null, null),
+                Arrays.asList("[\"x\",\"y\"]", null, null))),
+        stream.batches);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void shouldFailOnSeveralValuesForATypedColumn() throws IOException {
+    encode(new ArrowEncoder(MAPPING, null, null), new SearchHit[] {hit("{\"price\":[1,2]}")});
+  }
+
+  @Test
+  public void shouldReleaseTheMemoryOfTheVectorsWhenClosed() throws IOException {
+    var encoder = new ArrowEncoder(MAPPING, null, null);
+    encode(encoder, new SearchHit[] {hit("{\"id\":\"a\"}")});
+
+    // Closing the allocator fails while any of its memory is still in use
+    encoder.close();
+  }
+
+  private static SearchHit hit(String source) {
+    return new SearchHit(1).sourceRef(new BytesArray(source));
+  }
+
+  private static Stream encode(ArrowEncoder encoder, SearchHit[]... pages) throws IOException {
+    var out = new ByteArrayOutputStream();
+    try (encoder) {
+      out.write(encoder.header());
+      for (var page : pages) out.write(encoder.page(page));
+      out.write(encoder.footer());
+    }
+
+    var stream = new Stream();
+    try (var allocator = new RootAllocator(Long.MAX_VALUE);
+        var reader =
+            new ArrowStreamReader(new ByteArrayInputStream(out.toByteArray()), allocator)) {
+      var root = reader.getVectorSchemaRoot();
+      stream.schema = root.getSchema().getFields().stream().map(Field::toString).collect(toList());
+      while (reader.loadNextBatch()) {
+        var batch = new ArrayList<List<Object>>();
+        for (var vector : root.getFieldVectors()) {
+          var values = new ArrayList<>();
+          for (var row = 0; row < root.getRowCount(); row++) {
+            var value = vector.getObject(row);
+            values.add(
+                value == null || value instanceof Number || value instanceof Boolean
+                    ? value
+                    : value.toString());
+          }
+          batch.add(values);
+        }
+        stream.batches.add(batch);
+      }
+      assertFalse(reader.loadNextBatch());
+    }
+    assertTrue(out.size() > 0);
+    return stream;
+  }
+
+  private static class Stream {
+    private List<String> schema;
+    private final List<List<List<Object>>> batches = new ArrayList<>();
+  }
+}
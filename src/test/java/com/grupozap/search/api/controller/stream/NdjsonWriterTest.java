@@ -0,0 +1,222 @@
+package com.grupozap.search.api.controller.stream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import org.junit.Test;
+
+public class NdjsonWriterTest {
+
+  @Test
+  public void shouldBufferRecordsUntilTheBufferIsFull() throws IOException {
+    var out = new RecordingStream();
+    try (var writer = new NdjsonWriter(out, 8, 0, Long.MAX_VALUE, Long.MAX_VALUE, listener())) {
+      writer.write("abc".getBytes());
+      writer.write("def".getBytes());
+      assertEquals(0, out.writes.size());
+
+      writer.write("gh".getBytes());
+      assertEquals(List.of(8), out.writes);
+      assertEquals("abc\ndef\n", out.toString());
+
+      writer.flush();
+      assertEquals("abc\ndef\ngh\n", out.toString());
+      assertEquals(1, out.flushes);
+    }
+  }
+
+  @Test
+  public void shouldWriteRecordsBiggerThanTheBufferStraightToTheStream() throws IOException {
+    var out = new RecordingStream();
+    try (var writer = new NdjsonWriter(out, 4, 0, Long.MAX_VALUE, Long.MAX_VALUE, listener())) {
+      writer.write("a".getBytes());
+      writer.write("bcdefg".getBytes());
+      writer.flush();
+
+      assertEquals("a\nbcdefg\n", out.toString());
+      assertEquals(List.of(2, 6, 1), out.writes);
+    }
+  }
+
+  @Test
+  public void shouldOnlyFlushWhenTheIntervalHasElapsed() throws IOException {
+    var out = new RecordingStream();
+    try (var writer =
+        new NdjsonWriter(out, 64, 60000, Long.MAX_VALUE, Long.MAX_VALUE, listener())) {
+      writer.write("a".getBytes());
+      writer.flushIfDue();
+      assertEquals(0, out.flushes);
+      assertEquals("", out.toString());
+    }
+
+    try (var writer = new NdjsonWriter(out)) {
+      writer.write("a".getBytes());
+      writer.flushIfDue();
+      assertEquals(1, out.flushes);
+      assertEquals("a\n", out.toString());
+    }
+  }
+
+  @Test
+  public void shouldReportStallsAndAbortAfterTheTimeout() throws IOException {
+    var stalls = new ArrayList<Long>();
+    var aborts = new ArrayList<Boolean>();
+    var listener =
+        new NdjsonWriter.Listener() {
+          @Override
+          public void onStall(long millis) {
+            stalls.add(millis);
+          }
+
+          @Override
+          public void onAbort() {
+            aborts.add(true);
+          }
+        };
+
+    try (var writer = new NdjsonWriter(slowStream(20), 2, 0, 5, 30, listener)) {
+      writer.write("a".getBytes());
+      writer.write("b".getBytes());
+      assertEquals(1, writer.getStalls());
+      assertTrue(aborts.isEmpty());
+
+      writer.write("c".getBytes());
+      fail("Expected the stream to be aborted");
+    } catch (IOException e) {
+      assertTrue(e.getMessage().startsWith("Stream aborted, client stalled for"));
+    }
+
+    assertEquals(2, stalls.size());
+    assertTrue(stalls.get(0) >= 20);
+    assertEquals(1, aborts.size());
+  }
+
+  @Test(timeout = 5000)
+  public void shouldAbortAWriteBlockedPastTheTimeout() throws IOException {
+    var aborts = new ArrayList<Boolean>();
+    var listener =
+        new NdjsonWriter.Listener() {
+          @Override
+          public void onAbort() {
+            aborts.add(true);
+          }
+        };
+
+    try (var writer = new NdjsonWriter(new BlockedStream(), 2, 0, 5, 50, listener)) {
+      writer.write("a".getBytes());
+      writer.write("b".getBytes());
+      fail("Expected the stream to be aborted");
+    } catch (IOException e) {
+      assertTrue(e.getMessage().startsWith("Stream aborted, client stalled for"));
+    }
+
+    assertEquals(1, aborts.size());
+  }
+
+  @Test
+  public void shouldCountWrittenBytes() throws IOException {
+    List<Integer> bytes = new ArrayList<>();
+    var listener =
+        new NdjsonWriter.Listener() {
+          @Override
+          public void onWrite(int written) {
+            bytes.add(written);
+          }
+        };
+
+    try (var writer =
+        new NdjsonWriter(
+            new ByteArrayOutputStream(), 16, 0, Long.MAX_VALUE, Long.MAX_VALUE, listener)) {
+      writer.write("abc".getBytes());
+      writer.newLine();
+      writer.flush();
+    }
+    assertEquals(List.of(5), bytes);
+  }
+
+  @Test
+  public void shouldReuseReleasedBuffers() {
+    var pool = new NdjsonWriter.BufferPool(1);
+    var first = pool.acquire(8);
+    var second = pool.acquire(8);
+    assertEquals(0, pool.idleBuffers(8));
+
+    pool.release(first);
+    pool.release(second);
+    assertEquals(1, pool.idleBuffers(8));
+
+    assertSame(first, pool.acquire(8));
+    assertEquals(0, pool.idleBuffers(8));
+    assertEquals(16, pool.acquire(16).length);
+  }
+
+  private static NdjsonWriter.Listener listener() {
+    return new NdjsonWriter.Listener() {};
+  }
+
+  private static OutputStream slowStream(long millis) {
+    return new OutputStream() {
+      @Override
+      public void write(int b) {
+        sleep();
+      }
+
+      @Override
+      public void write(byte[] b, int off, int len) {
+        sleep();
+      }
+
+      private void sleep() {
+        try {
+          Thread.sleep(millis);
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+      }
+    };
+  }
+
+  // Blocks the writes until closed, as the stream of a client that stopped reading
+  private static class BlockedStream extends OutputStream {
+    private final CountDownLatch closed = new CountDownLatch(1);
+
+    @Override
+    public void write(int b) throws IOException {
+      try {
+        closed.await();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+      throw new IOException("Stream closed");
+    }
+
+    @Override
+    public void close() {
+      closed.countDown();
+    }
+  }
+
+  static class RecordingStream extends ByteArrayOutputStream {
+    final List<Integer> writes = new ArrayList<>();
+    int flushes;
+
+    @Override
+    public synchronized void write(byte[] b, int off, int len) {
+      writes.add(len);
+      super.write(b, off, len);
+    }
+
+    @Override
+    public void flush() {
+      flushes++;
+    }
+  }
+}
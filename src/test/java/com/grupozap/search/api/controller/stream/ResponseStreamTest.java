@@ -1,10 +1,11 @@
 package com.grupozap.search.api.controller.stream;
 
+import static org.junit.Assert.assertEquals;
 import static org.mockito.Mockito.*;
 
 import java.io.IOException;
-import java.io.OutputStream;
 import java.util.Iterator;
+import java.util.List;
 import org.junit.Test;
 
 public class ResponseStreamTest {
@@ -16,7 +17,7 @@ public class ResponseStreamTest {
 
   @Test
   public void shouldSuccessfulIterate() throws IOException {
-    var mockStream = mock(OutputStream.class);
+    var mockStream = new NdjsonWriterTest.RecordingStream();
 
     final String[][] data = {
       {"tincas", "urubu", "pizza"},
@@ -41,19 +42,37 @@ public class ResponseStreamTest {
         },
         String::getBytes);
 
-    var lineEndCallCount = 0;
-    var flushCallCount = 0;
-    for (var hits : data) {
-      for (var hit : hits) {
-        verify(mockStream, times(1)).write(hit.getBytes());
-        ++lineEndCallCount;
-      }
-      ++flushCallCount;
-    }
-    ++lineEndCallCount;
-    ++flushCallCount;
-
-    verify(mockStream, times(lineEndCallCount)).write('\n');
-    verify(mockStream, times(flushCallCount)).flush();
+    // Hits are buffered, so each page is a single write
+    assertEquals("tincas\nurubu\npizza\nsocks\npinto\n\n", mockStream.toString());
+    assertEquals(3, mockStream.writes.size());
+    assertEquals(data.length + 1, mockStream.flushes);
+  }
+
+  @Test
+  public void shouldWriteThePagesOfTheEncoderWithoutLineBreaks() {
+    var stream = new NdjsonWriterTest.RecordingStream();
+
+    ResponseStream.writePages(
+        new NdjsonWriter(stream),
+        new PageEncoder<String>() {
+          @Override
+          public byte[] header() {
+            return "[".getBytes();
+          }
+
+          @Override
+          public byte[] page(String[] page) {
+            return String.join(",", page).getBytes();
+          }
+
+          @Override
+          public byte[] footer() {
+            return "]".getBytes();
+          }
+        },
+        List.of(new String[] {"a", "b"}, new String[] {"c"}).iterator());
+
+    assertEquals("[a,bc]", stream.toString());
+    assertEquals(3, stream.flushes);
   }
 }
@@ -0,0 +1,99 @@
+package com.grupozap.search.api.controller.stream;
+
+import static com.grupozap.search.api.configuration.environment.RemoteProperties.ES_SCROLL_KEEP_ALIVE;
+import static com.grupozap.search.api.configuration.environment.RemoteProperties.ES_SCROLL_KEEP_ALIVE_MIN;
+import static com.grupozap.search.api.controller.stream.ScrollManager.KEEP_ALIVE_FACTOR;
+import static com.grupozap.search.api.controller.stream.ScrollManager.OPEN_SCROLLS;
+import static java.util.Arrays.asList;
+import static java.util.Collections.singletonList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.ArrayList;
+import java.util.List;
+import org.elasticsearch.action.ActionListener;
+import org.elasticsearch.action.search.ClearScrollRequest;
+import org.elasticsearch.action.search.ClearScrollResponse;
+import org.elasticsearch.client.RestHighLevelClient;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ScrollManagerTest {
+
+  private static final String INDEX = "index";
+
+  private SimpleMeterRegistry registry;
+  private List<ClearScrollRequest> cleared;
+  private ScrollManager scrollManager;
+
+  @Before
+  public void setup() {
+    ES_SCROLL_KEEP_ALIVE.setValue(INDEX, 60000);
+    ES_SCROLL_KEEP_ALIVE_MIN.setValue(INDEX, 1000);
+
+    registry = new SimpleMeterRegistry();
+    cleared = new ArrayList<>();
+    scrollManager =
+        new ScrollManager(mock(RestHighLevelClient.class), registry) {
+          @Override
+          void clear(ClearScrollRequest request, ActionListener<ClearScrollResponse> listener) {
+            cleared.add(request);
+          }
+        };
+  }
+
+  @Test
+  public void shouldCountOpenScrollsPerIndex() {
+    scrollManager.opened(INDEX);
+    scrollManager.opened(INDEX);
+    assertEquals(2, registry.get(OPEN_SCROLLS).tag("index", INDEX).gauge().value(), 0);
+
+    scrollManager.clear(INDEX, singletonList("id"));
+    assertEquals(1, scrollManager.openScrolls(INDEX));
+    assertEquals(1, registry.get(OPEN_SCROLLS).tag("index", INDEX).gauge().value(), 0);
+  }
+
+  @Test
+  public void shouldClearDistinctScrollIds() {
+    scrollManager.opened(INDEX);
+    scrollManager.clear(INDEX, asList("a", "b", "a", null));
+
+    assertEquals(1, cleared.size());
+    assertEquals(asList("a", "b"), cleared.get(0).getScrollIds());
+  }
+
+  @Test
+  public void shouldNotSendClearWithoutScrollIds() {
+    scrollManager.opened(INDEX);
+    scrollManager.clear(INDEX, singletonList(null));
+
+    assertTrue(cleared.isEmpty());
+    assertEquals(0, scrollManager.openScrolls(INDEX));
+  }
+
+  @Test
+  public void shouldAdaptKeepAliveToConsumption() {
+    assertEquals(60000, scrollManager.keepAlive(INDEX));
+
+    scrollManager.consumed(INDEX, 2000);
+    assertEquals(2000 * KEEP_ALIVE_FACTOR, scrollManager.keepAlive(INDEX));
+
+    scrollManager.consumed(INDEX, 10);
+    assertEquals((2000 * 7 + 10) / 8 * KEEP_ALIVE_FACTOR, scrollManager.keepAlive(INDEX));
+    assertEquals(
+        (2000 * 7 + 10) / 8 * KEEP_ALIVE_FACTOR, scrollManager.scroll(INDEX).keepAlive().millis());
+  }
+
+  @Test
+  public void shouldBoundKeepAlive() {
+    scrollManager.consumed(INDEX, 1);
+    assertEquals(1000, scrollManager.keepAlive(INDEX));
+
+    scrollManager.consumed("other", 1000000);
+    ES_SCROLL_KEEP_ALIVE.setValue("other", 60000);
+    ES_SCROLL_KEEP_ALIVE_MIN.setValue("other", 1000);
+    assertEquals(60000, scrollManager.keepAlive("other"));
+  }
+}
@@ -0,0 +1,90 @@
+package com.grupozap.search.api.controller.stream;
+
+import static com.grupozap.search.api.configuration.environment.RemoteProperties.ES_STREAM_FLUSH_BYTES;
+import static com.grupozap.search.api.configuration.environment.RemoteProperties.ES_STREAM_FLUSH_INTERVAL;
+import static com.grupozap.search.api.configuration.environment.RemoteProperties.ES_STREAM_SIZE;
+import static com.grupozap.search.api.configuration.environment.RemoteProperties.ES_STREAM_STALL_THRESHOLD;
+import static com.grupozap.search.api.configuration.environment.RemoteProperties.ES_STREAM_STALL_TIMEOUT;
+import static com.grupozap.search.api.controller.stream.StreamMonitor.MIN_PAGE_SIZE;
+import static org.junit.Assert.assertEquals;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import org.junit.Before;
+import org.junit.Test;
+
+public class StreamMonitorTest {
+
+  private static final String INDEX = "index";
+
+  private SimpleMeterRegistry registry;
+  private StreamMonitor streamMonitor;
+
+  @Before
+  public void setup() {
+    ES_STREAM_SIZE.setValue(INDEX, 100);
+    ES_STREAM_FLUSH_BYTES.setValue(INDEX, 8);
+    ES_STREAM_FLUSH_INTERVAL.setValue(INDEX, 0L);
+    ES_STREAM_STALL_THRESHOLD.setValue(INDEX, Long.MAX_VALUE);
+    ES_STREAM_STALL_TIMEOUT.setValue(INDEX, Long.MAX_VALUE);
+
+    registry = new SimpleMeterRegistry();
+    streamMonitor = new StreamMonitor(registry);
+  }
+
+  @Test
+  public void shouldUseTheStreamSizeWhileThereAreNoStalls() throws IOException {
+    assertEquals(100, streamMonitor.pageSize(INDEX));
+
+    var writer = streamMonitor.writer(INDEX, new ByteArrayOutputStream());
+    writer.write("abcdef".getBytes());
+    writer.flush();
+    streamMonitor.completed(INDEX, writer);
+
+    assertEquals(100, streamMonitor.pageSize(INDEX));
+    assertEquals(7, registry.get("search.stream.bytes").tag("index", INDEX).counter().count(), 0);
+  }
+
+  @Test
+  public void shouldShrinkThePageSizeOnStallsAndGrowItBack() throws IOException {
+    ES_STREAM_STALL_THRESHOLD.setValue(INDEX, 0L);
+
+    var writer = streamMonitor.writer(INDEX, new ByteArrayOutputStream());
+    writer.write("a".getBytes());
+    writer.flush();
+    streamMonitor.completed(INDEX, writer);
+
+    // Both the write and the flush stalled
+    assertEquals(25, streamMonitor.pageSize(INDEX));
+    assertEquals(2, registry.get("search.stream.stalls").tag("index", INDEX).counter().count(), 0);
+    assertEquals(
+        25, registry.get("search.stream.page.size").tag("index", INDEX).gauge().value(), 0);
+
+    for (var i = 0; i < 4; i++) streamMonitor.writer(INDEX, new ByteArrayOutputStream()).flush();
+    assertEquals(MIN_PAGE_SIZE, streamMonitor.pageSize(INDEX));
+
+    ES_STREAM_STALL_THRESHOLD.setValue(INDEX, Long.MAX_VALUE);
+    streamMonitor.completed(INDEX, streamMonitor.writer(INDEX, new ByteArrayOutputStream()));
+    assertEquals(12, streamMonitor.pageSize(INDEX));
+
+    for (var i = 0; i < 20; i++)
+      streamMonitor.completed(INDEX, streamMonitor.writer(INDEX, new ByteArrayOutputStream()));
+    assertEquals(100, streamMonitor.pageSize(INDEX));
+  }
+
+  @Test
+  public void shouldCountAbortedStreams() throws IOException {
+    ES_STREAM_STALL_THRESHOLD.setValue(INDEX, 0L);
+    ES_STREAM_STALL_TIMEOUT.setValue(INDEX, 0L);
+
+    try (var writer = streamMonitor.writer(INDEX, new ByteArrayOutputStream())) {
+      writer.flush();
+    } catch (IOException e) {
+      assertEquals(
+          1, registry.get("search.stream.aborted").tag("index", INDEX).counter().count(), 0);
+      return;
+    }
+    throw new AssertionError("Expected the stream to be aborted");
+  }
+}
@@ -66,16 +66,17 @@ public class ParserTemplateLoader {
                   var fieldName = invocationOnMock.getArguments()[0].toString();
                   if (fieldName.contains("invalid")) return null;
 
-                  var split = fieldName.split("\\.");
-                  var names = asList(split).subList(1, split.length); // Ignore index name
-                  return new Field(mockLinkedMapForField(names));
+                  return new Field(mockLinkedMapForField(asList(fieldName.split("\\."))));
                 });
     when(mockPreprocessedFields.containsKey(anyString()))
         .thenAnswer(
             invocationOnMock -> !invocationOnMock.getArguments()[0].toString().contains("invalid"));
 
+    Map<String, Map<String, Field>> mockFieldsByIndex = mock(Map.class);
+    when(mockFieldsByIndex.getOrDefault(anyString(), any())).thenReturn(mockPreprocessedFields);
+
     var fieldCache = new FieldCache(new FieldFactory(), new SortRescoreListener());
-    setInternalState(fieldCache, "validFields", mockPreprocessedFields);
+    setInternalState(fieldCache, "fieldsByIndex", mockFieldsByIndex);
     setInternalState(fieldCache, "indexSettings", indexSettings);
     return fieldCache;
   }
@@ -84,17 +85,14 @@ public class ParserTemplateLoader {
     var indexSettings = mock(IndexSettings.class);
     when(indexSettings.getIndex()).thenReturn(INDEX_NAME);
 
-    Map<String, SearchAliasProp> mockSearchAlias = mock(Map.class);
     var props = new HashMap<String, Object>();
     props.put("fields", Map.of("field_before_alias", "field_after_alias"));
     props.put("indices", Map.of("index_before_alias", "index_after_alias"));
 
     var searchAliasProps = convertValue(props, SearchAliasProp.class);
 
-    when(mockSearchAlias.get(anyString())).thenReturn(searchAliasProps);
-
-    var searchAlias = new SearchAlias(indexSettings);
-    setInternalState(searchAlias, "aliases", mockSearchAlias);
+    var searchAlias = spy(new SearchAlias(indexSettings));
+    doReturn(searchAliasProps).when(searchAlias).getAliases(anyString());
     return searchAlias;
   }
 
@@ -0,0 +1,116 @@
+package com.grupozap.search.api.model;
+
+import static java.lang.Integer.MAX_VALUE;
+import static org.apache.lucene.search.TotalHits.Relation.EQUAL_TO;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.grupozap.search.api.exception.QueryTimeoutException;
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Queue;
+import org.apache.lucene.search.TotalHits;
+import org.elasticsearch.action.ActionListener;
+import org.elasticsearch.action.search.SearchRequest;
+import org.elasticsearch.action.search.SearchResponse;
+import org.elasticsearch.client.RestHighLevelClient;
+import org.elasticsearch.search.DocValueFormat;
+import org.elasticsearch.search.SearchHit;
+import org.elasticsearch.search.SearchHits;
+import org.elasticsearch.search.builder.SearchSourceBuilder;
+import org.junit.Test;
+
+public class SearchAfterApiIteratorTest {
+
+  private final SearchRequest searchRequest =
+      new SearchRequest("index").source(new SearchSourceBuilder().size(2).sort("id"));
+
+  @Test
+  public void shouldSearchAfterTheLastHitOfEachPage() {
+    var iterator = new SearchAfterIterator(page(1, 2), 0, page(3, 2), page(5, 1), page(6, 0));
+
+    assertEquals(5, consume(iterator));
+    assertEquals(3, iterator.requests.size());
+    assertArrayEquals(new Object[] {2L}, iterator.requests.get(0).source().searchAfter());
+    assertArrayEquals(new Object[] {4L}, iterator.requests.get(1).source().searchAfter());
+    assertArrayEquals(new Object[] {5L}, iterator.requests.get(2).source().searchAfter());
+    assertNull(iterator.requests.get(0).scroll());
+    assertNull(searchRequest.source().searchAfter());
+  }
+
+  @Test
+  public void shouldPrefetchPagesWithSearchAfter() {
+    var iterator = new SearchAfterIterator(page(1, 2), 2, page(3, 2), page(5, 1), page(6, 0));
+
+    assertEquals(2, iterator.next().length);
+    assertEquals(3, iterator.asyncRequests.size());
+
+    assertEquals(3, consume(iterator));
+    assertEquals(5, iterator.getCount());
+    assertEquals(0, iterator.requests.size());
+  }
+
+  @Test
+  public void shouldThrowQueryTimeoutOnATimedOutPage() {
+    var timedOut = page(3, 2);
+    when(timedOut.isTimedOut()).thenReturn(true);
+
+    var iterator = new SearchAfterIterator(page(1, 2), 2, timedOut, page(5, 1), page(6, 0));
+
+    try {
+      consume(iterator);
+      fail();
+    } catch (QueryTimeoutException e) {
+      // No page is requested after the timed out one
+      assertEquals(1, iterator.asyncRequests.size());
+    }
+  }
+
+  private static int consume(SearchApiIterator<SearchHit> iterator) {
+    var hits = 0;
+    while (iterator.hasNext()) hits += iterator.next().length;
+    return hits;
+  }
+
+  private static SearchResponse page(int first, int hits) {
+    var searchHits = new SearchHit[hits];
+    for (var i = 0; i < hits; i++) {
+      searchHits[i] = new SearchHit(first + i);
+      searchHits[i].sortValues(
+          new Object[] {(long) first + i}, new DocValueFormat[] {DocValueFormat.RAW});
+    }
+
+    var response = mock(SearchResponse.class);
+    when(response.getHits())
+        .thenReturn(new SearchHits(searchHits, new TotalHits(hits, EQUAL_TO), 0));
+    return response;
+  }
+
+  private class SearchAfterIterator extends SearchAfterApiIterator<SearchHit> {
+    private final Queue<SearchResponse> pages;
+    private final List<SearchRequest> requests = new ArrayList<>();
+    private final List<SearchRequest> asyncRequests = new ArrayList<>();
+
+    SearchAfterIterator(SearchResponse first, int prefetch, SearchResponse... pages) {
+      super(mock(RestHighLevelClient.class), searchRequest, first, MAX_VALUE, prefetch);
+      this.pages = new LinkedList<>(List.of(pages));
+    }
+
+    @Override
+    SearchResponse search(SearchRequest searchRequest) {
+      requests.add(searchRequest);
+      return pages.remove();
+    }
+
+    @Override
+    void searchAsync(SearchRequest searchRequest, ActionListener<SearchResponse> listener) {
+      asyncRequests.add(searchRequest);
+      listener.onResponse(pages.remove());
+    }
+  }
+}
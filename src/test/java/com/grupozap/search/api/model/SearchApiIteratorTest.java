@@ -0,0 +1,147 @@
+package com.grupozap.search.api.model;
+
+import static java.lang.Integer.MAX_VALUE;
+import static org.apache.lucene.search.TotalHits.Relation.EQUAL_TO;
+import static org.elasticsearch.common.unit.TimeValue.timeValueMillis;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.grupozap.search.api.exception.FailedShardsException;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Queue;
+import org.apache.lucene.search.TotalHits;
+import org.elasticsearch.action.ActionListener;
+import org.elasticsearch.action.search.SearchResponse;
+import org.elasticsearch.action.search.SearchScrollRequest;
+import org.elasticsearch.client.RestHighLevelClient;
+import org.elasticsearch.search.Scroll;
+import org.elasticsearch.search.SearchHit;
+import org.elasticsearch.search.SearchHits;
+import org.junit.Test;
+
+public class SearchApiIteratorTest {
+
+  private final Scroll scroll = new Scroll(timeValueMillis(1000));
+
+  @Test
+  public void shouldIterateAllPagesWithoutPrefetch() {
+    var iterator = new ScrollIterator(page(0, 2), 0, page(1, 2), page(2, 1), page(3, 0));
+
+    assertEquals(5, consume(iterator));
+    assertEquals(5, iterator.getCount());
+    assertEquals(3, iterator.scrollIds.size());
+    assertEquals(0, iterator.asyncScrollIds.size());
+  }
+
+  @Test
+  public void shouldFetchPagesAheadWithPrefetch() {
+    var iterator = new ScrollIterator(page(0, 2), 2, page(1, 2), page(2, 1), page(3, 0));
+
+    assertEquals(2, iterator.next().length);
+    assertEquals(List.of("0", "1", "2"), iterator.asyncScrollIds);
+
+    assertEquals(3, consume(iterator));
+    assertEquals(5, iterator.getCount());
+    assertEquals(List.of("0", "1", "2"), iterator.asyncScrollIds);
+    assertEquals(0, iterator.scrollIds.size());
+  }
+
+  @Test
+  public void shouldThrowFailedShardsOnPrefetchedPage() {
+    var failed = page(1, 2);
+    when(failed.getFailedShards()).thenReturn(1);
+    when(failed.getTotalShards()).thenReturn(5);
+
+    var iterator = new ScrollIterator(page(0, 2), 1, failed, page(2, 2));
+
+    assertTrue(iterator.hasNext());
+    try {
+      iterator.next();
+      fail();
+    } catch (FailedShardsException e) {
+      assertEquals(List.of("0"), iterator.asyncScrollIds);
+    }
+  }
+
+  @Test
+  public void shouldWrapAsyncScrollFailures() {
+    var error = new IOException("connection reset");
+    var iterator = new ScrollIterator(page(0, 2), 1, error);
+
+    try {
+      iterator.next();
+      fail();
+    } catch (RuntimeException e) {
+      assertSame(error, e.getCause());
+    }
+    assertFalse(iterator.asyncScrollIds.isEmpty());
+  }
+
+  @Test
+  public void shouldStopPrefetchingWhenClosed() {
+    var iterator = new ScrollIterator(page(0, 2), 2, page(1, 2), page(2, 2), page(3, 2));
+
+    iterator.next();
+    assertEquals(List.of("0", "1", "2"), iterator.asyncScrollIds);
+    assertEquals("3", iterator.getScrollId());
+
+    iterator.close();
+    iterator.next();
+    assertEquals(List.of("0", "1", "2"), iterator.asyncScrollIds);
+    assertEquals("3", iterator.getScrollId());
+  }
+
+  private static int consume(SearchApiIterator<SearchHit> iterator) {
+    var hits = 0;
+    while (iterator.hasNext()) hits += iterator.next().length;
+    return hits;
+  }
+
+  private static SearchResponse page(int number, int hits) {
+    var searchHits = new SearchHit[hits];
+    for (var i = 0; i < hits; i++) searchHits[i] = new SearchHit(number * 10 + i);
+
+    var response = mock(SearchResponse.class);
+    when(response.getHits())
+        .thenReturn(new SearchHits(searchHits, new TotalHits(hits, EQUAL_TO), 0));
+    when(response.getScrollId()).thenReturn(String.valueOf(number));
+    return response;
+  }
+
+  private class ScrollIterator extends SearchApiIterator<SearchHit> {
+    private final Queue<Object> pages;
+    private final List<String> scrollIds = new ArrayList<>();
+    private final List<String> asyncScrollIds = new ArrayList<>();
+
+    ScrollIterator(SearchResponse first, int prefetch, Object... pages) {
+      this(first, prefetch, new LinkedList<>(List.of(pages)));
+    }
+
+    private ScrollIterator(SearchResponse first, int prefetch, Queue<Object> pages) {
+      super(mock(RestHighLevelClient.class), first, scroll, MAX_VALUE, prefetch);
+      this.pages = pages;
+    }
+
+    @Override
+    SearchResponse scroll(SearchScrollRequest scrollRequest) {
+      scrollIds.add(scrollRequest.scrollId());
+      return (SearchResponse) pages.remove();
+    }
+
+    @Override
+    void scrollAsync(SearchScrollRequest scrollRequest, ActionListener<SearchResponse> listener) {
+      asyncScrollIds.add(scrollRequest.scrollId());
+      var page = pages.remove();
+      if (page instanceof Exception) listener.onFailure((Exception) page);
+      else listener.onResponse((SearchResponse) page);
+    }
+  }
+}
@@ -0,0 +1,227 @@
+package com.grupozap.search.api.model;
+
+import static java.lang.Integer.MAX_VALUE;
+import static org.apache.lucene.search.TotalHits.Relation.EQUAL_TO;
+import static org.elasticsearch.common.unit.TimeValue.timeValueMillis;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.grupozap.search.api.exception.FailedShardsException;
+import com.grupozap.search.api.exception.QueryTimeoutException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+import org.apache.lucene.search.TotalHits;
+import org.elasticsearch.action.ActionListener;
+import org.elasticsearch.action.search.SearchRequest;
+import org.elasticsearch.action.search.SearchResponse;
+import org.elasticsearch.action.search.SearchScrollRequest;
+import org.elasticsearch.client.RestHighLevelClient;
+import org.elasticsearch.search.Scroll;
+import org.elasticsearch.search.SearchHit;
+import org.elasticsearch.search.SearchHits;
+import org.elasticsearch.search.builder.SearchSourceBuilder;
+import org.junit.Test;
+
+public class SlicedSearchApiIteratorTest {
+
+  @Test
+  public void shouldMergeAllSlices() {
+    var iterator = new SlicedIterator(MAX_VALUE);
+    iterator.slice(0, page(0, 3), page(0, 2), page(0, 0));
+    iterator.slice(1, page(1, 1), page(1, 0));
+
+    assertEquals(6, consume(iterator));
+    assertEquals(6, iterator.getCount());
+    assertEquals(List.of(0, 1), iterator.searchedSlices);
+  }
+
+  @Test
+  public void shouldLimitTheTotalOfHits() {
+    var iterator = new SlicedIterator(4);
+    iterator.slice(0, page(0, 3), page(0, 3), page(0, 0));
+    iterator.slice(1, page(1, 3), page(1, 3), page(1, 0));
+
+    assertEquals(4, consume(iterator));
+    assertEquals(4, iterator.getCount());
+    assertFalse(iterator.hasNext());
+  }
+
+  @Test
+  public void shouldKeepOnePageAheadPerSlice() {
+    var iterator = new SlicedIterator(MAX_VALUE);
+    iterator.slice(0, page(0, 1), page(0, 1), page(0, 0));
+    iterator.slice(1, page(1, 1), page(1, 0));
+
+    assertTrue(iterator.hasNext());
+    assertEquals(2, iterator.searchedSlices.size());
+    assertEquals(0, iterator.scrollIds.size());
+
+    iterator.next();
+    assertEquals(1, iterator.scrollIds.size());
+  }
+
+  @Test(expected = FailedShardsException.class)
+  public void shouldThrowFailedShards() {
+    var failed = page(1, 1);
+    when(failed.getFailedShards()).thenReturn(1);
+    when(failed.getTotalShards()).thenReturn(2);
+
+    var iterator = new SlicedIterator(MAX_VALUE);
+    iterator.slice(0, page(0, 1), page(0, 0));
+    iterator.slice(1, failed);
+
+    consume(iterator);
+  }
+
+  @Test(expected = QueryTimeoutException.class)
+  public void shouldThrowQueryTimeoutOnAnyTimedOutPage() {
+    var timedOut = page(0, 1);
+    when(timedOut.isTimedOut()).thenReturn(true);
+
+    var iterator = new SlicedIterator(MAX_VALUE);
+    iterator.slice(0, page(0, 1), timedOut, page(0, 0));
+    iterator.slice(1, page(1, 0));
+
+    consume(iterator);
+  }
+
+  @Test
+  public void shouldKeepTheScrollIdOfAFailedPage() {
+    var failed = page(1, 1);
+    when(failed.getFailedShards()).thenReturn(1);
+    when(failed.getTotalShards()).thenReturn(2);
+
+    var iterator = new SlicedIterator(MAX_VALUE);
+    iterator.slice(0, page(0, 1), page(0, 0));
+    iterator.slice(1, failed);
+
+    try {
+      consume(iterator);
+      fail();
+    } catch (FailedShardsException e) {
+      assertEquals(List.of("0", "1"), iterator.getScrollIds());
+    }
+  }
+
+  @Test
+  public void shouldClearTheScrollOfPagesArrivingOnceClosed() {
+    var iterator = new SlicedIterator(MAX_VALUE);
+    iterator.deferred = true;
+    iterator.slice(0, page(0, 1), page(0, 0));
+    iterator.slice(1, page(1, 1), page(1, 0));
+
+    iterator.hasNextAsync();
+    iterator.respond(0);
+    iterator.close();
+    iterator.respond(1);
+
+    assertEquals(List.of("0"), iterator.getScrollIds());
+    assertEquals(List.of("1"), iterator.clearedScrollIds);
+  }
+
+  @Test
+  public void shouldSupplyTheScrollOfEachPage() {
+    var keepAlives = new LinkedList<>(List.of(1000L, 2000L, 3000L, 4000L, 5000L));
+    var iterator =
+        new SlicedIterator(MAX_VALUE, () -> new Scroll(timeValueMillis(keepAlives.remove())));
+    iterator.slice(0, page(0, 1), page(0, 0));
+    iterator.slice(1, page(1, 0));
+
+    consume(iterator);
+
+    assertEquals(List.of(1000L, 2000L, 3000L), iterator.keepAlives);
+  }
+
+  private static int consume(SlicedSearchApiIterator<SearchHit> iterator) {
+    var hits = 0;
+    while (iterator.hasNext()) hits += iterator.next().length;
+    return hits;
+  }
+
+  private static SearchResponse page(int slice, int hits) {
+    var searchHits = new SearchHit[hits];
+    for (var i = 0; i < hits; i++) searchHits[i] = new SearchHit(slice * 100 + i);
+
+    var response = mock(SearchResponse.class);
+    when(response.getHits())
+        .thenReturn(new SearchHits(searchHits, new TotalHits(hits, EQUAL_TO), 0));
+    when(response.getScrollId()).thenReturn(String.valueOf(slice));
+    return response;
+  }
+
+  private static class SlicedIterator extends SlicedSearchApiIterator<SearchHit> {
+    private final Map<Integer, Queue<SearchResponse>> pages = new HashMap<>();
+    private final List<Integer> searchedSlices = new ArrayList<>();
+    private final List<String> scrollIds = new ArrayList<>();
+    private final List<String> clearedScrollIds = new ArrayList<>();
+    private final List<Long> keepAlives = new ArrayList<>();
+    private final Map<Integer, ActionListener<SearchResponse>> pending = new ConcurrentHashMap<>();
+    private volatile boolean deferred;
+
+    SlicedIterator(int size) {
+      this(size, () -> new Scroll(timeValueMillis(1000)));
+    }
+
+    SlicedIterator(int size, Supplier<Scroll> scroll) {
+      super(
+          mock(RestHighLevelClient.class),
+          new SearchRequest("index").source(new SearchSourceBuilder().size(10)),
+          scroll,
+          2,
+          size,
+          1);
+    }
+
+    // Sends the first searches without waiting for their responses
+    void hasNextAsync() {
+      var thread = new Thread(this::hasNext);
+      thread.setDaemon(true);
+      thread.start();
+      while (pending.size() < 2) Thread.onSpinWait();
+    }
+
+    void respond(int slice) {
+      pending.remove(slice).onResponse(pages.get(slice).remove());
+    }
+
+    void slice(int slice, SearchResponse... responses) {
+      pages.put(slice, new LinkedList<>(List.of(responses)));
+    }
+
+    @Override
+    void search(SearchRequest searchRequest, ActionListener<SearchResponse> listener) {
+      var slice = searchRequest.source().slice().getId();
+      keepAlives.add(searchRequest.scroll().keepAlive().millis());
+      synchronized (this) {
+        searchedSlices.add(slice);
+        if (deferred) {
+          pending.put(slice, listener);
+          return;
+        }
+      }
+      listener.onResponse(pages.get(slice).remove());
+    }
+
+    @Override
+    void scroll(SearchScrollRequest scrollRequest, ActionListener<SearchResponse> listener) {
+      scrollIds.add(scrollRequest.scrollId());
+      keepAlives.add(scrollRequest.scroll().keepAlive().millis());
+      listener.onResponse(pages.get(Integer.valueOf(scrollRequest.scrollId())).remove());
+    }
+
+    @Override
+    void clearScroll(String scrollId) {
+      clearedScrollIds.add(scrollId);
+    }
+  }
+}
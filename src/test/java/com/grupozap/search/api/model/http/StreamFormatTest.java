@@ -0,0 +1,22 @@
+package com.grupozap.search.api.model.http;
+
+import static com.grupozap.search.api.model.http.StreamFormat.ARROW;
+import static com.grupozap.search.api.model.http.StreamFormat.NDJSON;
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+public class StreamFormatTest {
+
+  @Test
+  public void shouldDefaultToNdjson() {
+    assertEquals(NDJSON, StreamFormat.fromAccept(null));
+    assertEquals(NDJSON, StreamFormat.fromAccept("application/json"));
+  }
+
+  @Test
+  public void shouldPickTheArrowFormat() {
+    assertEquals(ARROW, StreamFormat.fromAccept("application/vnd.apache.arrow.stream"));
+    assertEquals(ARROW, StreamFormat.fromAccept("application/vnd.apache.arrow.stream, */*;q=0.1"));
+  }
+}
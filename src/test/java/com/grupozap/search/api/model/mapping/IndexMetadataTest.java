@@ -0,0 +1,96 @@
+package com.grupozap.search.api.model.mapping;
+
+import static com.grupozap.search.api.model.mapping.IndexMetadata.REPLICAS;
+import static com.grupozap.search.api.model.mapping.IndexMetadata.SHARDS;
+import static com.grupozap.search.api.utils.MapperUtils.parser;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.junit.Test;
+
+public class IndexMetadataTest {
+
+  private static final String MAPPINGS =
+      "{\"_doc\":{\"dynamic\":\"strict\",\"properties\":{"
+          + "\"title\":{\"type\":\"text\",\"analyzer\":\"std\","
+          + "\"fields\":{\"raw\":{\"type\":\"keyword\",\"ignore_above\":64}}},"
+          + "\"address\":{\"properties\":{\"geo\":{\"type\":\"geo_point\"},"
+          + "\"type\":{\"type\":\"keyword\"}}},"
+          + "\"pricing\":{\"type\":\"nested\",\"properties\":{\"price\":{\"type\":\"long\"}}}}}}";
+
+  @Test
+  public void shouldFlattenTheFieldsOfTheMappings() {
+    var metadata = IndexMetadata.builder().mappings(parser(MAPPINGS)).build();
+
+    assertEquals(
+        Map.of(
+            "title", "text",
+            "title.raw", "keyword",
+            "address", "_obj",
+            "address.geo", "geo_point",
+            "address.type", "keyword",
+            "pricing", "nested",
+            "pricing.price", "long"),
+        metadata.getFieldTypes());
+    assertNull(metadata.getFieldType("title.analyzer"));
+    assertNull(metadata.getFieldType("dynamic"));
+  }
+
+  @Test
+  public void shouldFlattenAMappingWithoutType() {
+    var metadata =
+        IndexMetadata.builder()
+            .mappings(parser("{\"properties\":{\"id\":{\"type\":\"keyword\"}}}"))
+            .build();
+
+    assertEquals(Map.of("id", "keyword"), metadata.getFieldTypes());
+  }
+
+  @Test
+  public void shouldInternTheFieldTypes() {
+    var type = new String("keyword");
+    var metadata = IndexMetadata.builder().field("a", type).field("b", "keyword").build();
+
+    assertNotSame(type, metadata.getFieldType("a"));
+    assertSame(metadata.getFieldType("a"), metadata.getFieldType("b"));
+  }
+
+  @Test
+  public void shouldGetTheSettingsFieldsAndScripts() {
+    var metadata =
+        IndexMetadata.builder()
+            .shards(8)
+            .replicas(2)
+            .sortFields("created")
+            .sortOrders(List.of("desc"))
+            .field("id", "keyword")
+            .scripts(Set.of("index_score"))
+            .build();
+
+    assertEquals("8", metadata.get(SHARDS));
+    assertEquals("2", metadata.get(REPLICAS));
+    assertEquals("keyword", metadata.get("id"));
+    assertEquals("_script", metadata.get("index_score"));
+    assertNull(metadata.get("unknown"));
+    assertEquals(List.of("created"), metadata.getSortFields());
+    assertEquals(List.of("desc"), metadata.getSortOrders());
+    assertEquals(
+        Map.of(SHARDS, "8", REPLICAS, "2", "id", "keyword", "index_score", "_script"),
+        metadata.asMap());
+  }
+
+  @Test
+  public void shouldShareTheMetadataWithTheSameScripts() {
+    var metadata = IndexMetadata.builder().field("id", "keyword").scripts(Set.of("a")).build();
+    var withScripts = metadata.withScripts(Set.of("a", "b"));
+
+    assertSame(metadata, metadata.withScripts(List.of("a")));
+    assertSame(metadata.getFieldTypes(), withScripts.getFieldTypes());
+    assertEquals(Set.of("a", "b"), withScripts.getScripts());
+  }
+}
@@ -5,140 +5,160 @@ import static com.grupozap.search.api.model.query.GeoPointRadiusValue.DEFAULT_RA
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotEquals;
 
+import com.grupozap.search.api.model.query.Filter;
+import com.grupozap.search.api.model.query.QueryFragmentItem;
+import com.grupozap.search.api.model.query.QueryFragmentList;
 import com.grupozap.search.api.model.query.Value;
+import java.util.function.Function;
 import org.jparsec.error.ParserException;
 import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameters;
 
+@RunWith(Parameterized.class)
 public class FilterParserTest {
 
-  private final FilterParser filterParser;
+  private final Function<String, Filter> filterParser;
 
-  public FilterParserTest() {
-    this.filterParser =
+  public FilterParserTest(boolean recursiveDescent) {
+    var filterParser =
         new FilterParser(fieldParserFixture(), new OperatorParser(), new ValueParser());
+    if (recursiveDescent) {
+      // A query with a single filter
+      var queryParser = new RecursiveDescentQueryParser(filterParser.getFieldParser()::field);
+      this.filterParser =
+          filter -> {
+            var query = (QueryFragmentList) queryParser.parse(filter);
+            assertEquals(1, query.size());
+            return ((QueryFragmentItem) query.get(0)).getFilter();
+          };
+    } else {
+      this.filterParser = filterParser.get()::parse;
+    }
+  }
+
+  @Parameters(name = "recursiveDescent={0}")
+  public static Object[] parsers() {
+    return new Object[] {false, true};
   }
 
   @Test
   public void testSingleExpressionWithDoubleQuotes() {
-    filterParser.get().parse("field=\"value\"");
+    filterParser.apply("field=\"value\"");
   }
 
   @Test
   public void testSingleExpressionWithNumberField() {
-    var filter = filterParser.get().parse("field10=10");
+    var filter = filterParser.apply("field10=10");
     assertEquals("field10 EQUAL 10", filter.toString());
   }
 
   @Test
   public void testSingleExpressionWithSpacesAndSingleQuotes() {
-    var filter = filterParser.get().parse("field.field2 = 'space value'");
+    var filter = filterParser.apply("field.field2 = 'space value'");
     assertEquals("field.field2 EQUAL \"space value\"", filter.toString());
   }
 
   @Test
   public void testSingleExpressionWithINAndSpaces() {
-    var filter = filterParser.get().parse("list IN [\"a\", 'b']");
+    var filter = filterParser.apply("list IN [\"a\", 'b']");
     assertEquals("list IN [\"a\", \"b\"]", filter.toString());
   }
 
   @Test
   public void testEqualsLikeAsIN() {
-    var filter = filterParser.get().parse("list = [\"a\", 'b']");
+    var filter = filterParser.apply("list = [\"a\", 'b']");
     assertEquals("list EQUAL [\"a\", \"b\"]", filter.toString());
   }
 
   @Test(expected = ParserException.class)
   public void testINLikeAsEquals() {
-    filterParser.get().parse("list IN \"a\", \"b\"");
+    filterParser.apply("list IN \"a\", \"b\"");
   }
 
   @Test
   public void testFilterEmpty() {
-    var filter = filterParser.get().parse("field = \"\"");
+    var filter = filterParser.apply("field = \"\"");
     assertEquals("field EQUAL \"\"", filter.toString());
     assertNotEquals(filter.getValue(), Value.NULL_VALUE);
   }
 
   @Test
   public void testFilterNull() {
-    var filter = filterParser.get().parse("field = NULL");
+    var filter = filterParser.apply("field = NULL");
     assertEquals("field EQUAL NULL", filter.toString());
     assertEquals(filter.getValue(), Value.NULL_VALUE);
   }
 
   @Test
   public void testFilterQuotedNull() {
-    var filter = filterParser.get().parse("field = 'NULL'");
+    var filter = filterParser.apply("field = 'NULL'");
     assertNotEquals(filter.getValue(), Value.NULL_VALUE);
   }
 
   @Test
   public void testFilterBooleanTrue() {
-    var filterTrue = filterParser.get().parse("field = TRUE");
-    var filterTrueLowerCase = filterParser.get().parse("field = true");
+    var filterTrue = filterParser.apply("field = TRUE");
+    var filterTrueLowerCase = filterParser.apply("field = true");
     assertEquals("field EQUAL true", filterTrue.toString());
     assertEquals(filterTrue.toString(), filterTrueLowerCase.toString());
   }
 
   @Test
   public void testFilterBooleanFalse() {
-    var filterFalse = filterParser.get().parse("field = FALSE");
-    var filterTrueLowerCase = filterParser.get().parse("field = false");
+    var filterFalse = filterParser.apply("field = FALSE");
+    var filterTrueLowerCase = filterParser.apply("field = false");
     assertEquals("field EQUAL false", filterFalse.toString());
     assertEquals(filterFalse.toString(), filterTrueLowerCase.toString());
   }
 
   @Test(expected = ParserException.class)
   public void testInvalidRelationalViewports() {
-    filterParser
-        .get()
-        .parse("address.geoLocation EQ [[-23.5534103,-46.6597479],[-23.5534103,-46.6597479]]");
+    filterParser.apply(
+        "address.geoLocation EQ [[-23.5534103,-46.6597479],[-23.5534103,-46.6597479]]");
   }
 
   @Test(expected = ParserException.class)
   public void testInvalidSingleViewports() {
-    filterParser.get().parse("address.geoLocation VIEWPORT [[-23.5534103,-46.6597479]]");
+    filterParser.apply("address.geoLocation VIEWPORT [[-23.5534103,-46.6597479]]");
   }
 
   @Test(expected = ParserException.class)
   public void testInvalidMultipleViewports() {
-    filterParser
-        .get()
-        .parse("address.geoLocation VIEWPORT [[-46.6597479],[-23.5534103,-46.6597479]]");
+    filterParser.apply("address.geoLocation VIEWPORT [[-46.6597479],[-23.5534103,-46.6597479]]");
   }
 
   @Test(expected = ParserException.class)
   public void testInvalidMultipleViewportsOnSecond() {
-    filterParser
-        .get()
-        .parse("address.geoLocation VIEWPORT [[-23.5534103,-46.6597479],[-23.5534103]]");
+    filterParser.apply("address.geoLocation VIEWPORT [[-23.5534103,-46.6597479],[-23.5534103]]");
   }
 
   @Test(expected = ParserException.class)
   public void testInvalidViewportSingleValue() {
-    filterParser.get().parse("address.geoLocation VIEWPORT \"df\"");
+    filterParser.apply("address.geoLocation VIEWPORT \"df\"");
   }
 
   @Test(expected = ParserException.class)
   public void testEmptyViewportsWithoutValue() {
-    filterParser.get().parse("address.geoLocation VIEWPORT");
+    filterParser.apply("address.geoLocation VIEWPORT");
   }
 
   @Test(expected = ParserException.class)
   public void testEmptyViewportsEmptyValue() {
-    filterParser.get().parse("address.geoLocation VIEWPORT []");
+    filterParser.apply("address.geoLocation VIEWPORT []");
   }
 
   @Test(expected = ParserException.class)
   public void testEmptyViewportsEmptyPoints() {
-    filterParser.get().parse("address.geoLocation VIEWPORT [,]");
+    filterParser.apply("address.geoLocation VIEWPORT [,]");
   }
 
   @Test
   public void testMultipleViewports() {
     var value =
         "address.geoLocation VIEWPORT [[-23.5534103,-46.6597479],[-23.5534103,-46.6597479]]";
-    var viewport = filterParser.get().parse(value);
+    var viewport = filterParser.apply(value);
     assertEquals(
         "address.geoLocation VIEWPORT [[-23.5534103, -46.6597479], [-23.5534103, -46.6597479]]",
         viewport.toString());
@@ -147,14 +167,14 @@ public class FilterParserTest {
   @Test(expected = ParserException.class)
   public void testSingleViewports() {
     var value = "address.geoLocation VIEWPORT [[-23.5534103,-46.6597479]]";
-    var viewport = filterParser.get().parse(value);
+    var viewport = filterParser.apply(value);
     assertEquals("address.geoLocation VIEWPORT [-23.5534103, -46.6597479]", viewport.toString());
   }
 
   @Test
   public void testMultipleViewportsWithAlias() {
     var value = "address.geoLocation @ [[-23.5534103,-46.6597479],[-23.5534103,-46.6597479]]";
-    var viewport = filterParser.get().parse(value);
+    var viewport = filterParser.apply(value);
     assertEquals(
         "address.geoLocation VIEWPORT [[-23.5534103, -46.6597479], [-23.5534103, -46.6597479]]",
         viewport.toString());
@@ -163,33 +183,33 @@ public class FilterParserTest {
   @Test
   public void testSingleLike() {
     var value = "field LIKE '% \\% _ \\_ * \\n ? \\x'";
-    var like = filterParser.get().parse(value);
+    var like = filterParser.apply(value);
     assertEquals("field LIKE \"* % ? _ \\* \n \\? \\x\"", like.toString());
   }
 
   @Test
   public void testSingleRange() {
     var value = "field RANGE [\"a\", 5]";
-    var like = filterParser.get().parse(value);
+    var like = filterParser.apply(value);
     assertEquals("field RANGE [\"a\", 5]", like.toString());
   }
 
   @Test(expected = ParserException.class)
   public void testSingleInvalidRange() {
     var value = "field RANGE [1,]";
-    filterParser.get().parse(value);
+    filterParser.apply(value);
   }
 
   @Test
   public void testFieldWithAlias() {
-    var filter = filterParser.get().parse("field_before_alias=10");
+    var filter = filterParser.apply("field_before_alias=10");
     assertEquals("field_after_alias EQUAL 10", filter.toString());
   }
 
   @Test
   public void testRadiusFilterWithDefaultDistance() {
     var value = "address.geoLocation RADIUS [-46.6597479,-23.5534103]";
-    var radius = filterParser.get().parse(value);
+    var radius = filterParser.apply(value);
     assertEquals(
         "address.geoLocation RADIUS [-46.6597479, -23.5534103], \""
             + DEFAULT_RADIUS_DISTANCE_VALUE.value()
@@ -201,7 +221,7 @@ public class FilterParserTest {
   public void testRadiusFilterWithDistanceInformedByClient() {
     var distance = "1km";
     var value = "address.geoLocation RADIUS [-46.6597479,-23.5534103] DISTANCE:'" + distance + "'";
-    var radius = filterParser.get().parse(value);
+    var radius = filterParser.apply(value);
     assertEquals(
         "address.geoLocation RADIUS [-46.6597479, -23.5534103], \"" + distance + "\"",
         radius.toString());
@@ -211,7 +231,7 @@ public class FilterParserTest {
   public void testRadiusFilterWithDistanceInformedByClientUsingCaseInsensitive() {
     var distance = "1km";
     var value = "address.geoLocation RADIUS [-46.6597479,-23.5534103] distance:'" + distance + "'";
-    var radius = filterParser.get().parse(value);
+    var radius = filterParser.apply(value);
     assertEquals(
         "address.geoLocation RADIUS [-46.6597479, -23.5534103], \"" + distance + "\"",
         radius.toString());
@@ -221,6 +241,6 @@ public class FilterParserTest {
   public void shouldLaunchAnExceptionWhenTheRadiusDistanceUnitIsInvalid() {
     var distance = "1KM";
     var value = "address.geoLocation RADIUS [-23.5534103,-46.6597479] distance:'" + distance + "'";
-    filterParser.get().parse(value);
+    filterParser.apply(value);
   }
 }
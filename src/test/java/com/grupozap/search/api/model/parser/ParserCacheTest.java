@@ -0,0 +1,96 @@
+package com.grupozap.search.api.model.parser;
+
+import static com.grupozap.search.api.fixtures.model.parser.ParserTemplateLoader.filterParserFixture;
+import static org.junit.Assert.*;
+
+import com.grupozap.search.api.model.query.QueryFragment;
+import com.grupozap.search.api.model.query.QueryFragmentList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import org.jparsec.error.ParserException;
+import org.junit.Test;
+
+public class ParserCacheTest {
+
+  private final AtomicReference<String> index = new AtomicReference<>("index-a");
+  private final AtomicLong mappingVersion = new AtomicLong();
+  private final AtomicLong aliasVersion = new AtomicLong();
+
+  private final ParserCache<QueryFragment> cache =
+      new ParserCache<>(100, index::get, mappingVersion::get, aliasVersion::get);
+
+  private final QueryParser queryParser =
+      new QueryParser(new OperatorParser(), filterParserFixture(), new NotParser(), cache);
+
+  @Test
+  public void shouldShareParsedQueryForSameIndexAndVersion() {
+    var first = queryParser.parse("field1 EQ 'value1' AND field2 NE 'value2'");
+    var second = queryParser.parse("field1 EQ 'value1' AND field2 NE 'value2'");
+
+    assertSame(first, second);
+    assertEquals(1, cache.size());
+  }
+
+  @Test
+  public void shouldNotShareParsedQueryBetweenIndices() {
+    var first = queryParser.parse("field1 EQ 'value1'");
+    index.set("index-b");
+    var second = queryParser.parse("field1 EQ 'value1'");
+
+    assertNotSame(first, second);
+    assertEquals(first, second);
+    assertEquals(2, cache.size());
+  }
+
+  @Test
+  public void shouldDropEntriesWhenVersionChanges() {
+    var first = queryParser.parse("field1 EQ 'value1'");
+    queryParser.parse("field2 EQ 'value2'");
+
+    mappingVersion.incrementAndGet();
+    var second = queryParser.parse("field1 EQ 'value1'");
+
+    assertNotSame(first, second);
+    assertEquals(1, cache.size());
+
+    aliasVersion.incrementAndGet();
+    var third = queryParser.parse("field1 EQ 'value1'");
+
+    assertNotSame(second, third);
+    assertEquals(1, cache.size());
+  }
+
+  @Test
+  public void shouldNotShareParsedQueryBetweenVersionsWithTheSameSum() {
+    mappingVersion.set(4);
+    aliasVersion.set(4);
+    var first = queryParser.parse("field1 EQ 'value1'");
+
+    mappingVersion.set(3);
+    aliasVersion.set(5);
+    queryParser.parse("field1 EQ 'value1'");
+
+    mappingVersion.set(4);
+    aliasVersion.set(4);
+    var second = queryParser.parse("field1 EQ 'value1'");
+
+    assertNotSame(first, second);
+    assertEquals(2, cache.size());
+  }
+
+  @Test
+  public void shouldNotCacheInvalidQueries() {
+    try {
+      queryParser.parse("field1 EQ");
+      fail("Expected ParserException");
+    } catch (ParserException e) {
+      assertEquals(0, cache.size());
+    }
+  }
+
+  @Test(expected = UnsupportedOperationException.class)
+  public void cachedQueryShouldBeImmutable() {
+    var query = (QueryFragmentList) queryParser.parse("field1 EQ 'value1'");
+    query.remove(0);
+  }
+}
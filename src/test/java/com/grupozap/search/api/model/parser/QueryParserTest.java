@@ -7,14 +7,24 @@ import com.grupozap.search.api.model.query.QueryFragment;
 import java.util.Collections;
 import org.jparsec.error.ParserException;
 import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameters;
 
+@RunWith(Parameterized.class)
 public class QueryParserTest {
 
   private final QueryParser queryParser;
 
-  public QueryParserTest() {
+  public QueryParserTest(boolean recursiveDescent) {
     this.queryParser =
-        new QueryParser(new OperatorParser(), filterParserFixture(), new NotParser());
+        new QueryParser(
+            new OperatorParser(), filterParserFixture(), new NotParser(), null, recursiveDescent);
+  }
+
+  @Parameters(name = "recursiveDescent={0}")
+  public static Object[] parsers() {
+    return new Object[] {false, true};
   }
 
   @Test
@@ -0,0 +1,139 @@
+package com.grupozap.search.api.model.parser;
+
+import static com.grupozap.search.api.fixtures.model.parser.ParserTemplateLoader.filterParserFixture;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import com.grupozap.search.api.model.query.Filter;
+import com.grupozap.search.api.model.query.QueryFragmentItem;
+import com.grupozap.search.api.model.query.QueryFragmentList;
+import com.grupozap.search.api.model.query.Value;
+import java.util.function.Function;
+import org.jparsec.error.ParserException;
+import org.junit.Test;
+
+public class RecursiveDescentQueryParserTest {
+
+  // Corner cases of the jparsec grammar the hand-written parser must reproduce
+  private static final String[] QUERIES = {
+    "",
+    "()",
+    "  a = 1  ",
+    "a = [1]  ",
+    "(a = 1) (b = 2)",
+    "a = [1] b = 1",
+    "a = 1 ANDROID = 2",
+    "a = 1 AND",
+    "a = 1 &&b = 1",
+    "a=1AND b=1",
+    "a = 1 AND NOTb = 1",
+    "NOTa = 1",
+    "NOT(a=1)",
+    "a = 1 OR OR b = 2",
+    "a = 1 OROR b = 1",
+    "a = 1 OROR:1",
+    "a = 1 and b = 2",
+    "a = 1 AND (b = [1,])",
+    "a = 1 AND (b = 1 OR OR c = 1)",
+    "(a = 1 ;)",
+    "a = 1)",
+    "AND a = 1",
+    "(AND a = 1)",
+    "NOT NOT a = 1",
+    "a = 1 AND (NOT NOT b = 1)",
+    "invalid = 1",
+    "a = 1 AND invalid = 1",
+    "invalid. = 1",
+    "a.b.c = 1",
+    "a..b = 1",
+    "a = -1",
+    "a = .5",
+    "a = 1.",
+    "a = 1.5.5",
+    "a = - 1",
+    "a = 1234567890123456789",
+    "a = 9999999999999999999",
+    "a = 99999999999999999999.5",
+    "a = TRUE1",
+    "a = nUlL",
+    "a = 'it''s'",
+    "a = ' x '",
+    "a = 'x\"y'",
+    "a = \"a\\\"b\"",
+    "a = 'a\\'b'",
+    "a = 'a",
+    "a IN []",
+    "a IN [ ]",
+    "a IN [ 1 ]",
+    "a IN[1]",
+    "a EQ1",
+    "a INTO [1]",
+    "a EQUALS 1",
+    "a LESS_EQUAL 1",
+    "a LIKE '%x_' AND b = 1",
+    "a LIKE 1",
+    "a RANGE [1,2,3]",
+    "a RANGE []",
+    "a VIEWPORT [[1.0,2.0] , [3.0,4.0]]",
+    "a VIEWPORT [[1.0,2.0],[3.0,4.0] ]",
+    "a VIEWPORT [ [1.0,2.0],[3.0,4.0]]",
+    "a POLYGON [[1.0,2.0],[3.0,4.0],[5.0,6.0]]",
+    "a RADIUS [1.0,2.0]  ",
+    "a RADIUS [1.0,2.0] distance : '3km' AND b = 1",
+    "a RADIUS [1.0,2.0] DISTANCE:3",
+    "a RADIUS [1.0,2.0] DISTANCE:'3 km'",
+    "a = 1\nAND b = 2 ;"
+  };
+
+  @Test
+  public void shouldParseLikeJparsec() {
+    var filterParser = filterParserFixture();
+    var jparsec = new QueryParser(new OperatorParser(), filterParser, new NotParser());
+    var recursiveDescent = new RecursiveDescentQueryParser(filterParser.getFieldParser()::field);
+
+    for (var query : QUERIES) {
+      assertEquals(query, result(jparsec::parse, query), result(recursiveDescent::parse, query));
+    }
+  }
+
+  @Test
+  public void shouldKeepTheValueTypes() {
+    assertEquals(new Value(1L), filter("a = 1").getValue());
+    assertEquals(new Value(1.5), filter("a = 1.5").getValue());
+    assertEquals(new Value(-1.0), filter("a = -1").getValue());
+    assertEquals(new Value(true), filter("a = true").getValue());
+    assertSame(Value.NULL_VALUE, filter("a = null").getValue());
+  }
+
+  @Test
+  public void shouldReportTheFailurePosition() {
+    try {
+      parser().parse("a = 1 AND b = 2 ;");
+    } catch (ParserException e) {
+      assertEquals(1, e.getLine());
+      assertEquals(17, e.getColumn());
+      assertTrue(e.getMessage().endsWith("logical operator expected, ; encountered."));
+      return;
+    }
+    throw new AssertionError("ParserException expected");
+  }
+
+  private static Filter filter(String query) {
+    var fragments = (QueryFragmentList) parser().parse(query);
+    return ((QueryFragmentItem) fragments.get(0)).getFilter();
+  }
+
+  private static RecursiveDescentQueryParser parser() {
+    return new RecursiveDescentQueryParser(filterParserFixture().getFieldParser()::field);
+  }
+
+  private static String result(Function<String, Object> parser, String query) {
+    try {
+      return parser.apply(query).toString();
+    } catch (ParserException e) {
+      var cause = e.getCause() == null ? "" : " (" + e.getCause().getClass().getSimpleName() + ")";
+      return e.getMessage() + cause;
+    }
+  }
+}
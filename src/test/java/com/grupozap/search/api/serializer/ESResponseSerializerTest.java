@@ -1,6 +1,7 @@
 package com.grupozap.search.api.serializer;
 
 import static com.grupozap.search.api.model.http.SearchApiRequestBuilder.INDEX_NAME;
+import static java.nio.charset.StandardCharsets.UTF_8;
 import static org.apache.lucene.search.TotalHits.Relation.*;
 import static org.assertj.core.util.Lists.newArrayList;
 import static org.elasticsearch.search.SearchHit.createFromMap;
@@ -302,4 +303,31 @@ public class ESResponseSerializerTest {
         expected,
         mapper.writeValueAsString(new SearchResponseEnvelope<>(INDEX_NAME, searchResponse)));
   }
+
+  @Test
+  public void shouldWriteTheSameResultsToStreamAndWriter() throws IOException {
+    var searchResponse = mock(SearchResponse.class);
+    var took = mock(TimeValue.class);
+    when(searchResponse.getTook()).thenReturn(took);
+    when(took.getMillis()).thenReturn(5L);
+
+    var hits = new SearchHit[3];
+    var searchHits = new SearchHits(hits, new TotalHits(hits.length, EQUAL_TO), 1.5f);
+    when(searchResponse.getHits()).thenReturn(searchHits);
+
+    for (var i = 0; i < hits.length; i++) {
+      Map<String, Object> values = new LinkedHashMap<>();
+      values.put("_source", new BytesArray("{\"id\":\"" + i + "\",\"title\":\"São Paulo ☂\"}"));
+      hits[i] = createFromMap(values);
+    }
+
+    var envelope = new SearchResponseEnvelope<>(INDEX_NAME, searchResponse);
+    var expected =
+        "{\"time\":5,\"maxScore\":1.5,\"totalCount\":3,\"result\":{\""
+            + INDEX_NAME
+            + "\":[{\"id\":\"0\",\"title\":\"São Paulo ☂\"},{\"id\":\"1\",\"title\":\"São Paulo ☂\"},{\"id\":\"2\",\"title\":\"São Paulo ☂\"}]}}";
+
+    assertEquals(expected, mapper.writeValueAsString(envelope));
+    assertEquals(expected, new String(mapper.writeValueAsBytes(envelope), UTF_8));
+  }
 }
@@ -0,0 +1,122 @@
+package com.grupozap.search.api.serializer;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.Collections.emptyMap;
+import static org.elasticsearch.index.seqno.SequenceNumbers.UNASSIGNED_SEQ_NO;
+import static org.junit.Assert.assertEquals;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.grupozap.search.api.model.serializer.MultiGetResponseEnvelope;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import org.elasticsearch.action.get.GetResponse;
+import org.elasticsearch.action.get.MultiGetItemResponse;
+import org.elasticsearch.action.get.MultiGetResponse;
+import org.elasticsearch.common.bytes.BytesArray;
+import org.elasticsearch.index.get.GetResult;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+public class MultiGetResponseSerializerTest {
+
+  private static final ObjectMapper mapper = new ObjectMapper();
+
+  @BeforeClass
+  public static void setup() {
+    mapper.registerModule(new SimpleModule().addSerializer(new MultiGetResponseSerializer()));
+  }
+
+  @Test
+  public void shouldWriteFoundDocumentsInOrderAndReportMissingIds() throws IOException {
+    var envelope =
+        new MultiGetResponseEnvelope(
+            "index",
+            new MultiGetResponse(
+                new MultiGetItemResponse[] {
+                  found("2", "{\"id\":\"2\"}"),
+                  missing("3"),
+                  found("1", "{\"id\":\"1\"}"),
+                  failed("4")
+                }));
+
+    var expected =
+        "{\"totalCount\":2,\"result\":{\"index\":[{\"id\":\"2\"},{\"id\":\"1\"}]},"
+            + "\"missing\":[\"3\"],\"failures\":{\"4\":\"shard failure\"}}";
+
+    assertEquals(expected, mapper.writeValueAsString(envelope));
+
+    var out = new ByteArrayOutputStream();
+    mapper.writeValue(out, envelope);
+    assertEquals(expected, out.toString(UTF_8));
+  }
+
+  @Test
+  public void shouldWriteEmptyResultWhenNothingIsFound() throws IOException {
+    var envelope =
+        new MultiGetResponseEnvelope(
+            "index", new MultiGetResponse(new MultiGetItemResponse[] {missing("1")}));
+
+    assertEquals(
+        "{\"totalCount\":0,\"result\":{\"index\":[]},\"missing\":[\"1\"]}",
+        mapper.writeValueAsString(envelope));
+  }
+
+  @Test
+  public void shouldReportFoundDocumentsWithoutSourceAsFound() throws IOException {
+    var envelope =
+        new MultiGetResponseEnvelope(
+            "index",
+            new MultiGetResponse(
+                new MultiGetItemResponse[] {found("1", null), found("2", "{\"id\":\"2\"}")}));
+
+    var expected = "{\"totalCount\":2,\"result\":{\"index\":[{},{\"id\":\"2\"}]},\"missing\":[]}";
+
+    assertEquals(expected, mapper.writeValueAsString(envelope));
+
+    var out = new ByteArrayOutputStream();
+    mapper.writeValue(out, envelope);
+    assertEquals(expected, out.toString(UTF_8));
+  }
+
+  private static MultiGetItemResponse found(String id, String source) {
+    return new MultiGetItemResponse(
+        new GetResponse(
+            new GetResult(
+                "index",
+                "_doc",
+                id,
+                0,
+                1,
+                1,
+                true,
+                source == null ? null : new BytesArray(source),
+                emptyMap(),
+                emptyMap())),
+        null);
+  }
+
+  private static MultiGetItemResponse missing(String id) {
+    return new MultiGetItemResponse(
+        new GetResponse(
+            new GetResult(
+                "index",
+                "_doc",
+                id,
+                UNASSIGNED_SEQ_NO,
+                0,
+                -1,
+                false,
+                null,
+                emptyMap(),
+                emptyMap())),
+        null);
+  }
+
+  private static MultiGetItemResponse failed(String id) {
+    return new MultiGetItemResponse(
+        null,
+        new MultiGetResponse.Failure(
+            "index", "_doc", id, new IllegalStateException("shard failure")));
+  }
+}
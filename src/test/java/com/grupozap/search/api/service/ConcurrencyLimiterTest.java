@@ -0,0 +1,115 @@
+package com.grupozap.search.api.service;
+
+import static com.grupozap.search.api.service.ConcurrencyLimiter.DROPPED;
+import static com.grupozap.search.api.service.ConcurrencyLimiter.LIMIT;
+import static com.grupozap.search.api.service.ConcurrencyLimiter.Path.GET;
+import static com.grupozap.search.api.service.ConcurrencyLimiter.Path.SEARCH;
+import static com.grupozap.search.api.service.ConcurrencyLimiter.REJECTED;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import com.grupozap.search.api.exception.ConcurrencyLimitExceededException;
+import com.grupozap.search.api.exception.QueryTimeoutException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import org.elasticsearch.ElasticsearchStatusException;
+import org.elasticsearch.rest.RestStatus;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ConcurrencyLimiterTest {
+
+  private SimpleMeterRegistry registry;
+  private ConcurrencyLimiter limiter;
+
+  @Before
+  public void setup() {
+    registry = new SimpleMeterRegistry();
+    limiter = new ConcurrencyLimiter(registry, true, 2, 1, 10, 3);
+  }
+
+  @Test
+  public void shouldRejectOverTheLimitOfThePath() {
+    limiter.acquire(SEARCH);
+    limiter.acquire(SEARCH);
+    limiter.acquire(GET);
+
+    try {
+      limiter.acquire(SEARCH);
+      fail("ConcurrencyLimitExceededException expected");
+    } catch (ConcurrencyLimitExceededException e) {
+      assertEquals(3, e.getRetryAfterSeconds());
+    }
+    assertEquals(1, registry.counter(REJECTED, "path", "search").count(), 0);
+    assertEquals(2, registry.get(LIMIT).tag("path", "search").gauge().value(), 0);
+  }
+
+  @Test
+  public void shouldReleaseThePermitOnce() throws Exception {
+    var permit = limiter.acquire(SEARCH);
+    permit.success();
+    permit.failure(new RuntimeException());
+    assertEquals(0, limiter.getInFlight(SEARCH));
+
+    assertEquals("ok", limiter.execute(SEARCH, () -> "ok"));
+    assertEquals(0, limiter.getInFlight(SEARCH));
+  }
+
+  @Test
+  public void shouldBackOffWhenTheCallIsDropped() {
+    limiter = new ConcurrencyLimiter(registry, true, 10, 1, 10, 1);
+    try {
+      limiter.execute(
+          SEARCH,
+          () -> {
+            throw new ElasticsearchStatusException("rejected", RestStatus.TOO_MANY_REQUESTS);
+          });
+      fail("ElasticsearchStatusException expected");
+    } catch (Exception e) {
+      assertEquals(9, limiter.getLimit(SEARCH));
+      assertEquals(0, limiter.getInFlight(SEARCH));
+      assertEquals(1, registry.counter(DROPPED, "path", "search").count(), 0);
+    }
+  }
+
+  @Test
+  public void shouldOnlyDropOnTimeoutsAndRejections() {
+    assertTrue(ConcurrencyLimiter.isDropped(new RuntimeException(new QueryTimeoutException())));
+    assertTrue(
+        ConcurrencyLimiter.isDropped(
+            new ElasticsearchStatusException("", RestStatus.TOO_MANY_REQUESTS)));
+    assertFalse(
+        ConcurrencyLimiter.isDropped(new ElasticsearchStatusException("", RestStatus.BAD_REQUEST)));
+    assertFalse(ConcurrencyLimiter.isDropped(new IllegalArgumentException()));
+  }
+
+  @Test
+  public void shouldFailTheFutureWhenRejected() throws Exception {
+    var pending = new CompletableFuture<String>();
+    limiter.executeAsync(GET, () -> pending);
+    limiter.executeAsync(GET, () -> pending);
+
+    try {
+      limiter.executeAsync(GET, () -> CompletableFuture.completedFuture("x")).get();
+      fail("ConcurrencyLimitExceededException expected");
+    } catch (ExecutionException e) {
+      assertTrue(e.getCause() instanceof ConcurrencyLimitExceededException);
+    }
+
+    pending.complete("done");
+    assertEquals(0, limiter.getInFlight(GET));
+  }
+
+  @Test
+  public void shouldNotLimitWhenDisabled() throws Exception {
+    limiter = new ConcurrencyLimiter(registry, false, 1, 1, 1, 1);
+    limiter.acquire(SEARCH);
+    limiter.acquire(SEARCH);
+
+    assertEquals("ok", limiter.execute(SEARCH, () -> "ok"));
+    assertEquals(0, limiter.getInFlight(SEARCH));
+  }
+}
@@ -0,0 +1,166 @@
+package com.grupozap.search.api.service;
+
+import static com.grupozap.search.api.configuration.environment.RemoteProperties.ES_GET_BY_ID_BATCH_SIZE;
+import static com.grupozap.search.api.configuration.environment.RemoteProperties.ES_GET_BY_ID_BATCH_WINDOW;
+import static com.grupozap.search.api.service.GetByIdBatcher.BATCH_SIZE;
+import static com.grupozap.search.api.service.GetByIdBatcher.BATCH_WAIT;
+import static java.util.Collections.emptyMap;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static java.util.stream.Collectors.toList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.mock;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import org.elasticsearch.action.ActionListener;
+import org.elasticsearch.action.get.GetRequest;
+import org.elasticsearch.action.get.GetResponse;
+import org.elasticsearch.action.get.MultiGetItemResponse;
+import org.elasticsearch.action.get.MultiGetRequest;
+import org.elasticsearch.action.get.MultiGetResponse;
+import org.elasticsearch.client.RestHighLevelClient;
+import org.elasticsearch.common.bytes.BytesArray;
+import org.elasticsearch.index.get.GetResult;
+import org.elasticsearch.search.fetch.subphase.FetchSourceContext;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class GetByIdBatcherTest {
+
+  private static final String INDEX = "batching";
+
+  private SimpleMeterRegistry registry;
+  private List<MultiGetRequest> requests;
+  private GetByIdBatcher batcher;
+
+  @Before
+  public void setup() {
+    ES_GET_BY_ID_BATCH_WINDOW.setValue(INDEX, 20);
+    ES_GET_BY_ID_BATCH_SIZE.setValue(INDEX, 50);
+
+    registry = new SimpleMeterRegistry();
+    requests = new CopyOnWriteArrayList<>();
+    batcher =
+        new GetByIdBatcher(mock(RestHighLevelClient.class), registry) {
+          @Override
+          void mget(MultiGetRequest request, ActionListener<MultiGetResponse> listener) {
+            requests.add(request);
+            listener.onResponse(respond(request));
+          }
+        };
+  }
+
+  @After
+  public void tearDown() {
+    batcher.shutdown();
+  }
+
+  @Test
+  public void shouldNotBatchRealtimeGetsOrWithoutWindow() {
+    assertTrue(batcher.isEnabled(get("1")));
+    assertFalse(batcher.isEnabled(get("1").realtime(true)));
+
+    ES_GET_BY_ID_BATCH_WINDOW.setValue(INDEX, 0);
+    assertFalse(batcher.isEnabled(get("1")));
+  }
+
+  @Test
+  public void shouldSendTheGetsOfTheWindowInASingleMultiGet() throws Exception {
+    var first = batcher.submit(get("1"));
+    var second = batcher.submit(get("2"));
+    var third = batcher.submit(get("3"));
+
+    assertEquals("1", first.get(1, SECONDS).getId());
+    assertEquals("2", second.get(1, SECONDS).getId());
+    assertEquals("3", third.get(1, SECONDS).getId());
+
+    assertEquals(1, requests.size());
+    assertEquals(List.of("1", "2", "3"), ids(requests.get(0)));
+    assertFalse(requests.get(0).realtime());
+    assertEquals(0, batcher.pendingBatches());
+
+    assertEquals(3, registry.get(BATCH_SIZE).tag("index", INDEX).summary().totalAmount(), 0);
+    assertEquals(3, registry.get(BATCH_WAIT).tag("index", INDEX).timer().count());
+  }
+
+  @Test
+  public void shouldSendRightAwayWhenTheBatchIsFull() throws Exception {
+    ES_GET_BY_ID_BATCH_WINDOW.setValue(INDEX, 60000);
+    ES_GET_BY_ID_BATCH_SIZE.setValue(INDEX, 2);
+
+    var first = batcher.submit(get("1"));
+    assertFalse(first.isDone());
+
+    batcher.submit(get("2"));
+    assertTrue(first.isDone());
+    assertEquals(1, requests.size());
+  }
+
+  @Test
+  public void shouldBatchEachProjectionApart() throws Exception {
+    var all = batcher.submit(get("1"));
+    var projected =
+        batcher.submit(
+            get("2").fetchSourceContext(new FetchSourceContext(true, new String[] {"id"}, null)));
+
+    all.get(1, SECONDS);
+    projected.get(1, SECONDS);
+
+    assertEquals(2, requests.size());
+  }
+
+  @Test
+  public void shouldFailOnlyTheGetsThatFailed() throws Exception {
+    var found = batcher.submit(get("1"));
+    var failed = batcher.submit(get("fail"));
+
+    assertEquals("1", found.get(1, SECONDS).getId());
+    try {
+      failed.get(1, SECONDS);
+      fail("Expected the get to fail");
+    } catch (ExecutionException e) {
+      assertEquals("shard failure", e.getCause().getMessage());
+    }
+  }
+
+  private static GetRequest get(String id) {
+    return new GetRequest(INDEX, id).realtime(false);
+  }
+
+  private static List<String> ids(MultiGetRequest request) {
+    return request.getItems().stream().map(MultiGetRequest.Item::id).collect(toList());
+  }
+
+  private static MultiGetResponse respond(MultiGetRequest request) {
+    return new MultiGetResponse(
+        request.getItems().stream()
+            .map(
+                item ->
+                    "fail".equals(item.id())
+                        ? new MultiGetItemResponse(
+                            null,
+                            new MultiGetResponse.Failure(
+                                INDEX, "_doc", item.id(), new RuntimeException("shard failure")))
+                        : new MultiGetItemResponse(
+                            new GetResponse(
+                                new GetResult(
+                                    INDEX,
+                                    "_doc",
+                                    item.id(),
+                                    0,
+                                    1,
+                                    1,
+                                    true,
+                                    new BytesArray("{}"),
+                                    emptyMap(),
+                                    emptyMap())),
+                            null))
+            .toArray(MultiGetItemResponse[]::new));
+  }
+}
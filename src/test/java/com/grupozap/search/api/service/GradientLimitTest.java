@@ -0,0 +1,63 @@
+package com.grupozap.search.api.service;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class GradientLimitTest {
+
+  @Test
+  public void shouldRejectOverTheLimit() {
+    var limit = new GradientLimit(2, 1, 10);
+
+    assertEquals(0, limit.tryAcquire());
+    assertEquals(1, limit.tryAcquire());
+    assertEquals(-1, limit.tryAcquire());
+
+    limit.release();
+    assertEquals(1, limit.tryAcquire());
+    assertEquals(2, limit.getInFlight());
+  }
+
+  @Test
+  public void shouldGrowWhileTheLatencyIsFlat() {
+    var limit = new GradientLimit(10, 1, 100);
+
+    for (var i = 0; i < 50; i++) limit.onSample(MILLISECONDS.toNanos(10), limit.getLimit() - 1);
+
+    assertTrue(limit.getLimit() > 20);
+  }
+
+  @Test
+  public void shouldShrinkWhenTheLatencyGoesUp() {
+    var limit = new GradientLimit(50, 1, 100);
+    for (var i = 0; i < 100; i++) limit.onSample(MILLISECONDS.toNanos(10), 49);
+    var before = limit.getLimit();
+
+    for (var i = 0; i < 20; i++) limit.onSample(MILLISECONDS.toNanos(100), limit.getLimit() - 1);
+
+    assertTrue(limit.getLimit() < before / 2);
+  }
+
+  @Test
+  public void shouldNotGrowFarFromTheLimit() {
+    var limit = new GradientLimit(10, 1, 100);
+
+    for (var i = 0; i < 50; i++) limit.onSample(MILLISECONDS.toNanos(10), 0);
+
+    assertEquals(10, limit.getLimit());
+  }
+
+  @Test
+  public void shouldBackOffOnDropsDownToTheMinimum() {
+    var limit = new GradientLimit(10, 5, 100);
+
+    limit.onDropped();
+    assertEquals(9, limit.getLimit());
+
+    for (var i = 0; i < 20; i++) limit.onDropped();
+    assertEquals(5, limit.getLimit());
+  }
+}
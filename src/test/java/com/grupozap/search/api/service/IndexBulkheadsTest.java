@@ -0,0 +1,166 @@
+package com.grupozap.search.api.service;
+
+import static com.grupozap.search.api.configuration.environment.RemoteProperties.ES_BULKHEAD_ERROR_THRESHOLD;
+import static com.grupozap.search.api.configuration.environment.RemoteProperties.ES_BULKHEAD_GROUP;
+import static com.grupozap.search.api.configuration.environment.RemoteProperties.ES_BULKHEAD_MAX_CONCURRENT;
+import static com.grupozap.search.api.configuration.environment.RemoteProperties.ES_BULKHEAD_SLEEP_WINDOW;
+import static com.grupozap.search.api.configuration.environment.RemoteProperties.ES_BULKHEAD_VOLUME_THRESHOLD;
+import static com.grupozap.search.api.service.Bulkhead.State.CLOSED;
+import static com.grupozap.search.api.service.Bulkhead.State.HALF_OPEN;
+import static com.grupozap.search.api.service.Bulkhead.State.OPEN;
+import static com.grupozap.search.api.service.IndexBulkheads.REJECTED;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+import com.grupozap.search.api.exception.CircuitOpenException;
+import com.grupozap.search.api.exception.ConcurrencyLimitExceededException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.List;
+import java.util.Set;
+import org.elasticsearch.ElasticsearchStatusException;
+import org.elasticsearch.rest.RestStatus;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class IndexBulkheadsTest {
+
+  private static final String LISTINGS = "bulkhead-listings";
+  private static final String LISTINGS_V2 = "bulkhead-listings-v2";
+  private static final String USERS = "bulkhead-users";
+
+  private final long[] now = {0};
+
+  private SimpleMeterRegistry registry;
+  private IndexBulkheads bulkheads;
+
+  @Before
+  public void setup() {
+    registry = new SimpleMeterRegistry();
+    bulkheads = new IndexBulkheads(registry, 2, () -> now[0]);
+  }
+
+  @After
+  public void resetProperties() {
+    for (var index : List.of(LISTINGS, LISTINGS_V2, USERS)) {
+      ES_BULKHEAD_GROUP.setValue(index, null);
+      ES_BULKHEAD_MAX_CONCURRENT.setValue(index, null);
+      ES_BULKHEAD_ERROR_THRESHOLD.setValue(index, null);
+    }
+  }
+
+  @Test
+  public void shouldNotIsolateIndicesWithoutBulkhead() {
+    assertSame(Permit.NONE, bulkheads.acquire(USERS));
+    assertEquals(0, bulkheads.status().size());
+  }
+
+  @Test
+  public void shouldShareTheBudgetWithinTheGroupOnly() {
+    for (var index : List.of(LISTINGS, LISTINGS_V2)) {
+      ES_BULKHEAD_GROUP.setValue(index, "listings");
+      ES_BULKHEAD_MAX_CONCURRENT.setValue(index, 2);
+    }
+    ES_BULKHEAD_MAX_CONCURRENT.setValue(USERS, 1);
+
+    var permit = bulkheads.acquire(LISTINGS);
+    bulkheads.acquire(LISTINGS_V2);
+    bulkheads.acquire(USERS);
+
+    try {
+      bulkheads.acquire(LISTINGS);
+      fail("ConcurrencyLimitExceededException expected");
+    } catch (ConcurrencyLimitExceededException e) {
+      assertEquals(2, e.getRetryAfterSeconds());
+    }
+    assertEquals(1, registry.counter(REJECTED, "group", "listings", "reason", "full").count(), 0);
+
+    permit.success();
+    permit.success();
+    bulkheads.acquire(LISTINGS);
+    assertEquals(2, bulkheads.getBulkhead("listings").getInFlight());
+    assertEquals(Set.of(LISTINGS, LISTINGS_V2), bulkheads.status().get("listings").get("indices"));
+  }
+
+  @Test
+  public void shouldOpenTheBreakerOfTheFailingGroupOnly() throws Exception {
+    for (var index : List.of(LISTINGS, USERS)) {
+      ES_BULKHEAD_ERROR_THRESHOLD.setValue(index, 50);
+      ES_BULKHEAD_VOLUME_THRESHOLD.setValue(index, 4);
+      ES_BULKHEAD_SLEEP_WINDOW.setValue(index, 3000);
+    }
+
+    bulkheads.execute(LISTINGS, () -> "ok");
+    bulkheads.execute(LISTINGS, () -> "ok");
+    for (var i = 0; i < 2; i++) failing(LISTINGS);
+    assertEquals(OPEN, bulkheads.getBulkhead(LISTINGS).getState());
+
+    now[0] = 1000;
+    try {
+      bulkheads.acquire(LISTINGS);
+      fail("CircuitOpenException expected");
+    } catch (CircuitOpenException e) {
+      assertEquals(2, e.getRetryAfterSeconds());
+    }
+    assertEquals("ok", bulkheads.execute(USERS, () -> "ok"));
+
+    now[0] = 3000;
+    var trial = bulkheads.acquire(LISTINGS);
+    assertEquals(HALF_OPEN, bulkheads.getBulkhead(LISTINGS).getState());
+    try {
+      bulkheads.acquire(LISTINGS);
+      fail("CircuitOpenException expected");
+    } catch (CircuitOpenException expected) {
+    }
+
+    trial.success();
+    assertEquals(CLOSED, bulkheads.getBulkhead(LISTINGS).getState());
+    assertEquals(0L, bulkheads.status().get(LISTINGS).get("requests"));
+  }
+
+  @Test
+  public void shouldNotCountBadRequestsAsFailures() {
+    ES_BULKHEAD_ERROR_THRESHOLD.setValue(LISTINGS, 1);
+    ES_BULKHEAD_VOLUME_THRESHOLD.setValue(LISTINGS, 1);
+
+    bulkheads.acquire(LISTINGS).failure(new IllegalArgumentException());
+    bulkheads
+        .acquire(LISTINGS)
+        .failure(new ElasticsearchStatusException("not found", RestStatus.NOT_FOUND));
+    bulkheads.acquire(LISTINGS).failure(new ConcurrencyLimitExceededException("search", 1));
+    assertEquals(CLOSED, bulkheads.getBulkhead(LISTINGS).getState());
+
+    bulkheads
+        .acquire(LISTINGS)
+        .failure(new ElasticsearchStatusException("rejected", RestStatus.TOO_MANY_REQUESTS));
+    assertEquals(OPEN, bulkheads.getBulkhead(LISTINGS).getState());
+  }
+
+  @Test
+  public void shouldForgetTheFailuresOutOfTheWindow() throws Exception {
+    ES_BULKHEAD_ERROR_THRESHOLD.setValue(LISTINGS, 50);
+    ES_BULKHEAD_VOLUME_THRESHOLD.setValue(LISTINGS, 2);
+
+    failing(LISTINGS);
+    now[0] = 10000;
+    bulkheads.execute(LISTINGS, () -> "ok");
+    bulkheads.execute(LISTINGS, () -> "ok");
+    failing(LISTINGS);
+
+    assertEquals(CLOSED, bulkheads.getBulkhead(LISTINGS).getState());
+    assertEquals(33L, bulkheads.status().get(LISTINGS).get("errorPercentage"));
+  }
+
+  private void failing(String index) throws Exception {
+    try {
+      bulkheads.execute(
+          index,
+          () -> {
+            throw new ElasticsearchStatusException("failed", RestStatus.INTERNAL_SERVER_ERROR);
+          });
+      fail("ElasticsearchStatusException expected");
+    } catch (ElasticsearchStatusException expected) {
+    }
+  }
+}
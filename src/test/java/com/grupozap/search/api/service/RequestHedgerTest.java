@@ -0,0 +1,134 @@
+package com.grupozap.search.api.service;
+
+import static com.grupozap.search.api.configuration.environment.RemoteProperties.ES_HEDGE_BUDGET;
+import static com.grupozap.search.api.configuration.environment.RemoteProperties.ES_HEDGE_ENABLED;
+import static com.grupozap.search.api.service.RequestHedger.CALLS;
+import static com.grupozap.search.api.service.RequestHedger.MIN_SAMPLES;
+import static com.grupozap.search.api.service.RequestHedger.SENT;
+import static com.grupozap.search.api.service.RequestHedger.WON;
+import static java.util.concurrent.CompletableFuture.completedFuture;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class RequestHedgerTest {
+
+  private static final String INDEX = "hedged";
+
+  private SimpleMeterRegistry registry;
+  private RequestHedger hedger;
+
+  @Before
+  public void setup() {
+    ES_HEDGE_ENABLED.setValue(INDEX, true);
+    ES_HEDGE_BUDGET.setValue(INDEX, 5);
+    registry = new SimpleMeterRegistry();
+    hedger = new RequestHedger(registry);
+  }
+
+  @After
+  public void shutdown() {
+    ES_HEDGE_ENABLED.setValue(INDEX, null);
+    ES_HEDGE_BUDGET.setValue(INDEX, null);
+    hedger.shutdown();
+  }
+
+  @Test
+  public void shouldNotHedgeWithoutEnoughLatencies() throws Exception {
+    var hedges = new AtomicInteger();
+    var primary = new CompletableFuture<String>();
+
+    var result = hedger.execute(INDEX, () -> primary, () -> pending(hedges));
+    primary.complete("primary");
+
+    assertEquals("primary", result.get());
+    assertEquals(0, hedges.get());
+    assertTrue(hedger.isEnabled(INDEX));
+  }
+
+  @Test
+  public void shouldTakeTheHedgeWhenThePrimaryIsSlow() throws Exception {
+    warmUp();
+
+    var primary = new CompletableFuture<String>();
+    var result = hedger.execute(INDEX, () -> primary, () -> completedFuture("hedge"));
+
+    assertEquals("hedge", result.get(5, SECONDS));
+    primary.complete("primary");
+    assertEquals(1, registry.counter(SENT, "index", INDEX).count(), 0);
+    assertEquals(1, registry.counter(WON, "index", INDEX).count(), 0);
+    assertEquals(MIN_SAMPLES + 1, registry.counter(CALLS, "index", INDEX).count(), 0);
+  }
+
+  @Test
+  public void shouldHedgeWithinTheBudget() throws Exception {
+    warmUp();
+
+    // 100 calls earned 5 hedges at 5%
+    var hedges = new AtomicInteger();
+    for (var i = 0; i < 10; i++) {
+      var result = hedger.execute(INDEX, CompletableFuture::new, () -> pending(hedges));
+      try {
+        result.get(200, MILLISECONDS);
+      } catch (TimeoutException expected) {
+      }
+    }
+    assertEquals(5, hedges.get());
+    assertEquals(5, registry.counter(SENT, "index", INDEX).count(), 0);
+  }
+
+  @Test
+  public void shouldFailWithThePrimaryFailureOnceBothFailed() throws Exception {
+    warmUp();
+
+    var primary = new CompletableFuture<String>();
+    var hedge = new CompletableFuture<String>();
+    var sent = new CountDownLatch(1);
+    var result =
+        hedger.execute(
+            INDEX,
+            () -> primary,
+            () -> {
+              sent.countDown();
+              return hedge;
+            });
+
+    assertTrue(sent.await(5, SECONDS));
+    hedge.completeExceptionally(new IllegalStateException("hedge"));
+    assertFalse(result.isDone());
+
+    var failure = new IllegalStateException("primary");
+    primary.completeExceptionally(failure);
+    try {
+      result.get(5, SECONDS);
+      fail("ExecutionException expected");
+    } catch (ExecutionException e) {
+      assertSame(failure, e.getCause());
+    }
+    assertEquals(0, registry.counter(WON, "index", INDEX).count(), 0);
+  }
+
+  private void warmUp() {
+    for (var i = 0; i < MIN_SAMPLES; i++)
+      hedger.execute(INDEX, () -> completedFuture("primary"), () -> completedFuture("hedge"));
+  }
+
+  private static CompletableFuture<String> pending(AtomicInteger hedges) {
+    hedges.incrementAndGet();
+    return new CompletableFuture<>();
+  }
+}
@@ -3,6 +3,7 @@ package com.grupozap.search.api.service.parser.factory;
 import static br.com.six2six.fixturefactory.Fixture.from;
 import static com.google.common.collect.Lists.newArrayList;
 import static com.google.common.collect.Sets.newHashSet;
+import static com.grupozap.search.api.configuration.environment.RemoteProperties.DEFAULT_INDEX;
 import static com.grupozap.search.api.configuration.environment.RemoteProperties.FILTER_DEFAULT_CLAUSES;
 import static com.grupozap.search.api.fixtures.FixtureTemplateLoader.loadAll;
 import static java.util.Arrays.asList;
@@ -10,6 +11,7 @@ import static java.util.Collections.singleton;
 import static org.elasticsearch.index.query.QueryBuilders.boolQuery;
 import static org.junit.Assert.assertEquals;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verifyZeroInteractions;
 import static org.mockito.Mockito.when;
 
 import com.grupozap.search.api.adapter.FilterQueryAdapter;
@@ -54,6 +56,19 @@ public class DefaultFilterFactoryTest {
         new HashSet<>(), defaultFilterFactory.getDefaultFilters(SOME_INDEX, new HashSet<>()));
   }
 
+  @Test
+  public void noDefaultFiltersOfTheDefaultIndexForIndexWithoutProperties() {
+    FILTER_DEFAULT_CLAUSES.setValue(DEFAULT_INDEX, newArrayList("field:value"));
+    try {
+      assertEquals(
+          new HashSet<>(),
+          defaultFilterFactory.getDefaultFilters("index_without_properties", new HashSet<>()));
+      verifyZeroInteractions(queryParser, filterQueryAdapter);
+    } finally {
+      FILTER_DEFAULT_CLAUSES.setValue(DEFAULT_INDEX, null);
+    }
+  }
+
   @Test
   public void mustReturnSingleDefaultFilterForIndexWhenRequestDoesNotMatchFilterField() {
     QueryFragmentItem qfi = from(QueryFragmentItem.class).gimme("qfi");
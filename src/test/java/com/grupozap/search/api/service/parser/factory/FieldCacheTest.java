@@ -0,0 +1,145 @@
+package com.grupozap.search.api.service.parser.factory;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.mockito.internal.util.reflection.Whitebox.setInternalState;
+
+import com.grupozap.search.api.exception.InvalidFieldException;
+import com.grupozap.search.api.listener.SortRescoreListener;
+import com.grupozap.search.api.listener.SortRescoreListener.SortRescore;
+import com.grupozap.search.api.model.event.ClusterSettingsUpdatedEvent;
+import com.grupozap.search.api.model.mapping.IndexMetadata;
+import com.grupozap.search.api.service.parser.IndexSettings;
+import java.util.Map;
+import java.util.Set;
+import org.junit.Before;
+import org.junit.Test;
+
+public class FieldCacheTest {
+
+  private FieldCache fieldCache;
+  private IndexSettings indexSettings;
+
+  @Before
+  public void setup() {
+    indexSettings = mock(IndexSettings.class);
+    fieldCache = new FieldCache(new FieldFactory(), new SortRescoreListener());
+    fieldCache.setIndexSettings(indexSettings);
+
+    var metadata =
+        IndexMetadata.builder()
+            .field("address", "nested")
+            .field("address.geoLocation", "geo_point")
+            .field("rooms", "long")
+            .build();
+    fieldCache.onApplicationEvent(
+        new ClusterSettingsUpdatedEvent(
+            this, Map.of("index1", metadata, "index2", metadata, "index3", title())));
+  }
+
+  @Test
+  public void shouldGetTheFieldOfTheRequestIndex() {
+    when(indexSettings.getIndex()).thenReturn("index1");
+
+    var field = fieldCache.getField("address.geoLocation");
+    assertEquals("address.geoLocation", field.getName());
+    assertEquals("nested", field.getTypeFirstName());
+    assertEquals("geo_point", field.getType());
+  }
+
+  @Test
+  public void shouldShareTheFieldsOfIndicesWithTheSameMapping() {
+    when(indexSettings.getIndex()).thenReturn("index1");
+    var field = fieldCache.getField("rooms");
+    var id = fieldCache.getField("_id");
+
+    when(indexSettings.getIndex()).thenReturn("index2");
+    assertSame(field, fieldCache.getField("rooms"));
+    assertSame(id, fieldCache.getField("_id"));
+
+    when(indexSettings.getIndex()).thenReturn("index3");
+    assertSame(id, fieldCache.getField("_id"));
+  }
+
+  @Test(expected = InvalidFieldException.class)
+  public void shouldFailForAFieldOfAnotherIndex() {
+    when(indexSettings.getIndex()).thenReturn("index3");
+    fieldCache.getField("rooms");
+  }
+
+  @Test(expected = InvalidFieldException.class)
+  public void shouldFailForAnUnknownIndex() {
+    when(indexSettings.getIndex()).thenReturn("unknown");
+    fieldCache.getField("rooms");
+  }
+
+  @Test
+  public void shouldCheckTheFieldsOfTheIndex() {
+    assertTrue(fieldCache.isIndexHasField("index1", "address"));
+    assertTrue(fieldCache.isIndexHasField("index3", "_score"));
+    assertFalse(fieldCache.isIndexHasField("index3", "address"));
+    assertFalse(fieldCache.isIndexHasField("unknown", "_id"));
+  }
+
+  @Test
+  public void shouldReplaceTheFieldsAndIncrementTheVersion() {
+    var version = fieldCache.getVersion();
+    fieldCache.onApplicationEvent(new ClusterSettingsUpdatedEvent(this, Map.of("index1", title())));
+
+    assertEquals(version + 1, fieldCache.getVersion());
+    assertTrue(fieldCache.isIndexHasField("index1", "title"));
+    assertFalse(fieldCache.isIndexHasField("index1", "rooms"));
+    assertFalse(fieldCache.isIndexHasField("index2", "rooms"));
+  }
+
+  @Test
+  public void shouldRebuildOnlyTheChangedIndices() {
+    when(indexSettings.getIndex()).thenReturn("index1");
+    var field = fieldCache.getField("rooms");
+
+    var metadata = IndexMetadata.builder().field("rooms", "integer").build();
+    fieldCache.onApplicationEvent(
+        new ClusterSettingsUpdatedEvent(
+            this,
+            Map.of("index1", metadata, "index2", metadata, "index3", title()),
+            Set.of("index2")));
+
+    assertSame(field, fieldCache.getField("rooms"));
+    when(indexSettings.getIndex()).thenReturn("index2");
+    assertEquals("integer", fieldCache.getField("rooms").getType());
+  }
+
+  @Test
+  public void shouldGetTheRescoreFieldsOfTheIndex() {
+    var sortRescoreListener = mock(SortRescoreListener.class);
+    when(sortRescoreListener.getRescorerOrders("index3"))
+        .thenReturn(Map.of("rescore", mock(SortRescore.class)));
+    when(sortRescoreListener.getRescorerOrders("index1")).thenReturn(Map.of());
+    setInternalState(fieldCache, "sortRescoreListener", sortRescoreListener);
+
+    when(indexSettings.getIndex()).thenReturn("index3");
+    assertEquals("_rescore", fieldCache.getField("rescore").getType());
+    assertSame(fieldCache.getField("rescore"), fieldCache.getField("rescore"));
+    assertTrue(fieldCache.isIndexHasField("index3", "rescore"));
+    assertFalse(fieldCache.isIndexHasField("index1", "rescore"));
+  }
+
+  @Test
+  public void shouldGetTheStoredScriptsOfTheIndex() {
+    fieldCache.onApplicationEvent(
+        new ClusterSettingsUpdatedEvent(
+            this,
+            Map.of("index1", IndexMetadata.builder().scripts(Set.of("index1_score")).build())));
+
+    when(indexSettings.getIndex()).thenReturn("index1");
+    assertEquals("_script", fieldCache.getField("index1_score").getType());
+  }
+
+  private static IndexMetadata title() {
+    return IndexMetadata.builder().field("title", "text").build();
+  }
+}
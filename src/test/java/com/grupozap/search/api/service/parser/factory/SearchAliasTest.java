@@ -0,0 +1,57 @@
+package com.grupozap.search.api.service.parser.factory;
+
+import static com.grupozap.search.api.configuration.environment.RemoteProperties.ES_ALIAS;
+import static com.grupozap.search.api.configuration.environment.RemoteProperties.QS_MM;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.grupozap.search.api.service.parser.IndexSettings;
+import java.util.Map;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class SearchAliasTest {
+
+  private static final String INDEX = "search_alias_index";
+
+  private SearchAlias searchAlias;
+
+  @Before
+  public void setup() {
+    var indexSettings = mock(IndexSettings.class);
+    when(indexSettings.getIndex()).thenReturn(INDEX);
+    searchAlias = new SearchAlias(indexSettings);
+  }
+
+  @After
+  public void tearDown() {
+    ES_ALIAS.setValue(INDEX, null);
+    QS_MM.setValue(INDEX, null);
+  }
+
+  @Test
+  public void shouldKeepTheVersionWhenOtherPropertiesArePublished() {
+    ES_ALIAS.setValue(INDEX, Map.of("fields", Map.of("alias", "field")));
+    var version = searchAlias.getVersion();
+
+    QS_MM.setValue(INDEX, "75%");
+    QS_MM.setValue("other_search_alias_index", "75%");
+
+    assertEquals(version, searchAlias.getVersion());
+    assertEquals("field", searchAlias.getFieldAlias("alias"));
+  }
+
+  @Test
+  public void shouldChangeTheVersionWhenTheAliasesChange() {
+    ES_ALIAS.setValue(INDEX, Map.of("fields", Map.of("alias", "field")));
+    var version = searchAlias.getVersion();
+
+    ES_ALIAS.setValue(INDEX, Map.of("fields", Map.of("alias", "other_field")));
+
+    assertTrue(searchAlias.getVersion() > version);
+    assertEquals("other_field", searchAlias.getFieldAlias("alias"));
+  }
+}